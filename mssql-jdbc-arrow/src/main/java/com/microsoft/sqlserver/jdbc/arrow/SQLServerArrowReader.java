@@ -0,0 +1,378 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc.arrow;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DateDayVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeMicroVector;
+import org.apache.arrow.vector.TimeStampMicroVector;
+import org.apache.arrow.vector.UInt1Vector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.DateUnit;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+
+import com.microsoft.sqlserver.jdbc.ISQLServerResultSet;
+import com.microsoft.sqlserver.jdbc.SQLServerColumnBatch;
+
+
+/**
+ * Reads the rows of a result set into Apache Arrow vectors, a batch of rows at a time.
+ *
+ * The rows are fetched with {@link ISQLServerResultSet#nextBatch(int)}, so integral, floating point and Unicode
+ * character values are copied from the response into the Arrow vectors without creating an object per value. The
+ * Arrow schema is derived from the result set metadata; see {@link #toArrowType(int, int, int)} for the type mapping.
+ *
+ * The reader fills the same {@link VectorSchemaRoot} for every batch, so the contents of a batch must be consumed before
+ * the next call to {@link #loadNextBatch()}. Closing the reader releases the vectors; the result set is owned by the
+ * caller and is not closed.
+ *
+ * <pre>
+ * try (ResultSet rs = stmt.executeQuery(sql);
+ *         SQLServerArrowReader reader = new SQLServerArrowReader(rs, allocator, 4096)) {
+ *     VectorSchemaRoot root = reader.getVectorSchemaRoot();
+ *     while (reader.loadNextBatch()) {
+ *         // consume root
+ *     }
+ * }
+ * </pre>
+ */
+public final class SQLServerArrowReader implements AutoCloseable {
+    private final ISQLServerResultSet resultSet;
+    private final int batchSize;
+    private final VectorSchemaRoot root;
+    private final int[] jdbcTypes;
+    private ColumnWriter[] writers;
+    private byte[] utf8 = new byte[256];
+
+    /**
+     * Creates a reader of the rows of a result set of the Microsoft JDBC Driver for SQL Server.
+     *
+     * @param resultSet
+     *        the result set, which must be positioned before the first row to read
+     * @param allocator
+     *        the allocator of the vector buffers
+     * @param batchSize
+     *        the maximum number of rows of each batch, which must be positive
+     * @throws SQLException
+     *         if the result set is not a result set of this driver, or its metadata cannot be read
+     */
+    public SQLServerArrowReader(ResultSet resultSet, BufferAllocator allocator, int batchSize) throws SQLException {
+        if (batchSize <= 0)
+            throw new IllegalArgumentException("batchSize " + batchSize);
+        this.resultSet = resultSet.unwrap(ISQLServerResultSet.class);
+        this.batchSize = batchSize;
+
+        ResultSetMetaData metaData = resultSet.getMetaData();
+        jdbcTypes = new int[metaData.getColumnCount()];
+        for (int i = 0; i < jdbcTypes.length; i++)
+            jdbcTypes[i] = metaData.getColumnType(i + 1);
+
+        root = VectorSchemaRoot.create(toArrowSchema(metaData), allocator);
+        for (FieldVector vector : root.getFieldVectors())
+            vector.setInitialCapacity(batchSize);
+        root.allocateNew();
+    }
+
+    /**
+     * Returns the Arrow schema of the rows of a result set.
+     *
+     * @param metaData
+     *        the metadata of the result set
+     * @return the schema, with a nullable field per column named after the column label
+     * @throws SQLException
+     *         if the metadata cannot be read
+     */
+    public static Schema toArrowSchema(ResultSetMetaData metaData) throws SQLException {
+        List<Field> fields = new ArrayList<>(metaData.getColumnCount());
+        for (int i = 1; i <= metaData.getColumnCount(); i++) {
+            ArrowType type = toArrowType(metaData.getColumnType(i), metaData.getPrecision(i), metaData.getScale(i));
+            boolean nullable = ResultSetMetaData.columnNoNulls != metaData.isNullable(i);
+            fields.add(new Field(metaData.getColumnLabel(i), new FieldType(nullable, type, null), null));
+        }
+        return new Schema(fields);
+    }
+
+    /**
+     * Returns the Arrow type that values of a SQL Server column are read into. Integral, floating point, decimal,
+     * binary, date and time types map to the corresponding Arrow types: TINYINT, which is unsigned in SQL Server, maps
+     * to an unsigned 8-bit integer, and DATETIME, DATETIME2 and SMALLDATETIME map to timestamps in microseconds without
+     * a time zone. Character types map to UTF-8 strings, as do the types that have no Arrow counterpart, such as
+     * UNIQUEIDENTIFIER, DATETIMEOFFSET and SQL_VARIANT, whose values are read as strings.
+     *
+     * @param jdbcType
+     *        the type of the column, from {@link java.sql.Types} or {@link microsoft.sql.Types}
+     * @param precision
+     *        the precision of the column
+     * @param scale
+     *        the scale of the column
+     * @return the Arrow type
+     */
+    public static ArrowType toArrowType(int jdbcType, int precision, int scale) {
+        switch (jdbcType) {
+            case Types.BIT:
+            case Types.BOOLEAN:
+                return ArrowType.Bool.INSTANCE;
+            case Types.TINYINT:
+                return new ArrowType.Int(8, false);
+            case Types.SMALLINT:
+                return new ArrowType.Int(16, true);
+            case Types.INTEGER:
+                return new ArrowType.Int(32, true);
+            case Types.BIGINT:
+                return new ArrowType.Int(64, true);
+            case Types.REAL:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.SINGLE);
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                return new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                return new ArrowType.Decimal(precision, scale, 128);
+            case microsoft.sql.Types.MONEY:
+                return new ArrowType.Decimal(19, 4, 128);
+            case microsoft.sql.Types.SMALLMONEY:
+                return new ArrowType.Decimal(10, 4, 128);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
+            case Types.BLOB:
+                return ArrowType.Binary.INSTANCE;
+            case Types.DATE:
+                return new ArrowType.Date(DateUnit.DAY);
+            case Types.TIME:
+                return new ArrowType.Time(TimeUnit.MICROSECOND, 64);
+            case Types.TIMESTAMP:
+            case microsoft.sql.Types.DATETIME:
+            case microsoft.sql.Types.SMALLDATETIME:
+                return new ArrowType.Timestamp(TimeUnit.MICROSECOND, null);
+            default:
+                return ArrowType.Utf8.INSTANCE;
+        }
+    }
+
+    /**
+     * Returns the vectors that each batch is read into.
+     *
+     * @return the vectors
+     */
+    public VectorSchemaRoot getVectorSchemaRoot() {
+        return root;
+    }
+
+    /**
+     * Reads the next batch of rows into the vectors, replacing the previous batch.
+     *
+     * @return whether a batch was read; false if the result set has no more rows
+     * @throws SQLException
+     *         if the rows cannot be read
+     */
+    public boolean loadNextBatch() throws SQLException {
+        SQLServerColumnBatch batch = resultSet.nextBatch(batchSize);
+        if (null == writers)
+            writers = createWriters(batch);
+
+        List<FieldVector> vectors = root.getFieldVectors();
+        int rowCount = batch.getRowCount();
+        for (int i = 0; i < writers.length; i++) {
+            FieldVector vector = vectors.get(i);
+            vector.reset();
+            int column = i + 1;
+            long[] nulls = batch.getNullBitmap(column);
+            for (int row = 0; row < rowCount; row++) {
+                if (0 == (nulls[row >> 6] & (1L << row)))
+                    writers[i].write(batch, column, row);
+            }
+            vector.setValueCount(rowCount);
+        }
+        root.setRowCount(rowCount);
+        return 0 != rowCount;
+    }
+
+    @Override
+    public void close() {
+        root.close();
+    }
+
+    /**
+     * Copies the value of a column in a row of a batch, which is not null, into the vector of the column.
+     */
+    private interface ColumnWriter {
+        void write(SQLServerColumnBatch batch, int column, int row) throws SQLException;
+    }
+
+    private ColumnWriter[] createWriters(SQLServerColumnBatch batch) throws SQLException {
+        ColumnWriter[] columnWriters = new ColumnWriter[jdbcTypes.length];
+        for (int i = 0; i < columnWriters.length; i++)
+            columnWriters[i] = createWriter(root.getVector(i), batch.getVectorType(i + 1));
+        return columnWriters;
+    }
+
+    private ColumnWriter createWriter(FieldVector vector, SQLServerColumnBatch.VectorType vectorType) {
+        switch (vectorType) {
+            case INT:
+                if (vector instanceof BitVector)
+                    return (b, c, r) -> ((BitVector) vector).setSafe(r, b.getIntVector(c)[r]);
+                if (vector instanceof UInt1Vector)
+                    return (b, c, r) -> ((UInt1Vector) vector).setSafe(r, b.getIntVector(c)[r]);
+                if (vector instanceof SmallIntVector)
+                    return (b, c, r) -> ((SmallIntVector) vector).setSafe(r, b.getIntVector(c)[r]);
+                if (vector instanceof IntVector)
+                    return (b, c, r) -> ((IntVector) vector).setSafe(r, b.getIntVector(c)[r]);
+                break;
+            case LONG:
+                if (vector instanceof BigIntVector)
+                    return (b, c, r) -> ((BigIntVector) vector).setSafe(r, b.getLongVector(c)[r]);
+                break;
+            case DOUBLE:
+                if (vector instanceof Float4Vector)
+                    return (b, c, r) -> ((Float4Vector) vector).setSafe(r, (float) b.getDoubleVector(c)[r]);
+                if (vector instanceof Float8Vector)
+                    return (b, c, r) -> ((Float8Vector) vector).setSafe(r, b.getDoubleVector(c)[r]);
+                break;
+            case STRING:
+                if (vector instanceof VarCharVector)
+                    return (b, c, r) -> writeUtf8((VarCharVector) vector, r, b.getStringData(c), b.getOffsets(c)[r],
+                            b.getOffsets(c)[r + 1]);
+                break;
+            case BINARY:
+                if (vector instanceof VarBinaryVector)
+                    return (b, c, r) -> ((VarBinaryVector) vector).setSafe(r, b.getBinaryData(c), b.getOffsets(c)[r],
+                            b.getOffsets(c)[r + 1] - b.getOffsets(c)[r]);
+                break;
+            default:
+                break;
+        }
+        return (b, c, r) -> writeObject(vector, r, b, c);
+    }
+
+    /**
+     * Copies a value that the batch did not store in a vector of a matching type.
+     */
+    private void writeObject(FieldVector vector, int row, SQLServerColumnBatch batch,
+            int column) throws SQLException {
+        Object value = getObject(batch, column, row);
+        if (vector instanceof DecimalVector) {
+            DecimalVector decimalVector = (DecimalVector) vector;
+            decimalVector.setSafe(row, ((BigDecimal) value).setScale(decimalVector.getScale(), RoundingMode.HALF_UP));
+        } else if (vector instanceof DateDayVector) {
+            ((DateDayVector) vector).setSafe(row, (int) toLocalDate(value).toEpochDay());
+        } else if (vector instanceof TimeMicroVector) {
+            ((TimeMicroVector) vector).setSafe(row, toLocalTime(value).toNanoOfDay() / 1000);
+        } else if (vector instanceof TimeStampMicroVector) {
+            LocalDateTime dateTime = toLocalDateTime(value);
+            ((TimeStampMicroVector) vector).setSafe(row,
+                    dateTime.toEpochSecond(ZoneOffset.UTC) * 1000000 + dateTime.getNano() / 1000);
+        } else if (vector instanceof VarCharVector) {
+            String string = value.toString();
+            writeUtf8((VarCharVector) vector, row, string.toCharArray(), 0, string.length());
+        } else if (vector instanceof VarBinaryVector) {
+            byte[] bytes = (byte[]) value;
+            ((VarBinaryVector) vector).setSafe(row, bytes, 0, bytes.length);
+        } else if (vector instanceof BitVector) {
+            ((BitVector) vector).setSafe(row, ((Boolean) value) ? 1 : 0);
+        } else {
+            throw new SQLException("Cannot read column " + column + " of type " + jdbcTypes[column - 1] + " into "
+                    + vector.getField().getType());
+        }
+    }
+
+    private static Object getObject(SQLServerColumnBatch batch, int column, int row) throws SQLException {
+        switch (batch.getVectorType(column)) {
+            case INT:
+                return batch.getIntVector(column)[row];
+            case LONG:
+                return batch.getLongVector(column)[row];
+            case DOUBLE:
+                return batch.getDoubleVector(column)[row];
+            case STRING:
+                return batch.getString(column, row);
+            case BINARY:
+                int[] offsets = batch.getOffsets(column);
+                return Arrays.copyOfRange(batch.getBinaryData(column), offsets[row], offsets[row + 1]);
+            default:
+                return batch.getObjectVector(column)[row];
+        }
+    }
+
+    private static LocalDate toLocalDate(Object value) {
+        return (value instanceof java.sql.Date) ? ((java.sql.Date) value).toLocalDate()
+                                                : toLocalDateTime(value).toLocalDate();
+    }
+
+    private static LocalTime toLocalTime(Object value) {
+        // The batch holds TIME values as LocalTime, which keeps the fractional seconds that java.sql.Time drops
+        return (value instanceof LocalTime) ? (LocalTime) value : toLocalDateTime(value).toLocalTime();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        return (value instanceof java.sql.Timestamp) ? ((java.sql.Timestamp) value).toLocalDateTime()
+                                                     : LocalDateTime.parse(value.toString().replace(' ', 'T'));
+    }
+
+    /**
+     * Encodes the characters from start up to, but not including, end as UTF-8 into the vector, without creating a
+     * String.
+     */
+    private void writeUtf8(VarCharVector vector, int row, char[] chars, int start, int end) {
+        if (utf8.length < (end - start) * 3)
+            utf8 = new byte[Math.max(utf8.length * 2, (end - start) * 3)];
+
+        byte[] bytes = utf8;
+        int length = 0;
+        for (int i = start; i < end; i++) {
+            char c = chars[i];
+            if (c < 0x80) {
+                bytes[length++] = (byte) c;
+            } else if (c < 0x800) {
+                bytes[length++] = (byte) (0xC0 | (c >> 6));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < end && Character.isLowSurrogate(chars[i + 1])) {
+                int codePoint = Character.toCodePoint(c, chars[++i]);
+                bytes[length++] = (byte) (0xF0 | (codePoint >> 18));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                bytes[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                // Unpaired surrogates are replaced, as String.getBytes() does
+                bytes[length++] = (byte) '?';
+            } else {
+                bytes[length++] = (byte) (0xE0 | (c >> 12));
+                bytes[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                bytes[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        vector.setSafe(row, bytes, 0, length);
+    }
+}
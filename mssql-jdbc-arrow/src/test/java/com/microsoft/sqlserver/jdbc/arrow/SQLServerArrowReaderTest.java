@@ -0,0 +1,113 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc.arrow;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalTime;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.BitVector;
+import org.apache.arrow.vector.DecimalVector;
+import org.apache.arrow.vector.Float4Vector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.SmallIntVector;
+import org.apache.arrow.vector.TimeMicroVector;
+import org.apache.arrow.vector.UInt1Vector;
+import org.apache.arrow.vector.VarBinaryVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.junit.jupiter.api.Test;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests reading result sets into Arrow vectors
+ */
+public class SQLServerArrowReaderTest {
+
+    private static final Column[] COLUMNS = {Column.of("ti", ColumnType.TINYINT),
+            Column.of("si", ColumnType.SMALLINT), Column.of("i", ColumnType.INT), Column.of("bi", ColumnType.BIGINT),
+            Column.of("b", ColumnType.BIT), Column.of("r", ColumnType.REAL), Column.of("f", ColumnType.FLOAT),
+            Column.decimal("d", 12, 3), Column.of("nv", ColumnType.NVARCHAR, 50),
+            Column.of("v", ColumnType.VARCHAR, 50), Column.of("vb", ColumnType.VARBINARY, 50),
+            Column.of("t", ColumnType.TIME)};
+
+    private static Object[] row(int i) {
+        if (0 == i % 5)
+            return new Object[COLUMNS.length];
+        return new Object[] {200 + i % 50, -i, i * 1000, (long) i << 40, 0 == i % 2, i / 2.0f, i / 8.0,
+                BigDecimal.valueOf(i * 1001L, 3), "été " + i + " 😀", "v" + i,
+                new byte[] {(byte) i, 0, -1}, time(i)};
+    }
+
+    private static LocalTime time(int i) {
+        return LocalTime.of(i % 24, i % 60, 59, i * 1234500);
+    }
+
+    @Test
+    public void testReadBatches() throws Exception {
+        int rowCount = 250;
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, rowCount,
+                SQLServerArrowReaderTest::row));
+                Connection conn = DriverManager.getConnection(server.getConnectionString() + "packetSize=512;");
+                Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t");
+                BufferAllocator allocator = new RootAllocator();
+                SQLServerArrowReader reader = new SQLServerArrowReader(rs, allocator, 100)) {
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            assertEquals(new ArrowType.Int(8, false), root.getSchema().getFields().get(0).getType());
+            assertEquals(new ArrowType.Decimal(12, 3, 128), root.getSchema().getFields().get(7).getType());
+            assertEquals("nv", root.getSchema().getFields().get(8).getName());
+
+            int first = 0;
+            while (reader.loadNextBatch()) {
+                assertTrue(root.getRowCount() <= 100);
+                for (int r = 0; r < root.getRowCount(); r++) {
+                    int i = first + r;
+                    if (0 == i % 5) {
+                        for (int c = 0; c < COLUMNS.length; c++)
+                            assertTrue(root.getVector(c).isNull(r));
+                        continue;
+                    }
+                    assertEquals(200 + i % 50, ((UInt1Vector) root.getVector(0)).getValueAsLong(r));
+                    assertEquals(-i, ((SmallIntVector) root.getVector(1)).get(r));
+                    assertEquals(i * 1000, ((IntVector) root.getVector(2)).get(r));
+                    assertEquals((long) i << 40, ((BigIntVector) root.getVector(3)).get(r));
+                    assertEquals(0 == i % 2 ? 1 : 0, ((BitVector) root.getVector(4)).get(r));
+                    assertEquals(i / 2.0f, ((Float4Vector) root.getVector(5)).get(r));
+                    assertEquals(i / 8.0, ((Float8Vector) root.getVector(6)).get(r));
+                    assertEquals(BigDecimal.valueOf(i * 1001L, 3), ((DecimalVector) root.getVector(7)).getObject(r));
+                    assertEquals("été " + i + " 😀",
+                            ((VarCharVector) root.getVector(8)).getObject(r).toString());
+                    assertEquals("v" + i, ((VarCharVector) root.getVector(9)).getObject(r).toString());
+                    assertArrayEquals(new byte[] {(byte) i, 0, -1}, ((VarBinaryVector) root.getVector(10)).get(r));
+                    // TIME(7) values keep their microseconds
+                    assertEquals(time(i).toNanoOfDay() / 1000, ((TimeMicroVector) root.getVector(11)).get(r));
+                }
+                first += root.getRowCount();
+            }
+            assertEquals(rowCount, first);
+            assertEquals(0, root.getRowCount());
+            assertFalse(rs.next());
+        }
+    }
+}
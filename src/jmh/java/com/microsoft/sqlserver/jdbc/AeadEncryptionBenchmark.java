@@ -0,0 +1,71 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures Always Encrypted cell encryption and decryption with SQLServerAeadAes256CbcHmac256Algorithm.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AeadEncryptionBenchmark {
+
+    private static final byte ALGORITHM_VERSION = 0x01;
+
+    @Param({"Deterministic", "Randomized"})
+    public String encryptionType;
+
+    @Param({"16", "1024", "8192"})
+    public int size;
+
+    private SQLServerAeadAes256CbcHmac256Algorithm algorithm;
+    private byte[] plainText;
+    private byte[] cipherText;
+
+    @Setup
+    public void setup() throws SQLServerException {
+        Random random = new Random(size);
+        byte[] rootKey = new byte[32];
+        random.nextBytes(rootKey);
+        plainText = new byte[size];
+        random.nextBytes(plainText);
+
+        SQLServerAeadAes256CbcHmac256EncryptionKey key = new SQLServerAeadAes256CbcHmac256EncryptionKey(rootKey,
+                SQLServerAeadAes256CbcHmac256Algorithm.algorithmName);
+        algorithm = new SQLServerAeadAes256CbcHmac256Algorithm(key, SQLServerEncryptionType.valueOf(encryptionType),
+                ALGORITHM_VERSION);
+        cipherText = algorithm.encryptData(plainText);
+    }
+
+    @Benchmark
+    public byte[] encrypt() throws SQLServerException {
+        return algorithm.encryptData(plainText);
+    }
+
+    @Benchmark
+    public byte[] decrypt() throws SQLServerException {
+        return algorithm.decryptData(cipherText);
+    }
+}
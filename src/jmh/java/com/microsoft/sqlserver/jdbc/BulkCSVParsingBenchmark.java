@@ -0,0 +1,73 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+
+/**
+ * Measures SQLServerBulkCSVFileRecord parsing of an in-memory CSV file into the row values passed to bulk copy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BulkCSVParsingBenchmark {
+
+    private static final int ROWS = 10000;
+
+    @Param({"false", "true"})
+    public boolean escapeDelimiters;
+
+    private byte[] csv;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("id,name,amount,ratio\n");
+        for (int i = 0; i < ROWS; i++) {
+            builder.append(i).append(',');
+            if (escapeDelimiters)
+                builder.append("\"customer, ").append(i).append('"');
+            else
+                builder.append("customer ").append(i);
+            builder.append(',').append(i).append('.').append(i % 100).append(',').append(i * 0.125).append('\n');
+        }
+        csv = builder.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) throws SQLServerException {
+        try (SQLServerBulkCSVFileRecord record = new SQLServerBulkCSVFileRecord(new ByteArrayInputStream(csv),
+                StandardCharsets.UTF_8.name(), ",", true)) {
+            record.setEscapeColumnDelimitersCSV(escapeDelimiters);
+            record.addColumnMetadata(1, "id", Types.INTEGER, 0, 0);
+            record.addColumnMetadata(2, "name", Types.NVARCHAR, 50, 0);
+            record.addColumnMetadata(3, "amount", Types.DECIMAL, 18, 2);
+            record.addColumnMetadata(4, "ratio", Types.DOUBLE, 0, 0);
+            while (record.next()) {
+                blackhole.consume(record.getRowData());
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.sqlserver.jdbc.SQLServerConnection.CityHash128Key;
+
+
+/**
+ * Measures the CityHash computation of the keys of the parsed SQL and prepared statement handle caches.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CacheKeyBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int parameterCount;
+
+    private String sql;
+    private String parameterDefinitions;
+
+    @Setup
+    public void setup() {
+        StringBuilder columns = new StringBuilder();
+        StringBuilder values = new StringBuilder();
+        StringBuilder definitions = new StringBuilder();
+        for (int i = 0; i < parameterCount; i++) {
+            String separator = (0 == i) ? "" : ",";
+            columns.append(separator).append("column").append(i);
+            values.append(separator).append("@P").append(i);
+            definitions.append(separator).append("@P").append(i).append(" nvarchar(4000)");
+        }
+        sql = "INSERT INTO dbo.benchmark (" + columns + ") VALUES (" + values + ")";
+        parameterDefinitions = definitions.toString();
+    }
+
+    @Benchmark
+    public CityHash128Key sqlKey() {
+        return new CityHash128Key(sql);
+    }
+
+    @Benchmark
+    public int preparedStatementKey() {
+        return new CityHash128Key(sql, parameterDefinitions).hashCode();
+    }
+}
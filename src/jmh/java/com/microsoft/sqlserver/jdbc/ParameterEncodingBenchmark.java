@@ -0,0 +1,134 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Measures the TDSWriter encoding of RPC parameters of each type, by executing a batch of parameterized inserts
+ * against the FakeTDSServer. The batch is sent as one TDS message of many RPCs, so the time is dominated by the
+ * parameter setters and their encoding.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ParameterEncodingBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int PARAMETERS = 4;
+
+    @Param({"INT", "BIGINT", "DOUBLE", "DECIMAL", "NVARCHAR", "VARCHAR", "VARBINARY", "DATETIME2"})
+    public String type;
+
+    private FakeTDSServer server;
+    private Connection connection;
+    private PreparedStatement statement;
+    private Object[] values;
+
+    @Setup
+    public void setup() throws Exception {
+        server = FakeTDSServer.start(sql -> FakeTDSResponse.updateCount(1));
+        connection = DriverManager.getConnection(
+                server.getConnectionString() + "sendStringParametersAsUnicode=" + !"VARCHAR".equals(type) + ";");
+        statement = connection.prepareStatement("INSERT INTO t VALUES (?, ?, ?, ?)");
+
+        values = new Object[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            values[i] = value(i);
+        }
+    }
+
+    private Object value(int i) {
+        switch (type) {
+            case "INT":
+                return i * 1000;
+            case "BIGINT":
+                return (long) i << 40;
+            case "DOUBLE":
+                return i * 0.25;
+            case "DECIMAL":
+                return BigDecimal.valueOf(i * 1000003L, 4);
+            case "NVARCHAR":
+            case "VARCHAR":
+                return "parameter value " + i;
+            case "VARBINARY":
+                byte[] bytes = new byte[32];
+                bytes[0] = (byte) i;
+                return bytes;
+            case "DATETIME2":
+                return new Timestamp(1600000000000L + i * 1000L);
+            default:
+                throw new IllegalArgumentException(type);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public int[] encodeBatch() throws SQLException {
+        for (int row = 0; row < BATCH_SIZE; row++) {
+            Object value = values[row];
+            for (int parameter = 1; parameter <= PARAMETERS; parameter++) {
+                switch (type) {
+                    case "INT":
+                        statement.setInt(parameter, (Integer) value);
+                        break;
+                    case "BIGINT":
+                        statement.setLong(parameter, (Long) value);
+                        break;
+                    case "DOUBLE":
+                        statement.setDouble(parameter, (Double) value);
+                        break;
+                    case "DECIMAL":
+                        statement.setBigDecimal(parameter, (BigDecimal) value);
+                        break;
+                    case "VARBINARY":
+                        statement.setBytes(parameter, (byte[]) value);
+                        break;
+                    case "DATETIME2":
+                        statement.setTimestamp(parameter, (Timestamp) value);
+                        break;
+                    default:
+                        statement.setString(parameter, (String) value);
+                        break;
+                }
+            }
+            statement.addBatch();
+        }
+        return statement.executeBatch();
+    }
+}
@@ -0,0 +1,73 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+
+/**
+ * Measures the SQLServerLexer and SQLServerParser processing of a statement into the metadata query used with
+ * useFmtOnly.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlParsingBenchmark {
+
+    @Param({"SELECT", "JOIN", "INSERT", "UPDATE", "DELETE", "CTE"})
+    public String statement;
+
+    private String sql;
+
+    @Setup
+    public void setup() {
+        switch (statement) {
+            case "SELECT":
+                sql = "SELECT id, name, amount FROM dbo.orders WHERE id = ? AND name LIKE ?";
+                break;
+            case "JOIN":
+                sql = "SELECT o.id, c.name, SUM(l.amount) FROM dbo.orders o "
+                        + "INNER JOIN dbo.customers c ON o.customer = c.id LEFT OUTER JOIN dbo.lines l ON l.orderId = o.id "
+                        + "WHERE o.created > ? AND c.region IN (?, ?, ?) GROUP BY o.id, c.name ORDER BY o.id";
+                break;
+            case "INSERT":
+                sql = "INSERT INTO dbo.orders (id, customer, name, amount, created) VALUES (?, ?, ?, ?, ?)";
+                break;
+            case "UPDATE":
+                sql = "UPDATE dbo.orders SET name = ?, amount = amount + ? WHERE id = ? AND customer = ?";
+                break;
+            case "DELETE":
+                sql = "DELETE FROM dbo.orders WHERE id = ? AND created < ?";
+                break;
+            case "CTE":
+                sql = "WITH recent AS (SELECT id, customer FROM dbo.orders WHERE created > ?) "
+                        + "SELECT r.id, c.name FROM recent r JOIN dbo.customers c ON r.customer = c.id WHERE c.id = ?";
+                break;
+            default:
+                throw new IllegalArgumentException(statement);
+        }
+    }
+
+    @Benchmark
+    public String parse() throws SQLServerException {
+        return new SQLServerFMTQuery(sql).getFMTQuery();
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Measures the TDSReader and DDC decoding of column values of each type the FakeTDSServer can return, by reading a
+ * result set of ROWS rows with getObject, or with the primitive and character array getters.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ValueDecodingBenchmark {
+
+    private static final int ROWS = 10000;
+    private static final int COLUMNS = 4;
+    private static final int DISTINCT_ROWS = 256;
+
+    @Param({"TINYINT", "SMALLINT", "INT", "BIGINT", "BIT", "REAL", "FLOAT", "DECIMAL", "NVARCHAR", "VARCHAR",
+            "VARBINARY"})
+    public ColumnType type;
+
+    private FakeTDSServer server;
+    private Connection connection;
+    private Statement statement;
+
+    @Setup
+    public void setup() throws Exception {
+        Column[] columns = new Column[COLUMNS];
+        for (int i = 0; i < COLUMNS; i++) {
+            String name = "c" + i;
+            switch (type) {
+                case NVARCHAR:
+                case VARCHAR:
+                    columns[i] = Column.of(name, type, 50);
+                    break;
+                case VARBINARY:
+                    columns[i] = Column.of(name, type, 32);
+                    break;
+                case DECIMAL:
+                    columns[i] = Column.decimal(name, 20, 4);
+                    break;
+                default:
+                    columns[i] = Column.of(name, type);
+                    break;
+            }
+        }
+
+        // The server cycles through a few distinct rows, so that generating them costs little next to decoding
+        Object[][] rows = new Object[DISTINCT_ROWS][COLUMNS];
+        for (int row = 0; row < DISTINCT_ROWS; row++) {
+            for (int column = 0; column < COLUMNS; column++) {
+                rows[row][column] = value(row * COLUMNS + column);
+            }
+        }
+
+        server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(columns, ROWS, i -> rows[i % DISTINCT_ROWS]));
+        connection = DriverManager.getConnection(server.getConnectionString());
+        statement = connection.createStatement();
+    }
+
+    private Object value(int i) {
+        switch (type) {
+            case TINYINT:
+                return i & 0x7F;
+            case SMALLINT:
+                return i * 7;
+            case INT:
+                return i * 1000003;
+            case BIGINT:
+                return (long) i << 40;
+            case BIT:
+                return 0 == i % 2;
+            case REAL:
+                return i * 0.5f;
+            case FLOAT:
+                return i * 0.25;
+            case DECIMAL:
+                return BigDecimal.valueOf(i * 1000003L, 4);
+            case NVARCHAR:
+            case VARCHAR:
+                return "column value " + i;
+            case VARBINARY:
+                byte[] bytes = new byte[32];
+                bytes[0] = (byte) i;
+                return bytes;
+            default:
+                throw new IllegalArgumentException(type.toString());
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        statement.close();
+        connection.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void decodeResultSet(Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = statement.executeQuery("SELECT * FROM t")) {
+            while (rs.next()) {
+                for (int column = 1; column <= COLUMNS; column++) {
+                    blackhole.consume(rs.getObject(column));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void decodeResultSetPrimitive(Blackhole blackhole) throws SQLException {
+        char[] chars = new char[50];
+        try (SQLServerResultSet rs = (SQLServerResultSet) statement.executeQuery("SELECT * FROM t")) {
+            while (rs.next()) {
+                for (int column = 1; column <= COLUMNS; column++) {
+                    switch (type) {
+                        case REAL:
+                        case FLOAT:
+                        case DECIMAL:
+                            blackhole.consume(rs.getDouble(column));
+                            break;
+                        case NVARCHAR:
+                        case VARCHAR:
+                            blackhole.consume(rs.getChars(column, chars, 0));
+                            break;
+                        case VARBINARY:
+                            blackhole.consume(rs.getBytes(column));
+                            break;
+                        default:
+                            blackhole.consume(rs.getLong(column));
+                            break;
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.io.Serializable;
+
+
+/**
+ * AdaptiveFetchSize sizes the server cursor fetches of a result set so that each fetch returns about a window of bytes
+ * of rows, however wide or narrow the rows are.
+ *
+ * The width of the rows is estimated from the size of the responses to the fetches so far. The window starts at the
+ * target set with the serverCursorFetchWindow connection property. While fetches take hardly longer than the quickest
+ * fetch so far, the round trip rather than the transfer of the rows dominates them, so the window doubles, up to
+ * MAX_WINDOW_FACTOR times the target. Once the transfer dominates, the window halves back towards the target.
+ */
+final class AdaptiveFetchSize implements Serializable {
+    /**
+     * Always update serialVersionUID when prompted.
+     */
+    private static final long serialVersionUID = 4218436652468907617L;
+
+    /** Most rows fetched at a time, which also bounds the size of the scroll window */
+    static final int MAX_ROWS = 32768;
+
+    /** Most times the target that the window grows to while the round-trip latency dominates the fetches */
+    static final int MAX_WINDOW_FACTOR = 8;
+
+    private final long targetBytes;
+    private long windowBytes;
+
+    /** Estimated bytes per row, or 0 until a fetch has returned rows */
+    private double rowBytes = 0;
+
+    /** Duration of the quickest fetch so far, which approximates the round-trip latency */
+    private long minFetchNanos = Long.MAX_VALUE;
+
+    AdaptiveFetchSize(long targetBytes) {
+        assert targetBytes > 0;
+        this.targetBytes = targetBytes;
+        this.windowBytes = targetBytes;
+    }
+
+    /**
+     * Accounts for a completed fetch.
+     *
+     * @param responseBytes
+     *        the number of bytes of the response to the fetch
+     * @param rows
+     *        the number of rows the fetch returned
+     * @param fetchNanos
+     *        the time from sending the fetch until its response was read
+     */
+    void onFetch(long responseBytes, int rows, long fetchNanos) {
+        if (rows <= 0)
+            return;
+
+        double observedRowBytes = (double) responseBytes / rows;
+        rowBytes = (0 == rowBytes) ? observedRowBytes : (rowBytes + observedRowBytes) / 2;
+
+        minFetchNanos = Math.min(minFetchNanos, fetchNanos);
+        if (fetchNanos < 2 * minFetchNanos)
+            windowBytes = Math.min(2 * windowBytes, MAX_WINDOW_FACTOR * targetBytes);
+        else if (fetchNanos > 4 * minFetchNanos)
+            windowBytes = Math.max(windowBytes / 2, targetBytes);
+    }
+
+    /**
+     * Returns the number of rows to fetch next.
+     *
+     * @param defaultRows
+     *        the number of rows to fetch before the width of the rows is known
+     */
+    int getRows(int defaultRows) {
+        if (0 == rowBytes)
+            return defaultRows;
+
+        return (int) Math.max(1, Math.min(MAX_ROWS, (long) (windowBytes / rowBytes)));
+    }
+
+    long getWindowBytes() {
+        return windowBytes;
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Runs statement executions for the CompletableFuture based statement APIs (executeQueryAsync, executeUpdateAsync).
+ *
+ * Each execution runs the regular blocking execute path on an executor thread rather than on the caller's thread. By
+ * default a driver-wide pool of daemon threads is used, with one thread per available processor and a bounded queue of
+ * waiting executions; the threads are created on demand and exit after being idle for a minute, so applications that
+ * never use the async APIs do not have any extra threads running. Executions submitted while the pool and its queue
+ * are full fail with a SQLServerException rather than starting more threads. Callers that want more executions in
+ * flight, or a different threading model (for example, a virtual thread per task executor on newer JVMs), can supply
+ * their own Executor.
+ *
+ * Cancelling the returned future cancels the statement if its execution has already started, and skips the execution
+ * if it has not.
+ */
+final class AsyncExecutor {
+    static final String THREAD_PREFIX = "mssql-jdbc-async-";
+    static final String READ_AHEAD_THREAD_PREFIX = "mssql-jdbc-read-ahead-";
+
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.AsyncExecutor");
+
+    private static final AtomicLong THREAD_COUNTER = new AtomicLong();
+
+    private AsyncExecutor() {}
+
+    /**
+     * A statement execution that produces a result.
+     */
+    @FunctionalInterface
+    interface Execution<T> {
+        T execute() throws SQLException;
+    }
+
+    /** The number of threads of the default executor */
+    static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** The number of executions the default executor queues while all its threads are busy */
+    static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    // Created on first use
+    private static final class DefaultExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = newBoundedExecutor(DEFAULT_THREADS, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    static Executor getDefaultExecutor() {
+        return DefaultExecutorHolder.EXECUTOR;
+    }
+
+    // Created on first use
+    private static final class ReadAheadExecutorHolder {
+        static final ThreadPoolExecutor EXECUTOR = new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), task -> newDaemonThread(task, READ_AHEAD_THREAD_PREFIX));
+    }
+
+    /**
+     * Returns the executor that reads response packets ahead of their readers. It is separate from the default
+     * executor, whose executions wait for these reads: a read queued behind the executions waiting for it would never
+     * run. It runs at most one read at a time per connection with read-ahead enabled.
+     */
+    static Executor getReadAheadExecutor() {
+        return ReadAheadExecutorHolder.EXECUTOR;
+    }
+
+    private static Thread newDaemonThread(Runnable task, String prefix) {
+        Thread t = new Thread(task, prefix + THREAD_COUNTER.getAndIncrement());
+        t.setDaemon(true);
+        return t;
+    }
+
+    /**
+     * Returns a pool of up to the given number of daemon threads, which queues up to queueCapacity tasks while all
+     * threads are busy and rejects further tasks.
+     */
+    static ThreadPoolExecutor newBoundedExecutor(int threads, int queueCapacity) {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), task -> newDaemonThread(task, THREAD_PREFIX), (task, pool) -> {
+                    MessageFormat form = new MessageFormat(
+                            SQLServerException.getErrString("R_asyncExecutorSaturated"));
+                    Object[] msgArgs = {Integer.toString(threads), Integer.toString(queueCapacity)};
+                    throw new RejectedExecutionException(form.format(msgArgs));
+                });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Returns the error reported when an executor rejects a task.
+     */
+    static SQLServerException rejected(RejectedExecutionException e) {
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_asyncExecutionRejected"));
+        Object[] msgArgs = {e.getMessage()};
+        return new SQLServerException(form.format(msgArgs), e);
+    }
+
+    /**
+     * Submits an execution of the given statement.
+     *
+     * @param stmt
+     *        the statement being executed, which is cancelled if the returned future is cancelled
+     * @param executor
+     *        the executor to run the execution on, or null to use the driver's default executor
+     * @param execution
+     *        the execution to run
+     * @return a future that completes with the result of the execution
+     */
+    static <T> CompletableFuture<T> submit(SQLServerStatement stmt, Executor executor, Execution<T> execution) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.whenComplete((result, ex) -> {
+            if (future.isCancelled()) {
+                try {
+                    stmt.cancel();
+                } catch (SQLException e) {
+                    if (logger.isLoggable(Level.FINER))
+                        logger.finer(stmt.toString() + " cancel after future cancellation failed: " + e.getMessage());
+                }
+            }
+        });
+
+        try {
+            (null != executor ? executor : getDefaultExecutor()).execute(() -> {
+                if (future.isDone())
+                    return;
+                try {
+                    future.complete(execution.execute());
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            future.completeExceptionally(rejected(e));
+        }
+        return future;
+    }
+}
@@ -0,0 +1,348 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+
+/**
+ * BatchParameterBuffer holds the parameter values added to the batch of a prepared statement, parameter by parameter.
+ *
+ * The values of a parameter set with setBoolean, setByte, setShort, setInt, setLong, setFloat or setDouble, or set to
+ * null with the same type, are copied into a growable primitive array, and are written from the array into the
+ * request. Such a column keeps the parameter of its first row as a template for the type definition and name of its
+ * values, so each further row costs a few bytes rather than a Parameter with a DTV and a boxed value.
+ *
+ * Once a column gets a value of another type or an output parameter, its values are converted back into parameters,
+ * and it holds a clone of the Parameter of every row. So do all the columns of a batch of encrypted parameters.
+ */
+final class BatchParameterBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /** The kinds of values held in primitive arrays, by JDBC type and class of the value */
+    private enum Kind {
+        BIT(JDBCType.BIT, Boolean.class),
+        TINYINT(JDBCType.TINYINT, Byte.class),
+        SMALLINT(JDBCType.SMALLINT, Short.class),
+        INTEGER(JDBCType.INTEGER, Integer.class),
+        BIGINT(JDBCType.BIGINT, Long.class),
+        REAL(JDBCType.REAL, Float.class),
+        DOUBLE(JDBCType.DOUBLE, Double.class);
+
+        final JDBCType jdbcType;
+        final Class<?> valueClass;
+
+        Kind(JDBCType jdbcType, Class<?> valueClass) {
+            this.jdbcType = jdbcType;
+            this.valueClass = valueClass;
+        }
+
+        /** Returns true if the values are held in a long array rather than an int array */
+        boolean isWide() {
+            return BIGINT == this || DOUBLE == this;
+        }
+
+        /**
+         * Returns the kind of value of an input parameter, or null if the value cannot be held in a primitive array.
+         */
+        static Kind of(Parameter param) throws SQLServerException {
+            if (param.isOutput())
+                return null;
+
+            Kind kind;
+            switch (param.getJdbcType()) {
+                case BIT:
+                    kind = BIT;
+                    break;
+                case TINYINT:
+                    kind = TINYINT;
+                    break;
+                case SMALLINT:
+                    kind = SMALLINT;
+                    break;
+                case INTEGER:
+                    kind = INTEGER;
+                    break;
+                case BIGINT:
+                    kind = BIGINT;
+                    break;
+                case REAL:
+                    kind = REAL;
+                    break;
+                case DOUBLE:
+                    kind = DOUBLE;
+                    break;
+                default:
+                    return null;
+            }
+
+            Object value = param.getSetterValue();
+            return (null == value || kind.valueClass == value.getClass()) ? kind : null;
+        }
+    }
+
+    /** The values of one parameter of the batch */
+    private static final class BatchColumn {
+        /** the kind of the values in ints or longs, or null if the column holds params */
+        private Kind kind;
+
+        /** the parameter of the first row, which defines the type and name of the values in ints or longs */
+        private Parameter template;
+        private int[] ints;
+        private long[] longs;
+        private BitSet nulls;
+
+        /** clones of the parameter of every row, once the values cannot be held in a primitive array */
+        private Parameter[] params;
+
+        BatchColumn(Kind kind) {
+            this.kind = kind;
+            if (null == kind) {
+                params = new Parameter[INITIAL_CAPACITY];
+            } else {
+                if (kind.isWide())
+                    longs = new long[INITIAL_CAPACITY];
+                else
+                    ints = new int[INITIAL_CAPACITY];
+                nulls = new BitSet();
+            }
+        }
+
+        void add(int row, Parameter param, SQLServerConnection con) throws SQLServerException {
+            if (null != kind) {
+                if (0 == row)
+                    template = param.cloneForBatch();
+                else if (Kind.of(param) != kind)
+                    toParams(row, con);
+            }
+
+            if (null == kind) {
+                if (row == params.length)
+                    params = Arrays.copyOf(params, 2 * row);
+                params[row] = param.cloneForBatch();
+                return;
+            }
+
+            if (kind.isWide() && row == longs.length)
+                longs = Arrays.copyOf(longs, 2 * row);
+            else if (!kind.isWide() && row == ints.length)
+                ints = Arrays.copyOf(ints, 2 * row);
+
+            Object value = param.getSetterValue();
+            if (null == value) {
+                nulls.set(row);
+                return;
+            }
+
+            switch (kind) {
+                case BIT:
+                    ints[row] = (Boolean) value ? 1 : 0;
+                    break;
+                case TINYINT:
+                    ints[row] = (Byte) value;
+                    break;
+                case SMALLINT:
+                    ints[row] = (Short) value;
+                    break;
+                case INTEGER:
+                    ints[row] = (Integer) value;
+                    break;
+                case BIGINT:
+                    longs[row] = (Long) value;
+                    break;
+                case REAL:
+                    ints[row] = Float.floatToRawIntBits((Float) value);
+                    break;
+                case DOUBLE:
+                    longs[row] = Double.doubleToRawLongBits((Double) value);
+                    break;
+                default:
+                    assert false : "Unexpected kind " + kind;
+            }
+        }
+
+        Object getSetterValue(int row) {
+            if (null == kind)
+                return params[row].getSetterValue();
+
+            if (nulls.get(row))
+                return null;
+
+            switch (kind) {
+                case BIT:
+                    return 0 != ints[row];
+                case TINYINT:
+                    return (byte) ints[row];
+                case SMALLINT:
+                    return (short) ints[row];
+                case INTEGER:
+                    return ints[row];
+                case BIGINT:
+                    return longs[row];
+                case REAL:
+                    return Float.intBitsToFloat(ints[row]);
+                default:
+                    return Double.longBitsToDouble(longs[row]);
+            }
+        }
+
+        /**
+         * Converts the values of the first rows of the column from the primitive array into clones of the template
+         * parameter, set the same way as the application set them.
+         */
+        private void toParams(int rows, SQLServerConnection con) throws SQLServerException {
+            Parameter[] rowParams = new Parameter[Math.max(INITIAL_CAPACITY, 2 * rows)];
+            for (int row = 0; row < rows; ++row) {
+                Object value = getSetterValue(row);
+                DTV dtv = new DTV();
+                dtv.setValue(con.getDatabaseCollation(), kind.jdbcType, value,
+                        (null == value) ? JavaType.OBJECT : JavaType.of(value), null, null, null, con, false);
+                if (!con.sendStringParametersAsUnicode())
+                    dtv.sendStringParametersAsUnicode = false;
+                rowParams[row] = template.cloneForBatch(dtv);
+            }
+
+            params = rowParams;
+            kind = null;
+            template = null;
+            ints = null;
+            longs = null;
+            nulls = null;
+        }
+
+        boolean sendByRPC(TDSWriter tdsWriter, int row) throws SQLServerException {
+            if (null == kind)
+                return false;
+
+            String name = template.getName();
+            boolean isNull = nulls.get(row);
+            switch (kind) {
+                case BIT:
+                    tdsWriter.writeRPCBit(name, 0 != ints[row], isNull, false);
+                    break;
+                case TINYINT:
+                    tdsWriter.writeRPCByte(name, (byte) ints[row], isNull, false);
+                    break;
+                case SMALLINT:
+                    tdsWriter.writeRPCShort(name, (short) ints[row], isNull, false);
+                    break;
+                case INTEGER:
+                    tdsWriter.writeRPCInt(name, ints[row], isNull, false);
+                    break;
+                case BIGINT:
+                    tdsWriter.writeRPCLong(name, longs[row], isNull, false);
+                    break;
+                case REAL:
+                    tdsWriter.writeRPCReal(name, Float.intBitsToFloat(ints[row]), isNull, false);
+                    break;
+                default:
+                    tdsWriter.writeRPCDouble(name, Double.longBitsToDouble(longs[row]), isNull, false);
+                    break;
+            }
+            return true;
+        }
+    }
+
+    private final BatchColumn[] columns;
+
+    /** false if the values of the parameters are encrypted, so that every row keeps a clone of its parameters */
+    private final boolean usePrimitiveColumns;
+
+    private int size = 0;
+
+    /**
+     * Creates a batch of rows of parameter values.
+     *
+     * @param numParams
+     *        the number of parameters of each row
+     * @param usePrimitiveColumns
+     *        false to keep a clone of the parameters of every row
+     */
+    BatchParameterBuffer(int numParams, boolean usePrimitiveColumns) {
+        this.columns = new BatchColumn[numParams];
+        this.usePrimitiveColumns = usePrimitiveColumns;
+    }
+
+    /** Returns the number of rows in the batch. */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Adds a row with the current values of the parameters of a statement.
+     *
+     * @param inOutParam
+     *        the parameters of the statement
+     * @param con
+     *        the connection of the statement
+     */
+    void add(Parameter[] inOutParam, SQLServerConnection con) throws SQLServerException {
+        assert inOutParam.length == columns.length;
+        for (int i = 0; i < columns.length; ++i) {
+            if (0 == size)
+                columns[i] = new BatchColumn(usePrimitiveColumns ? Kind.of(inOutParam[i]) : null);
+            columns[i].add(size, inOutParam[i], con);
+        }
+        ++size;
+    }
+
+    /** Returns true if a parameter of a row of the batch is an output parameter. */
+    boolean hasOutputParameters() {
+        for (BatchColumn column : columns) {
+            if (null != column.params) {
+                for (int row = 0; row < size; ++row) {
+                    if (column.params[row].isOutput())
+                        return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Fills in the parameters of a row, for its type definitions. Parameters whose values are held in primitive arrays
+     * are filled in with their template, and their values are sent by sendByRPC.
+     *
+     * @param row
+     *        the row of the batch
+     * @param params
+     *        the parameters to fill in
+     */
+    void getParameters(int row, Parameter[] params) {
+        assert params.length == columns.length;
+        for (int i = 0; i < columns.length; ++i)
+            params[i] = (null == columns[i].kind) ? columns[i].params[row] : columns[i].template;
+    }
+
+    /**
+     * Returns the value of a parameter of a row as it was set.
+     *
+     * @param row
+     *        the row of the batch
+     * @param index
+     *        the 0-based index of the parameter
+     */
+    Object getSetterValue(int row, int index) {
+        return columns[index].getSetterValue(row);
+    }
+
+    /**
+     * Sends the value of a parameter of a row straight from its primitive array.
+     *
+     * @param tdsWriter
+     *        the writer of the request
+     * @param row
+     *        the row of the batch
+     * @param index
+     *        the 0-based index of the parameter
+     * @return false if the value is not held in a primitive array, and must be sent by the parameter that
+     *         getParameters filled in
+     */
+    boolean sendByRPC(TDSWriter tdsWriter, int row, int index) throws SQLServerException {
+        return columns[index].sendByRPC(tdsWriter, row);
+    }
+}
@@ -197,6 +197,87 @@ final class Column {
         return (Integer) getValue(JDBCType.INTEGER, null, null, tdsReader);
     }
 
+    /**
+     * Returns whether the value can be read from the response directly, without conversion to an object: the column
+     * is neither encrypted nor filtered, and its value has not been set by the application.
+     */
+    private boolean hasRawServerValue() {
+        return null == cryptoMetadata && null == filter && getterDTV.isServerValue();
+    }
+
+    /**
+     * Returns whether getLong() can read this column's value.
+     */
+    final boolean canGetLong() {
+        switch (typeInfo.getSSType()) {
+            case BIT:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+            case BIGINT:
+                return hasRawServerValue();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Returns whether getDouble() can read this column's value.
+     */
+    final boolean canGetDouble() {
+        switch (typeInfo.getSSType()) {
+            case FLOAT:
+            case REAL:
+                return hasRawServerValue();
+            default:
+                return canGetLong();
+        }
+    }
+
+    /**
+     * Returns whether getCharLength() and getChars() can read this column's value.
+     */
+    final boolean canGetChars() {
+        switch (typeInfo.getSSType()) {
+            case NCHAR:
+            case NVARCHAR:
+                return hasRawServerValue();
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * Retrieves the value of an integral column as a long, or 0 if it is null. Requires canGetLong().
+     */
+    final long getLong(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getLong(typeInfo, tdsReader);
+    }
+
+    /**
+     * Retrieves the value of a floating point or integral column as a double, or 0 if it is null. Requires
+     * canGetDouble().
+     */
+    final double getDouble(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getDouble(typeInfo, tdsReader);
+    }
+
+    /**
+     * Returns the length in characters of the value of an NCHAR or NVARCHAR column, or -1 if it is null. Requires
+     * canGetChars().
+     */
+    final int getCharLength(TDSReader tdsReader) throws SQLServerException {
+        return getterDTV.getCharLength(typeInfo, tdsReader);
+    }
+
+    /**
+     * Copies the characters of the non-null value of an NCHAR or NVARCHAR column into the array. Requires
+     * canGetChars().
+     */
+    final void getChars(TDSReader tdsReader, char[] chars, int offset) throws SQLServerException {
+        getterDTV.getChars(typeInfo, tdsReader, chars, offset);
+    }
+
     void updateValue(JDBCType jdbcType, Object value, JavaType javaType, StreamSetterArgs streamSetterArgs,
             Calendar cal, Integer scale, SQLServerConnection con,
             SQLServerStatementColumnEncryptionSetting stmtColumnEncriptionSetting, Integer precision,
@@ -429,17 +510,41 @@ final class Column {
         updaterDTV = null;
     }
 
-    void sendByRPC(TDSWriter tdsWriter, SQLServerConnection conn) throws SQLServerException {
-        // If the column has had no updates then there is nothing to send
-        if (null == updaterDTV)
+    /**
+     * Returns the updated value of the column, to be sent with sendByRPC(DTV, TDSWriter, SQLServerConnection).
+     *
+     * @return the updated value, or null if the column has had no updates
+     */
+    DTV getUpdates() {
+        if (null != updaterDTV)
+            updaterDTV.setJdbcTypeSetByUser(getJdbcTypeSetByUser(), getValueLength());
+        return updaterDTV;
+    }
+
+    /**
+     * Removes the updated value from the column, to be sent later with sendByRPC(DTV, TDSWriter, SQLServerConnection).
+     *
+     * @return the updated value, or null if the column has had no updates
+     */
+    DTV detachUpdates() {
+        DTV dtv = getUpdates();
+        updaterDTV = null;
+        return dtv;
+    }
+
+    /**
+     * Sends an updated value of the column, which was detached from the column if the update was deferred. Nothing is
+     * sent if the column has had no updates.
+     */
+    void sendByRPC(DTV dtv, TDSWriter tdsWriter, SQLServerConnection conn) throws SQLServerException {
+        if (null == dtv)
             return;
         try {
             // this is for updateRow() stuff
-            updaterDTV.sendCryptoMetaData(cryptoMetadata, tdsWriter);
-            updaterDTV.setJdbcTypeSetByUser(getJdbcTypeSetByUser(), getValueLength());
+            dtv.sendCryptoMetaData(cryptoMetadata, tdsWriter);
 
             // Otherwise, send the updated value via RPC
-            updaterDTV.sendByRPC(baseColumnName, typeInfo,
+            dtv.sendByRPC(baseColumnName, typeInfo,
                     null != cryptoMetadata ? cryptoMetadata.getBaseTypeInfo().getSQLCollation()
                                            : typeInfo.getSQLCollation(),
                     null != cryptoMetadata ? cryptoMetadata.getBaseTypeInfo().getPrecision() : typeInfo.getPrecision(),
@@ -452,7 +557,7 @@ final class Column {
                     tdsWriter, conn);
         } finally {
             // this is for updateRow() stuff
-            updaterDTV.sendCryptoMetaData(null, tdsWriter);
+            dtv.sendCryptoMetaData(null, tdsWriter);
         }
     }
 
@@ -6,9 +6,12 @@
 package com.microsoft.sqlserver.jdbc;
 
 import java.io.ByteArrayInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -27,10 +30,15 @@ import java.net.SocketTimeoutException;
 import java.nio.Buffer;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
 import java.nio.channels.SelectionKey;
 import java.nio.channels.Selector;
 import java.nio.channels.SocketChannel;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.security.KeyStore;
 import java.security.Provider;
 import java.security.Security;
@@ -40,6 +48,7 @@ import java.sql.Timestamp;
 import java.text.MessageFormat;
 import java.time.OffsetDateTime;
 import java.time.OffsetTime;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Calendar;
@@ -55,11 +64,15 @@ import java.util.Properties;
 import java.util.Set;
 import java.util.SimpleTimeZone;
 import java.util.TimeZone;
+import java.util.UUID;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.SynchronousQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -234,6 +247,9 @@ final class TDS {
     static final short SP_CURSOR_OP_SETPOSITION = 32;
     static final short SP_CURSOR_OP_ABSOLUTE = 64;
 
+    // Separates the requests of a batch of RPCs in one message
+    static final byte RPC_BATCH_SEPARATOR = (byte) 0xFF;
+
     // Constants for server-cursored result sets.
     // See the Engine Cursors Functional Specification for details.
     static final int FETCH_FIRST = 1;
@@ -592,9 +608,142 @@ final class TDSChannel implements Serializable {
         return new TDSReader(this, con, command);
     }
 
+    // Pool of response packets shared by the readers on this channel
+    private final TDSPacketPool packetPool;
+
+    final TDSPacketPool getPacketPool() {
+        return packetPool;
+    }
+
+    // Accounts for the packets buffered on this channel with the JVM-wide result buffer governor
+    private final SQLServerResultBufferGovernor.Account bufferAccount = new SQLServerResultBufferGovernor.Account();
+
+    final SQLServerResultBufferGovernor.Account getBufferAccount() {
+        return bufferAccount;
+    }
+
+    // Reads response packets ahead of the TDSReader (null unless read-ahead is enabled)
+    private TDSPacketPrefetcher prefetcher = null;
+
+    final TDSPacketPrefetcher getPrefetcher() {
+        return prefetcher;
+    }
+
+    /**
+     * Enables reading ahead of the TDSReader by up to the given number of packets. Called once login has completed.
+     *
+     * @param maxPackets
+     *        the maximum number of packets to read ahead, or 0 to read packets only when the TDSReader needs them
+     */
+    final void enableReadAhead(int maxPackets) {
+        if (maxPackets > 0) {
+            prefetcher = new TDSPacketPrefetcher(traceID, this::readPacket, packetPool, bufferAccount,
+                    AsyncExecutor.getReadAheadExecutor(), maxPackets);
+        }
+    }
+
+    // Buffers response packets read ahead of their readers off-heap or on disk (null unless limited)
+    private TDSPacketStore packetStore = null;
+
+    final TDSPacketStore getPacketStore() {
+        return packetStore;
+    }
+
+    /**
+     * Limits the size of the buffered responses that are kept on the heap. Called once login has completed.
+     *
+     * @param heapLimit
+     *        the number of bytes of packets read ahead of their readers kept on the heap, or -1 for no limit
+     * @param offHeapLimit
+     *        the number of bytes of packets kept off-heap before spilling to disk, or -1 for no limit
+     * @param spillDirectory
+     *        the directory of the spill file, or null or empty for java.io.tmpdir
+     */
+    final void enableTieredBuffering(long heapLimit, long offHeapLimit, String spillDirectory) {
+        if (heapLimit >= 0) {
+            packetStore = new TDSPacketStore(traceID, heapLimit, offHeapLimit, spillDirectory);
+        }
+    }
+
+    // Receives a copy of every byte read from the server (null unless capture is enabled)
+    private volatile OutputStream captureStream = null;
+
+    /**
+     * Returns the name of the capture file of a connection: the client connection ID is inserted into the file name
+     * before its extension, so that connections sharing the tdsCaptureFile property record to separate files.
+     *
+     * @param fileName
+     *        the value of the tdsCaptureFile property
+     * @param clientConnectionId
+     *        the client connection ID of the connection
+     * @return the capture file of the connection
+     */
+    static String getCaptureFileName(String fileName, UUID clientConnectionId) {
+        int nameStart = Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf(File.separatorChar)) + 1;
+        int extension = fileName.lastIndexOf('.');
+        if (extension <= nameStart)
+            extension = fileName.length();
+        return fileName.substring(0, extension) + "-" + clientConnectionId + fileName.substring(extension);
+    }
+
+    /**
+     * Starts recording every byte read from the server to the capture file of the connection, replacing its contents.
+     * Bytes are recorded after TLS decryption, so the file holds the TDS response stream as a sequence of raw TDS
+     * packets, from the prelogin response on, that can be replayed to the driver.
+     *
+     * @param captureFile
+     *        the value of the tdsCaptureFile property
+     * @param clientConnectionId
+     *        the client connection ID of the connection, which names its capture file
+     */
+    final void startCapture(String captureFile, UUID clientConnectionId) throws SQLServerException {
+        String fileName = getCaptureFileName(captureFile, clientConnectionId);
+        try {
+            captureStream = new BufferedOutputStream(new FileOutputStream(fileName));
+        } catch (IOException e) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_tdsCaptureFileFailed"));
+            Object[] msgArgs = {fileName, e.getMessage()};
+            SQLServerException.makeFromDriverError(con, this, form.format(msgArgs), null, false);
+        }
+
+        if (logger.isLoggable(Level.FINER))
+            logger.finer(toString() + " Capturing TDS response stream to " + fileName);
+    }
+
+    private void capture(byte[] data, int offset, int length) {
+        OutputStream stream = captureStream;
+        if (null == stream)
+            return;
+
+        try {
+            stream.write(data, offset, length);
+        } catch (IOException e) {
+            // A failed capture does not fail the connection
+            if (logger.isLoggable(Level.WARNING))
+                logger.warning(toString() + " Stopped TDS capture after write failure: " + e.getMessage());
+            stopCapture();
+        }
+    }
+
+    private void stopCapture() {
+        OutputStream stream = captureStream;
+        captureStream = null;
+        if (null != stream) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.FINE))
+                    logger.log(Level.FINE, this.toString() + ": Ignored error closing TDS capture", e);
+            }
+        }
+    }
+
     // Socket for raw TCP/IP communications with SQL Server
     private Socket tcpSocket;
 
+    // Channel backing the TCP socket when it was created through java.nio (null otherwise)
+    private SocketChannel socketChannel;
+
     // Socket for SSL-encrypted communications with SQL Server
     private SSLSocket sslSocket;
 
@@ -653,6 +802,7 @@ final class TDSChannel implements Serializable {
         this.con = con;
         traceID = "TDSChannel (" + con.toString() + ")";
         this.tcpSocket = null;
+        this.socketChannel = null;
         this.sslSocket = null;
         this.channelSocket = null;
         this.tcpInputStream = null;
@@ -660,6 +810,7 @@ final class TDSChannel implements Serializable {
         this.inputStream = null;
         this.outputStream = null;
         this.tdsWriter = new TDSWriter(this, con);
+        this.packetPool = new TDSPacketPool(traceID);
     }
 
     /**
@@ -687,12 +838,26 @@ final class TDSChannel implements Serializable {
 
             inputStream = tcpInputStream = tcpSocket.getInputStream();
             outputStream = tcpOutputStream = tcpSocket.getOutputStream();
+
+            // Reads keep going through the socket's input stream so that SO_TIMEOUT applies
+            if (con.getUseSocketChannel())
+                socketChannel = tcpSocket.getChannel();
         } catch (IOException ex) {
             SQLServerException.ConvertConnectExceptionToSQLServerException(host, port, con, ex);
         }
         return (InetSocketAddress) channelSocket.getRemoteSocketAddress();
     }
 
+    /**
+     * Returns whether TDS packets can be written directly to the socket channel. This is only the case when the socket
+     * was created through java.nio and the channel is not currently wrapped in SSL.
+     *
+     * @return true if {@link #write(ByteBuffer[], int, int)} can be used
+     */
+    final boolean usesSocketChannel() {
+        return null != socketChannel && null == sslSocket;
+    }
+
     /**
      * Disables SSL on this TDS channel.
      */
@@ -2053,9 +2218,62 @@ final class TDSChannel implements Serializable {
         return is;
     }
 
+    /**
+     * Reads the header and payload of the next packet from the channel.
+     *
+     * @param packet
+     *        the packet to read into
+     * @param packetNum
+     *        the number of packets of the current response already read, used for error reporting
+     */
+    final void readPacket(TDSPacket packet, int packetNum) throws SQLServerException {
+        // First, read the packet header.
+        for (int headerBytesRead = 0; headerBytesRead < TDS.PACKET_HEADER_SIZE;) {
+            int bytesRead = read(packet.header, headerBytesRead, TDS.PACKET_HEADER_SIZE - headerBytesRead);
+            if (bytesRead < 0) {
+                if (logger.isLoggable(Level.FINER))
+                    logger.finer(toString() + " Premature EOS in response. packetNum:" + packetNum + " headerBytesRead:"
+                            + headerBytesRead);
+
+                con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED,
+                        ((0 == packetNum && 0 == headerBytesRead) ? SQLServerException.getErrString(
+                                "R_noServerResponse") : SQLServerException.getErrString("R_truncatedServerResponse")));
+            }
+
+            headerBytesRead += bytesRead;
+        }
+
+        // Header size is a 2 byte unsigned short integer in big-endian order.
+        int packetLength = Util.readUnsignedShortBigEndian(packet.header, TDS.PACKET_HEADER_MESSAGE_LENGTH);
+
+        // Make header size is properly bounded and compute length of the packet payload.
+        if (packetLength < TDS.PACKET_HEADER_SIZE || packetLength > con.getTDSPacketSize()) {
+            if (logger.isLoggable(Level.WARNING)) {
+                logger.warning(toString() + " TDS header contained invalid packet length:" + packetLength
+                        + "; packet size:" + con.getTDSPacketSize());
+            }
+            con.throwInvalidTDS();
+        }
+
+        packet.payloadLength = packetLength - TDS.PACKET_HEADER_SIZE;
+
+        // Now for the payload...
+        for (int payloadBytesRead = 0; payloadBytesRead < packet.payloadLength;) {
+            int bytesRead = read(packet.payload, payloadBytesRead, packet.payloadLength - payloadBytesRead);
+            if (bytesRead < 0)
+                con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED,
+                        SQLServerException.getErrString("R_truncatedServerResponse"));
+
+            payloadBytesRead += bytesRead;
+        }
+    }
+
     final int read(byte[] data, int offset, int length) throws SQLServerException {
         try {
-            return inputStream.read(data, offset, length);
+            int bytesRead = inputStream.read(data, offset, length);
+            if (bytesRead > 0 && null != captureStream)
+                capture(data, offset, bytesRead);
+            return bytesRead;
         } catch (IOException e) {
             if (logger.isLoggable(Level.FINE))
                 logger.fine(toString() + " read failed:" + e.getMessage());
@@ -2081,6 +2299,33 @@ final class TDSChannel implements Serializable {
         }
     }
 
+    /**
+     * Writes the remaining bytes of a sequence of buffers to the socket channel with a gathering write.
+     *
+     * @param buffers
+     *        the buffers to write from
+     * @param offset
+     *        the offset within the buffer array of the first buffer to write
+     * @param length
+     *        the number of buffers to write
+     */
+    final void write(ByteBuffer[] buffers, int offset, int length) throws SQLServerException {
+        assert usesSocketChannel();
+        try {
+            long remaining = 0;
+            for (int i = offset; i < offset + length; i++)
+                remaining += buffers[i].remaining();
+
+            while (remaining > 0)
+                remaining -= socketChannel.write(buffers, offset, length);
+        } catch (IOException e) {
+            if (logger.isLoggable(Level.FINER))
+                logger.finer(toString() + " write failed:" + e.getMessage());
+
+            con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED, e.getMessage(), e);
+        }
+    }
+
     final void flush() throws SQLServerException {
         try {
             outputStream.flush();
@@ -2096,6 +2341,12 @@ final class TDSChannel implements Serializable {
         if (null != sslSocket)
             disableSSL();
 
+        packetPool.clear();
+        bufferAccount.close();
+        if (null != packetStore)
+            packetStore.close();
+        stopCapture();
+
         if (null != inputStream) {
             if (logger.isLoggable(Level.FINEST))
                 logger.finest(this.toString() + ": Closing inputStream...");
@@ -2633,7 +2884,7 @@ final class SocketFinder {
         if (socketFactory == null) {
             String socketFactoryClass = conn.getSocketFactoryClass();
             if (socketFactoryClass == null) {
-                socketFactory = SocketFactory.getDefault();
+                socketFactory = conn.getUseSocketChannel() ? new SocketChannelFactory() : SocketFactory.getDefault();
             } else {
                 String socketFactoryConstructorArg = conn.getSocketFactoryConstructorArg();
                 try {
@@ -2650,6 +2901,46 @@ final class SocketFinder {
         return socketFactory;
     }
 
+    /**
+     * Creates blocking sockets backed by a java.nio SocketChannel, so that TDSChannel can write packets with gathering
+     * writes from direct buffers.
+     */
+    private static final class SocketChannelFactory extends SocketFactory {
+        @Override
+        public Socket createSocket() throws IOException {
+            return SocketChannel.open().socket();
+        }
+
+        @Override
+        public Socket createSocket(String host, int port) throws IOException {
+            return createSocket(new InetSocketAddress(host, port), null);
+        }
+
+        @Override
+        public Socket createSocket(String host, int port, InetAddress localHost, int localPort) throws IOException {
+            return createSocket(new InetSocketAddress(host, port), new InetSocketAddress(localHost, localPort));
+        }
+
+        @Override
+        public Socket createSocket(InetAddress host, int port) throws IOException {
+            return createSocket(new InetSocketAddress(host, port), null);
+        }
+
+        @Override
+        public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+                int localPort) throws IOException {
+            return createSocket(new InetSocketAddress(address, port), new InetSocketAddress(localAddress, localPort));
+        }
+
+        private Socket createSocket(InetSocketAddress remote, InetSocketAddress local) throws IOException {
+            Socket socket = createSocket();
+            if (null != local)
+                socket.bind(local);
+            socket.connect(remote);
+            return socket;
+        }
+    }
+
     // This method contains the old logic of connecting to
     // a socket of one of the IPs corresponding to a given host name.
     // In the old code below, the logic around 0 timeout has been removed as
@@ -3151,6 +3442,9 @@ final class TDSWriter {
     private ByteBuffer socketBuffer;
     private ByteBuffer logBuffer;
 
+    // Socket and staging buffers handed to the socket channel in a single gathering write
+    private final ByteBuffer[] gatherBuffers = new ByteBuffer[2];
+
     // Intermediate arrays
     // It is assumed, startMessage is called before use, to alloc arrays
     private char[] streamCharBuffer;
@@ -3246,14 +3540,22 @@ final class TDSWriter {
         // If the TDS packet size has changed since the last request
         // (which should really only happen after the login packet)
         // then allocate new buffers that are the correct size.
+        //
+        // Packets written straight to the socket channel are staged in direct buffers,
+        // which saves the JDK copying each packet into native memory on every write.
+        // The buffers are reallocated whenever that changes too (e.g. once SSL is disabled
+        // after login).
         int negotiatedPacketSize = con.getTDSPacketSize();
-        if (currentPacketSize != negotiatedPacketSize) {
-            socketBuffer = ByteBuffer.allocate(negotiatedPacketSize).order(ByteOrder.LITTLE_ENDIAN);
-            stagingBuffer = ByteBuffer.allocate(negotiatedPacketSize).order(ByteOrder.LITTLE_ENDIAN);
-            logBuffer = ByteBuffer.allocate(negotiatedPacketSize).order(ByteOrder.LITTLE_ENDIAN);
-            currentPacketSize = negotiatedPacketSize;
-            streamCharBuffer = new char[2 * currentPacketSize];
-            streamByteBuffer = new byte[4 * currentPacketSize];
+        boolean useDirectBuffers = tdsChannel.usesSocketChannel();
+        if (currentPacketSize != negotiatedPacketSize || socketBuffer.isDirect() != useDirectBuffers) {
+            socketBuffer = allocatePacketBuffer(negotiatedPacketSize, useDirectBuffers);
+            stagingBuffer = allocatePacketBuffer(negotiatedPacketSize, useDirectBuffers);
+            if (currentPacketSize != negotiatedPacketSize) {
+                logBuffer = ByteBuffer.allocate(negotiatedPacketSize).order(ByteOrder.LITTLE_ENDIAN);
+                currentPacketSize = negotiatedPacketSize;
+                streamCharBuffer = new char[2 * currentPacketSize];
+                streamByteBuffer = new byte[4 * currentPacketSize];
+            }
         }
 
         ((Buffer) socketBuffer).position(((Buffer) socketBuffer).limit());
@@ -3263,6 +3565,18 @@ final class TDSWriter {
         writeMessageHeader();
     }
 
+    private static ByteBuffer allocatePacketBuffer(int packetSize, boolean direct) {
+        ByteBuffer buffer = direct ? ByteBuffer.allocateDirect(packetSize) : ByteBuffer.allocate(packetSize);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the number of bytes of the current message written so far, including the packet headers.
+     */
+    final long getMessageBytes() {
+        return (long) packetNum * currentPacketSize + ((Buffer) stagingBuffer).position();
+    }
+
     final void endMessage() throws SQLServerException {
         if (logger.isLoggable(Level.FINEST))
             logger.finest(toString() + " Finishing TDS message");
@@ -4285,6 +4599,11 @@ final class TDSWriter {
     }
 
     void flush(boolean atEOM) throws SQLServerException {
+        if (socketBuffer.isDirect()) {
+            flushToSocketChannel(atEOM);
+            return;
+        }
+
         // First, flush any data left in the socket buffer.
         tdsChannel.write(socketBuffer.array(), ((Buffer) socketBuffer).position(), socketBuffer.remaining());
         ((Buffer) socketBuffer).position(((Buffer) socketBuffer).limit());
@@ -4324,6 +4643,38 @@ final class TDSWriter {
         }
     }
 
+    /**
+     * Flushes direct packet buffers to the socket channel. Any data left in the socket buffer and the packet in the
+     * staging buffer go out in one gathering write, after which the buffers are swapped as in {@link #flush(boolean)}.
+     */
+    private void flushToSocketChannel(boolean atEOM) throws SQLServerException {
+        if (((Buffer) stagingBuffer).position() < TDS_PACKET_HEADER_SIZE) {
+            gatherBuffers[0] = socketBuffer;
+            tdsChannel.write(gatherBuffers, 0, 1);
+            return;
+        }
+
+        ((Buffer) stagingBuffer).flip();
+
+        if (tdsChannel.isLoggingPackets()) {
+            tdsChannel.logPacket(logBuffer.array(), 0, ((Buffer) stagingBuffer).limit(),
+                    this.toString() + " sending packet (" + ((Buffer) stagingBuffer).limit() + " bytes)");
+        }
+
+        gatherBuffers[0] = socketBuffer;
+        gatherBuffers[1] = stagingBuffer;
+        tdsChannel.write(gatherBuffers, 0, 2);
+
+        // Both buffers are now drained; the old staging buffer becomes the socket buffer
+        ByteBuffer swapBuffer = stagingBuffer;
+        stagingBuffer = socketBuffer;
+        socketBuffer = swapBuffer;
+        ((Buffer) stagingBuffer).clear();
+
+        if (!atEOM)
+            preparePacket();
+    }
+
     // Composite write operations
 
     /**
@@ -4366,9 +4717,25 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCBit(String sName, Boolean booleanValue, boolean bOut) throws SQLServerException {
+        writeRPCBit(sName, null != booleanValue && booleanValue, null == booleanValue, bOut);
+    }
+
+    /**
+     * Append a boolean value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param booleanValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCBit(String sName, boolean booleanValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.BITN);
         writeByte((byte) 1); // max length of datatype
-        if (null == booleanValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) 1); // length of datatype
@@ -4387,9 +4754,25 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCByte(String sName, Byte byteValue, boolean bOut) throws SQLServerException {
+        writeRPCByte(sName, (null == byteValue) ? 0 : byteValue, null == byteValue, bOut);
+    }
+
+    /**
+     * Append a byte value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param byteValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCByte(String sName, byte byteValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.INTN);
         writeByte((byte) 1); // max length of datatype
-        if (null == byteValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) 1); // length of datatype
@@ -4408,9 +4791,25 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCShort(String sName, Short shortValue, boolean bOut) throws SQLServerException {
+        writeRPCShort(sName, (null == shortValue) ? 0 : shortValue, null == shortValue, bOut);
+    }
+
+    /**
+     * Append a short value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param shortValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCShort(String sName, short shortValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.INTN);
         writeByte((byte) 2); // max length of datatype
-        if (null == shortValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) 2); // length of datatype
@@ -4429,9 +4828,25 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCInt(String sName, Integer intValue, boolean bOut) throws SQLServerException {
+        writeRPCInt(sName, (null == intValue) ? 0 : intValue, null == intValue, bOut);
+    }
+
+    /**
+     * Append an int value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param intValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCInt(String sName, int intValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.INTN);
         writeByte((byte) 4); // max length of datatype
-        if (null == intValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) 4); // length of datatype
@@ -4450,9 +4865,25 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCLong(String sName, Long longValue, boolean bOut) throws SQLServerException {
+        writeRPCLong(sName, (null == longValue) ? 0 : longValue, null == longValue, bOut);
+    }
+
+    /**
+     * Append a long value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param longValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCLong(String sName, long longValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.INTN);
         writeByte((byte) 8); // max length of datatype
-        if (null == longValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) 8); // length of datatype
@@ -4471,10 +4902,26 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCReal(String sName, Float floatValue, boolean bOut) throws SQLServerException {
+        writeRPCReal(sName, (null == floatValue) ? 0 : floatValue, null == floatValue, bOut);
+    }
+
+    /**
+     * Append a real value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param floatValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCReal(String sName, float floatValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.FLOATN);
 
         // Data and length
-        if (null == floatValue) {
+        if (isNull) {
             writeByte((byte) 4); // max length
             writeByte((byte) 0); // actual length (0 == null)
         } else {
@@ -4505,13 +4952,29 @@ final class TDSWriter {
      *        boolean true if the data value is being registered as an output parameter
      */
     void writeRPCDouble(String sName, Double doubleValue, boolean bOut) throws SQLServerException {
+        writeRPCDouble(sName, (null == doubleValue) ? 0 : doubleValue, null == doubleValue, bOut);
+    }
+
+    /**
+     * Append a double value in RPC transmission format without boxing it.
+     * 
+     * @param sName
+     *        the optional parameter name
+     * @param doubleValue
+     *        the data value
+     * @param isNull
+     *        true to append SQL NULL rather than the data value
+     * @param bOut
+     *        boolean true if the data value is being registered as an output parameter
+     */
+    void writeRPCDouble(String sName, double doubleValue, boolean isNull, boolean bOut) throws SQLServerException {
         writeRPCNameValType(sName, bOut, TDSType.FLOATN);
 
         int l = 8;
         writeByte((byte) l); // max length of datatype
 
         // Data and length
-        if (null == doubleValue) {
+        if (isNull) {
             writeByte((byte) 0); // len of data bytes
         } else {
             writeByte((byte) l); // len of data bytes
@@ -4732,7 +5195,9 @@ final class TDSWriter {
 
                     if (con.equals(src_stmt.getConnection()) && 0 != resultSetServerCursorId) {
                         cachedTVPHeaders = ByteBuffer.allocate(stagingBuffer.capacity()).order(stagingBuffer.order());
-                        cachedTVPHeaders.put(stagingBuffer.array(), 0, ((Buffer) stagingBuffer).position());
+                        ByteBuffer stagedHeaders = stagingBuffer.duplicate();
+                        ((Buffer) stagedHeaders).flip();
+                        cachedTVPHeaders.put(stagedHeaders);
 
                         cachedCommand = this.command;
 
@@ -6386,10 +6851,25 @@ final class TDSWriter {
  */
 final class TDSPacket {
     final byte[] header = new byte[TDS.PACKET_HEADER_SIZE];
-    final byte[] payload;
+
+    // The payload is null while the packet is buffered off-heap or on disk by a TDSPacketStore.
+    byte[] payload;
     int payloadLength;
     volatile TDSPacket next;
 
+    // Mark generation of the owning TDSReader in which this packet was last reachable from a TDSReaderMark.
+    // A packet is only eligible for recycling if it is not retained in the reader's current generation.
+    long retainedGeneration = -1;
+
+    // Where a TDSPacketStore buffers the packet until its reader reaches it, or archives it
+    TDSPacketStore store = null;
+    TDSPacketStore.Tier tier = null;
+    TDSPacketStore.Segment segment = null;
+    long storedOffset = 0;
+
+    // Bytes accounted for with the JVM-wide result buffer governor while the packet is buffered on the heap
+    int governedBytes = 0;
+
     final public String toString() {
         return "TDSPacket(SPID:" + Util.readUnsignedShortBigEndian(header, TDS.PACKET_HEADER_SPID) + " Seq:"
                 + header[TDS.PACKET_HEADER_SEQUENCE_NUM] + ")";
@@ -6404,19 +6884,634 @@ final class TDSPacket {
     final boolean isEOM() {
         return TDS.STATUS_BIT_EOM == (header[TDS.PACKET_HEADER_MESSAGE_STATUS] & TDS.STATUS_BIT_EOM);
     }
-}
-
 
-/**
- * TDSReaderMark encapsulates a fixed position in the response data stream.
+    /**
+     * Clears the state of this packet so that it can be reused to read a new response packet.
+     */
+    final void recycle() {
+        payloadLength = 0;
+        next = null;
+        retainedGeneration = -1;
+        store = null;
+        tier = null;
+        segment = null;
+        governedBytes = 0;
+    }
+}
+
+
+/**
+ * TDSPacketPool recycles response packets for a TDS channel so that streaming through a large response does not
+ * allocate a new packet (and payload buffer) for every packet read from the server.
+ *
+ * Packets are returned to the pool by the TDSReader that read them, and only once the reader has moved past a packet
+ * while streaming and no TDSReaderMark can still reach it. All packets in the pool have the same payload size; a
+ * change in the negotiated packet size empties the pool.
+ *
+ * The pool keeps count of the packets it had to allocate and the packets it was able to reuse. Without the pool, every
+ * packet read would be an allocation, so the two counts give the allocation rate with and without packet recycling.
+ */
+final class TDSPacketPool {
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.PacketPool");
+
+    /** Maximum number of idle packets kept by the pool */
+    static final int MAX_POOLED_PACKETS = 8;
+
+    private final String traceID;
+    private final TDSPacket[] packets = new TDSPacket[MAX_POOLED_PACKETS];
+    private int numPackets = 0;
+    private int packetSize = -1;
+
+    private long packetsAllocated = 0;
+    private long packetsReused = 0;
+
+    TDSPacketPool(String traceID) {
+        this.traceID = traceID;
+    }
+
+    final public String toString() {
+        return traceID;
+    }
+
+    /**
+     * Returns a packet with a payload buffer of the given size, reusing a pooled packet if one is available.
+     *
+     * @param size
+     *        the payload size of the packet
+     * @return a packet ready to be read into
+     */
+    synchronized TDSPacket get(int size) {
+        if (size != packetSize) {
+            // The negotiated packet size changed (e.g. after login). Pooled packets are the wrong size.
+            Arrays.fill(packets, 0, numPackets, null);
+            numPackets = 0;
+            packetSize = size;
+        }
+
+        if (numPackets > 0) {
+            TDSPacket packet = packets[--numPackets];
+            packets[numPackets] = null;
+            ++packetsReused;
+            return packet;
+        }
+
+        ++packetsAllocated;
+        return new TDSPacket(size);
+    }
+
+    /**
+     * Returns a packet to the pool. The caller must guarantee that nothing else refers to the packet.
+     *
+     * @param packet
+     *        the packet to recycle
+     */
+    synchronized void release(TDSPacket packet) {
+        if (packet.payload.length != packetSize || numPackets == packets.length)
+            return;
+
+        packet.recycle();
+        packets[numPackets++] = packet;
+    }
+
+    synchronized long getPacketsAllocated() {
+        return packetsAllocated;
+    }
+
+    synchronized long getPacketsReused() {
+        return packetsReused;
+    }
+
+    synchronized int getPooledPacketCount() {
+        return numPackets;
+    }
+
+    /**
+     * Logs the packet allocation statistics for this pool and drops all pooled packets.
+     */
+    synchronized void clear() {
+        if (logger.isLoggable(Level.FINE))
+            logger.fine(toString() + " packets allocated:" + packetsAllocated + " packets reused:" + packetsReused);
+
+        Arrays.fill(packets, 0, numPackets, null);
+        numPackets = 0;
+    }
+}
+
+
+/**
+ * TDSPacketStore buffers the response packets that a TDS channel reads ahead of their TDSReader, e.g. with
+ * responseBuffering=full or when TDSCommand.detach() buffers an unread response, in up to three tiers.
+ *
+ * Packets stay on the heap until the buffered packets on the heap reach the heap limit. Further packets are copied to
+ * off-heap segments until those reach the off-heap limit, and then appended to a spill file that is deleted when it is
+ * closed. The payload of an off-heap or spilled packet is dropped, and read back into a heap buffer when the reader
+ * reaches the packet, so the reader sees the same packet chain whichever tier a packet was stored in.
+ *
+ * The limits apply to the packets of all readers on the channel. They do not change the maxResultBuffer accounting,
+ * which counts every packet of a response whatever its tier.
+ *
+ * A store created for archiving instead keeps the packets that a client-side scrollable result set has moved past, so
+ * that the result set can go back to them. An archived packet keeps its place in the store when its reader goes back
+ * to it, and its payload is dropped again when the reader moves past it.
+ */
+final class TDSPacketStore {
+    enum Tier {
+        HEAP,
+        OFF_HEAP,
+        DISK
+    }
+
+    /** Off-heap memory is allocated in segments of this many bytes */
+    static final int SEGMENT_SIZE = 256 * 1024;
+
+    /**
+     * A direct buffer holding the payloads of off-heap packets.
+     */
+    static final class Segment {
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(SEGMENT_SIZE);
+        int end = 0;
+        int packets = 0;
+    }
+
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.PacketStore");
+
+    private final String traceID;
+    private final long heapLimit;
+    private final long offHeapLimit;
+    private final String spillDirectory;
+    private final boolean archive;
+
+    private long heapBytes = 0;
+    private long offHeapBytes = 0;
+    private Segment writeSegment = null;
+
+    private FileChannel spillFile = null;
+    private long spillEnd = 0;
+    private int spilledPackets = 0;
+    private boolean spillFailed = false;
+
+    private long packetsStoredOffHeap = 0;
+    private long packetsSpilled = 0;
+
+    /**
+     * Creates a store.
+     *
+     * @param traceID
+     *        the trace ID of the channel
+     * @param heapLimit
+     *        the number of bytes of buffered packets kept on the heap
+     * @param offHeapLimit
+     *        the number of bytes of off-heap segments, or -1 for no limit
+     * @param spillDirectory
+     *        the directory of the spill file, or null or empty for java.io.tmpdir
+     */
+    TDSPacketStore(String traceID, long heapLimit, long offHeapLimit, String spillDirectory) {
+        this(traceID, heapLimit, offHeapLimit, spillDirectory, false);
+    }
+
+    /**
+     * Creates a store, which archives the packets it stores if archive is true.
+     */
+    TDSPacketStore(String traceID, long heapLimit, long offHeapLimit, String spillDirectory, boolean archive) {
+        this.traceID = traceID;
+        this.heapLimit = heapLimit;
+        this.offHeapLimit = offHeapLimit;
+        this.spillDirectory = spillDirectory;
+        this.archive = archive;
+    }
+
+    final public String toString() {
+        return traceID;
+    }
+
+    /**
+     * Buffers a packet read ahead of its reader. The packet must not be linked to the reader's packets yet.
+     *
+     * @param packet
+     *        the packet
+     */
+    synchronized void store(TDSPacket packet) {
+        assert !archive;
+        place(packet);
+        packet.store = this;
+    }
+
+    /**
+     * Archives a packet that its reader has moved past, or drops the payload of a packet that was archived already
+     * unless it is kept on the heap.
+     *
+     * @param packet
+     *        the packet
+     */
+    synchronized void retain(TDSPacket packet) {
+        assert archive;
+        if (this == packet.store) {
+            if (Tier.HEAP != packet.tier)
+                packet.payload = null;
+        } else if (null == packet.store) {
+            place(packet);
+            packet.store = this;
+        }
+    }
+
+    private void place(TDSPacket packet) {
+        int size = packet.payload.length;
+        if (heapBytes + size <= heapLimit && !SQLServerResultBufferGovernor.isOverLimit()) {
+            heapBytes += size;
+            packet.tier = Tier.HEAP;
+        } else if (storeOffHeap(packet)) {
+            packet.tier = Tier.OFF_HEAP;
+            packet.payload = null;
+            ++packetsStoredOffHeap;
+        } else if (spill(packet)) {
+            packet.tier = Tier.DISK;
+            packet.payload = null;
+            ++packetsSpilled;
+        } else {
+            // Without a spill file the packet has to stay on the heap
+            heapBytes += size;
+            packet.tier = Tier.HEAP;
+        }
+    }
+
+    private boolean storeOffHeap(TDSPacket packet) {
+        int length = packet.payloadLength;
+        if (null == writeSegment || SEGMENT_SIZE - writeSegment.end < length) {
+            if (null != writeSegment && 0 == writeSegment.packets) {
+                writeSegment.end = 0;
+            } else {
+                if (offHeapLimit >= 0 && offHeapBytes + SEGMENT_SIZE > offHeapLimit)
+                    return false;
+
+                // A full segment is dropped once its last packet has been read
+                writeSegment = new Segment();
+                offHeapBytes += SEGMENT_SIZE;
+            }
+        }
+
+        ((Buffer) writeSegment.buffer).position(writeSegment.end);
+        writeSegment.buffer.put(packet.payload, 0, length);
+        packet.segment = writeSegment;
+        packet.storedOffset = writeSegment.end;
+        writeSegment.end += length;
+        ++writeSegment.packets;
+        return true;
+    }
+
+    private boolean spill(TDSPacket packet) {
+        if (spillFailed)
+            return false;
+
+        try {
+            if (null == spillFile) {
+                String directoryName = spillDirectory;
+                if (null == directoryName || directoryName.isEmpty())
+                    directoryName = System.getProperty("java.io.tmpdir");
+                Path directory = Paths.get(directoryName);
+                spillFile = FileChannel.open(Files.createTempFile(directory, "mssql-jdbc-", ".spill"),
+                        StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.DELETE_ON_CLOSE);
+            }
+
+            ByteBuffer source = ByteBuffer.wrap(packet.payload, 0, packet.payloadLength);
+            long position = spillEnd;
+            while (source.hasRemaining())
+                position += spillFile.write(source, position);
+            packet.storedOffset = spillEnd;
+            spillEnd = position;
+            ++spilledPackets;
+            return true;
+        } catch (IOException | RuntimeException e) {
+            if (logger.isLoggable(Level.WARNING))
+                logger.warning(toString() + " Unable to spill buffered response packets to disk: " + e.getMessage());
+            spillFailed = true;
+            return false;
+        }
+    }
+
+    /**
+     * Returns a buffered packet to the heap when its reader reaches it. An archived packet keeps its place in the
+     * store.
+     *
+     * @param packet
+     *        the packet
+     * @param capacity
+     *        the size of the payload buffer to allocate for an off-heap or spilled packet
+     * @throws IOException
+     *         if the packet cannot be read from the spill file
+     */
+    synchronized void load(TDSPacket packet, int capacity) throws IOException {
+        if (archive) {
+            if (null == packet.payload)
+                packet.payload = read(packet, capacity);
+            return;
+        }
+
+        switch (packet.tier) {
+            case HEAP:
+                heapBytes -= packet.payload.length;
+                break;
+
+            case OFF_HEAP: {
+                Segment segment = packet.segment;
+                packet.payload = read(packet, capacity);
+                packet.segment = null;
+                if (0 == --segment.packets) {
+                    if (segment == writeSegment)
+                        segment.end = 0;
+                    else
+                        offHeapBytes -= SEGMENT_SIZE;
+                }
+                break;
+            }
+
+            case DISK: {
+                packet.payload = read(packet, capacity);
+
+                // Reuse the file from the start once every spilled packet has been read
+                if (0 == --spilledPackets) {
+                    spillEnd = 0;
+                    spillFile.truncate(0);
+                }
+                break;
+            }
+        }
+        packet.tier = null;
+        packet.store = null;
+    }
+
+    /**
+     * Reads the payload of an off-heap or spilled packet into a new heap buffer.
+     */
+    private byte[] read(TDSPacket packet, int capacity) throws IOException {
+        byte[] payload = new byte[Math.max(capacity, packet.payloadLength)];
+        if (Tier.OFF_HEAP == packet.tier) {
+            ((Buffer) packet.segment.buffer).position((int) packet.storedOffset);
+            packet.segment.buffer.get(payload, 0, packet.payloadLength);
+            return payload;
+        }
+
+        if (null == spillFile)
+            throw new IOException(SQLServerException.getErrString("R_connectionIsClosed"));
+
+        ByteBuffer target = ByteBuffer.wrap(payload, 0, packet.payloadLength);
+        long position = packet.storedOffset;
+        while (target.hasRemaining()) {
+            int bytesRead = spillFile.read(target, position);
+            if (bytesRead < 0)
+                throw new IOException("Unexpected end of spill file");
+            position += bytesRead;
+        }
+        return payload;
+    }
+
+    synchronized long getHeapBytes() {
+        return heapBytes;
+    }
+
+    synchronized long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    synchronized long getPacketsStoredOffHeap() {
+        return packetsStoredOffHeap;
+    }
+
+    synchronized long getPacketsSpilled() {
+        return packetsSpilled;
+    }
+
+    /**
+     * Logs the statistics of this store, and drops the off-heap segments and the spill file.
+     */
+    synchronized void close() {
+        if (logger.isLoggable(Level.FINE))
+            logger.fine(toString() + " packets stored off-heap:" + packetsStoredOffHeap + " packets spilled:"
+                    + packetsSpilled);
+
+        writeSegment = null;
+        if (null != spillFile) {
+            try {
+                spillFile.close();
+            } catch (IOException e) {
+                if (logger.isLoggable(Level.FINE))
+                    logger.fine(toString() + " Ignored error closing spill file: " + e.getMessage());
+            }
+            spillFile = null;
+        }
+    }
+}
+
+
+/**
+ * TDSPacketPrefetcher reads the packets of a TDS response ahead of the TDSReader consuming them, so that network
+ * transfer overlaps with the decoding of the packets already read.
+ *
+ * Packets are read on an executor thread into a queue of at most maxPackets packets. Fetching stops when the queue is
+ * full and resumes once the reader has taken half of it. Fetching also stops at the end of each message, so nothing is
+ * read from the channel between responses; the reader's next take() starts fetching the next message. An error reading
+ * from the channel is thrown to the reader when it reaches that point in the response. If the executor rejects a
+ * fetch, the reader reads the packets it needs on its own thread. The lock is never held while reading from the
+ * channel.
+ */
+final class TDSPacketPrefetcher implements Runnable {
+    /**
+     * Reads one packet from the channel.
+     */
+    @FunctionalInterface
+    interface PacketSource {
+        void readPacket(TDSPacket packet, int packetNum) throws SQLServerException;
+    }
+
+    private static final Logger logger = Logger.getLogger("com.microsoft.sqlserver.jdbc.internals.TDS.Prefetcher");
+
+    private final String traceID;
+    private final PacketSource source;
+    private final TDSPacketPool packetPool;
+    private final SQLServerResultBufferGovernor.Account bufferAccount;
+    private final Executor executor;
+    private final int maxPackets;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition packetAvailable = lock.newCondition();
+    private final ArrayDeque<TDSPacket> packets;
+
+    // Whether a fetch is running, on the executor or on the reader's thread
+    private boolean fetching = false;
+
+    // Whether the last packet fetched ended a message
+    private boolean endOfMessage = true;
+
+    // Packet size and number of packets fetched so far for the current message
+    private int packetSize;
+    private int packetNum = 0;
+
+    private SQLServerException failure = null;
+
+    // Set if the executor rejected a fetch; packets are then read on the reader's thread when needed
+    private boolean executorRejected = false;
+
+    TDSPacketPrefetcher(String traceID, PacketSource source, TDSPacketPool packetPool,
+            SQLServerResultBufferGovernor.Account bufferAccount, Executor executor, int maxPackets) {
+        assert maxPackets > 0;
+        this.traceID = traceID;
+        this.source = source;
+        this.packetPool = packetPool;
+        this.bufferAccount = bufferAccount;
+        this.executor = executor;
+        this.maxPackets = maxPackets;
+        this.packets = new ArrayDeque<>(maxPackets);
+    }
+
+    final public String toString() {
+        return traceID;
+    }
+
+    /**
+     * Returns the next packet of the response, waiting for it to be read if necessary.
+     *
+     * @param size
+     *        the negotiated packet size
+     * @return the next packet
+     * @throws SQLServerException
+     *         if reading the packet from the channel failed
+     */
+    TDSPacket take(int size) throws SQLServerException {
+        lock.lock();
+        try {
+            while (packets.isEmpty()) {
+                if (null != failure)
+                    throw failure;
+                if (fetching) {
+                    packetAvailable.awaitUninterruptibly();
+                    continue;
+                }
+
+                if (endOfMessage) {
+                    endOfMessage = false;
+                    packetNum = 0;
+                }
+                if (!startFetch(size)) {
+                    // No thread to prefetch on, so this thread reads the packet, without holding the lock
+                    lock.unlock();
+                    try {
+                        fetchPacket(true);
+                    } finally {
+                        lock.lock();
+                    }
+                }
+            }
+
+            TDSPacket packet = packets.poll();
+            bufferAccount.release(packet);
+            if (!fetching && !endOfMessage && null == failure && !executorRejected
+                    && packets.size() <= maxPackets / 2 && !SQLServerResultBufferGovernor.isOverLimit()
+                    && !startFetch(size)) {
+                // Without a thread to prefetch on, the next take() reads the packet
+                fetching = false;
+            }
+            return packet;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    int getQueuedPacketCount() {
+        lock.lock();
+        try {
+            return packets.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Starts a fetch on the executor. Must be called with the lock held.
+     *
+     * @return false if the executor rejected the fetch. fetching is still set then, so that the caller can read the
+     *         packet itself once it has released the lock, or must clear it.
+     */
+    private boolean startFetch(int size) {
+        packetSize = size;
+        fetching = true;
+        try {
+            executor.execute(this);
+            return true;
+        } catch (RuntimeException e) {
+            executorRejected = true;
+            if (logger.isLoggable(Level.FINER))
+                logger.finer(toString() + " prefetch could not be started: " + e.getMessage());
+            return false;
+        }
+    }
+
+    @Override
+    public void run() {
+        while (fetchPacket(false));
+    }
+
+    /**
+     * Reads the next packet of the message from the channel into the queue. Must be called without the lock held, by
+     * the thread that set fetching.
+     *
+     * @param single
+     *        whether to stop fetching after this packet, when the reader reads it on its own thread
+     * @return whether fetching continues
+     */
+    private boolean fetchPacket(boolean single) {
+        int size;
+        int num;
+        lock.lock();
+        try {
+            size = packetSize;
+            num = packetNum++;
+        } finally {
+            lock.unlock();
+        }
+
+        TDSPacket packet = packetPool.get(size);
+        SQLServerException readFailure = null;
+        try {
+            source.readPacket(packet, num);
+        } catch (SQLServerException e) {
+            readFailure = e;
+        }
+
+        lock.lock();
+        try {
+            if (null != readFailure) {
+                failure = readFailure;
+                fetching = false;
+            } else {
+                bufferAccount.acquire(packet);
+                packets.add(packet);
+                if (packet.isEOM()) {
+                    endOfMessage = true;
+                    fetching = false;
+                } else if (single || packets.size() >= maxPackets
+                        || SQLServerResultBufferGovernor.applyBackpressure()) {
+                    // Past the JVM-wide limit, packets are read one at a time as the reader takes them
+                    fetching = false;
+                }
+            }
+            packetAvailable.signalAll();
+            return fetching;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
+
+
+/**
+ * TDSReaderMark encapsulates a fixed position in the response data stream.
  *
  * Response data is quantized into a linked chain of packets. A mark refers to a specific location in a specific packet
  * and relies on Java's reference semantics to automatically keep all subsequent packets accessible until the mark is
  * destroyed.
  */
 final class TDSReaderMark {
-    final TDSPacket packet;
-    final int payloadOffset;
+    TDSPacket packet;
+    int payloadOffset;
 
     TDSReaderMark(TDSPacket packet, int payloadOffset) {
         this.packet = packet;
@@ -6459,12 +7554,28 @@ final class TDSReader implements Serializable {
         return con;
     }
 
+    /**
+     * Returns the number of payload bytes of the packets read so far for this reader's response.
+     */
+    final long getPayloadBytesRead() {
+        return payloadBytesRead;
+    }
+
     private TDSPacket currentPacket = new TDSPacket(0);
     private TDSPacket lastPacket = currentPacket;
     private int payloadOffset = 0;
     private int packetNum = 0;
+    private long payloadBytesRead = 0;
 
     private boolean isStreaming = true;
+    private long markGeneration = 0;
+
+    // Archives the retained packets that the reader moves past, if set
+    private TDSPacketStore archiveStore = null;
+
+    // Serializes reading packets from the channel. A lock rather than a monitor, so that a virtual thread blocked in
+    // socket I/O while holding it does not pin its carrier thread.
+    private final ReentrantLock readLock = new ReentrantLock();
     private boolean useColumnEncryption = false;
     private boolean serverSupportsColumnEncryption = false;
     private boolean serverSupportsDataClassification = false;
@@ -6545,6 +7656,9 @@ final class TDSReader implements Serializable {
     /**
      * Advance (and possibly read) the next packet.
      *
+     * When streaming, the packet being moved past is unlinked from the rest of the response. If, in addition, no
+     * TDSReaderMark can reach it, the packet is returned to the channel's packet pool.
+     *
      * @return true if additional data is available to be read false if no more data is available
      */
     private boolean nextPacket() throws SQLServerException {
@@ -6563,7 +7677,7 @@ final class TDSReader implements Serializable {
             if (null != command && command.getTDSWriter().checkIfTdsMessageTypeIsBatchOrRPC()) {
                 command.getCounter().resetCounter();
             }
-            readPacket();
+            readPacket(false);
 
             if (null == consumedPacket.next)
                 return false;
@@ -6578,19 +7692,64 @@ final class TDSReader implements Serializable {
                 logger.finest(toString() + " Moving to next packet -- unlinking consumed packet");
 
             consumedPacket.next = null;
-        }
+            if (!isRetained(consumedPacket))
+                tdsChannel.getPacketPool().release(consumedPacket);
+        } else if (isRetained(consumedPacket)) {
+            // The consumed packet stays linked to the next one, so any mark that can reach it can reach the next too.
+            nextPacket.retainedGeneration = markGeneration;
+            if (null != archiveStore)
+                archiveStore.retain(consumedPacket);
+        }
+        if (null != nextPacket.store)
+            loadPacket(nextPacket);
+        if (0 != nextPacket.governedBytes)
+            tdsChannel.getBufferAccount().release(nextPacket);
         currentPacket = nextPacket;
         payloadOffset = 0;
         return true;
     }
 
+    /**
+     * Returns a packet buffered or archived by a packet store to the heap.
+     */
+    private void loadPacket(TDSPacket packet) throws SQLServerException {
+        try {
+            packet.store.load(packet, con.getTDSPacketSize());
+        } catch (IOException e) {
+            con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED, e.getMessage(), e);
+        }
+    }
+
+    private boolean isRetained(TDSPacket packet) {
+        return markGeneration == packet.retainedGeneration;
+    }
+
     /**
      * Reads the next packet of the TDS channel.
      *
-     * This method is synchronized to guard against simultaneously reading packets from one thread that is processing
+     * This method holds readLock to guard against simultaneously reading packets from one thread that is processing
      * the response and another thread that is trying to buffer it with TDSCommand.detach().
      */
-    synchronized final boolean readPacket() throws SQLServerException {
+    final boolean readPacket() throws SQLServerException {
+        return readPacket(true);
+    }
+
+    /**
+     * Reads the next packet of the TDS channel.
+     *
+     * @param readAhead
+     *        true if the packet is buffered ahead of this reader, false if the reader moves to it at once
+     */
+    private boolean readPacket(boolean readAhead) throws SQLServerException {
+        readLock.lock();
+        try {
+            return readPacketLocked(readAhead);
+        } finally {
+            readLock.unlock();
+        }
+    }
+
+    private boolean readPacketLocked(boolean readAhead) throws SQLServerException {
         if (null != command && !command.readingResponse())
             return false;
 
@@ -6600,7 +7759,6 @@ final class TDSReader implements Serializable {
         assert tdsChannel.numMsgsRcvd < tdsChannel.numMsgsSent : "numMsgsRcvd:" + tdsChannel.numMsgsRcvd
                 + " should be less than numMsgsSent:" + tdsChannel.numMsgsSent;
 
-        TDSPacket newPacket = new TDSPacket(con.getTDSPacketSize());
         if (null != command) {
             // if cancelQueryTimeout is set, we should wait for the total amount of
             // queryTimeout + cancelQueryTimeout to
@@ -6611,21 +7769,14 @@ final class TDSReader implements Serializable {
                 this.timeout = con.getSharedTimer().schedule(new TDSTimeoutTask(command, con), seconds);
             }
         }
-        // First, read the packet header.
-        for (int headerBytesRead = 0; headerBytesRead < TDS.PACKET_HEADER_SIZE;) {
-            int bytesRead = tdsChannel.read(newPacket.header, headerBytesRead,
-                    TDS.PACKET_HEADER_SIZE - headerBytesRead);
-            if (bytesRead < 0) {
-                if (logger.isLoggable(Level.FINER))
-                    logger.finer(toString() + " Premature EOS in response. packetNum:" + packetNum + " headerBytesRead:"
-                            + headerBytesRead);
-
-                con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED,
-                        ((0 == packetNum && 0 == headerBytesRead) ? SQLServerException.getErrString(
-                                "R_noServerResponse") : SQLServerException.getErrString("R_truncatedServerResponse")));
-            }
-
-            headerBytesRead += bytesRead;
+        // Read the packet, or take it from the packets read ahead of this reader.
+        TDSPacketPrefetcher prefetcher = tdsChannel.getPrefetcher();
+        TDSPacket newPacket;
+        if (null != prefetcher) {
+            newPacket = prefetcher.take(con.getTDSPacketSize());
+        } else {
+            newPacket = tdsChannel.getPacketPool().get(con.getTDSPacketSize());
+            tdsChannel.readPacket(newPacket, packetNum);
         }
 
         // if execution was subject to timeout then stop timing
@@ -6633,19 +7784,7 @@ final class TDSReader implements Serializable {
             this.timeout.cancel(false);
             this.timeout = null;
         }
-        // Header size is a 2 byte unsigned short integer in big-endian order.
-        int packetLength = Util.readUnsignedShortBigEndian(newPacket.header, TDS.PACKET_HEADER_MESSAGE_LENGTH);
-
-        // Make header size is properly bounded and compute length of the packet payload.
-        if (packetLength < TDS.PACKET_HEADER_SIZE || packetLength > con.getTDSPacketSize()) {
-            if (logger.isLoggable(Level.WARNING)) {
-                logger.warning(toString() + " TDS header contained invalid packet length:" + packetLength
-                        + "; packet size:" + con.getTDSPacketSize());
-            }
-            throwInvalidTDS();
-        }
-
-        newPacket.payloadLength = packetLength - TDS.PACKET_HEADER_SIZE;
+        int packetLength = TDS.PACKET_HEADER_SIZE + newPacket.payloadLength;
 
         // Just grab the SPID for logging (another big-endian unsigned short).
         tdsChannel.setSPID(Util.readUnsignedShortBigEndian(newPacket.header, TDS.PACKET_HEADER_SPID));
@@ -6663,21 +7802,8 @@ final class TDSReader implements Serializable {
             command.getCounter().increaseCounter(packetLength);
         }
 
-        // Now for the payload...
-        for (int payloadBytesRead = 0; payloadBytesRead < newPacket.payloadLength;) {
-            int bytesRead = tdsChannel.read(newPacket.payload, payloadBytesRead,
-                    newPacket.payloadLength - payloadBytesRead);
-            if (bytesRead < 0)
-                con.terminate(SQLServerException.DRIVER_ERROR_IO_FAILED,
-                        SQLServerException.getErrString("R_truncatedServerResponse"));
-
-            payloadBytesRead += bytesRead;
-        }
-
         ++packetNum;
-
-        lastPacket.next = newPacket;
-        lastPacket = newPacket;
+        payloadBytesRead += newPacket.payloadLength;
 
         // When logging, append the payload to the log buffer and write out the whole thing.
         if (tdsChannel.isLoggingPackets()) {
@@ -6686,6 +7812,16 @@ final class TDSReader implements Serializable {
                     this.toString() + " received Packet:" + packetNum + " (" + newPacket.payloadLength + " bytes)");
         }
 
+        // A packet read ahead may move off the heap. It must be stored before the reader can reach it.
+        TDSPacketStore packetStore = tdsChannel.getPacketStore();
+        if (readAhead && null != packetStore)
+            packetStore.store(newPacket);
+        if (readAhead && null != newPacket.payload)
+            tdsChannel.getBufferAccount().acquire(newPacket);
+
+        lastPacket.next = newPacket;
+        lastPacket = newPacket;
+
         // If end of message, then bump the count of messages received and disable
         // interrupts. If an interrupt happened prior to disabling, then expect
         // to read the attention ack packet as well.
@@ -6701,7 +7837,22 @@ final class TDSReader implements Serializable {
     }
 
     final TDSReaderMark mark() {
-        TDSReaderMark mark = new TDSReaderMark(currentPacket, payloadOffset);
+        return mark(null);
+    }
+
+    /**
+     * Marks the current position, reusing the given mark object if it is not null. The caller must own the reused mark
+     * and no longer need the position it held.
+     */
+    final TDSReaderMark mark(TDSReaderMark reusedMark) {
+        TDSReaderMark mark = reusedMark;
+        if (null == mark) {
+            mark = new TDSReaderMark(currentPacket, payloadOffset);
+        } else {
+            mark.packet = currentPacket;
+            mark.payloadOffset = payloadOffset;
+        }
+        currentPacket.retainedGeneration = markGeneration;
         isStreaming = false;
 
         if (logger.isLoggable(Level.FINEST))
@@ -6710,10 +7861,12 @@ final class TDSReader implements Serializable {
         return mark;
     }
 
-    final void reset(TDSReaderMark mark) {
+    final void reset(TDSReaderMark mark) throws SQLServerException {
         if (logger.isLoggable(Level.FINEST))
             logger.finest(this.toString() + ": Resetting to: " + mark.toString());
 
+        if (null != mark.packet.store)
+            loadPacket(mark.packet);
         currentPacket = mark.packet;
         payloadOffset = mark.payloadOffset;
     }
@@ -6722,6 +7875,25 @@ final class TDSReader implements Serializable {
         isStreaming = true;
     }
 
+    /**
+     * Sets the store that archives the retained packets this reader moves past, or null to keep them on the heap.
+     */
+    final void setArchiveStore(TDSPacketStore archiveStore) {
+        this.archiveStore = archiveStore;
+    }
+
+    /**
+     * Resumes streaming and declares that none of the marks taken so far will be reset to, so that packets the reader
+     * moves past from here on can be recycled.
+     *
+     * Only the owner of every outstanding mark on this reader may call this method, e.g. a forward only result set
+     * moving to its next row.
+     */
+    final void releaseMarks() {
+        ++markGeneration;
+        isStreaming = true;
+    }
+
     /**
      * Returns the number of bytes that can be read (or skipped over) from this TDSReader without blocking by the next
      * caller of a method for this TDSReader.
@@ -6810,6 +7982,31 @@ final class TDSReader implements Serializable {
         return (char) readShort();
     }
 
+    /**
+     * Reads length UTF-16LE characters into the array, decoding them straight from the packet payloads.
+     */
+    final void readUnicodeChars(char[] value, int valueOffset, int length) throws SQLServerException {
+        int charsRead = 0;
+        while (charsRead < length) {
+            if (!ensurePayload())
+                throwInvalidTDS();
+
+            int charsToCopy = Math.min(length - charsRead, (currentPacket.payloadLength - payloadOffset) >> 1);
+            if (0 == charsToCopy) {
+                // The next character is split between this packet and the next one
+                value[valueOffset + charsRead++] = readChar();
+                continue;
+            }
+
+            byte[] payload = currentPacket.payload;
+            for (int i = valueOffset + charsRead, end = i + charsToCopy; i < end; i++) {
+                value[i] = (char) ((payload[payloadOffset] & 0xFF) | ((payload[payloadOffset + 1] & 0xFF) << 8));
+                payloadOffset += 2;
+            }
+            charsRead += charsToCopy;
+        }
+    }
+
     final int readInt() throws SQLServerException {
         if (payloadOffset + 4 <= currentPacket.payloadLength) {
             int value = Util.readInt(currentPacket.payload, payloadOffset);
@@ -7274,8 +8471,9 @@ abstract class TDSCommand implements Serializable {
     }
 
     // Lock to ensure atomicity when manipulating more than one of the following
-    // shared interrupt state variables below.
-    private final Object interruptLock = new Object();
+    // shared interrupt state variables below. The attention signal is sent while
+    // holding it, so it is not a monitor, which would pin a virtual thread.
+    private final ReentrantLock interruptLock = new ReentrantLock();
 
     // Flag set when this command starts execution, indicating that it is
     // ready to respond to interrupts; and cleared when its last response packet is
@@ -7289,8 +8487,11 @@ abstract class TDSCommand implements Serializable {
     }
 
     protected void setInterruptsEnabled(boolean interruptsEnabled) {
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             this.interruptsEnabled = interruptsEnabled;
+        } finally {
+            interruptLock.unlock();
         }
     }
 
@@ -7315,8 +8516,11 @@ abstract class TDSCommand implements Serializable {
     }
 
     protected void setRequestComplete(boolean requestComplete) {
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             this.requestComplete = requestComplete;
+        } finally {
+            interruptLock.unlock();
         }
     }
 
@@ -7339,8 +8543,11 @@ abstract class TDSCommand implements Serializable {
     }
 
     protected void setProcessedResponse(boolean processedResponse) {
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             this.processedResponse = processedResponse;
+        } finally {
+            interruptLock.unlock();
         }
     }
 
@@ -7558,7 +8765,8 @@ abstract class TDSCommand implements Serializable {
     void interrupt(String reason) throws SQLServerException {
         // Multiple, possibly simultaneous, interrupts may occur.
         // Only the first one should be recognized and acted upon.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             if (interruptsEnabled && !wasInterrupted()) {
                 if (logger.isLoggable(Level.FINEST))
                     logger.finest(this + ": Raising interrupt for reason:" + reason);
@@ -7569,6 +8777,8 @@ abstract class TDSCommand implements Serializable {
                     attentionPending = tdsWriter.sendAttention();
 
             }
+        } finally {
+            interruptLock.unlock();
         }
     }
 
@@ -7616,7 +8826,8 @@ abstract class TDSCommand implements Serializable {
      * completes after being interrupted (0 or more packets sent with no EOM bit).
      */
     final void onRequestComplete() throws SQLServerException {
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             assert !requestComplete;
 
             if (logger.isLoggable(Level.FINEST))
@@ -7650,6 +8861,8 @@ abstract class TDSCommand implements Serializable {
                 assert !processedResponse;
                 readingResponse = true;
             }
+        } finally {
+            interruptLock.unlock();
         }
     }
 
@@ -7669,7 +8882,8 @@ abstract class TDSCommand implements Serializable {
 
         // Atomically disable interrupts and check for a previous interrupt requiring
         // an attention ack to be read.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             if (interruptsEnabled) {
                 if (logger.isLoggable(Level.FINEST))
                     logger.finest(this + ": disabling interrupts");
@@ -7683,6 +8897,8 @@ abstract class TDSCommand implements Serializable {
 
                 interruptsEnabled = false;
             }
+        } finally {
+            interruptLock.unlock();
         }
 
         // If an attention packet needs to be read then read it. This should
@@ -7743,7 +8959,8 @@ abstract class TDSCommand implements Serializable {
         // (Re)initialize this command's interrupt state for its current execution.
         // To ensure atomically consistent behavior, do not leave the interrupt lock
         // until interrupts have been (re)enabled.
-        synchronized (interruptLock) {
+        interruptLock.lock();
+        try {
             requestComplete = false;
             readingResponse = false;
             processedResponse = false;
@@ -7751,6 +8968,8 @@ abstract class TDSCommand implements Serializable {
             wasInterrupted = false;
             interruptReason = null;
             interruptsEnabled = true;
+        } finally {
+            interruptLock.unlock();
         }
 
         return tdsWriter;
@@ -5,9 +5,11 @@
 
 package com.microsoft.sqlserver.jdbc;
 
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.Statement;
+import java.util.List;
 import java.util.UUID;
 
 
@@ -376,4 +378,24 @@ public interface ISQLServerConnection extends java.sql.Connection {
      *        boolean value for 'delayLoadingLobs'.
      */
     void setDelayLoadingLobs(boolean delayLoadingLobs);
+
+    /**
+     * Executes prepared statements of this connection as consecutive RPCs in one request to the server, so that a unit
+     * of work of different statements takes one round trip. The statements are executed in the order of the list. A
+     * statement with rows added by addBatch is executed once per row, and its batch is cleared; a statement without is
+     * executed once with the current values of its parameters. A statement can only be listed once, so a statement
+     * that has to run more than once adds each set of values to its batch. The results are processed as the results of
+     * a batch: an execution that fails or returns a result set does not stop the next ones, and gets
+     * Statement.EXECUTE_FAILED as its update count.
+     * 
+     * @param statements
+     *        the prepared statements of this connection, each listed once, without OUT parameters
+     * @return the update count of each execution, in order, or Statement.SUCCESS_NO_INFO if it is not known
+     * @throws BatchUpdateException
+     *         if an execution fails or returns a result set, with the update counts of all the executions
+     * @throws SQLServerException
+     *         if the connection is closed, a statement is not valid or the execution fails
+     */
+    long[] executePreparedStatements(List<? extends PreparedStatement> statements)
+            throws SQLServerException, BatchUpdateException;
 }
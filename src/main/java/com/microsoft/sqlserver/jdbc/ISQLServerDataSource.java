@@ -1036,6 +1036,22 @@ public interface ISQLServerDataSource extends javax.sql.CommonDataSource {
      */
     boolean getDelayLoadingLobs();
 
+    /**
+     * Specifies the flag to write TDS packets through a java.nio SocketChannel using direct buffers. Only takes effect
+     * when no custom socketFactoryClass is set and the connection is not fully encrypted.
+     *
+     * @param useSocketChannel
+     *        boolean value for 'useSocketChannel'.
+     */
+    void setUseSocketChannel(boolean useSocketChannel);
+
+    /**
+     * Returns the current flag value for useSocketChannel.
+     *
+     * @return 'useSocketChannel' property value.
+     */
+    boolean getUseSocketChannel();
+
     /**
      * Returns the current flag for value sendTemporalDataTypesAsStringForBulkCopy
      * 
@@ -1128,4 +1144,179 @@ public interface ISQLServerDataSource extends javax.sql.CommonDataSource {
      * @return 'connectRetryInterval' property.
      */
     int getConnectRetryInterval();
+
+    /**
+     * Sets the 'readAheadPackets' property that specifies the maximum number of response packets the driver reads from
+     * the network on a background thread ahead of the application. The default of 0 reads packets only when they are
+     * needed.
+     * 
+     * @param readAheadPackets
+     *        the maximum number of packets to read ahead, between 0 and 1024
+     */
+    void setReadAheadPackets(int readAheadPackets);
+
+    /**
+     * Returns the value of 'readAheadPackets' property
+     * 
+     * @return 'readAheadPackets' property.
+     */
+    int getReadAheadPackets();
+
+    /**
+     * Sets the 'tdsCaptureFile' property that specifies the file to which the driver records the raw TDS response
+     * stream of each connection, so that the responses can be replayed offline. Each connection records to its own
+     * file, named by inserting a dash and the client connection ID before the extension of the given file name, so
+     * "/tmp/session.tds" is recorded to "/tmp/session-&lt;client connection ID&gt;.tds", replacing the contents of that
+     * file. This is a diagnostic setting: the files contain all data returned by the server.
+     * 
+     * @param tdsCaptureFile
+     *        the capture file path the names of the capture files are derived from, or an empty string to disable
+     *        capture
+     */
+    void setTdsCaptureFile(String tdsCaptureFile);
+
+    /**
+     * Returns the value of 'tdsCaptureFile' property
+     * 
+     * @return 'tdsCaptureFile' property.
+     */
+    String getTdsCaptureFile();
+
+    /**
+     * Sets the 'responseBufferHeapLimit' property that specifies how many bytes of buffered responses, such as
+     * responses read with responseBuffering=full, the driver keeps on the Java heap for each connection. Further
+     * response packets are moved to off-heap memory, and then to a temporary file, until the application reads them.
+     * The syntax is that of 'maxResultBuffer', which still limits the total size of a response.
+     * 
+     * @param responseBufferHeapLimit
+     *        the heap limit, or -1 to keep all buffered packets on the heap
+     */
+    void setResponseBufferHeapLimit(String responseBufferHeapLimit);
+
+    /**
+     * Returns the value of 'responseBufferHeapLimit' property
+     * 
+     * @return 'responseBufferHeapLimit' property.
+     */
+    String getResponseBufferHeapLimit();
+
+    /**
+     * Sets the 'responseBufferOffHeapLimit' property that specifies how many bytes of buffered responses the driver
+     * keeps in off-heap memory for each connection once 'responseBufferHeapLimit' is reached. Further response packets
+     * are spilled to a temporary file. The syntax is that of 'maxResultBuffer'.
+     * 
+     * @param responseBufferOffHeapLimit
+     *        the off-heap limit, -1 to never spill to disk, or 0 to spill without using off-heap memory
+     */
+    void setResponseBufferOffHeapLimit(String responseBufferOffHeapLimit);
+
+    /**
+     * Returns the value of 'responseBufferOffHeapLimit' property
+     * 
+     * @return 'responseBufferOffHeapLimit' property.
+     */
+    String getResponseBufferOffHeapLimit();
+
+    /**
+     * Sets the 'responseBufferSpillDirectory' property that specifies the directory of the temporary files to which
+     * buffered responses are spilled. The files are deleted when they are closed.
+     * 
+     * @param responseBufferSpillDirectory
+     *        the spill directory, or an empty string for the java.io.tmpdir directory
+     */
+    void setResponseBufferSpillDirectory(String responseBufferSpillDirectory);
+
+    /**
+     * Returns the value of 'responseBufferSpillDirectory' property
+     * 
+     * @return 'responseBufferSpillDirectory' property.
+     */
+    String getResponseBufferSpillDirectory();
+
+    /**
+     * Sets the 'useClientScrollInsensitiveResultSets' property that specifies whether read-only
+     * TYPE_SCROLL_INSENSITIVE result sets are scrolled in the driver instead of with a server cursor. The rows are read
+     * once and buffered within the limits of the responseBufferHeapLimit and responseBufferOffHeapLimit properties.
+     * 
+     * @param useClientScrollInsensitiveResultSets
+     *        boolean value for 'useClientScrollInsensitiveResultSets'.
+     */
+    void setUseClientScrollInsensitiveResultSets(boolean useClientScrollInsensitiveResultSets);
+
+    /**
+     * Returns the value of 'useClientScrollInsensitiveResultSets' property
+     * 
+     * @return 'useClientScrollInsensitiveResultSets' property.
+     */
+    boolean getUseClientScrollInsensitiveResultSets();
+
+    /**
+     * Sets the 'serverCursorFetchWindow' property that specifies the number of bytes of rows fetched from a server
+     * cursor at a time. The number of rows of each fetch is sized from the width of the rows fetched so far, and grows
+     * while the round-trip latency dominates the fetches.
+     * 
+     * @param serverCursorFetchWindow
+     *        the fetch window in the syntax of maxResultBuffer, or -1 to fetch the fetch size of the result set
+     */
+    void setServerCursorFetchWindow(String serverCursorFetchWindow);
+
+    /**
+     * Returns the value of 'serverCursorFetchWindow' property
+     * 
+     * @return 'serverCursorFetchWindow' property.
+     */
+    String getServerCursorFetchWindow();
+
+    /**
+     * Sets the 'deferCursorModifications' property that specifies whether insertRow, updateRow and deleteRow of
+     * updatable server cursor result sets are queued and sent to the server together in one request, when the cursor
+     * moves to another block of rows, on ISQLServerResultSet.flushCursorModifications, on commit or on close.
+     * 
+     * @param deferCursorModifications
+     *        boolean value for 'deferCursorModifications'.
+     */
+    void setDeferCursorModifications(boolean deferCursorModifications);
+
+    /**
+     * Returns the value of 'deferCursorModifications' property
+     * 
+     * @return 'deferCursorModifications' property.
+     */
+    boolean getDeferCursorModifications();
+
+    /**
+     * Sets the 'batchChunkSize' property that specifies the number of bytes of requests after which the batch of a
+     * prepared statement is split. The driver reads the results of each part of the batch before it sends the next,
+     * which bounds the size of the requests and of the pending results of large batches.
+     * 
+     * @param batchChunkSize
+     *        the chunk size in the syntax of maxResultBuffer, or -1 to send the batch in one request
+     */
+    void setBatchChunkSize(String batchChunkSize);
+
+    /**
+     * Returns the value of 'batchChunkSize' property
+     * 
+     * @return 'batchChunkSize' property.
+     */
+    String getBatchChunkSize();
+
+    /**
+     * Sets the 'useBulkCopyForBatchUpdate' property that specifies whether a batch of a parameterized UPDATE, DELETE
+     * or MERGE statement is bulk copied into a temporary table and run as one statement that joins the table, instead
+     * of running the statement once for each row of the batch. The rows of such a batch must not modify the same rows
+     * of the target, since the statement applies them together. Statements that cannot be run this way are batched
+     * as usual.
+     * 
+     * @param useBulkCopyForBatchUpdate
+     *        boolean value for 'useBulkCopyForBatchUpdate'.
+     */
+    void setUseBulkCopyForBatchUpdate(boolean useBulkCopyForBatchUpdate);
+
+    /**
+     * Returns the value of 'useBulkCopyForBatchUpdate' property
+     * 
+     * @return 'useBulkCopyForBatchUpdate' property.
+     */
+    boolean getUseBulkCopyForBatchUpdate();
 }
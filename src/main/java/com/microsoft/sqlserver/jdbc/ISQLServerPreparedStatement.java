@@ -8,7 +8,11 @@ package com.microsoft.sqlserver.jdbc;
 import java.math.BigDecimal;
 import java.sql.ParameterMetaData;
 import java.sql.ResultSet;
+import java.sql.SQLTimeoutException;
 import java.sql.SQLType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
 
 
 /**
@@ -776,4 +780,91 @@ public interface ISQLServerPreparedStatement extends java.sql.PreparedStatement,
      *         when the connection is closed.
      */
     public void setUseFmtOnly(boolean useFmtOnly) throws SQLServerException;
+
+    /**
+     * Executes the SQL query in this SQLServerPreparedStatement object without blocking the calling thread. The
+     * statement is executed on the driver's default async executor. Neither this object nor its parameters may be
+     * used again until the returned future has completed. Cancelling the returned future cancels the statement.
+     * The default executor runs one execution per available processor at a time and queues up to 1024 more; the
+     * futures of further executions complete exceptionally with a SQLServerException.
+     * 
+     * @return a future that completes with the ResultSet produced by the query, or exceptionally with the
+     *         SQLServerException raised by the execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<ResultSet> executeQueryAsync() throws SQLServerException;
+
+    /**
+     * Executes the SQL query in this SQLServerPreparedStatement object on the given executor. Neither this object nor
+     * its parameters may be used again until the returned future has completed. Cancelling the returned future cancels
+     * the statement.
+     * 
+     * @param executor
+     *        the executor that runs the statement
+     * @return a future that completes with the ResultSet produced by the query, or exceptionally with the
+     *         SQLServerException raised by the execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<ResultSet> executeQueryAsync(Executor executor) throws SQLServerException;
+
+    /**
+     * Executes the SQL statement in this SQLServerPreparedStatement object, which must be an SQL Data Manipulation
+     * Language (DML) statement or an SQL statement that returns nothing, without blocking the calling thread. The
+     * statement is executed on the driver's default async executor. Neither this object nor its parameters may be
+     * used again until the returned future has completed. Cancelling the returned future cancels the statement.
+     * The default executor runs one execution per available processor at a time and queues up to 1024 more; the
+     * futures of further executions complete exceptionally with a SQLServerException.
+     * 
+     * @return a future that completes with the row count, or exceptionally with the SQLServerException raised by the
+     *         execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<Integer> executeUpdateAsync() throws SQLServerException;
+
+    /**
+     * Executes the SQL statement in this SQLServerPreparedStatement object, which must be an SQL Data Manipulation
+     * Language (DML) statement or an SQL statement that returns nothing, on the given executor. Neither this object
+     * nor its parameters may be used again until the returned future has completed. Cancelling the returned future
+     * cancels the statement.
+     * 
+     * @param executor
+     *        the executor that runs the statement
+     * @return a future that completes with the row count, or exceptionally with the SQLServerException raised by the
+     *         execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<Integer> executeUpdateAsync(Executor executor) throws SQLServerException;
+
+    /**
+     * Executes the SQL query in this SQLServerPreparedStatement object and returns its rows as a stream. The rows are
+     * read from the response in batches of 1024 rows; see {@link #stream(int)}.
+     *
+     * @return a stream of the rows of the query, which must be closed
+     * @throws SQLServerException
+     *         if a database access error occurs, this method is called on a closed statement, or the SQL statement
+     *         does not produce a result set
+     * @throws SQLTimeoutException
+     *         if the query timeout is exceeded
+     */
+    Stream<SQLServerRow> stream() throws SQLServerException, SQLTimeoutException;
+
+    /**
+     * Executes the SQL query in this SQLServerPreparedStatement object and returns its rows as a stream, read from the
+     * response in batches of up to batchSize rows. The stream behaves as described in
+     * {@link ISQLServerStatement#stream(String, int)}.
+     *
+     * @param batchSize
+     *        the maximum number of rows in a batch, which must be positive
+     * @return a stream of the rows of the query, which must be closed
+     * @throws SQLServerException
+     *         if a database access error occurs, this method is called on a closed statement, or the SQL statement
+     *         does not produce a result set
+     * @throws SQLTimeoutException
+     *         if the query timeout is exceeded
+     */
+    Stream<SQLServerRow> stream(int batchSize) throws SQLServerException, SQLTimeoutException;
 }
@@ -6,6 +6,7 @@
 package com.microsoft.sqlserver.jdbc;
 
 import java.math.BigDecimal;
+import java.nio.CharBuffer;
 import java.sql.SQLType;
 import java.util.Calendar;
 
@@ -1595,4 +1596,104 @@ public interface ISQLServerResultSet extends java.sql.ResultSet {
      * @return SensitivityClassification
      */
     SensitivityClassification getSensitivityClassification();
+
+    /**
+     * Copies the value of the designated column in the current row into a character array, without creating a
+     * {@code String} for NCHAR and NVARCHAR columns: their characters are decoded straight from the response. Values of
+     * other types are converted as by {@code getString} and copied.
+     *
+     * If the value does not fit in the array, nothing is copied and an exception is thrown; NCHAR and NVARCHAR values
+     * can then be retrieved again into a larger array.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @param buffer
+     *        the array to copy the characters into
+     * @param offset
+     *        the index in the array of the first character
+     * @return the number of characters copied, or -1 if the value is SQL NULL
+     * @throws SQLServerException
+     *         If any errors occur, or the value does not fit in the array.
+     */
+    int getChars(int columnIndex, char[] buffer, int offset) throws SQLServerException;
+
+    /**
+     * Copies the value of the designated column in the current row into a character array, without creating a
+     * {@code String} for NCHAR and NVARCHAR columns.
+     *
+     * @param columnName
+     *        The name of a column.
+     * @param buffer
+     *        the array to copy the characters into
+     * @param offset
+     *        the index in the array of the first character
+     * @return the number of characters copied, or -1 if the value is SQL NULL
+     * @throws SQLServerException
+     *         If any errors occur, or the value does not fit in the array.
+     * @see #getChars(int, char[], int)
+     */
+    int getChars(String columnName, char[] buffer, int offset) throws SQLServerException;
+
+    /**
+     * Copies the value of the designated column in the current row into a character buffer at its position, and
+     * advances the position past the copied characters. NCHAR and NVARCHAR values are decoded straight from the
+     * response, without creating a {@code String}, if the buffer has a backing array.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @param buffer
+     *        the buffer to copy the characters into
+     * @return the number of characters copied, or -1 if the value is SQL NULL
+     * @throws SQLServerException
+     *         If any errors occur, or the value does not fit in the remaining space of the buffer.
+     * @see #getChars(int, char[], int)
+     */
+    int getChars(int columnIndex, CharBuffer buffer) throws SQLServerException;
+
+    /**
+     * Copies the value of the designated column in the current row into a character buffer at its position, and
+     * advances the position past the copied characters.
+     *
+     * @param columnName
+     *        The name of a column.
+     * @param buffer
+     *        the buffer to copy the characters into
+     * @return the number of characters copied, or -1 if the value is SQL NULL
+     * @throws SQLServerException
+     *         If any errors occur, or the value does not fit in the remaining space of the buffer.
+     * @see #getChars(int, CharBuffer)
+     */
+    int getChars(String columnName, CharBuffer buffer) throws SQLServerException;
+
+    /**
+     * Moves the cursor forward over up to maxRows rows, and returns their values in column-major form. Integral,
+     * floating point, NCHAR and NVARCHAR values are copied from the response straight into primitive and character
+     * arrays, without creating an object per value. After the call, the cursor is positioned on the last row of the
+     * batch if the batch has maxRows rows, and after the last row of the result set otherwise.
+     *
+     * The batch is filled through the regular cursor, which still reads the response one row at a time: this call
+     * saves the per-value calls and objects of the getter methods, but not the per-row processing of next(). Values of
+     * other column types are converted as {@link #getObject(int)} converts them.
+     *
+     * The result set returns the same batch object from every call, overwriting its contents, so the values of a batch
+     * must be consumed before the next call.
+     *
+     * @param maxRows
+     *        the maximum number of rows in the batch, which must be positive
+     * @return the batch, which has no rows if the result set has no more rows
+     * @throws SQLServerException
+     *         If any errors occur.
+     */
+    SQLServerColumnBatch nextBatch(int maxRows) throws SQLServerException;
+
+    /**
+     * Sends the insertRow, updateRow and deleteRow calls queued by this result set with the deferCursorModifications
+     * connection property to the server, in one request. The queued calls are also sent when the cursor moves to
+     * another block of rows, when the connection commits and when the result set or its statement closes. Errors from
+     * the queued calls are reported by the call that sends them. Does nothing if no calls are queued.
+     *
+     * @throws SQLServerException
+     *         If any errors occur, including errors from the queued calls.
+     */
+    void flushCursorModifications() throws SQLServerException;
 }
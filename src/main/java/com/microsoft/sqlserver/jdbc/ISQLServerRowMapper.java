@@ -0,0 +1,31 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+
+/**
+ * Provides an interface used to map the current row of a ResultSet to an object.
+ *
+ * @param <T>
+ *        the type of object each row is mapped to
+ */
+@FunctionalInterface
+public interface ISQLServerRowMapper<T> {
+
+    /**
+     * Maps the current row of the result set. Implementations must not move the cursor of the result set.
+     *
+     * @param resultSet
+     *        the result set, positioned on the row to map
+     * @return the object for the current row
+     * @throws SQLException
+     *         if a column value cannot be read
+     */
+    T mapRow(ResultSet resultSet) throws SQLException;
+}
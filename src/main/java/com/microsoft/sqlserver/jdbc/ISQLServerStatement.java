@@ -6,6 +6,12 @@
 package com.microsoft.sqlserver.jdbc;
 
 import java.io.Serializable;
+import java.sql.ResultSet;
+import java.sql.SQLTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.stream.Stream;
+
 
 /**
  * Provides an interface to the {@link SQLServerStatement} class.
@@ -58,4 +64,109 @@ public interface ISQLServerStatement extends java.sql.Statement, Serializable {
      *         if any error occurs
      */
     void setCancelQueryTimeout(int seconds) throws SQLServerException;
+
+    /**
+     * Executes the given SQL statement, which returns a single ResultSet object, without blocking the calling thread.
+     * The statement is executed on the driver's default async executor. This SQLServerStatement object must not be
+     * used again until the returned future has completed. Cancelling the returned future cancels the statement.
+     * The default executor runs one execution per available processor at a time and queues up to 1024 more; the
+     * futures of further executions complete exceptionally with a SQLServerException.
+     * 
+     * @param sql
+     *        an SQL statement to be sent to the database, typically a static SQL SELECT statement
+     * @return a future that completes with the ResultSet produced by the query, or exceptionally with the
+     *         SQLServerException raised by the execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<ResultSet> executeQueryAsync(String sql) throws SQLServerException;
+
+    /**
+     * Executes the given SQL statement, which returns a single ResultSet object, on the given executor. This
+     * SQLServerStatement object must not be used again until the returned future has completed. Cancelling the returned
+     * future cancels the statement.
+     * 
+     * @param sql
+     *        an SQL statement to be sent to the database, typically a static SQL SELECT statement
+     * @param executor
+     *        the executor that runs the statement
+     * @return a future that completes with the ResultSet produced by the query, or exceptionally with the
+     *         SQLServerException raised by the execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<ResultSet> executeQueryAsync(String sql, Executor executor) throws SQLServerException;
+
+    /**
+     * Executes the given SQL statement, which may be an INSERT, UPDATE, or DELETE statement or an SQL statement that
+     * returns nothing, without blocking the calling thread. The statement is executed on the driver's default async
+     * executor. This SQLServerStatement object must not be used again until the returned future has completed.
+     * Cancelling the returned future cancels the statement.
+     * The default executor runs one execution per available processor at a time and queues up to 1024 more; the
+     * futures of further executions complete exceptionally with a SQLServerException.
+     * 
+     * @param sql
+     *        an SQL Data Manipulation Language (DML) statement, such as INSERT, UPDATE or DELETE; or an SQL statement
+     *        that returns nothing, such as a DDL statement.
+     * @return a future that completes with the row count, or exceptionally with the SQLServerException raised by the
+     *         execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<Integer> executeUpdateAsync(String sql) throws SQLServerException;
+
+    /**
+     * Executes the given SQL statement, which may be an INSERT, UPDATE, or DELETE statement or an SQL statement that
+     * returns nothing, on the given executor. This SQLServerStatement object must not be used again until the returned
+     * future has completed. Cancelling the returned future cancels the statement.
+     * 
+     * @param sql
+     *        an SQL Data Manipulation Language (DML) statement, such as INSERT, UPDATE or DELETE; or an SQL statement
+     *        that returns nothing, such as a DDL statement.
+     * @param executor
+     *        the executor that runs the statement
+     * @return a future that completes with the row count, or exceptionally with the SQLServerException raised by the
+     *         execution
+     * @throws SQLServerException
+     *         if this method is called on a closed statement
+     */
+    CompletableFuture<Integer> executeUpdateAsync(String sql, Executor executor) throws SQLServerException;
+
+    /**
+     * Executes the given SQL query and returns its rows as a stream. The rows are read from the response in batches of
+     * 1024 rows; see {@link #stream(String, int)}.
+     *
+     * @param sql
+     *        an SQL statement to be sent to the database, typically a static SQL SELECT statement
+     * @return a stream of the rows of the query, which must be closed
+     * @throws SQLServerException
+     *         if a database access error occurs, this method is called on a closed statement, or the given SQL
+     *         statement does not produce a result set
+     * @throws SQLTimeoutException
+     *         if the query timeout is exceeded
+     */
+    Stream<SQLServerRow> stream(String sql) throws SQLServerException, SQLTimeoutException;
+
+    /**
+     * Executes the given SQL query and returns its rows as a stream. The rows are read from the response in batches of
+     * up to batchSize rows, which are decoded into {@link SQLServerColumnBatch} objects and handed out whole when the
+     * stream is split, so a parallel stream processes the rows of a batch on one thread while the thread that splits
+     * the stream reads the next batches. Rows are {@link SQLServerRow} views of their batch and remain valid after the
+     * stream has moved on.
+     *
+     * Closing the stream closes the result set of the query; the statement is owned by the caller and is not closed. An
+     * error reading the rows is thrown as a {@link SQLServerUncheckedException} whose cause is the SQLServerException.
+     *
+     * @param sql
+     *        an SQL statement to be sent to the database, typically a static SQL SELECT statement
+     * @param batchSize
+     *        the maximum number of rows in a batch, which must be positive
+     * @return a stream of the rows of the query, which must be closed
+     * @throws SQLServerException
+     *         if a database access error occurs, this method is called on a closed statement, or the given SQL
+     *         statement does not produce a result set
+     * @throws SQLTimeoutException
+     *         if the query timeout is exceeded
+     */
+    Stream<SQLServerRow> stream(String sql, int batchSize) throws SQLServerException, SQLTimeoutException;
 }
@@ -45,6 +45,13 @@ final class Parameter {
         return cryptoMeta;
     }
 
+    /**
+     * Returns the name the value of the parameter is sent with, or null for a parameter sent by position.
+     */
+    String getName() {
+        return name;
+    }
+
     private boolean shouldHonorAEForParameter = false;
     private boolean userProvidesPrecision = false;
     private boolean userProvidesScale = false;
@@ -194,6 +201,18 @@ final class Parameter {
         return clonedParam;
     }
 
+    /**
+     * Clones this Parameter object for use in a batch, with another value of the same type.
+     *
+     * @param valueDTV
+     *        the input value of the clone
+     */
+    final Parameter cloneForBatch(DTV valueDTV) {
+        Parameter clonedParam = cloneForBatch();
+        clonedParam.inputDTV = clonedParam.setterDTV = valueDTV;
+        return clonedParam;
+    }
+
     /**
      * Skip value.
      */
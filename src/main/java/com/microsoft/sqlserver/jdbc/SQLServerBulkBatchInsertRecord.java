@@ -21,7 +21,7 @@ import java.util.Map.Entry;
 
 /**
  * Provides a simple implementation of the ISQLServerBulkRecord interface that can be used to read in the basic Java
- * data types from an ArrayList of Parameters that were provided by pstmt/cstmt.
+ * data types from the batch of parameter values that were provided by pstmt/cstmt.
  */
 class SQLServerBulkBatchInsertRecord extends SQLServerBulkRecord {
 
@@ -30,7 +30,7 @@ class SQLServerBulkBatchInsertRecord extends SQLServerBulkRecord {
      */
     private static final long serialVersionUID = -955998113956445541L;
 
-    private List<Parameter[]> batchParam;
+    private BatchParameterBuffer batchParam;
     private int batchParamIndex = -1;
     private List<String> columnList;
     private List<String> valueList;
@@ -43,7 +43,7 @@ class SQLServerBulkBatchInsertRecord extends SQLServerBulkRecord {
     /*
      * Constructs a SQLServerBulkBatchInsertRecord with the batch parameter, column list, value list, and encoding
      */
-    SQLServerBulkBatchInsertRecord(ArrayList<Parameter[]> batchParam, ArrayList<String> columnList,
+    SQLServerBulkBatchInsertRecord(BatchParameterBuffer batchParam, ArrayList<String> columnList,
             ArrayList<String> valueList, String encoding) throws SQLServerException {
         initLoggerResources();
         if (loggerExternal.isLoggable(java.util.logging.Level.FINER)) {
@@ -236,7 +236,7 @@ class SQLServerBulkBatchInsertRecord extends SQLServerBulkRecord {
                  * if the user has provided a wildcard for this column, fetch the set value from the batchParam.
                  */
                 if ("?".equalsIgnoreCase(valueData)) {
-                    rowData = batchParam.get(batchParamIndex)[valueIndex++].getSetterValue();
+                    rowData = batchParam.getSetterValue(batchParamIndex, valueIndex++);
                 } else if ("null".equalsIgnoreCase(valueData)) {
                     rowData = null;
                 }
@@ -261,7 +261,7 @@ class SQLServerBulkBatchInsertRecord extends SQLServerBulkRecord {
                         && columnList.get(columnListIndex).equalsIgnoreCase(columnMetadata.get(index + 1).columnName)) {
                     valueData = valueList.get(columnListIndex);
                     if ("?".equalsIgnoreCase(valueData)) {
-                        rowData = batchParam.get(batchParamIndex)[valueIndex++].getSetterValue();
+                        rowData = batchParam.getSetterValue(batchParamIndex, valueIndex++);
                     } else if ("null".equalsIgnoreCase(valueData)) {
                         rowData = null;
                     } else {
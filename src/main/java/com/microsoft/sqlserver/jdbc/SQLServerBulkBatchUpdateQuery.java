@@ -0,0 +1,418 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import org.antlr.v4.runtime.BaseErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+
+
+/**
+ * Rewrites a parameterized UPDATE, DELETE or MERGE statement into one statement that applies all the rows of a batch,
+ * once they are bulk copied into a temporary table with a column for each parameter.
+ *
+ * UPDATE target SET ... WHERE ... and DELETE [FROM] target WHERE ... join the target to the table of the batch on the
+ * WHERE clause. MERGE uses the table of the batch as its source, when all the parameters are in a derived table of its
+ * USING clause. Each parameter is replaced by its column in the table of the batch, and the statement outputs the
+ * index of the batch row of every row it modifies, so that the update count of every row of the batch is known.
+ *
+ * Any other statement, or one with an OUTPUT or OPTION clause, a CTE, TOP, WHERE CURRENT OF or hints on the target of
+ * UPDATE or DELETE, throws IllegalArgumentException, so that the batch is run the usual way.
+ */
+final class SQLServerBulkBatchUpdateQuery {
+    /** column of the table of the batch with the 0-based index of each row */
+    static final String ROW_COLUMN = "[jdbc_batch_row]";
+
+    /** alias of the table of the batch in the rewritten statement */
+    private static final String BATCH_ALIAS = "[jdbc_batch]";
+
+    /** table variable into which the rewritten statement outputs the batch row of every row it modifies */
+    private static final String ROWS_VARIABLE = "@jdbc_batch_rows";
+
+    private static final String MERGE = "MERGE";
+    private static final String USING = "USING";
+    private static final String ON = "ON";
+
+    private enum Kind {
+        UPDATE,
+        DELETE,
+        MERGE
+    }
+
+    private final String userSql;
+    private final List<? extends Token> tokens;
+
+    /** the 0-based index of the parameter of each token, or -1 */
+    private final int[] parameterIndexes;
+    private int parameterCount = 0;
+
+    private Kind kind;
+
+    /** index of the first token of the target of UPDATE and DELETE */
+    private int targetStart;
+
+    /** index of the SET of UPDATE */
+    private int set;
+
+    /** index of the WHERE of UPDATE and DELETE, and of the USING of MERGE */
+    private int clause;
+
+    /** index of the alias of the source of MERGE, and of the token after the source */
+    private int sourceAlias;
+    private int sourceEnd;
+
+    /**
+     * Parses a statement of a batch.
+     *
+     * @param userSql
+     *        the statement, with a ? for each parameter
+     * @throws IllegalArgumentException
+     *         if the statement cannot be applied to the rows of a batch together
+     */
+    SQLServerBulkBatchUpdateQuery(String userSql) {
+        this.userSql = userSql;
+
+        SQLServerLexer lexer = new SQLServerLexer(CharStreams.fromString(userSql));
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(new BaseErrorListener() {
+            @Override
+            public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line,
+                    int charPositionInLine, String msg, RecognitionException e) {
+                throw new IllegalArgumentException("Invalid SQL Query.");
+            }
+        });
+        List<? extends Token> allTokens = lexer.getAllTokens();
+
+        // Trailing semicolons end the statement, any other one starts another statement.
+        int end = allTokens.size();
+        while (end > 0 && SQLServerLexer.SEMI == allTokens.get(end - 1).getType())
+            --end;
+        tokens = allTokens.subList(0, end);
+        if (tokens.isEmpty())
+            throw new IllegalArgumentException("Invalid SQL Query.");
+
+        parameterIndexes = new int[tokens.size()];
+        int depth = 0;
+        for (int i = 0; i < tokens.size(); ++i) {
+            parameterIndexes[i] = -1;
+            switch (tokens.get(i).getType()) {
+                case SQLServerLexer.PARAMETER:
+                    parameterIndexes[i] = parameterCount++;
+                    break;
+                case SQLServerLexer.LR_BRACKET:
+                    ++depth;
+                    break;
+                case SQLServerLexer.RR_BRACKET:
+                    --depth;
+                    break;
+                case SQLServerLexer.SEMI:
+                    throw new IllegalArgumentException("Multiple queries are not allowed.");
+                case SQLServerLexer.OUTPUT:
+                    throw new IllegalArgumentException("Statements with an OUTPUT clause are not supported.");
+                case SQLServerLexer.OPTION:
+                    if (0 == depth)
+                        throw new IllegalArgumentException("Statements with an OPTION clause are not supported.");
+                    break;
+                default:
+                    break;
+            }
+        }
+        if (0 == parameterCount)
+            throw new IllegalArgumentException("Only parameterized statements can be applied to a batch together.");
+
+        switch (tokens.get(0).getType()) {
+            case SQLServerLexer.UPDATE:
+                parseUpdate();
+                break;
+            case SQLServerLexer.DELETE:
+                parseDelete();
+                break;
+            default:
+                if (!isWord(0, MERGE))
+                    throw new IllegalArgumentException("Only UPDATE, DELETE and MERGE statements are supported.");
+                parseMerge();
+                break;
+        }
+    }
+
+    /** UPDATE target SET ... WHERE ... */
+    private void parseUpdate() {
+        kind = Kind.UPDATE;
+        targetStart = 1;
+        set = skipName(targetStart);
+        if (set == targetStart || !isType(set, SQLServerLexer.SET))
+            throw new IllegalArgumentException("Invalid target of the UPDATE statement.");
+
+        clause = find(set + 1, SQLServerLexer.WHERE);
+        if (-1 != find(set + 1, SQLServerLexer.FROM))
+            throw new IllegalArgumentException("UPDATE statements with a FROM clause are not supported.");
+        checkWhere();
+    }
+
+    /** DELETE [FROM] target WHERE ... */
+    private void parseDelete() {
+        kind = Kind.DELETE;
+        targetStart = isType(1, SQLServerLexer.FROM) ? 2 : 1;
+        clause = skipName(targetStart);
+        if (clause == targetStart || !isType(clause, SQLServerLexer.WHERE))
+            throw new IllegalArgumentException("Invalid target of the DELETE statement.");
+        checkWhere();
+    }
+
+    /** MERGE [INTO] target [[AS] alias] USING (...) [AS] alias [(columns)] ON ... */
+    private void parseMerge() {
+        kind = Kind.MERGE;
+        clause = -1;
+        for (int i = 1; i < tokens.size() && -1 == clause; ++i) {
+            if (isType(i, SQLServerLexer.TOP))
+                throw new IllegalArgumentException("Invalid target of the MERGE statement.");
+            if (isWord(i, USING))
+                clause = i;
+        }
+        if (-1 == clause || !isType(clause + 1, SQLServerLexer.LR_BRACKET))
+            throw new IllegalArgumentException(
+                    "Only MERGE statements with a derived table as source are supported.");
+
+        int i = skipBrackets(clause + 1);
+        if (isType(i, SQLServerLexer.AS))
+            ++i;
+        if (!isName(i))
+            throw new IllegalArgumentException("Invalid source of the MERGE statement.");
+        sourceAlias = i++;
+        if (isType(i, SQLServerLexer.LR_BRACKET))
+            i = skipBrackets(i);
+        if (!isWord(i, ON))
+            throw new IllegalArgumentException("Invalid source of the MERGE statement.");
+        sourceEnd = i;
+
+        for (int j = 0; j < tokens.size(); ++j) {
+            if (-1 != parameterIndexes[j] && (j <= clause || j >= sourceEnd))
+                throw new IllegalArgumentException(
+                        "Only MERGE statements with parameters in their source are supported.");
+
+            // A target row that matches no source row would be treated as such once per row of the batch
+            if (isType(j, SQLServerLexer.BY) && isWord(j + 1, "SOURCE"))
+                throw new IllegalArgumentException(
+                        "MERGE statements with WHEN NOT MATCHED BY SOURCE are not supported.");
+        }
+    }
+
+    private void checkWhere() {
+        if (-1 == clause)
+            throw new IllegalArgumentException("Only statements with a WHERE clause are supported.");
+        if (isWord(clause + 1, "CURRENT") && isWord(clause + 2, "OF"))
+            throw new IllegalArgumentException("WHERE CURRENT OF is not supported.");
+    }
+
+    /** Returns the number of parameters of the statement. */
+    int getParameterCount() {
+        return parameterCount;
+    }
+
+    /**
+     * Returns the name of the column of a parameter in the table of the batch.
+     *
+     * @param index
+     *        the 0-based index of the parameter
+     */
+    static String getParameterColumn(int index) {
+        return "[jdbc_p" + (index + 1) + "]";
+    }
+
+    /**
+     * Returns the statement that creates the table of the batch.
+     *
+     * @param batchTable
+     *        the name of the temporary table
+     * @param typeDefinitions
+     *        the type definition of each parameter, as sent with the statement
+     */
+    static String getCreateTable(String batchTable, String[] typeDefinitions) {
+        StringBuilder sb = new StringBuilder("CREATE TABLE ").append(batchTable).append(" (").append(ROW_COLUMN)
+                .append(" int NOT NULL");
+        for (int i = 0; i < typeDefinitions.length; ++i) {
+            sb.append(", ").append(getParameterColumn(i)).append(' ').append(typeDefinitions[i]);
+
+            // Parameters are compared with the collation of the database, not the one of tempdb.
+            String type = typeDefinitions[i].toLowerCase(Locale.ENGLISH);
+            if (type.startsWith("char") || type.startsWith("varchar") || type.startsWith("nchar")
+                    || type.startsWith("nvarchar") || type.startsWith("text") || type.startsWith("ntext"))
+                sb.append(" COLLATE DATABASE_DEFAULT");
+        }
+        return sb.append(')').toString();
+    }
+
+    /**
+     * Returns the batch that applies the rows of the table of the batch to the target, and then returns a row with the
+     * index and update count of every row of the batch that modified rows.
+     *
+     * @param batchTable
+     *        the name of the temporary table
+     */
+    String getStatement(String batchTable) {
+        String output = " OUTPUT " + ((Kind.MERGE == kind) ? tokens.get(sourceAlias).getText() : BATCH_ALIAS)
+                + "." + ROW_COLUMN + " INTO " + ROWS_VARIABLE;
+        StringBuilder sb = new StringBuilder("DECLARE ").append(ROWS_VARIABLE).append(" TABLE (").append(ROW_COLUMN)
+                .append(" int NOT NULL);\n");
+        switch (kind) {
+            case UPDATE: {
+                String target = getText(targetStart, set).trim();
+                sb.append("UPDATE ").append(target).append(" SET").append(getText(set + 1, clause)).append(output)
+                        .append(" FROM ").append(target);
+                appendJoin(sb, batchTable);
+                break;
+            }
+            case DELETE: {
+                String target = getText(targetStart, clause).trim();
+                sb.append("DELETE ").append(target).append(output).append(" FROM ").append(target);
+                appendJoin(sb, batchTable);
+                break;
+            }
+            default: {
+                String alias = tokens.get(sourceAlias).getText();
+                sb.append(getText(0, clause + 1)).append(" (SELECT ").append(alias).append(".*, ").append(BATCH_ALIAS)
+                        .append('.').append(ROW_COLUMN).append(" FROM ").append(batchTable).append(" AS ")
+                        .append(BATCH_ALIAS).append(" CROSS APPLY").append(getText(clause + 1, sourceEnd))
+                        .append(") AS ").append(alias).append(getText(sourceEnd, tokens.size())).append(output);
+                break;
+            }
+        }
+        return sb.append(";\nSELECT ").append(ROW_COLUMN).append(", COUNT(*) FROM ").append(ROWS_VARIABLE)
+                .append(" GROUP BY ").append(ROW_COLUMN).append(';').toString();
+    }
+
+    private void appendJoin(StringBuilder sb, String batchTable) {
+        sb.append(" INNER JOIN ").append(batchTable).append(" AS ").append(BATCH_ALIAS).append(" ON (")
+                .append(getText(clause + 1, tokens.size())).append(')');
+    }
+
+    /**
+     * Returns the text of the statement from a token up to another, with the comments and spaces between them, and
+     * with each parameter replaced by its column in the table of the batch.
+     */
+    private String getText(int from, int to) {
+        StringBuilder sb = new StringBuilder();
+        int previousEnd = (0 == from) ? -1 : getOffset(tokens.get(from - 1).getStopIndex() + 1);
+        for (int i = from; i < to; ++i) {
+            Token token = tokens.get(i);
+            int start = getOffset(token.getStartIndex());
+            int end = getOffset(token.getStopIndex() + 1);
+            if (-1 != previousEnd)
+                sb.append(userSql, previousEnd, start);
+            if (-1 != parameterIndexes[i])
+                sb.append(BATCH_ALIAS).append('.').append(getParameterColumn(parameterIndexes[i]));
+            else
+                sb.append(userSql, start, end);
+            previousEnd = end;
+        }
+        return sb.toString();
+    }
+
+    /** Returns the offset in the statement of a code point index of the lexer. */
+    private int getOffset(int codePointIndex) {
+        return userSql.offsetByCodePoints(0, codePointIndex);
+    }
+
+    private boolean isType(int i, int type) {
+        return i < tokens.size() && type == tokens.get(i).getType();
+    }
+
+    private boolean isWord(int i, String word) {
+        return isType(i, SQLServerLexer.ID) && word.equalsIgnoreCase(tokens.get(i).getText());
+    }
+
+    private boolean isName(int i) {
+        return isType(i, SQLServerLexer.ID) || isType(i, SQLServerLexer.SQUARE_LITERAL)
+                || isType(i, SQLServerLexer.DOUBLE_LITERAL);
+    }
+
+    /** Returns the index of the token after a multi-part name, or i if there is no name at i. */
+    private int skipName(int i) {
+        if (!isName(i))
+            return i;
+        ++i;
+        while (isType(i, SQLServerLexer.DOT)) {
+            while (isType(i, SQLServerLexer.DOT))
+                ++i;
+            if (!isName(i))
+                throw new IllegalArgumentException("Invalid SQL Query.");
+            ++i;
+        }
+        return i;
+    }
+
+    /** Returns the index of the token after the bracket that closes the one at i. */
+    private int skipBrackets(int i) {
+        int depth = 0;
+        do {
+            if (isType(i, SQLServerLexer.LR_BRACKET))
+                ++depth;
+            else if (isType(i, SQLServerLexer.RR_BRACKET))
+                --depth;
+            ++i;
+        } while (depth > 0 && i < tokens.size());
+        if (depth > 0)
+            throw new IllegalArgumentException("Invalid SQL Query.");
+        return i;
+    }
+
+    /** Returns the index of the first token of a type outside brackets from i on, or -1. */
+    private int find(int i, int type) {
+        int depth = 0;
+        for (; i < tokens.size(); ++i) {
+            if (isType(i, SQLServerLexer.LR_BRACKET))
+                ++depth;
+            else if (isType(i, SQLServerLexer.RR_BRACKET))
+                --depth;
+            else if (0 == depth && isType(i, type))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Bulk copy record of the rows of a batch, with the index of each row before the values of its parameters.
+     */
+    static final class BatchRowRecord extends SQLServerBulkBatchInsertRecord {
+        /**
+         * Update serialVersionUID when making changes to this file
+         */
+        private static final long serialVersionUID = 4626516407785327431L;
+
+        private int row = -1;
+
+        BatchRowRecord(BatchParameterBuffer batchParam, int parameterCount) throws SQLServerException {
+            super(batchParam, null, getValueList(parameterCount), null);
+        }
+
+        private static ArrayList<String> getValueList(int parameterCount) {
+            ArrayList<String> valueList = new ArrayList<>(parameterCount + 1);
+            valueList.add("null");
+            for (int i = 0; i < parameterCount; ++i)
+                valueList.add("?");
+            return valueList;
+        }
+
+        @Override
+        public Object[] getRowData() throws SQLServerException {
+            Object[] data = super.getRowData();
+            data[0] = row;
+            return data;
+        }
+
+        @Override
+        public boolean next() throws SQLServerException {
+            ++row;
+            return super.next();
+        }
+    }
+}
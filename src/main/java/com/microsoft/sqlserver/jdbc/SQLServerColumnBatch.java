@@ -0,0 +1,407 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+
+/**
+ * Holds a batch of rows of a result set in column-major form, as filled by {@link ISQLServerResultSet#nextBatch(int)}.
+ *
+ * Each column is stored in a vector whose type is chosen from the SQL Server type of the column (see
+ * {@link VectorType}). Integral and floating point values are stored in primitive arrays, and character and binary
+ * values are stored back to back in a single array per column, delimited by an array of offsets, so that filling a
+ * batch does not create an object per value for these types.
+ *
+ * Columns are numbered from 1, like in {@link java.sql.ResultSet}; rows are numbered from 0 within the batch. A result
+ * set fills the same batch object on every call to {@code nextBatch}, so the arrays returned by this class are only
+ * valid until the next call. The arrays may be longer than the row count of the batch.
+ */
+public final class SQLServerColumnBatch {
+
+    /**
+     * The kinds of vector a column of a batch is stored in.
+     */
+    public enum VectorType {
+        /** TINYINT, SMALLINT, INT and BIT columns, stored in an {@code int[]}. BIT values are stored as 0 or 1. */
+        INT,
+        /** BIGINT columns, stored in a {@code long[]}. */
+        LONG,
+        /** FLOAT and REAL columns, stored in a {@code double[]}. */
+        DOUBLE,
+        /** Character columns, stored in a {@code char[]} delimited by offsets. */
+        STRING,
+        /** BINARY, VARBINARY and IMAGE columns, stored in a {@code byte[]} delimited by offsets. */
+        BINARY,
+        /**
+         * All other columns, stored in an {@code Object[]} as returned by {@code getObject}, except TIME columns, which
+         * are stored as {@link java.time.LocalTime} values so that their fractional seconds are kept beyond the
+         * milliseconds of {@link java.sql.Time}.
+         */
+        OBJECT
+    }
+
+    private final VectorType[] vectorTypes;
+    private final long[][] nullBitmaps;
+    private final int[][] intVectors;
+    private final long[][] longVectors;
+    private final double[][] doubleVectors;
+    private final char[][] charData;
+    private final byte[][] byteData;
+    private final int[][] offsets;
+    private final Object[][] objectVectors;
+    private int rowCount;
+
+    SQLServerColumnBatch(VectorType[] vectorTypes, int capacity) {
+        int columnCount = vectorTypes.length;
+        this.vectorTypes = vectorTypes;
+        nullBitmaps = new long[columnCount][];
+        intVectors = new int[columnCount][];
+        longVectors = new long[columnCount][];
+        doubleVectors = new double[columnCount][];
+        charData = new char[columnCount][];
+        byteData = new byte[columnCount][];
+        offsets = new int[columnCount][];
+        objectVectors = new Object[columnCount][];
+        ensureCapacity(capacity);
+    }
+
+    /**
+     * Sizes the vectors to hold at least capacity rows, and resets the batch to no rows.
+     */
+    final void ensureCapacity(int capacity) {
+        rowCount = 0;
+        for (int i = 0; i < vectorTypes.length; i++) {
+            if (null == nullBitmaps[i] || nullBitmaps[i].length < ((capacity + 63) >> 6))
+                nullBitmaps[i] = new long[(capacity + 63) >> 6];
+            else
+                Arrays.fill(nullBitmaps[i], 0L);
+
+            switch (vectorTypes[i]) {
+                case INT:
+                    if (null == intVectors[i] || intVectors[i].length < capacity)
+                        intVectors[i] = new int[capacity];
+                    break;
+                case LONG:
+                    if (null == longVectors[i] || longVectors[i].length < capacity)
+                        longVectors[i] = new long[capacity];
+                    break;
+                case DOUBLE:
+                    if (null == doubleVectors[i] || doubleVectors[i].length < capacity)
+                        doubleVectors[i] = new double[capacity];
+                    break;
+                case STRING:
+                    if (null == offsets[i] || offsets[i].length < capacity + 1)
+                        offsets[i] = new int[capacity + 1];
+                    if (null == charData[i])
+                        charData[i] = new char[Math.max(16, capacity * 8)];
+                    break;
+                case BINARY:
+                    if (null == offsets[i] || offsets[i].length < capacity + 1)
+                        offsets[i] = new int[capacity + 1];
+                    if (null == byteData[i])
+                        byteData[i] = new byte[Math.max(16, capacity * 8)];
+                    break;
+                default:
+                    if (null == objectVectors[i] || objectVectors[i].length < capacity)
+                        objectVectors[i] = new Object[capacity];
+                    else
+                        Arrays.fill(objectVectors[i], null);
+                    break;
+            }
+        }
+    }
+
+    final void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Marks the value in the row as SQL NULL, and clears the vector entry the row may have kept from an earlier batch.
+     */
+    final void setNull(int column, int row) {
+        nullBitmaps[column - 1][row >> 6] |= 1L << row;
+        switch (vectorTypes[column - 1]) {
+            case INT:
+                intVectors[column - 1][row] = 0;
+                break;
+            case LONG:
+                longVectors[column - 1][row] = 0;
+                break;
+            case DOUBLE:
+                doubleVectors[column - 1][row] = 0;
+                break;
+            case STRING:
+            case BINARY:
+                offsets[column - 1][row + 1] = offsets[column - 1][row];
+                break;
+            default:
+                objectVectors[column - 1][row] = null;
+                break;
+        }
+    }
+
+    final void setInt(int column, int row, int value) {
+        intVectors[column - 1][row] = value;
+    }
+
+    final void setLong(int column, int row, long value) {
+        longVectors[column - 1][row] = value;
+    }
+
+    final void setDouble(int column, int row, double value) {
+        doubleVectors[column - 1][row] = value;
+    }
+
+    final void setObject(int column, int row, Object value) {
+        objectVectors[column - 1][row] = value;
+    }
+
+    final int getOffset(int column, int row) {
+        return offsets[column - 1][row];
+    }
+
+    /**
+     * Returns the array to copy the characters of the value in the row into, with room for at least length characters
+     * from getOffsets(column)[row].
+     */
+    final char[] reserveChars(int column, int row, int length) {
+        int start = offsets[column - 1][row];
+        char[] data = charData[column - 1];
+        if (data.length - start < length)
+            charData[column - 1] = data = Arrays.copyOf(data, Math.max(data.length * 2, start + length));
+        offsets[column - 1][row + 1] = start + length;
+        return data;
+    }
+
+    /**
+     * Returns the array to copy the bytes of the value in the row into, with room for at least length bytes from
+     * getOffsets(column)[row].
+     */
+    final byte[] reserveBytes(int column, int row, int length) {
+        int start = offsets[column - 1][row];
+        byte[] data = byteData[column - 1];
+        if (data.length - start < length)
+            byteData[column - 1] = data = Arrays.copyOf(data, Math.max(data.length * 2, start + length));
+        offsets[column - 1][row + 1] = start + length;
+        return data;
+    }
+
+    /**
+     * Returns the number of rows in the batch. A batch with no rows means that the result set has no more rows.
+     *
+     * @return the number of rows
+     */
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * Returns the number of columns in the batch.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return vectorTypes.length;
+    }
+
+    /**
+     * Returns the kind of vector the values of a column are stored in.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the vector type of the column
+     * @throws SQLServerException
+     *         if the column index is not valid
+     */
+    public VectorType getVectorType(int column) throws SQLServerException {
+        checkColumn(column);
+        return vectorTypes[column - 1];
+    }
+
+    /**
+     * Returns whether the value of a column in a row of the batch is SQL NULL. The vector entry of a null value is 0,
+     * an empty range of offsets or null, depending on the vector type.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @param row
+     *        the first row of the batch is 0
+     * @return whether the value is SQL NULL
+     * @throws SQLServerException
+     *         if the column or row index is not valid
+     */
+    public boolean isNull(int column, int row) throws SQLServerException {
+        checkColumn(column);
+        checkRow(row);
+        return 0 != (nullBitmaps[column - 1][row >> 6] & (1L << row));
+    }
+
+    /**
+     * Returns the null bitmap of a column: the value in row r is SQL NULL if bit {@code r % 64} of element
+     * {@code r / 64} is set.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the null bitmap of the column
+     * @throws SQLServerException
+     *         if the column index is not valid
+     */
+    public long[] getNullBitmap(int column) throws SQLServerException {
+        checkColumn(column);
+        return nullBitmaps[column - 1];
+    }
+
+    /**
+     * Returns the values of a column of type {@link VectorType#INT}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the values of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public int[] getIntVector(int column) throws SQLServerException {
+        checkColumn(column, VectorType.INT);
+        return intVectors[column - 1];
+    }
+
+    /**
+     * Returns the values of a column of type {@link VectorType#LONG}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the values of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public long[] getLongVector(int column) throws SQLServerException {
+        checkColumn(column, VectorType.LONG);
+        return longVectors[column - 1];
+    }
+
+    /**
+     * Returns the values of a column of type {@link VectorType#DOUBLE}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the values of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public double[] getDoubleVector(int column) throws SQLServerException {
+        checkColumn(column, VectorType.DOUBLE);
+        return doubleVectors[column - 1];
+    }
+
+    /**
+     * Returns the characters of a column of type {@link VectorType#STRING}. The value in row r is made of the
+     * characters from {@code getOffsets(column)[r]} up to, but not including, {@code getOffsets(column)[r + 1]}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the characters of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public char[] getStringData(int column) throws SQLServerException {
+        checkColumn(column, VectorType.STRING);
+        return charData[column - 1];
+    }
+
+    /**
+     * Returns the bytes of a column of type {@link VectorType#BINARY}. The value in row r is made of the bytes from
+     * {@code getOffsets(column)[r]} up to, but not including, {@code getOffsets(column)[r + 1]}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the bytes of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public byte[] getBinaryData(int column) throws SQLServerException {
+        checkColumn(column, VectorType.BINARY);
+        return byteData[column - 1];
+    }
+
+    /**
+     * Returns the offsets delimiting the values of a column of type {@link VectorType#STRING} or
+     * {@link VectorType#BINARY}. The array has at least {@code getRowCount() + 1} elements.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the offsets of the values of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public int[] getOffsets(int column) throws SQLServerException {
+        checkColumn(column);
+        if (VectorType.STRING != vectorTypes[column - 1])
+            checkColumn(column, VectorType.BINARY);
+        return offsets[column - 1];
+    }
+
+    /**
+     * Returns the values of a column of type {@link VectorType#OBJECT}.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @return the values of the column
+     * @throws SQLServerException
+     *         if the column index is not valid or the column has another vector type
+     */
+    public Object[] getObjectVector(int column) throws SQLServerException {
+        checkColumn(column, VectorType.OBJECT);
+        return objectVectors[column - 1];
+    }
+
+    /**
+     * Returns the value of a column of type {@link VectorType#STRING} in a row of the batch as a String. This creates a
+     * String; use {@link #getStringData(int)} to read the characters in place.
+     *
+     * @param column
+     *        the first column is 1, the second is 2, ...
+     * @param row
+     *        the first row of the batch is 0
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column or row index is not valid or the column has another vector type
+     */
+    public String getString(int column, int row) throws SQLServerException {
+        checkColumn(column, VectorType.STRING);
+        checkRow(row);
+        if (isNull(column, row))
+            return null;
+        int start = offsets[column - 1][row];
+        return new String(charData[column - 1], start, offsets[column - 1][row + 1] - start);
+    }
+
+    private void checkColumn(int column) throws SQLServerException {
+        if (column < 1 || column > vectorTypes.length) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_indexOutOfRange"));
+            Object[] msgArgs = {column};
+            SQLServerException.makeFromDriverError(null, this, form.format(msgArgs), "07009", false);
+        }
+    }
+
+    private void checkRow(int row) throws SQLServerException {
+        if (row < 0 || row >= rowCount) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_indexOutOfRange"));
+            Object[] msgArgs = {row};
+            SQLServerException.makeFromDriverError(null, this, form.format(msgArgs), "07009", false);
+        }
+    }
+
+    private void checkColumn(int column, VectorType vectorType) throws SQLServerException {
+        checkColumn(column);
+        if (vectorType != vectorTypes[column - 1]) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_wrongVectorType"));
+            Object[] msgArgs = {column, vectorTypes[column - 1], vectorType};
+            SQLServerException.makeFromDriverError(null, this, form.format(msgArgs), null, false);
+        }
+    }
+}
@@ -15,6 +15,7 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
 import java.net.UnknownHostException;
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
 import java.sql.DatabaseMetaData;
@@ -43,6 +44,7 @@ import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 
 import javax.sql.XAConnection;
@@ -721,6 +723,81 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         return socketFactoryClass;
     }
 
+    /** write TDS packets through a SocketChannel */
+    private boolean useSocketChannel = SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue();
+
+    final boolean getUseSocketChannel() {
+        return useSocketChannel;
+    }
+
+    /** maximum number of response packets read ahead of the TDSReader */
+    private int readAheadPackets = SQLServerDriverIntProperty.READ_AHEAD_PACKETS.getDefaultValue();
+
+    /** file that receives the raw TDS response stream, or null */
+    private String tdsCaptureFile = null;
+
+    /** bytes of buffered responses kept on the heap before packets move off-heap, or -1 for no limit */
+    private long responseBufferHeapLimit = -1;
+
+    /** bytes of buffered responses kept off-heap before packets spill to disk, or -1 for no limit */
+    private long responseBufferOffHeapLimit = -1;
+
+    /** directory of the files buffered responses spill to, or null for java.io.tmpdir */
+    private String responseBufferSpillDirectory = null;
+
+    /**
+     * Creates a packet store that archives the response packets of a client-side scrollable result set within the
+     * responseBuffer limits of this connection, or returns null if they keep all buffered packets on the heap.
+     */
+    final TDSPacketStore createArchiveStore(String traceID) {
+        if (responseBufferHeapLimit < 0)
+            return null;
+
+        return new TDSPacketStore(traceID, responseBufferHeapLimit, responseBufferOffHeapLimit,
+                responseBufferSpillDirectory, true);
+    }
+
+    /** scroll read-only TYPE_SCROLL_INSENSITIVE result sets in the driver rather than with a server cursor */
+    private boolean useClientScrollInsensitiveResultSets = SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS
+            .getDefaultValue();
+
+    final boolean getUseClientScrollInsensitiveResultSets() {
+        return useClientScrollInsensitiveResultSets;
+    }
+
+    /** bytes of rows to fetch from a server cursor at a time, or 0 or less to fetch the result set's fetch size */
+    private long serverCursorFetchWindow = -1;
+
+    final long getServerCursorFetchWindow() {
+        return serverCursorFetchWindow;
+    }
+
+    /** queue the modifications of updatable server cursor result sets and send them to the server together */
+    private boolean deferCursorModifications = SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS
+            .getDefaultValue();
+
+    final boolean getDeferCursorModifications() {
+        return deferCursorModifications;
+    }
+
+    /** bytes of requests after which prepared statement batches are split, or 0 or less to send them whole */
+    private long batchChunkSize = -1;
+
+    final long getBatchChunkSize() {
+        return batchChunkSize;
+    }
+
+    /** bulk copy batches of UPDATE, DELETE and MERGE statements into a temporary table and run them set-based */
+    private boolean useBulkCopyForBatchUpdate = SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE
+            .getDefaultValue();
+
+    final boolean getUseBulkCopyForBatchUpdate() {
+        return useBulkCopyForBatchUpdate;
+    }
+
+    /** result sets with queued modifications that have not been sent to the server yet */
+    private final List<SQLServerResultSet> deferredModificationResultSets = new LinkedList<>();
+
     /** socket factory constructor argument */
     private String socketFactoryConstructorArg = null;
 
@@ -819,6 +896,16 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         return delayLoadingLobs;
     }
 
+    @Override
+    public long[] executePreparedStatements(List<? extends PreparedStatement> statements)
+            throws SQLServerException, BatchUpdateException {
+        loggerExternal.entering(loggingClassName, "executePreparedStatements");
+        checkClosed();
+        long[] updateCounts = SQLServerPreparedStatement.executePreparedStatements(this, statements);
+        loggerExternal.exiting(loggingClassName, "executePreparedStatements", updateCounts);
+        return updateCounts;
+    }
+
     @Override
     public void setDelayLoadingLobs(boolean b) {
         delayLoadingLobs = b;
@@ -1424,6 +1511,33 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         }
     }
 
+    /**
+     * Returns the number of bytes of a byte size property, such as a response buffer limit, which has the syntax of
+     * maxResultBuffer and can also be 0.
+     *
+     * @param property
+     *        the byte size property
+     * @return the number of bytes, or -1 if the property is not set
+     * @exception SQLServerException
+     *            thrown if value is not valid.
+     */
+    private long parseByteSizeProperty(SQLServerDriverStringProperty property) throws SQLServerException {
+        String propValue = activeConnectionProperties.getProperty(property.toString());
+        if (null == propValue)
+            return -1;
+        if ("0".equals(propValue.trim()))
+            return 0;
+
+        try {
+            return MaxResultBufferParser.validateMaxResultBuffer(propValue.trim());
+        } catch (SQLServerException e) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidResponseBufferLimit"));
+            Object[] msgArgs = {property.toString(), propValue};
+            SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+            return -1;
+        }
+    }
+
     /**
      * Maximum number of wide characters for a SQL login record name (such as instance name, application name, etc...).
      * See TDS specification, "Login Data Validation Rules" section.
@@ -2440,6 +2554,71 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
             }
             delayLoadingLobs = isBooleanPropertyOn(sPropKey, sPropValue);
 
+            sPropKey = SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null == sPropValue) {
+                sPropValue = Boolean.toString(SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue());
+                activeConnectionProperties.setProperty(sPropKey, sPropValue);
+            }
+            useSocketChannel = isBooleanPropertyOn(sPropKey, sPropValue);
+
+            sPropKey = SQLServerDriverIntProperty.READ_AHEAD_PACKETS.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null != sPropValue && sPropValue.length() > 0) {
+                try {
+                    readAheadPackets = Integer.parseInt(sPropValue);
+                } catch (NumberFormatException e) {
+                    readAheadPackets = -1;
+                }
+                if (!SQLServerDriverIntProperty.READ_AHEAD_PACKETS.isValidValue(readAheadPackets)) {
+                    MessageFormat form = new MessageFormat(
+                            SQLServerException.getErrString("R_invalidReadAheadPackets"));
+                    Object[] msgArgs = {sPropValue};
+                    SQLServerException.makeFromDriverError(this, this, form.format(msgArgs), null, false);
+                }
+            }
+
+            tdsCaptureFile = activeConnectionProperties
+                    .getProperty(SQLServerDriverStringProperty.TDS_CAPTURE_FILE.toString());
+
+            responseBufferHeapLimit = parseByteSizeProperty(SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT);
+            responseBufferOffHeapLimit = parseByteSizeProperty(
+                    SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT);
+            responseBufferSpillDirectory = activeConnectionProperties
+                    .getProperty(SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.toString());
+
+            sPropKey = SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null == sPropValue) {
+                sPropValue = Boolean.toString(
+                        SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.getDefaultValue());
+                activeConnectionProperties.setProperty(sPropKey, sPropValue);
+            }
+            useClientScrollInsensitiveResultSets = isBooleanPropertyOn(sPropKey, sPropValue);
+
+            serverCursorFetchWindow = parseByteSizeProperty(
+                    SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW);
+
+            sPropKey = SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null == sPropValue) {
+                sPropValue = Boolean
+                        .toString(SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.getDefaultValue());
+                activeConnectionProperties.setProperty(sPropKey, sPropValue);
+            }
+            deferCursorModifications = isBooleanPropertyOn(sPropKey, sPropValue);
+
+            batchChunkSize = parseByteSizeProperty(SQLServerDriverStringProperty.BATCH_CHUNK_SIZE);
+
+            sPropKey = SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.toString();
+            sPropValue = activeConnectionProperties.getProperty(sPropKey);
+            if (null == sPropValue) {
+                sPropValue = Boolean
+                        .toString(SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.getDefaultValue());
+                activeConnectionProperties.setProperty(sPropKey, sPropValue);
+            }
+            useBulkCopyForBatchUpdate = isBooleanPropertyOn(sPropKey, sPropValue);
+
             FailoverInfo fo = null;
             String databaseNameProperty = SQLServerDriverStringProperty.DATABASE_NAME.toString();
             String serverNameProperty = SQLServerDriverStringProperty.SERVER_NAME.toString();
@@ -2503,6 +2682,11 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
                 }
             }
 
+            // Read-ahead starts with the first response after login
+            tdsChannel.enableReadAhead(readAheadPackets);
+            tdsChannel.enableTieredBuffering(responseBufferHeapLimit, responseBufferOffHeapLimit,
+                    responseBufferSpillDirectory);
+
             state = State.Opened;
 
             if (connectionlogger.isLoggable(Level.FINER)) {
@@ -2977,6 +3161,9 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         clientConnectionId = UUID.randomUUID();
         assert null != clientConnectionId;
 
+        if (null != tdsCaptureFile && !tdsCaptureFile.isEmpty())
+            tdsChannel.startCapture(tdsCaptureFile, clientConnectionId);
+
         Prelogin(serverInfo.getServerName(), serverInfo.getPortNumber());
 
         // If prelogin negotiated SSL encryption then, enable it on the TDS channel.
@@ -3450,7 +3637,9 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         throw ex;
     }
 
-    private final transient Object schedulerLock = new Object();
+    // Serializes command execution. Commands do socket I/O while holding it, so it is not a monitor, which would pin a
+    // virtual thread to its carrier for the whole execution.
+    private final transient ReentrantLock schedulerLock = new ReentrantLock();
 
     /**
      * Executes a command through the scheduler.
@@ -3459,7 +3648,8 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
      *        the command to execute
      */
     boolean executeCommand(TDSCommand newCommand) throws SQLServerException {
-        synchronized (schedulerLock) {
+        schedulerLock.lock();
+        try {
             ICounter previousCounter = null;
             /*
              * Detach (buffer) the response from any previously executing command so that we can execute the new
@@ -3495,7 +3685,7 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
             newCommand.createCounter(previousCounter, activeConnectionProperties);
             /*
              * The implementation of this scheduler is pretty simple... Since only one command at a time may use a
-             * connection (to avoid TDS protocol errors), just synchronize to serialize command execution.
+             * connection (to avoid TDS protocol errors), just hold schedulerLock to serialize command execution.
              */
             boolean commandComplete = false;
             try {
@@ -3511,6 +3701,8 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
             }
 
             return commandComplete;
+        } finally {
+            schedulerLock.unlock();
         }
     }
 
@@ -3669,8 +3861,10 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
 
         // When changing to auto-commit from inside an existing transaction,
         // commit that transaction first.
-        if (newAutoCommitMode)
+        if (newAutoCommitMode) {
+            flushDeferredCursorModifications();
             commitPendingTransaction = "IF @@TRANCOUNT > 0 COMMIT TRAN ";
+        }
 
         if (connectionlogger.isLoggable(Level.FINER)) {
             connectionlogger.finer(
@@ -3720,6 +3914,7 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
 
         checkClosed();
         if (!databaseAutoCommitMode) {
+            flushDeferredCursorModifications();
             if (!delayedDurability)
                 connectionCommand("IF @@TRANCOUNT > 0 COMMIT TRAN", "Connection.commit");
             else
@@ -3740,8 +3935,11 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         if (databaseAutoCommitMode) {
             SQLServerException.makeFromDriverError(this, this, SQLServerException.getErrString("R_cantInvokeRollback"),
                     null, true);
-        } else
+        } else {
+            // Queued modifications would only be rolled back
+            discardDeferredCursorModifications();
             connectionCommand("IF @@TRANCOUNT > 0 ROLLBACK TRAN", "Connection.rollback");
+        }
         loggerExternal.exiting(loggingClassName, "rollback");
     }
 
@@ -5841,6 +6039,9 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
             SQLServerException.makeFromDriverError(this, this, SQLServerException.getErrString("R_cantInvokeRollback"),
                     null, false);
         }
+
+        // Modifications queued since the savepoint must reach the server to be rolled back with the others
+        flushDeferredCursorModifications();
         connectionCommand("IF @@TRANCOUNT > 0 ROLLBACK TRAN " + Util.escapeSQLId(((SQLServerSavepoint) s).getLabel()),
                 "rollbackSavepoint");
         loggerExternal.exiting(loggingClassName, "rollback");
@@ -6916,6 +7117,49 @@ public class SQLServerConnection implements ISQLServerConnection, java.io.Serial
         }
     }
 
+    /**
+     * Adds a result set to the result sets whose queued modifications are sent to the server before a commit
+     *
+     * @param rs
+     *        result set with queued modifications
+     */
+    final synchronized void addDeferredModificationResultSet(SQLServerResultSet rs) {
+        deferredModificationResultSets.add(rs);
+    }
+
+    /**
+     * Removes a result set from the result sets whose queued modifications are sent to the server before a commit
+     *
+     * @param rs
+     *        result set whose queued modifications were sent or discarded
+     */
+    final synchronized void removeDeferredModificationResultSet(SQLServerResultSet rs) {
+        deferredModificationResultSets.remove(rs);
+    }
+
+    private synchronized SQLServerResultSet[] takeDeferredModificationResultSets() {
+        SQLServerResultSet[] resultSets = deferredModificationResultSets
+                .toArray(new SQLServerResultSet[deferredModificationResultSets.size()]);
+        deferredModificationResultSets.clear();
+        return resultSets;
+    }
+
+    /**
+     * Sends the queued modifications of all result sets of this connection to the server.
+     */
+    private void flushDeferredCursorModifications() throws SQLServerException {
+        for (SQLServerResultSet rs : takeDeferredModificationResultSets())
+            rs.flushDeferredCursorOperations();
+    }
+
+    /**
+     * Discards the queued modifications of all result sets of this connection.
+     */
+    private void discardDeferredCursorModifications() {
+        for (SQLServerResultSet rs : takeDeferredModificationResultSets())
+            rs.discardDeferredCursorOperations();
+    }
+
     boolean isAEv2() {
         return (aeVersion >= TDS.COLUMNENCRYPTION_VERSION2);
     }
@@ -5,6 +5,7 @@
 
 package com.microsoft.sqlserver.jdbc;
 
+import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.PreparedStatement;
 import java.sql.SQLClientInfoException;
@@ -12,6 +13,7 @@ import java.sql.SQLException;
 import java.sql.Savepoint;
 import java.sql.Statement;
 import java.text.MessageFormat;
+import java.util.List;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
 
@@ -599,6 +601,13 @@ class SQLServerConnectionPoolProxy implements ISQLServerConnection, java.io.Seri
         return wrappedConnection.getDelayLoadingLobs();
     }
 
+    @Override
+    public long[] executePreparedStatements(List<? extends PreparedStatement> statements)
+            throws SQLServerException, BatchUpdateException {
+        checkClosed();
+        return wrappedConnection.executePreparedStatements(statements);
+    }
+
     @Override
     public void setDelayLoadingLobs(boolean delayLoadingLobs) {
         wrappedConnection.setDelayLoadingLobs(delayLoadingLobs);
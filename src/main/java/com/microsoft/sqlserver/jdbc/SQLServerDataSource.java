@@ -532,6 +532,18 @@ public class SQLServerDataSource
                 SQLServerDriverBooleanProperty.DELAY_LOADING_LOBS.getDefaultValue());
     }
 
+    @Override
+    public void setUseSocketChannel(boolean useSocketChannel) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(),
+                useSocketChannel);
+    }
+
+    @Override
+    public boolean getUseSocketChannel() {
+        return getBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(),
+                SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue());
+    }
+
     /**
      * Sets whether string parameters are sent to the server in UNICODE format.
      * 
@@ -1131,6 +1143,129 @@ public class SQLServerDataSource
                 SQLServerDriverIntProperty.CONNECT_RETRY_INTERVAL.getDefaultValue());
     }
 
+    @Override
+    public void setReadAheadPackets(int readAheadPackets) {
+        setIntProperty(connectionProps, SQLServerDriverIntProperty.READ_AHEAD_PACKETS.toString(), readAheadPackets);
+    }
+
+    @Override
+    public int getReadAheadPackets() {
+        return getIntProperty(connectionProps, SQLServerDriverIntProperty.READ_AHEAD_PACKETS.toString(),
+                SQLServerDriverIntProperty.READ_AHEAD_PACKETS.getDefaultValue());
+    }
+
+    @Override
+    public void setTdsCaptureFile(String tdsCaptureFile) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.TDS_CAPTURE_FILE.toString(), tdsCaptureFile);
+    }
+
+    @Override
+    public String getTdsCaptureFile() {
+        return getStringProperty(connectionProps, SQLServerDriverStringProperty.TDS_CAPTURE_FILE.toString(),
+                SQLServerDriverStringProperty.TDS_CAPTURE_FILE.getDefaultValue());
+    }
+
+    @Override
+    public void setResponseBufferHeapLimit(String responseBufferHeapLimit) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT.toString(),
+                responseBufferHeapLimit);
+    }
+
+    @Override
+    public String getResponseBufferHeapLimit() {
+        return getStringProperty(connectionProps,
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT.toString(),
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT.getDefaultValue());
+    }
+
+    @Override
+    public void setResponseBufferOffHeapLimit(String responseBufferOffHeapLimit) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT.toString(),
+                responseBufferOffHeapLimit);
+    }
+
+    @Override
+    public String getResponseBufferOffHeapLimit() {
+        return getStringProperty(connectionProps,
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT.toString(),
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT.getDefaultValue());
+    }
+
+    @Override
+    public void setResponseBufferSpillDirectory(String responseBufferSpillDirectory) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.toString(),
+                responseBufferSpillDirectory);
+    }
+
+    @Override
+    public String getResponseBufferSpillDirectory() {
+        return getStringProperty(connectionProps,
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.toString(),
+                SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.getDefaultValue());
+    }
+
+    @Override
+    public void setUseClientScrollInsensitiveResultSets(boolean useClientScrollInsensitiveResultSets) {
+        setBooleanProperty(connectionProps,
+                SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.toString(),
+                useClientScrollInsensitiveResultSets);
+    }
+
+    @Override
+    public boolean getUseClientScrollInsensitiveResultSets() {
+        return getBooleanProperty(connectionProps,
+                SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.toString(),
+                SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.getDefaultValue());
+    }
+
+    @Override
+    public void setServerCursorFetchWindow(String serverCursorFetchWindow) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW.toString(),
+                serverCursorFetchWindow);
+    }
+
+    @Override
+    public String getServerCursorFetchWindow() {
+        return getStringProperty(connectionProps, SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW.toString(),
+                SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW.getDefaultValue());
+    }
+
+    @Override
+    public void setDeferCursorModifications(boolean deferCursorModifications) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.toString(),
+                deferCursorModifications);
+    }
+
+    @Override
+    public boolean getDeferCursorModifications() {
+        return getBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.toString(),
+                SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.getDefaultValue());
+    }
+
+    @Override
+    public void setBatchChunkSize(String batchChunkSize) {
+        setStringProperty(connectionProps, SQLServerDriverStringProperty.BATCH_CHUNK_SIZE.toString(), batchChunkSize);
+    }
+
+    @Override
+    public String getBatchChunkSize() {
+        return getStringProperty(connectionProps, SQLServerDriverStringProperty.BATCH_CHUNK_SIZE.toString(),
+                SQLServerDriverStringProperty.BATCH_CHUNK_SIZE.getDefaultValue());
+    }
+
+    @Override
+    public void setUseBulkCopyForBatchUpdate(boolean useBulkCopyForBatchUpdate) {
+        setBooleanProperty(connectionProps, SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.toString(),
+                useBulkCopyForBatchUpdate);
+    }
+
+    @Override
+    public boolean getUseBulkCopyForBatchUpdate() {
+        return getBooleanProperty(connectionProps,
+                SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.toString(),
+                SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.getDefaultValue());
+    }
+
     /**
      * Sets a property string value.
      * 
@@ -378,7 +378,13 @@ enum SQLServerDriverStringProperty {
     CLIENT_KEY_PASSWORD("clientKeyPassword", ""),
     AAD_SECURE_PRINCIPAL_ID("AADSecurePrincipalId", ""),
     AAD_SECURE_PRINCIPAL_SECRET("AADSecurePrincipalSecret", ""),
-    MAX_RESULT_BUFFER("maxResultBuffer", "-1");
+    MAX_RESULT_BUFFER("maxResultBuffer", "-1"),
+    TDS_CAPTURE_FILE("tdsCaptureFile", ""),
+    RESPONSE_BUFFER_HEAP_LIMIT("responseBufferHeapLimit", "-1"),
+    RESPONSE_BUFFER_OFF_HEAP_LIMIT("responseBufferOffHeapLimit", "-1"),
+    RESPONSE_BUFFER_SPILL_DIRECTORY("responseBufferSpillDirectory", ""),
+    SERVER_CURSOR_FETCH_WINDOW("serverCursorFetchWindow", "-1"),
+    BATCH_CHUNK_SIZE("batchChunkSize", "-1");
 
     private final String name;
     private final String defaultValue;
@@ -410,7 +416,8 @@ enum SQLServerDriverIntProperty {
     STATEMENT_POOLING_CACHE_SIZE("statementPoolingCacheSize", SQLServerConnection.DEFAULT_STATEMENT_POOLING_CACHE_SIZE),
     CANCEL_QUERY_TIMEOUT("cancelQueryTimeout", -1),
     CONNECT_RETRY_COUNT("connectRetryCount", 1, 0, 255),
-    CONNECT_RETRY_INTERVAL("connectRetryInterval", 10, 1, 60);
+    CONNECT_RETRY_INTERVAL("connectRetryInterval", 10, 1, 60),
+    READ_AHEAD_PACKETS("readAheadPackets", 0, 0, 1024);
 
     private final String name;
     private final int defaultValue;
@@ -462,7 +469,11 @@ enum SQLServerDriverBooleanProperty {
     USE_BULK_COPY_FOR_BATCH_INSERT("useBulkCopyForBatchInsert", false),
     USE_FMT_ONLY("useFmtOnly", false),
     SEND_TEMPORAL_DATATYPES_AS_STRING_FOR_BULK_COPY("sendTemporalDataTypesAsStringForBulkCopy", true),
-    DELAY_LOADING_LOBS("delayLoadingLobs", true);
+    DELAY_LOADING_LOBS("delayLoadingLobs", true),
+    USE_SOCKET_CHANNEL("useSocketChannel", false),
+    USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS("useClientScrollInsensitiveResultSets", false),
+    DEFER_CURSOR_MODIFICATIONS("deferCursorModifications", false),
+    USE_BULK_COPY_FOR_BATCH_UPDATE("useBulkCopyForBatchUpdate", false);
 
     private final String name;
     private final boolean defaultValue;
@@ -666,6 +677,20 @@ public final class SQLServerDriver implements java.sql.Driver {
             new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.DELAY_LOADING_LOBS.toString(),
                     Boolean.toString(SQLServerDriverBooleanProperty.DELAY_LOADING_LOBS.getDefaultValue()), false,
                     TRUE_FALSE),
+            new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.toString(),
+                    Boolean.toString(SQLServerDriverBooleanProperty.USE_SOCKET_CHANNEL.getDefaultValue()), false,
+                    TRUE_FALSE),
+            new SQLServerDriverPropertyInfo(
+                    SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.toString(),
+                    Boolean.toString(
+                            SQLServerDriverBooleanProperty.USE_CLIENT_SCROLL_INSENSITIVE_RESULT_SETS.getDefaultValue()),
+                    false, TRUE_FALSE),
+            new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.toString(),
+                    Boolean.toString(SQLServerDriverBooleanProperty.DEFER_CURSOR_MODIFICATIONS.getDefaultValue()), false,
+                    TRUE_FALSE),
+            new SQLServerDriverPropertyInfo(SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.toString(),
+                    Boolean.toString(SQLServerDriverBooleanProperty.USE_BULK_COPY_FOR_BATCH_UPDATE.getDefaultValue()),
+                    false, TRUE_FALSE),
             new SQLServerDriverPropertyInfo(
                     SQLServerDriverBooleanProperty.SEND_TEMPORAL_DATATYPES_AS_STRING_FOR_BULK_COPY.toString(),
                     Boolean.toString(SQLServerDriverBooleanProperty.SEND_TEMPORAL_DATATYPES_AS_STRING_FOR_BULK_COPY
@@ -677,10 +702,25 @@ public final class SQLServerDriver implements java.sql.Driver {
                     SQLServerDriverStringProperty.AAD_SECURE_PRINCIPAL_SECRET.getDefaultValue(), false, null),
             new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.MAX_RESULT_BUFFER.toString(),
                     SQLServerDriverStringProperty.MAX_RESULT_BUFFER.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.TDS_CAPTURE_FILE.toString(),
+                    SQLServerDriverStringProperty.TDS_CAPTURE_FILE.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT.toString(),
+                    SQLServerDriverStringProperty.RESPONSE_BUFFER_HEAP_LIMIT.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT.toString(),
+                    SQLServerDriverStringProperty.RESPONSE_BUFFER_OFF_HEAP_LIMIT.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.toString(),
+                    SQLServerDriverStringProperty.RESPONSE_BUFFER_SPILL_DIRECTORY.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW.toString(),
+                    SQLServerDriverStringProperty.SERVER_CURSOR_FETCH_WINDOW.getDefaultValue(), false, null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverStringProperty.BATCH_CHUNK_SIZE.toString(),
+                    SQLServerDriverStringProperty.BATCH_CHUNK_SIZE.getDefaultValue(), false, null),
             new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.CONNECT_RETRY_COUNT.toString(),
                     Integer.toString(SQLServerDriverIntProperty.CONNECT_RETRY_COUNT.getDefaultValue()), false, null),
             new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.CONNECT_RETRY_INTERVAL.toString(),
                     Integer.toString(SQLServerDriverIntProperty.CONNECT_RETRY_INTERVAL.getDefaultValue()), false,
+                    null),
+            new SQLServerDriverPropertyInfo(SQLServerDriverIntProperty.READ_AHEAD_PACKETS.toString(),
+                    Integer.toString(SQLServerDriverIntProperty.READ_AHEAD_PACKETS.getDefaultValue()), false,
                     null),};
 
     /**
@@ -14,6 +14,7 @@ import java.math.BigDecimal;
 import java.sql.BatchUpdateException;
 import java.sql.NClob;
 import java.sql.ParameterMetaData;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.RowId;
 import java.sql.SQLException;
@@ -23,11 +24,17 @@ import java.sql.SQLXML;
 import java.sql.Statement;
 import java.text.MessageFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.UUID;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.logging.Level;
+import java.util.stream.Stream;
 
 import com.microsoft.sqlserver.jdbc.SQLServerConnection.CityHash128Key;
 import com.microsoft.sqlserver.jdbc.SQLServerConnection.PreparedStatementHandle;
@@ -63,6 +70,15 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
     /** The prepared type definitions */
     private String preparedTypeDefinitions;
 
+    /** Type definitions of the individual parameters the prepared type definitions were built from */
+    private String[] preparedParamTypeDefinitions;
+
+    /** Output flags of the individual parameters the prepared type definitions were built from */
+    private boolean[] preparedParamOutputs;
+
+    /** Hash of the prepared SQL and type definitions used for statement handle cache lookups */
+    private CityHash128Key preparedStatementCacheKey;
+
     /** Processed SQL statement text, may not be same as what user initially passed. */
     final String userSQL;
 
@@ -104,7 +120,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
     int outParamIndexAdjustment;
 
     /** Set of parameter values in the current batch */
-    ArrayList<Parameter[]> batchParamValues;
+    BatchParameterBuffer batchParamValues;
 
     /** The prepared statement handle returned by the server */
     private int prepStmtHandle = 0;
@@ -148,6 +164,12 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         this.useBulkCopyForBatchInsert = useBulkCopyForBatchInsert;
     }
 
+    /**
+     * boolean value for deciding if the driver should bulk copy batches of UPDATE, DELETE and MERGE statements into a
+     * temporary table and run them as one statement
+     */
+    private boolean useBulkCopyForBatchUpdate;
+
     @Override
     public int getPreparedStatementHandle() throws SQLServerException {
         checkClosed();
@@ -249,6 +271,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         userSQLParamPositions = parsedSQL.parameterPositions;
         initParams(userSQLParamPositions.length);
         useBulkCopyForBatchInsert = conn.getUseBulkCopyForBatchInsert();
+        useBulkCopyForBatchUpdate = conn.getUseBulkCopyForBatchUpdate();
     }
 
     /**
@@ -388,22 +411,22 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
      * of the parameters due to changes in scale, length, etc., and, if so, sets the new type definition string.
      */
     private boolean buildPreparedStrings(Parameter[] params, boolean renewDefinition) throws SQLServerException {
-        String newTypeDefinitions = buildParamTypeDefinitions(params, renewDefinition);
-        if (null != preparedTypeDefinitions && newTypeDefinitions.equalsIgnoreCase(preparedTypeDefinitions))
+        if (!buildParamTypeDefinitions(params, renewDefinition))
             return false;
 
-        preparedTypeDefinitions = newTypeDefinitions;
-
         /* Replace the parameter marker '?' with the param numbers @p1, @p2 etc */
         preparedSQL = connection.replaceParameterMarkers(userSQL, userSQLParamPositions, params, bReturnValueSyntax);
         if (bRequestedGeneratedKeys)
             preparedSQL = preparedSQL + identityQuery;
 
+        preparedStatementCacheKey = null;
         return true;
     }
 
     /**
      * Builds the parameter type definitons for a JDBC prepared statement that will be used to prepare the statement.
+     * The type definition of each parameter is compared with the one the statement was last prepared with, and the
+     * type definitions string is only rebuilt when the shape of a parameter changed.
      * 
      * @param params
      *        the statement parameters
@@ -411,12 +434,31 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
      *        True if renewing parameter definition, False otherwise
      * @throws SQLServerException
      *         when an error occurs.
-     * @return the required data type definitions.
+     * @return true if the type definitions changed, false otherwise.
      */
-    private String buildParamTypeDefinitions(Parameter[] params, boolean renewDefinition) throws SQLServerException {
-        StringBuilder sb = new StringBuilder();
+    private boolean buildParamTypeDefinitions(Parameter[] params, boolean renewDefinition) throws SQLServerException {
         int nCols = params.length;
+        String[] typeDefinitions = new String[nCols];
+        boolean changed = null == preparedTypeDefinitions || nCols != preparedParamTypeDefinitions.length;
+
+        for (int i = 0; i < nCols; i++) {
+            params[i].renewDefinition = renewDefinition;
+            typeDefinitions[i] = params[i].getTypeDefinition(connection, resultsReader());
+            if (null == typeDefinitions[i]) {
+                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_valueNotSetForParameter"));
+                Object[] msgArgs = {i + 1};
+                SQLServerException.makeFromDriverError(connection, this, form.format(msgArgs), null, false);
+            }
+
+            changed = changed || !typeDefinitions[i].equals(preparedParamTypeDefinitions[i])
+                    || params[i].isOutput() != preparedParamOutputs[i];
+        }
+        if (!changed)
+            return false;
+
+        StringBuilder sb = new StringBuilder();
         char cParamName[] = new char[10];
+        boolean[] outputs = new boolean[nCols];
         parameterNames = new ArrayList<>();
 
         for (int i = 0; i < nCols; i++) {
@@ -430,20 +472,26 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
 
             parameterNames.add(i, (new String(cParamName)).trim());
 
-            params[i].renewDefinition = renewDefinition;
-            String typeDefinition = params[i].getTypeDefinition(connection, resultsReader());
-            if (null == typeDefinition) {
-                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_valueNotSetForParameter"));
-                Object[] msgArgs = {i + 1};
-                SQLServerException.makeFromDriverError(connection, this, form.format(msgArgs), null, false);
-            }
-
-            sb.append(typeDefinition);
+            sb.append(typeDefinitions[i]);
 
-            if (params[i].isOutput())
+            outputs[i] = params[i].isOutput();
+            if (outputs[i])
                 sb.append(" OUTPUT");
         }
-        return sb.toString();
+
+        preparedTypeDefinitions = sb.toString();
+        preparedParamTypeDefinitions = typeDefinitions;
+        preparedParamOutputs = outputs;
+        return true;
+    }
+
+    /**
+     * Returns the key of the prepared SQL and type definitions in the statement handle cache.
+     */
+    private CityHash128Key getPreparedStatementCacheKey() {
+        if (null == preparedStatementCacheKey)
+            preparedStatementCacheKey = new CityHash128Key(preparedSQL, preparedTypeDefinitions);
+        return preparedStatementCacheKey;
     }
 
     @Override
@@ -505,6 +553,50 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         return updateCount;
     }
 
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync() throws SQLServerException {
+        return executeQueryAsync((Executor) null);
+    }
+
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync(Executor executor) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "executeQueryAsync");
+        checkClosed();
+        CompletableFuture<ResultSet> future = AsyncExecutor.submit(this, executor, () -> executeQuery());
+        loggerExternal.exiting(getClassNameLogging(), "executeQueryAsync", future);
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync() throws SQLServerException {
+        return executeUpdateAsync((Executor) null);
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync(Executor executor) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "executeUpdateAsync");
+        checkClosed();
+        CompletableFuture<Integer> future = AsyncExecutor.submit(this, executor, () -> executeUpdate());
+        loggerExternal.exiting(getClassNameLogging(), "executeUpdateAsync", future);
+        return future;
+    }
+
+    @Override
+    public Stream<SQLServerRow> stream() throws SQLServerException, SQLTimeoutException {
+        return stream(SQLServerRowSpliterator.DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public Stream<SQLServerRow> stream(int batchSize) throws SQLServerException, SQLTimeoutException {
+        loggerExternal.entering(getClassNameLogging(), "stream", batchSize);
+        checkClosed();
+        SQLServerRowSpliterator.checkBatchSize(batchSize);
+        Stream<SQLServerRow> stream = SQLServerRowSpliterator.stream((SQLServerResultSet) executeQuery(),
+                batchSize);
+        loggerExternal.exiting(getClassNameLogging(), "stream", stream);
+        return stream;
+    }
+
     @Override
     public boolean execute() throws SQLServerException, SQLTimeoutException {
         loggerExternal.entering(getClassNameLogging(), "execute");
@@ -564,36 +656,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         }
 
         boolean hasExistingTypeDefinitions = preparedTypeDefinitions != null;
-        boolean hasNewTypeDefinitions = true;
-        if (!encryptionMetadataIsRetrieved) {
-            hasNewTypeDefinitions = buildPreparedStrings(inOutParam, false);
-        }
-
-        if (connection.isAEv2() && !isInternalEncryptionQuery) {
-            this.enclaveCEKs = connection.initEnclaveParameters(preparedSQL, preparedTypeDefinitions, inOutParam,
-                    parameterNames);
-            encryptionMetadataIsRetrieved = true;
-            setMaxRowsAndMaxFieldSize();
-            hasNewTypeDefinitions = buildPreparedStrings(inOutParam, true);
-        }
-
-        if ((Util.shouldHonorAEForParameters(stmtColumnEncriptionSetting, connection)) && (0 < inOutParam.length)
-                && !isInternalEncryptionQuery) {
-
-            // retrieve parameter encryption metadata if they are not retrieved yet
-            if (!encryptionMetadataIsRetrieved) {
-                getParameterEncryptionMetadata(inOutParam);
-                encryptionMetadataIsRetrieved = true;
-
-                // maxRows is set to 0 when retrieving encryption metadata,
-                // need to set it back
-                setMaxRowsAndMaxFieldSize();
-            }
-
-            // fix an issue when inserting unicode into non-encrypted nchar column using setString() and AE is on on
-            // Connection
-            hasNewTypeDefinitions = buildPreparedStrings(inOutParam, true);
-        }
+        boolean hasNewTypeDefinitions = buildExecuteTypeDefinitions(inOutParam);
 
         boolean needsPrepare = true;
         // Retry execution if existing handle could not be re-used.
@@ -631,6 +694,48 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         }
     }
 
+    /**
+     * Builds the type definitions of the parameters for an execution with their current values, with their encryption
+     * metadata if they are encrypted.
+     * 
+     * @param params
+     *        the parameters of the execution, which are the parameters of the statement or of the first row of its batch
+     * @return true if the type definitions changed
+     */
+    private boolean buildExecuteTypeDefinitions(Parameter[] params) throws SQLServerException {
+        boolean hasNewTypeDefinitions = true;
+        if (!encryptionMetadataIsRetrieved) {
+            hasNewTypeDefinitions = buildPreparedStrings(params, false);
+        }
+
+        if (connection.isAEv2() && !isInternalEncryptionQuery) {
+            this.enclaveCEKs = connection.initEnclaveParameters(preparedSQL, preparedTypeDefinitions, params,
+                    parameterNames);
+            encryptionMetadataIsRetrieved = true;
+            setMaxRowsAndMaxFieldSize();
+            hasNewTypeDefinitions = buildPreparedStrings(params, true);
+        }
+
+        if ((Util.shouldHonorAEForParameters(stmtColumnEncriptionSetting, connection)) && (0 < params.length)
+                && !isInternalEncryptionQuery) {
+
+            // retrieve parameter encryption metadata if they are not retrieved yet
+            if (!encryptionMetadataIsRetrieved) {
+                getParameterEncryptionMetadata(params);
+                encryptionMetadataIsRetrieved = true;
+
+                // maxRows is set to 0 when retrieving encryption metadata,
+                // need to set it back
+                setMaxRowsAndMaxFieldSize();
+            }
+
+            // fix an issue when inserting unicode into non-encrypted nchar column using setString() and AE is on on
+            // Connection
+            hasNewTypeDefinitions = buildPreparedStrings(params, true);
+        }
+        return hasNewTypeDefinitions;
+    }
+
     /**
      * Returns if the execution should be retried because the re-used cached handle could not be re-used due to server
      * side state changes.
@@ -675,8 +780,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 // Cache the reference to the newly created handle, NOT for cursorable handles.
                 if (null == cachedPreparedStatementHandle && !isCursorable(executeMethod)) {
                     cachedPreparedStatementHandle = connection.registerCachedPreparedStatementHandle(
-                            new CityHash128Key(preparedSQL, preparedTypeDefinitions), prepStmtHandle,
-                            executedSqlDirectly);
+                            getPreparedStatementCacheKey(), prepStmtHandle, executedSqlDirectly);
                 }
 
                 param.skipValue(tdsReader, true);
@@ -699,6 +803,17 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
      * Sends the statement parameters by RPC.
      */
     void sendParamsByRPC(TDSWriter tdsWriter, Parameter[] params) throws SQLServerException {
+        sendParamsByRPC(tdsWriter, params, -1);
+    }
+
+    /**
+     * Sends the parameter values of an execution, or of a row of the batch. The values of the row that batchParamValues
+     * holds in primitive arrays are sent straight from the arrays.
+     *
+     * @param batchRow
+     *        the row of the batch, or -1 when not executing the batch
+     */
+    private void sendParamsByRPC(TDSWriter tdsWriter, Parameter[] params, int batchRow) throws SQLServerException {
         char cParamName[];
         for (int index = 0; index < params.length; index++) {
             if (JDBCType.TVP == params[index].getJdbcType()) {
@@ -707,7 +822,8 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 tdsWriter.writeByte((byte) paramNameLen);
                 tdsWriter.writeString(new String(cParamName, 0, paramNameLen));
             }
-            params[index].sendByRPC(tdsWriter, connection);
+            if (batchRow < 0 || !batchParamValues.sendByRPC(tdsWriter, batchRow, index))
+                params[index].sendByRPC(tdsWriter, connection);
         }
     }
 
@@ -793,15 +909,23 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         expectCursorOutParams = false;
         outParamIndexAdjustment = 2;
 
+        // No handle used.
+        resetPrepStmtHandle(false);
+
+        writeExecSQLParams(tdsWriter);
+    }
+
+    /**
+     * Writes an sp_executesql call of the statement, without changing the handle or the state its response is read
+     * with.
+     */
+    private void writeExecSQLParams(TDSWriter tdsWriter) throws SQLServerException {
         tdsWriter.writeShort((short) 0xFFFF); // procedure name length -> use ProcIDs
         tdsWriter.writeShort(TDS.PROCID_SP_EXECUTESQL);
         tdsWriter.writeByte((byte) 0); // RPC procedure option 1
         tdsWriter.writeByte((byte) 0); // RPC procedure option 2
         tdsWriter.sendEnclavePackage(preparedSQL, enclaveCEKs);
 
-        // No handle used.
-        resetPrepStmtHandle(false);
-
         // <stmt> IN
         tdsWriter.writeRPCStringUnicode(preparedSQL);
 
@@ -1010,7 +1134,7 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         // Check for new cache reference.
         if (null == cachedPreparedStatementHandle) {
             PreparedStatementHandle cachedHandle = connection
-                    .getCachedPreparedStatementHandle(new CityHash128Key(preparedSQL, preparedTypeDefinitions));
+                    .getCachedPreparedStatementHandle(getPreparedStatementCacheKey());
             // If handle was found then re-use, only if AE is not on and is not a batch query with new type definitions
             // (We shouldn't reuse handle
             // if it is batch query and has new type definition, or if it is on, make sure encryptionMetadataIsRetrieved
@@ -1036,6 +1160,11 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
 
     private boolean doPrepExec(TDSWriter tdsWriter, Parameter[] params, boolean hasNewTypeDefinitions,
             boolean hasExistingTypeDefinitions) throws SQLServerException {
+        return doPrepExec(tdsWriter, params, hasNewTypeDefinitions, hasExistingTypeDefinitions, -1);
+    }
+
+    private boolean doPrepExec(TDSWriter tdsWriter, Parameter[] params, boolean hasNewTypeDefinitions,
+            boolean hasExistingTypeDefinitions, int batchRow) throws SQLServerException {
 
         boolean needsPrepare = (hasNewTypeDefinitions && hasExistingTypeDefinitions) || !hasPreparedStatementHandle();
 
@@ -1060,11 +1189,46 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 buildExecParams(tdsWriter);
         }
 
-        sendParamsByRPC(tdsWriter, params);
+        sendParamsByRPC(tdsWriter, params, batchRow);
 
         return needsPrepare;
     }
 
+    /**
+     * Sends the rows of the batch after the first one, in the same request as the first row, for
+     * executePreparedStatements. The response to the first row is read only after the whole request is sent, so these
+     * rows must leave the handle and the state the response is read with as the first row set them. A row runs through
+     * the handle if the first row did and the row has the same type definitions, and with sp_executesql otherwise.
+     *
+     * @param firstRowParams
+     *        the parameters the first row was sent with
+     */
+    private void doExecFollowingBatchRows(TDSWriter tdsWriter, Parameter[] firstRowParams) throws SQLServerException {
+        boolean usesHandle = hasPreparedStatementHandle();
+        boolean hasNewTypeDefinitions = false;
+        Parameter[] rowParams = new Parameter[firstRowParams.length];
+        for (int row = 1; row < batchParamValues.size(); ++row) {
+            tdsWriter.writeByte((byte) nBatchStatementDelimiter);
+
+            // The encryption metadata was retrieved for the first row, and is re-used for the other rows.
+            batchParamValues.getParameters(row, rowParams);
+            for (int i = 0; i < rowParams.length; ++i)
+                rowParams[i].cryptoMeta = firstRowParams[i].cryptoMeta;
+
+            if (buildPreparedStrings(rowParams, false))
+                hasNewTypeDefinitions = true;
+            if (usesHandle && !hasNewTypeDefinitions)
+                buildExecParams(tdsWriter);
+            else
+                writeExecSQLParams(tdsWriter);
+            sendParamsByRPC(tdsWriter, rowParams, row);
+        }
+
+        // Put back the type definitions of the first row, which the handle of the statement is prepared with.
+        if (hasNewTypeDefinitions)
+            buildPreparedStrings(firstRowParams, false);
+    }
+
     @Override
     public final java.sql.ResultSetMetaData getMetaData() throws SQLServerException, SQLTimeoutException {
         loggerExternal.entering(getClassNameLogging(), "getMetaData");
@@ -1933,15 +2097,13 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         loggerExternal.entering(getClassNameLogging(), "addBatch");
         checkClosed();
 
-        // Create the list of batch parameter values first time through
+        // Create the list of batch parameter values first time through. Encrypted parameter values are sent the way
+        // each was set, so the batch keeps their parameters rather than just their values.
         if (batchParamValues == null)
-            batchParamValues = new ArrayList<>();
+            batchParamValues = new BatchParameterBuffer(inOutParam.length,
+                    !Util.shouldHonorAEForParameters(stmtColumnEncriptionSetting, connection));
 
-        final int numParams = inOutParam.length;
-        Parameter paramValues[] = new Parameter[numParams];
-        for (int i = 0; i < numParams; i++)
-            paramValues[i] = inOutParam[i].cloneForBatch();
-        batchParamValues.add(paramValues);
+        batchParamValues.add(inOutParam, connection);
         loggerExternal.exiting(getClassNameLogging(), "addBatch");
     }
 
@@ -1984,13 +2146,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 //
                 // OUT and INOUT parameter checking is done here, before executing the batch. If any
                 // OUT or INOUT are present, the entire batch fails.
-                for (Parameter[] paramValues : batchParamValues) {
-                    for (Parameter paramValue : paramValues) {
-                        if (paramValue.isOutput()) {
-                            throw new BatchUpdateException(
-                                    SQLServerException.getErrString("R_outParamsNotPermittedinBatch"), null, 0, null);
-                        }
-                    }
+                if (batchParamValues.hasOutputParameters()) {
+                    throw new BatchUpdateException(SQLServerException.getErrString("R_outParamsNotPermittedinBatch"),
+                            null, 0, null);
                 }
 
                 String tableName = parseUserSQLForTableNameDW(false, false, false, false);
@@ -2048,6 +2206,18 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                         updateCounts[i] = 1;
                     }
 
+                    batchParamValues = null;
+                    loggerExternal.exiting(getClassNameLogging(), "executeBatch", updateCounts);
+                    return updateCounts;
+                }
+            } else if (this.useBulkCopyForBatchUpdate && null != batchParamValues
+                    && !batchParamValues.hasOutputParameters()) {
+                long[] bulkUpdateCounts = executeBulkBatchUpdate();
+                if (null != bulkUpdateCounts) {
+                    updateCounts = new int[bulkUpdateCounts.length];
+                    for (int i = 0; i < bulkUpdateCounts.length; ++i)
+                        updateCounts[i] = (int) bulkUpdateCounts[i];
+
                     batchParamValues = null;
                     loggerExternal.exiting(getClassNameLogging(), "executeBatch", updateCounts);
                     return updateCounts;
@@ -2078,13 +2248,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 //
                 // OUT and INOUT parameter checking is done here, before executing the batch. If any
                 // OUT or INOUT are present, the entire batch fails.
-                for (Parameter[] paramValues : batchParamValues) {
-                    for (Parameter paramValue : paramValues) {
-                        if (paramValue.isOutput()) {
-                            throw new BatchUpdateException(
-                                    SQLServerException.getErrString("R_outParamsNotPermittedinBatch"), null, 0, null);
-                        }
-                    }
+                if (batchParamValues.hasOutputParameters()) {
+                    throw new BatchUpdateException(SQLServerException.getErrString("R_outParamsNotPermittedinBatch"),
+                            null, 0, null);
                 }
 
                 PrepStmtBatchExecCmd batchCommand = new PrepStmtBatchExecCmd(this);
@@ -2141,13 +2307,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 //
                 // OUT and INOUT parameter checking is done here, before executing the batch. If any
                 // OUT or INOUT are present, the entire batch fails.
-                for (Parameter[] paramValues : batchParamValues) {
-                    for (Parameter paramValue : paramValues) {
-                        if (paramValue.isOutput()) {
-                            throw new BatchUpdateException(
-                                    SQLServerException.getErrString("R_outParamsNotPermittedinBatch"), null, 0, null);
-                        }
-                    }
+                if (batchParamValues.hasOutputParameters()) {
+                    throw new BatchUpdateException(SQLServerException.getErrString("R_outParamsNotPermittedinBatch"),
+                            null, 0, null);
                 }
 
                 String tableName = parseUserSQLForTableNameDW(false, false, false, false);
@@ -2205,6 +2367,14 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                         updateCounts[i] = 1;
                     }
 
+                    batchParamValues = null;
+                    loggerExternal.exiting(getClassNameLogging(), "executeLargeBatch", updateCounts);
+                    return updateCounts;
+                }
+            } else if (this.useBulkCopyForBatchUpdate && null != batchParamValues
+                    && !batchParamValues.hasOutputParameters()) {
+                updateCounts = executeBulkBatchUpdate();
+                if (null != updateCounts) {
                     batchParamValues = null;
                     loggerExternal.exiting(getClassNameLogging(), "executeLargeBatch", updateCounts);
                     return updateCounts;
@@ -2235,13 +2405,9 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                 //
                 // OUT and INOUT parameter checking is done here, before executing the batch. If any
                 // OUT or INOUT are present, the entire batch fails.
-                for (Parameter[] paramValues : batchParamValues) {
-                    for (Parameter paramValue : paramValues) {
-                        if (paramValue.isOutput()) {
-                            throw new BatchUpdateException(
-                                    SQLServerException.getErrString("R_outParamsNotPermittedinBatch"), null, 0, null);
-                        }
-                    }
+                if (batchParamValues.hasOutputParameters()) {
+                    throw new BatchUpdateException(SQLServerException.getErrString("R_outParamsNotPermittedinBatch"),
+                            null, 0, null);
                 }
 
                 PrepStmtBatchExecCmd batchCommand = new PrepStmtBatchExecCmd(this);
@@ -2264,6 +2430,97 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         return updateCounts;
     }
 
+    /**
+     * Runs the batch of an UPDATE, DELETE or MERGE statement as one statement, that applies the rows of the batch bulk
+     * copied into a temporary table.
+     * 
+     * @return the update count of every row of the batch, or null if the statement or its parameters cannot be run
+     *         this way, and the batch must be run the usual way
+     * @throws SQLException
+     *         when an error occurs
+     */
+    private long[] executeBulkBatchUpdate() throws SQLException {
+        String batchTable = null;
+        try (SQLServerStatement stmt = (SQLServerStatement) connection.createStatement(ResultSet.TYPE_FORWARD_ONLY,
+                ResultSet.CONCUR_READ_ONLY, connection.getHoldability(), stmtColumnEncriptionSetting)) {
+            try {
+                SQLServerBulkBatchUpdateQuery query = new SQLServerBulkBatchUpdateQuery(userSQL);
+                if (query.getParameterCount() != inOutParam.length)
+                    throw new IllegalArgumentException("Invalid SQL Query.");
+                if (Util.shouldHonorAEForParameters(stmtColumnEncriptionSetting, connection))
+                    throw new IllegalArgumentException("Encrypted parameters are not supported.");
+
+                // The columns of the temporary table have the types the parameters would be sent with. The types must
+                // be the same for all the rows.
+                String[] typeDefinitions = new String[inOutParam.length];
+                Parameter[] rowParams = new Parameter[inOutParam.length];
+                for (int row = 0; row < batchParamValues.size(); ++row) {
+                    batchParamValues.getParameters(row, rowParams);
+                    for (int i = 0; i < rowParams.length; ++i) {
+                        String typeDefinition = rowParams[i].getTypeDefinition(connection, resultsReader());
+                        if (null == typeDefinition || (0 != row && !typeDefinition.equals(typeDefinitions[i])))
+                            throw new IllegalArgumentException("The parameters of the rows of the batch differ.");
+                        typeDefinitions[i] = typeDefinition;
+                    }
+                }
+
+                batchTable = "#jdbc_batch_" + UUID.randomUUID().toString().replace("-", "");
+                stmt.executeUpdate(SQLServerBulkBatchUpdateQuery.getCreateTable(batchTable, typeDefinitions));
+                try (SQLServerResultSet rs = stmt
+                        .executeQueryInternal("sp_executesql N'SET FMTONLY ON SELECT * FROM " + batchTable + " '")) {
+                    SQLServerBulkBatchInsertRecord batchRecord = new SQLServerBulkBatchUpdateQuery.BatchRowRecord(
+                            batchParamValues, inOutParam.length);
+                    for (int i = 1; i <= rs.getColumnCount(); i++) {
+                        Column c = rs.getColumn(i);
+                        TypeInfo ti = c.getTypeInfo();
+                        checkValidColumns(ti);
+                        batchRecord.addColumnMetadata(i, c.getColumnName(),
+                                ti.getSSType().getJDBCType().getIntValue(), ti.getPrecision(), ti.getScale());
+                    }
+
+                    SQLServerBulkCopy bcOperation = new SQLServerBulkCopy(connection);
+                    SQLServerBulkCopyOptions option = new SQLServerBulkCopyOptions();
+                    option.setBulkCopyTimeout(queryTimeout);
+                    bcOperation.setBulkCopyOptions(option);
+                    bcOperation.setDestinationTableName(batchTable);
+                    bcOperation.setDestinationTableMetadata(rs);
+                    bcOperation.writeToServer(batchRecord);
+                    bcOperation.close();
+                }
+
+                long[] updateCounts = new long[batchParamValues.size()];
+                stmt.setQueryTimeout(queryTimeout);
+                boolean isResultSet = stmt.execute(query.getStatement(batchTable));
+                while (!isResultSet && -1 != stmt.getUpdateCount())
+                    isResultSet = stmt.getMoreResults();
+                if (isResultSet) {
+                    try (ResultSet rs = stmt.getResultSet()) {
+                        while (rs.next())
+                            updateCounts[rs.getInt(1)] = rs.getLong(2);
+                    }
+                }
+                return updateCounts;
+            } catch (IllegalArgumentException e) {
+                // If we fail with IllegalArgumentException, fall back to the original batch logic.
+                if (getStatementLogger().isLoggable(java.util.logging.Level.FINE)) {
+                    getStatementLogger().fine("Bulk copy for the batch of the statement failed: " + e.getMessage());
+                    getStatementLogger().fine("Falling back to the original implementation for the batch.");
+                }
+                return null;
+            } finally {
+                if (null != batchTable) {
+                    try {
+                        stmt.executeUpdate("DROP TABLE " + batchTable);
+                    } catch (SQLException e) {
+                        // The table is dropped with the session, if the transaction failed.
+                        if (getStatementLogger().isLoggable(java.util.logging.Level.FINE))
+                            getStatementLogger().fine(toString() + " Failed to drop " + batchTable + ": " + e);
+                    }
+                }
+            }
+        }
+    }
+
     private void checkValidColumns(TypeInfo ti) throws SQLServerException {
         int jdbctype = ti.getSSType().getJDBCType().getIntValue();
         String typeName;
@@ -2727,12 +2984,14 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         // Create the parameter array that we'll use for all the items in this batch.
         Parameter[] batchParam = new Parameter[inOutParam.length];
 
+        // Split large batches into requests of about batchChunkSize bytes, reading the results of each request before
+        // sending the next
+        final long batchChunkSize = connection.getBatchChunkSize();
+
         TDSWriter tdsWriter = null;
         while (numBatchesExecuted < numBatches) {
             // Fill in the parameter values for this batch
-            Parameter paramValues[] = batchParamValues.get(numBatchesPrepared);
-            assert paramValues.length == batchParam.length;
-            System.arraycopy(paramValues, 0, batchParam, 0, paramValues.length);
+            batchParamValues.getParameters(numBatchesPrepared, batchParam);
 
             boolean hasExistingTypeDefinitions = preparedTypeDefinitions != null;
             boolean hasNewTypeDefinitions = buildPreparedStrings(batchParam, false);
@@ -2811,8 +3070,10 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
                     // the size of a batch's string parameter values changes such
                     // that repreparation is necessary.
                     ++numBatchesPrepared;
-                    needsPrepare = doPrepExec(tdsWriter, batchParam, hasNewTypeDefinitions, hasExistingTypeDefinitions);
-                    if (needsPrepare || numBatchesPrepared == numBatches) {
+                    needsPrepare = doPrepExec(tdsWriter, batchParam, hasNewTypeDefinitions, hasExistingTypeDefinitions,
+                            numBatchesPrepared - 1);
+                    if (needsPrepare || numBatchesPrepared == numBatches
+                            || (batchChunkSize > 0 && tdsWriter.getMessageBytes() >= batchChunkSize)) {
                         ensureExecuteResultsReader(batchCommand.startResponse(getIsResponseBufferingAdaptive()));
 
                         boolean retry = false;
@@ -2896,6 +3157,195 @@ public class SQLServerPreparedStatement extends SQLServerStatement implements IS
         }
     }
 
+    /**
+     * Executes prepared statements of a connection as consecutive RPCs in one request: a statement with rows added by
+     * addBatch once per row, and a statement without once with the current values of its parameters. The results of
+     * each execution are read as the results of a batch.
+     * 
+     * @param connection
+     *        the connection of the statements
+     * @param statements
+     *        the statements, in the order in which they are executed
+     * @return the update count of each execution
+     * @throws BatchUpdateException
+     *         if an execution failed or returned a result set, with the update counts of the executions
+     */
+    static long[] executePreparedStatements(SQLServerConnection connection,
+            List<? extends PreparedStatement> statements) throws SQLServerException, BatchUpdateException {
+        List<SQLServerPreparedStatement> stmts = new ArrayList<>();
+        int queryTimeout = 0;
+        int cancelQueryTimeoutSeconds = 0;
+        if (null != statements) {
+            for (PreparedStatement statement : statements) {
+                // Each statement is listed once. A statement is executed more than once with the rows of its batch.
+                if (!(statement instanceof SQLServerPreparedStatement)
+                        || connection != ((SQLServerPreparedStatement) statement).connection
+                        || stmts.contains(statement)) {
+                    stmts = null;
+                    break;
+                }
+
+                SQLServerPreparedStatement stmt = (SQLServerPreparedStatement) statement;
+                stmt.checkClosed();
+                boolean hasOutputParameters = false;
+                if (null != stmt.batchParamValues) {
+                    hasOutputParameters = stmt.batchParamValues.hasOutputParameters();
+                } else {
+                    for (Parameter param : stmt.inOutParam) {
+                        if (param.isOutput())
+                            hasOutputParameters = true;
+                    }
+                }
+                if (hasOutputParameters) {
+                    throw new BatchUpdateException(SQLServerException.getErrString("R_outParamsNotPermittedinBatch"),
+                            null, 0, null);
+                }
+
+                // The request times out after the longest timeout of the statements, if they all have one.
+                if (stmts.isEmpty()
+                        || (0 != queryTimeout && (0 == stmt.queryTimeout || stmt.queryTimeout > queryTimeout)))
+                    queryTimeout = stmt.queryTimeout;
+                cancelQueryTimeoutSeconds = Math.max(cancelQueryTimeoutSeconds, stmt.cancelQueryTimeoutSeconds);
+                stmts.add(stmt);
+            }
+        }
+        if (null == statements || null == stmts) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidArgument"));
+            Object[] msgArgs = {"statements"};
+            SQLServerException.makeFromDriverError(connection, null, form.format(msgArgs), null, false);
+        }
+
+        if (stmts.isEmpty())
+            return new long[0];
+
+        for (SQLServerPreparedStatement stmt : stmts)
+            stmt.discardLastExecutionResults();
+
+        PrepStmtsExecCmd command = new PrepStmtsExecCmd(stmts, queryTimeout, cancelQueryTimeoutSeconds);
+        try {
+            connection.executeCommand(command);
+        } finally {
+            for (SQLServerPreparedStatement stmt : stmts)
+                stmt.batchParamValues = null;
+        }
+
+        // Transform the SQLException into a BatchUpdateException with the update counts.
+        if (null != command.batchException)
+            DriverJDBCVersion.throwBatchUpdateException(command.batchException, command.updateCounts);
+        return command.updateCounts;
+    }
+
+    /**
+     * Command executing prepared statements of a connection, and the rows of their batches, as consecutive RPCs in one
+     * request
+     */
+    private static final class PrepStmtsExecCmd extends TDSCommand {
+        /**
+         * Always update serialVersionUID when prompted.
+         */
+        private static final long serialVersionUID = -3016424312520467830L;
+        private final List<SQLServerPreparedStatement> stmts;
+        SQLServerException batchException;
+        final long[] updateCounts;
+
+        PrepStmtsExecCmd(List<SQLServerPreparedStatement> stmts, int queryTimeout, int cancelQueryTimeoutSeconds) {
+            super(stmts.get(0).connection.toString() + " executePreparedStatements", queryTimeout,
+                    cancelQueryTimeoutSeconds);
+            this.stmts = stmts;
+            int numExecutions = 0;
+            for (SQLServerPreparedStatement stmt : stmts)
+                numExecutions += getNumExecutions(stmt);
+            this.updateCounts = new long[numExecutions];
+            Arrays.fill(updateCounts, Statement.EXECUTE_FAILED); // Init to unknown status EXECUTE_FAILED
+        }
+
+        private static int getNumExecutions(SQLServerPreparedStatement stmt) {
+            return (null == stmt.batchParamValues) ? 1 : stmt.batchParamValues.size();
+        }
+
+        final boolean doExecute() throws SQLServerException {
+            SQLServerConnection connection = stmts.get(0).connection;
+            int numStmts = stmts.size();
+
+            // Build the type definitions of all the statements first, since retrieving encryption metadata takes
+            // requests of its own. A statement with a batch is prepared for the first row of the batch.
+            Parameter[][] firstParams = new Parameter[numStmts][];
+            boolean[] hasExistingTypeDefinitions = new boolean[numStmts];
+            boolean[] hasNewTypeDefinitions = new boolean[numStmts];
+            for (int i = 0; i < numStmts; i++) {
+                SQLServerPreparedStatement stmt = stmts.get(i);
+                stmt.executeMethod = EXECUTE_BATCH;
+                stmt.resetForReexecute();
+                if (null == stmt.batchParamValues) {
+                    firstParams[i] = stmt.inOutParam;
+                } else {
+                    firstParams[i] = new Parameter[stmt.inOutParam.length];
+                    stmt.batchParamValues.getParameters(0, firstParams[i]);
+                }
+                hasExistingTypeDefinitions[i] = null != stmt.preparedTypeDefinitions;
+                hasNewTypeDefinitions[i] = stmt.buildExecuteTypeDefinitions(firstParams[i]);
+
+                // Re-use handle if available, requires parameter definitions which are not available until here.
+                if (stmt.reuseCachedHandle(hasNewTypeDefinitions[i], false))
+                    hasNewTypeDefinitions[i] = false;
+            }
+
+            // Make sure any previous maxRows limitation on the connection is removed.
+            connection.setMaxRows(0);
+
+            TDSWriter tdsWriter = startRequest(TDS.PKT_RPC);
+            for (int i = 0; i < numStmts; i++) {
+                SQLServerPreparedStatement stmt = stmts.get(i);
+                if (0 < i)
+                    tdsWriter.writeByte((byte) stmt.nBatchStatementDelimiter);
+                if (null == stmt.batchParamValues) {
+                    stmt.doPrepExec(tdsWriter, firstParams[i], hasNewTypeDefinitions[i],
+                            hasExistingTypeDefinitions[i]);
+                } else {
+                    stmt.doPrepExec(tdsWriter, firstParams[i], hasNewTypeDefinitions[i],
+                            hasExistingTypeDefinitions[i], 0);
+                    stmt.doExecFollowingBatchRows(tdsWriter, firstParams[i]);
+                }
+            }
+
+            TDSReader tdsReader = startResponse(stmts.get(0).getIsResponseBufferingAdaptive());
+            int execution = 0;
+            for (SQLServerPreparedStatement stmt : stmts) {
+                for (int row = getNumExecutions(stmt); row > 0; row--, execution++) {
+                    stmt.ensureExecuteResultsReader(tdsReader);
+                    stmt.startResults();
+
+                    try {
+                        // If there is no result for this execution then bail, leaving EXECUTE_FAILED in the current
+                        // and remaining slots of the update count array.
+                        if (!stmt.getNextResult(true))
+                            return true;
+
+                        if (null != stmt.resultSet) {
+                            SQLServerException.makeFromDriverError(connection, stmt,
+                                    SQLServerException.getErrString("R_resultsetGeneratedForUpdate"), null, false);
+                        }
+                    } catch (SQLServerException e) {
+                        // If the failure was severe enough to close the connection or roll back a manual
+                        // transaction, then propagate the error up as a SQLServerException now, rather than continue
+                        // with the other executions.
+                        if (connection.isSessionUnAvailable() || connection.rolledBackTransaction())
+                            throw e;
+
+                        stmt.updateCount = Statement.EXECUTE_FAILED;
+                        if (null == batchException)
+                            batchException = e;
+                    }
+
+                    updateCounts[execution] = (-1 == stmt.updateCount) ? Statement.SUCCESS_NO_INFO : stmt.updateCount;
+                    stmt.processBatch();
+                    stmt.ensureExecuteResultsReader(null);
+                }
+            }
+            return true;
+        }
+    }
+
     @Override
     public final void setUseFmtOnly(boolean useFmtOnly) throws SQLServerException {
         checkClosed();
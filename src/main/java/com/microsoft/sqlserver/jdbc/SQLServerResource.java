@@ -213,6 +213,26 @@ public final class SQLServerResource extends ListResourceBundle {
                     "The number of reconnection attempts if there is a connection failure."},
             {"R_connectRetryIntervalPropertyDescription",
                     "The number of seconds between each connection retry attempt."},
+            {"R_tdsCaptureFilePropertyDescription",
+                    "The file to which the driver records the raw TDS response stream of the connection, for offline replay. Each connection records to its own file, named by inserting a dash and the client connection ID before the file extension."},
+            {"R_responseBufferHeapLimitPropertyDescription",
+                    "The number of bytes of buffered responses the driver keeps on the Java heap before it moves further response packets off-heap, in the syntax of maxResultBuffer. -1 keeps all buffered packets on the heap."},
+            {"R_responseBufferOffHeapLimitPropertyDescription",
+                    "The number of bytes of buffered responses the driver keeps off-heap before it spills further response packets to a temporary file, in the syntax of maxResultBuffer. -1 never spills, 0 spills without using off-heap memory."},
+            {"R_responseBufferSpillDirectoryPropertyDescription",
+                    "The directory of the temporary files to which the driver spills buffered responses. The default is the java.io.tmpdir directory."},
+            {"R_serverCursorFetchWindowPropertyDescription",
+                    "The number of bytes of rows the driver fetches from a server cursor at a time, in the syntax of maxResultBuffer. The number of rows of each fetch adapts to the width of the rows and the round-trip latency. -1 fetches the fetch size of the result set."},
+            {"R_useClientScrollInsensitiveResultSetsPropertyDescription",
+                    "Determines if read-only TYPE_SCROLL_INSENSITIVE result sets are scrolled in the driver instead of with a server cursor. The rows are read once and buffered with the responseBuffer limits."},
+            {"R_deferCursorModificationsPropertyDescription",
+                    "Determines if insertRow, updateRow and deleteRow of updatable server cursor result sets are queued and sent to the server together, when the cursor moves to another block of rows, on flushCursorModifications, commit or close."},
+            {"R_batchChunkSizePropertyDescription",
+                    "The number of bytes of requests after which the batch of a prepared statement is split, in the syntax of maxResultBuffer. The driver reads the results of each part of the batch before it sends the next. -1 sends the batch in one request."},
+            {"R_useBulkCopyForBatchUpdatePropertyDescription",
+                    "Determines if batches of parameterized UPDATE, DELETE and MERGE statements are bulk copied into a temporary table and run as one statement that joins the table. The rows of a batch must not modify the same rows of the target."},
+            {"R_readAheadPacketsPropertyDescription",
+                    "The maximum number of response packets the driver reads from the network ahead of the application. 0 disables read-ahead."},
             {"R_loginTimeoutPropertyDescription",
                     "The number of seconds the driver should wait before timing out a failed connection."},
             {"R_instanceNamePropertyDescription", "The name of the SQL Server instance to connect to."},
@@ -275,6 +295,8 @@ public final class SQLServerResource extends ListResourceBundle {
                     "Flag to indicate whether the driver will send temporal datatypes as String value to the server for bulk copy."},
             {"R_delayLoadingLobsPropertyDescription",
                     "Boolean flag which indicates whether the driver will load LOB datatypes into memory."},
+            {"R_useSocketChannelPropertyDescription",
+                    "Boolean flag which indicates whether the driver will write TDS packets through a java.nio SocketChannel using direct buffers."},
             {"R_AADSecurePrincipalIdPropertyDescription",
                     "The Application Id of a registered application which has been granted permission to the database connected."},
             {"R_AADSecurePrincipalSecretPropertyDescription",
@@ -576,6 +598,19 @@ public final class SQLServerResource extends ListResourceBundle {
             {"R_serverPreparedStatementDiscardThreshold",
                     "The serverPreparedStatementDiscardThreshold {0} is not valid."},
             {"R_statementPoolingCacheSize", "The statementPoolingCacheSize {0} is not valid."},
+            {"R_invalidReadAheadPackets", "The readAheadPackets {0} is not valid. It must be between 0 and 1024."},
+            {"R_tdsCaptureFileFailed", "Unable to open the TDS capture file {0}: {1}"},
+            {"R_charBufferTooSmall",
+                    "The value of column {0} has {1} characters, which do not fit in the {2} characters available in the buffer."},
+            {"R_wrongVectorType", "Column {0} of the batch is stored in a vector of type {1}, not {2}."},
+            {"R_rowMapperInvalidClass", "Rows cannot be mapped to {0}: {1}"},
+            {"R_rowMapperNoColumn", "The result set has no column for the component {0} of the record {1}."},
+            {"R_rowMapperFailed", "Unable to map a row to {0}: {1}"},
+            {"R_invalidResponseBufferLimit", "The {0} {1} is not valid."},
+            {"R_streamReadFailed", "Unable to read the rows of the stream: {0}"},
+            {"R_asyncExecutionRejected", "The asynchronous execution was rejected by its executor: {0}"},
+            {"R_asyncExecutorSaturated",
+                    "The driver''s default executor is running {0} executions and has {1} more queued. Pass an Executor to run more executions at a time."},
             {"R_kerberosLoginFailedForUsername",
                     "Cannot login with Kerberos principal {0}, check your credentials. {1}"},
             {"R_kerberosLoginFailed", "Kerberos Login failed: {0} due to {1} ({2})"},
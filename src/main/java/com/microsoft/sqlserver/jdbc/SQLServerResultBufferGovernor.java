@@ -0,0 +1,183 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Accounts for the response packets that all connections of the driver buffer on the heap ahead of the application,
+ * and applies backpressure when their total size reaches a JVM-wide limit.
+ *
+ * Packets are buffered when they are read ahead (see the readAheadPackets connection property), when a response is
+ * read with responseBuffering=full, and when an unread response is buffered so that another statement of the same
+ * connection can execute. Once the limit is reached, the driver stops reading ahead, and connections with a
+ * responseBufferHeapLimit move further packets off the heap. Responses read with responseBuffering=full and unread
+ * responses that have to be buffered are still read in full. Nothing is thrown when the limit is reached;
+ * maxResultBuffer remains the way to fail a statement whose response is too large.
+ *
+ * The limit is set with the com.microsoft.sqlserver.jdbc.responseBufferLimit system property, which is read once per
+ * JVM and takes the same values as the maxResultBuffer connection property, for example 512M or 10pct of the maximum
+ * heap size. By default there is no limit, but the usage is still accounted for
+ * monitoring.
+ */
+public final class SQLServerResultBufferGovernor {
+    private static final Logger logger = Logger
+            .getLogger("com.microsoft.sqlserver.jdbc.internals.SQLServerResultBufferGovernor");
+
+    /**
+     * The name of the system property that sets the limit.
+     */
+    public static final String LIMIT_PROPERTY = "com.microsoft.sqlserver.jdbc.responseBufferLimit";
+
+    private static volatile long limit = readLimit(System.getProperty(LIMIT_PROPERTY));
+
+    private static final AtomicLong bufferedBytes = new AtomicLong();
+    private static final AtomicLong peakBufferedBytes = new AtomicLong();
+    private static final AtomicLong backpressureCount = new AtomicLong();
+
+    private SQLServerResultBufferGovernor() {}
+
+    /**
+     * Parses the value of the limit system property. An invalid value is logged and leaves the buffers unlimited,
+     * since failing here would fail every connection of the driver.
+     */
+    static long readLimit(String value) {
+        if (null == value)
+            return -1;
+
+        try {
+            long parsedLimit = MaxResultBufferParser.validateMaxResultBuffer(value.trim());
+            if (logger.isLoggable(Level.FINER))
+                logger.finer("Result buffer limit set to " + parsedLimit);
+            return parsedLimit;
+        } catch (SQLServerException e) {
+            if (logger.isLoggable(Level.WARNING))
+                logger.warning("Ignoring " + LIMIT_PROPERTY + "=" + value + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * Replaces the limit read from the system property. Only used by tests.
+     */
+    static void setLimit(long limit) {
+        SQLServerResultBufferGovernor.limit = limit;
+    }
+
+    /**
+     * Returns the limit on the number of bytes of response packets that the connections of the driver buffer on the
+     * heap.
+     *
+     * @return the limit in bytes, or 0 or less if there is no limit
+     */
+    public static long getLimit() {
+        return limit;
+    }
+
+    /**
+     * Returns the number of bytes of response packets that the connections of the driver currently buffer on the heap.
+     *
+     * @return the number of bytes buffered
+     */
+    public static long getBufferedBytes() {
+        return bufferedBytes.get();
+    }
+
+    /**
+     * Returns the highest number of bytes of response packets buffered at a time since the peak was last reset.
+     *
+     * @return the peak number of bytes buffered
+     */
+    public static long getPeakBufferedBytes() {
+        return peakBufferedBytes.get();
+    }
+
+    /**
+     * Resets the peak number of bytes buffered to the number of bytes currently buffered.
+     */
+    public static void resetPeakBufferedBytes() {
+        peakBufferedBytes.set(bufferedBytes.get());
+    }
+
+    /**
+     * Returns the number of times the driver stopped buffering a response because the limit was reached.
+     *
+     * @return the number of times backpressure was applied
+     */
+    public static long getBackpressureCount() {
+        return backpressureCount.get();
+    }
+
+    static boolean isOverLimit() {
+        long currentLimit = limit;
+        return currentLimit > 0 && bufferedBytes.get() >= currentLimit;
+    }
+
+    /**
+     * Returns whether buffering should stop because the limit has been reached, and counts it if so.
+     */
+    static boolean applyBackpressure() {
+        if (!isOverLimit())
+            return false;
+
+        backpressureCount.incrementAndGet();
+        if (logger.isLoggable(Level.FINER))
+            logger.finer("Result buffer limit " + limit + " reached with " + bufferedBytes.get() + " bytes buffered");
+        return true;
+    }
+
+    /**
+     * The bytes buffered by one TDS channel, which are given back when the channel closes even if some of its buffered
+     * packets were never read.
+     */
+    static final class Account {
+        private long bytes = 0;
+        private boolean closed = false;
+
+        /**
+         * Accounts for a packet buffered on the heap.
+         */
+        synchronized void acquire(TDSPacket packet) {
+            if (closed)
+                return;
+
+            int size = packet.payload.length;
+            packet.governedBytes = size;
+            bytes += size;
+            long total = bufferedBytes.addAndGet(size);
+            long peak;
+            while (total > (peak = peakBufferedBytes.get()) && !peakBufferedBytes.compareAndSet(peak, total));
+        }
+
+        /**
+         * Gives back the bytes of a packet that is no longer buffered ahead of its reader.
+         */
+        synchronized void release(TDSPacket packet) {
+            int size = packet.governedBytes;
+            packet.governedBytes = 0;
+            if (!closed && 0 != size) {
+                bytes -= size;
+                bufferedBytes.addAndGet(-size);
+            }
+        }
+
+        /**
+         * Gives back all the bytes of this account. Packets buffered after this are not accounted for.
+         */
+        synchronized void close() {
+            closed = true;
+            bufferedBytes.addAndGet(-bytes);
+            bytes = 0;
+        }
+
+        synchronized long getBytes() {
+            return bytes;
+        }
+    }
+}
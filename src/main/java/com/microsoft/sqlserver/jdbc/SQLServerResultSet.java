@@ -10,6 +10,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.Reader;
 import java.math.BigDecimal;
+import java.nio.Buffer;
+import java.nio.CharBuffer;
 import java.sql.Array;
 import java.sql.Blob;
 import java.sql.Clob;
@@ -25,8 +27,11 @@ import java.sql.SQLWarning;
 import java.sql.SQLXML;
 import java.text.MessageFormat;
 import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -117,6 +122,22 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
     /** the desired fetch size to optimize cursor performance */
     private int fetchSize;
 
+    /** sizes server cursor fetches from a byte window, or null to fetch fetchSize rows at a time */
+    private final AdaptiveFetchSize adaptiveFetchSize;
+
+    /** number of rows requested and duration of the last server cursor fetch, for adaptiveFetchSize */
+    private int lastFetchRows = 0;
+    private long lastFetchNanos = 0;
+
+    /** Most modifications queued with deferCursorModifications before they are sent to the server */
+    static final int MAX_DEFERRED_CURSOR_OPERATIONS = 256;
+
+    /** true if insertRow, updateRow and deleteRow are queued and sent to the server together */
+    private final boolean deferCursorModifications;
+
+    /** modifications queued with deferCursorModifications, or null if there are none */
+    private transient List<CursorOperation> deferredCursorOperations = null;
+
     /** true if the cursor is positioned on the insert row */
     private boolean isOnInsertRow = false;
 
@@ -158,6 +179,22 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
      */
     private final ScrollWindow scrollWindow;
 
+    /**
+     * For client-cursored scrollable result sets, the number of rows between the rows whose positions in the fetch
+     * buffer are indexed, so that absolute moves go back to the nearest indexed row rather than to the first row.
+     */
+    private static final int CLIENT_ROW_INDEX_INTERVAL = 16;
+
+    /** Positions of rows 1, CLIENT_ROW_INDEX_INTERVAL + 1, 2 * CLIENT_ROW_INDEX_INTERVAL + 1, ... in the fetch buffer */
+    private TDSReaderMark[] clientRowIndex = null;
+    private int clientRowIndexSize = 0;
+
+    /**
+     * Archives the response packets of a client-cursored scrollable result set, so that the rows it has moved past are
+     * kept off-heap or on disk within the responseBuffer limits of the connection
+     */
+    private TDSPacketStore archiveStore = null;
+
     /**
      * Current row, which is either the actual (1-based) value or one of the special values defined below.
      */
@@ -420,9 +457,20 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // fetch buffer. The app will have to do a server cursor fetch first.
         this.tdsReader = (0 == serverCursorId) ? stmtIn.resultsReader() : null;
 
+        // A client-cursored scrollable result set keeps the whole response. The packets it moves past can be archived
+        // before the fetch buffer marks its start.
+        if (0 == serverCursorId && !isForwardOnly()) {
+            archiveStore = stmtIn.connection.createArchiveStore(toString());
+            tdsReader.setArchiveStore(archiveStore);
+        }
+
         this.fetchBuffer = new FetchBuffer();
 
         this.scrollWindow = isForwardOnly() ? null : new ScrollWindow(fetchSize);
+
+        long fetchWindow = stmtIn.connection.getServerCursorFetchWindow();
+        this.adaptiveFetchSize = (0 != serverCursorId && fetchWindow > 0) ? new AdaptiveFetchSize(fetchWindow) : null;
+        this.deferCursorModifications = 0 != serverCursorId && stmtIn.connection.getDeferCursorModifications();
         this.numFetchedRows = 0;
 
         // increment opened resultset counter
@@ -633,11 +681,29 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         if (isClosed)
             return;
 
+        // Send the modifications that are still queued. close() and SQLServerStatement.close() send them first to
+        // report their errors, so an error here means modifications were lost without the application knowing.
+        if (null != deferredCursorOperations) {
+            try {
+                flushDeferredCursorOperations();
+            } catch (SQLServerException e) {
+                if (logger.isLoggable(java.util.logging.Level.WARNING))
+                    logger.warning(toString() + " Queued cursor modifications failed on close: " + e.getMessage());
+            }
+        }
+
         // Mark this ResultSet as closed, then clean up.
         isClosed = true;
 
-        // Discard the current fetch buffer contents.
+        // Discard the current fetch buffer contents. Nothing needs to be archived anymore, but the packets archived
+        // so far are read back from the archive store as the rest of the response is processed.
+        if (null != archiveStore)
+            tdsReader.setArchiveStore(null);
         discardFetchBuffer();
+        if (null != archiveStore) {
+            archiveStore.close();
+            archiveStore = null;
+        }
 
         // Close the server cursor if there is one.
         closeServerCursor();
@@ -655,7 +721,12 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         if (loggerExternal.isLoggable(Level.FINER) && Util.isActivityTraceOn()) {
             loggerExternal.finer(toString() + " ActivityId: " + ActivityCorrelator.getNext().toString());
         }
-        closeInternal();
+        try {
+            if (!isClosed && null != deferredCursorOperations)
+                flushDeferredCursorOperations();
+        } finally {
+            closeInternal();
+        }
         loggerExternal.exiting(getClassNameLogging(), "close");
     }
 
@@ -894,9 +965,9 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // the number of rows that can be consumed before the next server fetch. That assumption
         // isn't necessarily true.
         if (1 == rowsToMove)
-            doServerFetch(TDS.FETCH_NEXT, 0, fetchSize);
+            doServerFetch(TDS.FETCH_NEXT, 0, serverFetchSize());
         else
-            doServerFetch(TDS.FETCH_RELATIVE, rowsToMove + scrollWindow.getRow() - 1, fetchSize);
+            doServerFetch(TDS.FETCH_RELATIVE, rowsToMove + scrollWindow.getRow() - 1, serverFetchSize());
 
         // If the new fetch buffer returned no rows, then the cursor has reached the end of the result set.
         if (!scrollWindow.next(this)) {
@@ -956,7 +1027,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // may not be before the first row. Instead, such moves are done so that the target row
         // is the first row in the returned block of rows rather than the last row.
         if (-1 == rowsToMove) {
-            doServerFetch(TDS.FETCH_PREV_NOADJUST, 0, fetchSize);
+            doServerFetch(TDS.FETCH_PREV_NOADJUST, 0, serverFetchSize());
 
             // If the new fetch buffer returned no rows, then the cursor has reached the start of the result set.
             if (!scrollWindow.next(this)) {
@@ -970,7 +1041,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
             // back up one row.
             scrollWindow.previous(this);
         } else {
-            doServerFetch(TDS.FETCH_RELATIVE, rowsToMove + scrollWindow.getRow() - 1, fetchSize);
+            doServerFetch(TDS.FETCH_RELATIVE, rowsToMove + scrollWindow.getRow() - 1, serverFetchSize());
 
             // If the new fetch buffer returned no rows, then the cursor has reached the start of the result set.
             if (!scrollWindow.next(this)) {
@@ -1071,7 +1142,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // cursor, then try to load up the fetch buffer with the next
         // set of fetchSize rows.
         if (0 != serverCursorId) {
-            doServerFetch(TDS.FETCH_NEXT, 0, fetchSize);
+            doServerFetch(TDS.FETCH_NEXT, 0, serverFetchSize());
 
             // If there are rows in the freshly-loaded fetch buffer
             // then return the first of them.
@@ -1433,7 +1504,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
             moveBeforeFirst();
         } else {
             // Fetch the first block of up to fetchSize rows
-            doServerFetch(TDS.FETCH_FIRST, 0, fetchSize);
+            doServerFetch(TDS.FETCH_FIRST, 0, serverFetchSize());
         }
 
         // Start the scroll window at the first row in the fetch buffer
@@ -1492,7 +1563,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         }
 
         // Fetch the last block of up to fetchSize rows from the result set
-        doServerFetch(TDS.FETCH_LAST, 0, fetchSize);
+        doServerFetch(TDS.FETCH_LAST, 0, serverFetchSize());
 
         // Start the scroll window at the first row in the fetch buffer
         if (!scrollWindow.next(this)) {
@@ -1674,7 +1745,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
                     return;
                 }
 
-                doServerFetch(TDS.FETCH_ABSOLUTE, row, fetchSize);
+                doServerFetch(TDS.FETCH_ABSOLUTE, row, serverFetchSize());
 
                 // If the absolute server fetch didn't land somewhere on the result set
                 // then it's either before the first row or after the last row.
@@ -1787,6 +1858,11 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // We do have a fetch buffer. So discard the current row in the fetch buffer and ...
         discardCurrentRow();
 
+        // A forward only result set never returns to a discarded row, so nothing it marked in the response is needed
+        // anymore. Let the reader recycle the packets it moves past.
+        if (isForwardOnly())
+            tdsReader.releaseMarks();
+
         // ... scan for the next row.
         // If we didn't find one, then we're done.
         RowType fetchBufferCurrentRowType = RowType.UNKNOWN;
@@ -1809,12 +1885,55 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         return true;
     }
 
+    /**
+     * Moves to just before the given indexed row.
+     */
+    private void clientMoveToIndexedRow(int row) throws SQLServerException {
+        if (1 == row) {
+            moveBeforeFirst();
+            return;
+        }
+
+        discardCurrentRow();
+        fetchBuffer.reset(clientRowIndex[(row - 1) / CLIENT_ROW_INDEX_INTERVAL]);
+        lastColumnIndex = 0;
+        currentRow = row - 1;
+    }
+
+    /**
+     * Indexes the position of the next row in the fetch buffer if it is the next row to index. Rows are indexed in
+     * order as client moves scan forward through the fetch buffer.
+     *
+     * @param nextRow
+     *        the number of the next row in the fetch buffer
+     */
+    private void indexClientRow(int nextRow) throws SQLServerException {
+        if (nextRow != clientRowIndexSize * CLIENT_ROW_INDEX_INTERVAL + 1)
+            return;
+
+        // The mark goes between the rows, so skip what is left of the current row first
+        discardCurrentRow();
+        lastColumnIndex = 0;
+
+        if (null == clientRowIndex)
+            clientRowIndex = new TDSReaderMark[16];
+        else if (clientRowIndexSize == clientRowIndex.length)
+            clientRowIndex = Arrays.copyOf(clientRowIndex, 2 * clientRowIndexSize);
+        clientRowIndex[clientRowIndexSize++] = fetchBufferMark();
+    }
+
     private void clientMoveAfterLast() throws SQLServerException {
         assert UNKNOWN_ROW != currentRow;
 
         int rowsSkipped = 0;
-        while (fetchBufferNext())
+        int nextRow = (BEFORE_FIRST_ROW == currentRow) ? 1 : currentRow + 1;
+        while (true) {
+            if (AFTER_LAST_ROW != currentRow)
+                indexClientRow(nextRow + rowsSkipped);
+            if (!fetchBufferNext())
+                break;
             ++rowsSkipped;
+        }
 
         if (UNKNOWN_ROW_COUNT == rowCount) {
             assert AFTER_LAST_ROW != currentRow;
@@ -1862,17 +1981,32 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // positive row movememnt.
         assert row > 0;
 
+        // If the row is known to be past the last row, then there is no need to
+        // scan for it.
+        if (UNKNOWN_ROW_COUNT != rowCount && row > rowCount) {
+            if (AFTER_LAST_ROW != currentRow)
+                clientMoveAfterLast();
+            return AFTER_LAST_ROW;
+        }
+
         // If the target row lies somewhere before the current row (including the
         // current row itself, because moving to the current row moves back to
-        // the _beginning_ of the current row), then we have to move all the way
-        // back to the beginning of the result set, and then move from there.
-        if (AFTER_LAST_ROW == currentRow || row <= currentRow)
-            moveBeforeFirst();
+        // the _beginning_ of the current row), or an indexed row lies between
+        // the current row and the target row, then move back to the indexed row
+        // nearest to the target row and move from there.
+        int indexedRow = 1;
+        if (clientRowIndexSize > 0) {
+            int index = Math.min((row - 1) / CLIENT_ROW_INDEX_INTERVAL, clientRowIndexSize - 1);
+            indexedRow = index * CLIENT_ROW_INDEX_INTERVAL + 1;
+        }
+        if (AFTER_LAST_ROW == currentRow || row <= currentRow || indexedRow > currentRow + 1)
+            clientMoveToIndexedRow(indexedRow);
 
         // Now move from the current row (which may be before the first row)
         // to the target row.
         assert BEFORE_FIRST_ROW == currentRow || currentRow < row;
         while (currentRow != row) {
+            indexClientRow((BEFORE_FIRST_ROW == currentRow) ? 1 : currentRow + 1);
             if (!fetchBufferNext()) {
                 if (UNKNOWN_ROW_COUNT == rowCount)
                     rowCount = currentRow;
@@ -2074,11 +2208,81 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
 
     private Object getValue(int columnIndex, JDBCType jdbcType, InputStreamGetterArgs getterArgs,
             Calendar cal) throws SQLServerException {
-        Object o = getterGetColumn(columnIndex).getValue(jdbcType, getterArgs, cal, tdsReader);
+        return getValue(getterGetColumn(columnIndex), jdbcType, getterArgs, cal);
+    }
+
+    private Object getValue(Column column, JDBCType jdbcType, InputStreamGetterArgs getterArgs,
+            Calendar cal) throws SQLServerException {
+        Object o = column.getValue(jdbcType, getterArgs, cal, tdsReader);
         lastValueWasNull = (null == o);
         return o;
     }
 
+    /**
+     * Returns the value of the column as a long. Integral values are read straight from the response, without being
+     * converted to objects; other values are converted to jdbcType, which must be a numeric type, and then to long.
+     */
+    private long getLongValue(int columnIndex, JDBCType jdbcType) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.canGetLong()) {
+            long value = column.getLong(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+
+        Number value = (Number) getValue(column, jdbcType, null, null);
+        return null != value ? value.longValue() : 0;
+    }
+
+    /**
+     * Returns the value of the column as a double. Floating point and integral values are read straight from the
+     * response, without being converted to objects; other values are converted to DOUBLE.
+     */
+    private double getDoubleValue(int columnIndex) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.canGetDouble()) {
+            double value = column.getDouble(tdsReader);
+            lastValueWasNull = column.isNull();
+            return value;
+        }
+
+        Double value = (Double) getValue(column, JDBCType.DOUBLE, null, null);
+        return null != value ? value : 0;
+    }
+
+    /**
+     * Copies the value of the column into the array. NCHAR and NVARCHAR values are decoded straight from the response;
+     * other values are converted to a String first.
+     */
+    private int getCharsValue(int columnIndex, char[] buffer, int offset, int available) throws SQLServerException {
+        Column column = getterGetColumn(columnIndex);
+        if (column.canGetChars()) {
+            int length = column.getCharLength(tdsReader);
+            lastValueWasNull = (-1 == length);
+            if (length > available)
+                throwCharBufferTooSmall(columnIndex, length, available);
+            if (length > 0)
+                column.getChars(tdsReader, buffer, offset);
+            return length;
+        }
+
+        Object value = getValue(column, JDBCType.CHAR, null, null);
+        if (null == value)
+            return -1;
+
+        String string = value.toString();
+        if (string.length() > available)
+            throwCharBufferTooSmall(columnIndex, string.length(), available);
+        string.getChars(0, string.length(), buffer, offset);
+        return string.length();
+    }
+
+    private void throwCharBufferTooSmall(int columnIndex, int length, int available) throws SQLServerException {
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_charBufferTooSmall"));
+        Object[] msgArgs = {columnIndex, length, available};
+        SQLServerException.makeFromDriverError(stmt.connection, this, form.format(msgArgs), null, false);
+    }
+
     void setInternalVariantType(int columnIndex, SqlVariant type) throws SQLServerException {
         getterGetColumn(columnIndex).setInternalVariant(type);
     }
@@ -2274,18 +2478,20 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
     public double getDouble(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getDouble", columnIndex);
         checkClosed();
-        Double value = (Double) getValue(columnIndex, JDBCType.DOUBLE);
-        loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
-        return null != value ? value : 0;
+        double value = getDoubleValue(columnIndex);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
+        return value;
     }
 
     @Override
     public double getDouble(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getDouble", columnName);
         checkClosed();
-        Double value = (Double) getValue(findColumn(columnName), JDBCType.DOUBLE);
-        loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
-        return null != value ? value : 0;
+        double value = getDoubleValue(findColumn(columnName));
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getDouble", value);
+        return value;
     }
 
     @Override
@@ -2346,36 +2552,40 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
     public int getInt(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getInt", columnIndex);
         checkClosed();
-        Integer value = (Integer) getValue(columnIndex, JDBCType.INTEGER);
-        loggerExternal.exiting(getClassNameLogging(), "getInt", value);
-        return null != value ? value : 0;
+        int value = (int) getLongValue(columnIndex, JDBCType.INTEGER);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getInt", value);
+        return value;
     }
 
     @Override
     public int getInt(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getInt", columnName);
         checkClosed();
-        Integer value = (Integer) getValue(findColumn(columnName), JDBCType.INTEGER);
-        loggerExternal.exiting(getClassNameLogging(), "getInt", value);
-        return null != value ? value : 0;
+        int value = (int) getLongValue(findColumn(columnName), JDBCType.INTEGER);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getInt", value);
+        return value;
     }
 
     @Override
     public long getLong(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getLong", columnIndex);
         checkClosed();
-        Long value = (Long) getValue(columnIndex, JDBCType.BIGINT);
-        loggerExternal.exiting(getClassNameLogging(), "getLong", value);
-        return null != value ? value : 0;
+        long value = getLongValue(columnIndex, JDBCType.BIGINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getLong", value);
+        return value;
     }
 
     @Override
     public long getLong(String columnName) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getLong", columnName);
         checkClosed();
-        Long value = (Long) getValue(findColumn(columnName), JDBCType.BIGINT);
-        loggerExternal.exiting(getClassNameLogging(), "getLong", value);
-        return null != value ? value : 0;
+        long value = getLongValue(findColumn(columnName), JDBCType.BIGINT);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getLong", value);
+        return value;
     }
 
     @Override
@@ -2525,6 +2735,234 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         return null != value ? value : 0;
     }
 
+    @Override
+    public int getChars(int columnIndex, char[] buffer, int offset) throws SQLServerException {
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "getChars", new Object[] {columnIndex, offset});
+        checkClosed();
+        if (offset < 0 || offset > buffer.length)
+            throw new IndexOutOfBoundsException("offset " + offset + ", length " + buffer.length);
+        int length = getCharsValue(columnIndex, buffer, offset, buffer.length - offset);
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getChars", length);
+        return length;
+    }
+
+    @Override
+    public int getChars(String columnName, char[] buffer, int offset) throws SQLServerException {
+        return getChars(findColumn(columnName), buffer, offset);
+    }
+
+    @Override
+    public int getChars(int columnIndex, CharBuffer buffer) throws SQLServerException {
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.entering(getClassNameLogging(), "getChars", columnIndex);
+        checkClosed();
+        int length;
+        if (buffer.hasArray()) {
+            length = getCharsValue(columnIndex, buffer.array(), buffer.arrayOffset() + buffer.position(),
+                    buffer.remaining());
+            if (length > 0)
+                ((Buffer) buffer).position(buffer.position() + length);
+        } else {
+            // Without a backing array, the value is copied from a String
+            Object value = getValue(columnIndex, JDBCType.CHAR);
+            length = (null == value) ? -1 : value.toString().length();
+            if (length > buffer.remaining())
+                throwCharBufferTooSmall(columnIndex, length, buffer.remaining());
+            if (length > 0)
+                buffer.put(value.toString());
+        }
+        if (loggerExternal.isLoggable(java.util.logging.Level.FINER))
+            loggerExternal.exiting(getClassNameLogging(), "getChars", length);
+        return length;
+    }
+
+    @Override
+    public int getChars(String columnName, CharBuffer buffer) throws SQLServerException {
+        return getChars(findColumn(columnName), buffer);
+    }
+
+    /** The batch filled by nextBatch(), which is reused by every call */
+    private SQLServerColumnBatch columnBatch;
+
+    @Override
+    public SQLServerColumnBatch nextBatch(int maxRows) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "nextBatch", maxRows);
+        checkClosed();
+        if (maxRows <= 0) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidArgument"));
+            Object[] msgArgs = {"maxRows"};
+            SQLServerException.makeFromDriverError(stmt.connection, this, form.format(msgArgs), null, false);
+        }
+
+        if (null == columnBatch)
+            columnBatch = newColumnBatch(maxRows);
+        fillBatch(columnBatch, maxRows);
+
+        loggerExternal.exiting(getClassNameLogging(), "nextBatch", columnBatch.getRowCount());
+        return columnBatch;
+    }
+
+    /**
+     * Returns a new, empty batch for the columns of this result set, sized for capacity rows.
+     */
+    final SQLServerColumnBatch newColumnBatch(int capacity) {
+        int columnCount = getColumnCount();
+        SQLServerColumnBatch.VectorType[] vectorTypes = new SQLServerColumnBatch.VectorType[columnCount];
+        for (int i = 0; i < columnCount; i++)
+            vectorTypes[i] = getVectorType(columns[i]);
+        return new SQLServerColumnBatch(vectorTypes, capacity);
+    }
+
+    /**
+     * Moves the cursor forward over up to maxRows rows, replacing the contents of the batch with their values. The rows
+     * are read one at a time with next(), so every cursor type is supported and batches can be mixed with row at a time
+     * access; only the reading of the column values is batched.
+     */
+    final void fillBatch(SQLServerColumnBatch batch, int maxRows) throws SQLServerException {
+        batch.ensureCapacity(maxRows);
+        int columnCount = getColumnCount();
+        int row = 0;
+        while (row < maxRows && next()) {
+            for (int columnIndex = 1; columnIndex <= columnCount; columnIndex++)
+                fillBatchColumn(batch, columnIndex, row);
+            row++;
+        }
+        batch.setRowCount(row);
+    }
+
+    /**
+     * Returns the type of the values of the column, which is the type of its plaintext if the column is encrypted.
+     */
+    private static SSType getBatchSSType(Column column) {
+        CryptoMetadata cryptoMetadata = column.getCryptoMetadata();
+        return (null != cryptoMetadata) ? cryptoMetadata.getBaseTypeInfo().getSSType()
+                                        : column.getTypeInfo().getSSType();
+    }
+
+    /**
+     * Returns the kind of batch vector the values of the column are stored in, from the type of the column (or of its
+     * plaintext, if it is encrypted).
+     */
+    private static SQLServerColumnBatch.VectorType getVectorType(Column column) {
+        switch (getBatchSSType(column)) {
+            case BIT:
+            case TINYINT:
+            case SMALLINT:
+            case INTEGER:
+                return SQLServerColumnBatch.VectorType.INT;
+            case BIGINT:
+                return SQLServerColumnBatch.VectorType.LONG;
+            case FLOAT:
+            case REAL:
+                return SQLServerColumnBatch.VectorType.DOUBLE;
+            case CHAR:
+            case VARCHAR:
+            case VARCHARMAX:
+            case TEXT:
+            case NCHAR:
+            case NVARCHAR:
+            case NVARCHARMAX:
+            case NTEXT:
+                return SQLServerColumnBatch.VectorType.STRING;
+            case BINARY:
+            case VARBINARY:
+            case VARBINARYMAX:
+            case IMAGE:
+                return SQLServerColumnBatch.VectorType.BINARY;
+            default:
+                return SQLServerColumnBatch.VectorType.OBJECT;
+        }
+    }
+
+    /**
+     * Copies the value of the column in the current row into the batch. Integral, floating point, NCHAR and NVARCHAR
+     * values are read straight from the response into the vectors; other values are converted to objects first.
+     */
+    private void fillBatchColumn(SQLServerColumnBatch batch, int columnIndex, int row) throws SQLServerException {
+        switch (batch.getVectorType(columnIndex)) {
+            case INT: {
+                int value = (int) getLongValue(columnIndex, JDBCType.INTEGER);
+                if (lastValueWasNull)
+                    batch.setNull(columnIndex, row);
+                else
+                    batch.setInt(columnIndex, row, value);
+                break;
+            }
+            case LONG: {
+                long value = getLongValue(columnIndex, JDBCType.BIGINT);
+                if (lastValueWasNull)
+                    batch.setNull(columnIndex, row);
+                else
+                    batch.setLong(columnIndex, row, value);
+                break;
+            }
+            case DOUBLE: {
+                double value = getDoubleValue(columnIndex);
+                if (lastValueWasNull)
+                    batch.setNull(columnIndex, row);
+                else
+                    batch.setDouble(columnIndex, row, value);
+                break;
+            }
+            case STRING: {
+                Column column = getterGetColumn(columnIndex);
+                if (column.canGetChars()) {
+                    int length = column.getCharLength(tdsReader);
+                    lastValueWasNull = (-1 == length);
+                    if (lastValueWasNull) {
+                        batch.setNull(columnIndex, row);
+                    } else {
+                        int offset = batch.getOffset(columnIndex, row);
+                        char[] data = batch.reserveChars(columnIndex, row, length);
+                        if (length > 0)
+                            column.getChars(tdsReader, data, offset);
+                    }
+                    break;
+                }
+
+                Object value = getValue(column, JDBCType.CHAR, null, null);
+                if (null == value) {
+                    batch.setNull(columnIndex, row);
+                } else {
+                    String string = value.toString();
+                    int offset = batch.getOffset(columnIndex, row);
+                    string.getChars(0, string.length(), batch.reserveChars(columnIndex, row, string.length()),
+                            offset);
+                }
+                break;
+            }
+            case BINARY: {
+                byte[] value = (byte[]) getValue(columnIndex, JDBCType.BINARY);
+                if (null == value) {
+                    batch.setNull(columnIndex, row);
+                } else {
+                    int offset = batch.getOffset(columnIndex, row);
+                    System.arraycopy(value, 0, batch.reserveBytes(columnIndex, row, value.length), offset,
+                            value.length);
+                }
+                break;
+            }
+            default: {
+                Column column = getterGetColumn(columnIndex);
+                Object value;
+                if (SSType.TIME == getBatchSSType(column)) {
+                    // java.sql.Time only holds milliseconds, so TIME values are kept as LocalTime
+                    LocalDateTime dateTime = (LocalDateTime) getValue(column, JDBCType.LOCALDATETIME, null, null);
+                    value = (null == dateTime) ? null : dateTime.toLocalTime();
+                } else {
+                    value = getValue(column, getBatchSSType(column).getJDBCType(), null, null);
+                }
+                if (null == value)
+                    batch.setNull(columnIndex, row);
+                else
+                    batch.setObject(columnIndex, row, value);
+                break;
+            }
+        }
+    }
+
     @Override
     public String getString(int columnIndex) throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "getString", columnIndex);
@@ -4698,7 +5136,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
             }
 
             final boolean doExecute() throws SQLServerException {
-                doInsertRowRPC(this, tableName);
+                doCursorOperationRPC(this, TDS.SP_CURSOR_OP_INSERT, tableName, getUpdatedValues(false));
                 return true;
             }
         }
@@ -4751,41 +5189,17 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         assert tableColumn.isUpdatable();
         assert null != tableColumn.getTableName();
 
-        stmt.executeCommand(new InsertRowRPC(tableColumn.getTableName().asEscapedString()));
+        if (deferCursorModifications)
+            deferCursorOperation(TDS.SP_CURSOR_OP_INSERT, tableColumn.getTableName().asEscapedString(),
+                    getUpdatedValues(true));
+        else
+            stmt.executeCommand(new InsertRowRPC(tableColumn.getTableName().asEscapedString()));
 
         if (UNKNOWN_ROW_COUNT != rowCount)
             ++rowCount;
         loggerExternal.exiting(getClassNameLogging(), "insertRow");
     }
 
-    private void doInsertRowRPC(TDSCommand command, String tableName) throws SQLServerException {
-        assert 0 != serverCursorId;
-        assert null != tableName;
-        assert tableName.length() > 0;
-
-        TDSWriter tdsWriter = command.startRequest(TDS.PKT_RPC);
-        tdsWriter.writeShort((short) 0xFFFF); // procedure name length -> use ProcIDs
-        tdsWriter.writeShort(TDS.PROCID_SP_CURSOR);
-        tdsWriter.writeByte((byte) 0); // RPC procedure option 1
-        tdsWriter.writeByte((byte) 0); // RPC procedure option 2
-        tdsWriter.sendEnclavePackage(null, null);
-        tdsWriter.writeRPCInt(null, serverCursorId, false);
-        tdsWriter.writeRPCInt(null, (int) TDS.SP_CURSOR_OP_INSERT, false);
-        tdsWriter.writeRPCInt(null, fetchBufferGetRow(), false);
-
-        if (hasUpdatedColumns()) {
-            tdsWriter.writeRPCStringUnicode(tableName);
-
-            for (Column column : columns)
-                column.sendByRPC(tdsWriter, stmt.connection);
-        } else {
-            tdsWriter.writeRPCStringUnicode("");
-            tdsWriter.writeRPCStringUnicode("INSERT INTO " + tableName + " DEFAULT VALUES");
-        }
-
-        TDSParser.parse(command.startResponse(), command.getLogContext());
-    }
-
     @Override
     public void updateRow() throws SQLException {
         loggerExternal.entering(getClassNameLogging(), "updateRow");
@@ -4803,7 +5217,8 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
             }
 
             final boolean doExecute() throws SQLServerException {
-                doUpdateRowRPC(this);
+                doCursorOperationRPC(this, TDS.SP_CURSOR_OP_UPDATE | TDS.SP_CURSOR_OP_SETPOSITION, null,
+                        getUpdatedValues(false));
                 return true;
             }
         }
@@ -4832,7 +5247,11 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         }
 
         try {
-            stmt.executeCommand(new UpdateRowRPC());
+            if (deferCursorModifications)
+                deferCursorOperation(TDS.SP_CURSOR_OP_UPDATE | TDS.SP_CURSOR_OP_SETPOSITION, null,
+                        getUpdatedValues(true));
+            else
+                stmt.executeCommand(new UpdateRowRPC());
         } finally {
             cancelUpdates();
         }
@@ -4841,28 +5260,6 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         loggerExternal.exiting(getClassNameLogging(), "updateRow");
     }
 
-    private void doUpdateRowRPC(TDSCommand command) throws SQLServerException {
-        assert 0 != serverCursorId;
-
-        TDSWriter tdsWriter = command.startRequest(TDS.PKT_RPC);
-        tdsWriter.writeShort((short) 0xFFFF); // procedure name length -> use ProcIDs
-        tdsWriter.writeShort(TDS.PROCID_SP_CURSOR);
-        tdsWriter.writeByte((byte) 0); // RPC procedure option 1
-        tdsWriter.writeByte((byte) 0); // RPC procedure option 2
-        tdsWriter.sendEnclavePackage(null, null);
-        tdsWriter.writeRPCInt(null, serverCursorId, false);
-        tdsWriter.writeRPCInt(null, TDS.SP_CURSOR_OP_UPDATE | TDS.SP_CURSOR_OP_SETPOSITION, false);
-        tdsWriter.writeRPCInt(null, fetchBufferGetRow(), false);
-        tdsWriter.writeRPCStringUnicode("");
-
-        assert hasUpdatedColumns();
-
-        for (Column column : columns)
-            column.sendByRPC(tdsWriter, stmt.connection);
-
-        TDSParser.parse(command.startResponse(), command.getLogContext());
-    }
-
     /** Determines whether there are updated columns in this result set. */
     final boolean hasUpdatedColumns() {
         for (Column column : columns)
@@ -4889,7 +5286,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
             }
 
             final boolean doExecute() throws SQLServerException {
-                doDeleteRowRPC(this);
+                doCursorOperationRPC(this, TDS.SP_CURSOR_OP_DELETE | TDS.SP_CURSOR_OP_SETPOSITION, null, null);
                 return true;
             }
         }
@@ -4911,7 +5308,10 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         verifyCurrentRowIsNotDeleted("R_cantUpdateDeletedRow");
 
         try {
-            stmt.executeCommand(new DeleteRowRPC());
+            if (deferCursorModifications)
+                deferCursorOperation(TDS.SP_CURSOR_OP_DELETE | TDS.SP_CURSOR_OP_SETPOSITION, null, null);
+            else
+                stmt.executeCommand(new DeleteRowRPC());
         } finally {
             cancelUpdates();
         }
@@ -4920,21 +5320,171 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         loggerExternal.exiting(getClassNameLogging(), "deleteRow");
     }
 
-    private void doDeleteRowRPC(TDSCommand command) throws SQLServerException {
-        assert 0 != serverCursorId;
+    /**
+     * Returns the updated values of the columns, or null if none were updated.
+     *
+     * @param detach
+     *        whether to remove the values from the columns, for an operation that is sent later
+     */
+    private DTV[] getUpdatedValues(boolean detach) {
+        if (!hasUpdatedColumns())
+            return null;
 
+        DTV[] values = new DTV[columns.length];
+        for (int i = 0; i < columns.length; ++i)
+            values[i] = detach ? columns[i].detachUpdates() : columns[i].getUpdates();
+        return values;
+    }
+
+    /**
+     * Sends an insertRow, updateRow or deleteRow of the current row of the fetch buffer as an sp_cursor RPC, and reads
+     * its response.
+     */
+    private void doCursorOperationRPC(TDSCommand command, int operation, String tableName,
+            DTV[] values) throws SQLServerException {
         TDSWriter tdsWriter = command.startRequest(TDS.PKT_RPC);
+        writeCursorOperationRPC(tdsWriter, operation, fetchBufferGetRow(), tableName, values);
+        TDSParser.parse(command.startResponse(), command.getLogContext());
+    }
+
+    /**
+     * An insertRow, updateRow or deleteRow queued with deferCursorModifications, together with the row of the fetch
+     * buffer it applies to and the values it sends.
+     */
+    private static final class CursorOperation {
+        final int operation;
+        final int row;
+        final String tableName;
+
+        /** the updated values of the columns detached when the operation was queued, or null if none were updated */
+        final DTV[] values;
+
+        CursorOperation(int operation, int row, String tableName, DTV[] values) {
+            this.operation = operation;
+            this.row = row;
+            this.tableName = tableName;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Queues an insertRow, updateRow or deleteRow of the current row, with the updated values detached from the
+     * columns. The queued operations are sent to the server once MAX_DEFERRED_CURSOR_OPERATIONS are queued.
+     */
+    private void deferCursorOperation(int operation, String tableName, DTV[] values) throws SQLServerException {
+        if (null == deferredCursorOperations) {
+            deferredCursorOperations = new ArrayList<>();
+            stmt.connection.addDeferredModificationResultSet(this);
+        }
+        deferredCursorOperations.add(new CursorOperation(operation, fetchBufferGetRow(), tableName, values));
+
+        if (deferredCursorOperations.size() >= MAX_DEFERRED_CURSOR_OPERATIONS)
+            flushDeferredCursorOperations();
+    }
+
+    /**
+     * Sends the queued modifications of the server cursor to the server as a batch of sp_cursor RPCs in one request.
+     * The rows they apply to are rows of the current fetch buffer, so they must be sent before the next fetch.
+     */
+    final void flushDeferredCursorOperations() throws SQLServerException {
+        if (null == deferredCursorOperations)
+            return;
+
+        final List<CursorOperation> operations = deferredCursorOperations;
+        deferredCursorOperations = null;
+        stmt.connection.removeDeferredModificationResultSet(this);
+
+        if (logger.isLoggable(java.util.logging.Level.FINER))
+            logger.finer(toString() + " sending " + operations.size() + " queued cursor modifications");
+
+        final class CursorOperationsRPC extends TDSCommand {
+            /**
+             * Always update serialVersionUID when prompted.
+             */
+            private static final long serialVersionUID = 1L;
+
+            CursorOperationsRPC() {
+                super("CursorOperationsRPC", 0, 0);
+            }
+
+            final boolean doExecute() throws SQLServerException {
+                TDSWriter tdsWriter = startRequest(TDS.PKT_RPC);
+                boolean first = true;
+                for (CursorOperation operation : operations) {
+                    if (!first)
+                        tdsWriter.writeByte(TDS.RPC_BATCH_SEPARATOR);
+                    first = false;
+                    writeCursorOperationRPC(tdsWriter, operation.operation, operation.row, operation.tableName,
+                            operation.values);
+                }
+
+                TDSParser.parse(startResponse(), getLogContext());
+                return true;
+            }
+        }
+
+        stmt.executeCommand(new CursorOperationsRPC());
+    }
+
+    /**
+     * Writes the sp_cursor RPC of an insertRow, updateRow or deleteRow.
+     *
+     * @param operation
+     *        the TDS.SP_CURSOR_OP_* operation
+     * @param row
+     *        the row of the fetch buffer that the operation applies to
+     * @param tableName
+     *        the escaped name of the table to insert into, or null for an update or delete
+     * @param values
+     *        the updated values of the columns, or null if none were updated
+     */
+    private void writeCursorOperationRPC(TDSWriter tdsWriter, int operation, int row, String tableName,
+            DTV[] values) throws SQLServerException {
+        assert 0 != serverCursorId;
+
         tdsWriter.writeShort((short) 0xFFFF); // procedure name length -> use ProcIDs
         tdsWriter.writeShort(TDS.PROCID_SP_CURSOR);
         tdsWriter.writeByte((byte) 0); // RPC procedure option 1
         tdsWriter.writeByte((byte) 0); // RPC procedure option 2
         tdsWriter.sendEnclavePackage(null, null);
         tdsWriter.writeRPCInt(null, serverCursorId, false);
-        tdsWriter.writeRPCInt(null, TDS.SP_CURSOR_OP_DELETE | TDS.SP_CURSOR_OP_SETPOSITION, false);
-        tdsWriter.writeRPCInt(null, fetchBufferGetRow(), false);
-        tdsWriter.writeRPCStringUnicode("");
+        tdsWriter.writeRPCInt(null, operation, false);
+        tdsWriter.writeRPCInt(null, row, false);
 
-        TDSParser.parse(command.startResponse(), command.getLogContext());
+        if (TDS.SP_CURSOR_OP_INSERT == operation) {
+            assert null != tableName;
+            assert tableName.length() > 0;
+
+            if (null != values) {
+                tdsWriter.writeRPCStringUnicode(tableName);
+            } else {
+                tdsWriter.writeRPCStringUnicode("");
+                tdsWriter.writeRPCStringUnicode("INSERT INTO " + tableName + " DEFAULT VALUES");
+            }
+        } else {
+            tdsWriter.writeRPCStringUnicode("");
+        }
+
+        if (null != values) {
+            for (int i = 0; i < columns.length; ++i)
+                columns[i].sendByRPC(values[i], tdsWriter, stmt.connection);
+        }
+    }
+
+    /**
+     * Discards the queued modifications of the server cursor, when the transaction they would be part of rolls back.
+     */
+    final void discardDeferredCursorOperations() {
+        deferredCursorOperations = null;
+        stmt.connection.removeDeferredModificationResultSet(this);
+    }
+
+    @Override
+    public void flushCursorModifications() throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "flushCursorModifications");
+        checkClosed();
+        flushDeferredCursorOperations();
+        loggerExternal.exiting(getClassNameLogging(), "flushCursorModifications");
     }
 
     @Override
@@ -5437,11 +5987,19 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         /**
          * Repositions the fetch buffer back to the beginning.
          */
-        final void reset() {
-            assert null != tdsReader;
+        final void reset() throws SQLServerException {
             assert null != startMark;
 
-            tdsReader.reset(startMark);
+            reset(startMark);
+        }
+
+        /**
+         * Repositions the fetch buffer to a mark taken between two of its rows.
+         */
+        final void reset(TDSReaderMark mark) throws SQLServerException {
+            assert null != tdsReader;
+
+            tdsReader.reset(mark);
             fetchBufferCurrentRowType = RowType.UNKNOWN;
             done = false;
         }
@@ -5529,6 +6087,13 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         }
     }
 
+    /**
+     * Returns the number of rows to fetch from the server cursor at a time.
+     */
+    private int serverFetchSize() {
+        return (null == adaptiveFetchSize) ? fetchSize : adaptiveFetchSize.getRows(fetchSize);
+    }
+
     /**
      * Position a server side cursor.
      *
@@ -5545,15 +6110,28 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         if (logger.isLoggable(java.util.logging.Level.FINER))
             logger.finer(toString() + " fetchType:" + fetchType + " startRow:" + startRow + " numRows:" + numRows);
 
+        // The queued modifications apply to rows of the current fetch buffer
+        flushDeferredCursorOperations();
+
         // Discard the current fetch buffer contents
         discardFetchBuffer();
 
+        // The response to the last fetch has now been read in full, so its size and the rows it returned can size the
+        // next fetch
+        if (null != adaptiveFetchSize && null != tdsReader && lastFetchRows > 0) {
+            adaptiveFetchSize.onFetch(tdsReader.getPayloadBytesRead(), Math.min(numFetchedRows, lastFetchRows),
+                    lastFetchNanos);
+        }
+
         // Reinitialize the fetch buffer
         fetchBuffer.init();
 
         // Fetch the requested block of rows from the server
         CursorFetchCommand cursorFetch = new CursorFetchCommand(serverCursorId, fetchType, startRow, numRows);
+        long fetchStart = System.nanoTime();
         stmt.executeCommand(cursorFetch);
+        lastFetchNanos = System.nanoTime() - fetchStart;
+        lastFetchRows = (TDS.FETCH_REFRESH == fetchType) ? 0 : numRows;
 
         numFetchedRows = 0;
         resultSetCurrentRowType = RowType.UNKNOWN;
@@ -5562,7 +6140,7 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
 
         // If necessary, resize the scroll window to the new fetch size
         if (null != scrollWindow && TDS.FETCH_REFRESH != fetchType)
-            scrollWindow.resize(fetchSize);
+            scrollWindow.resize((null != adaptiveFetchSize && numRows > 0) ? numRows : fetchSize);
 
         // Correct for SQL Server's "counter-intuitive" behavior which positions the cursor
         // on the first row of the result set when a negative move would have logically
@@ -5629,8 +6207,10 @@ public class SQLServerResultSet implements ISQLServerResultSet, java.io.Serializ
         // fills blobs before discarding anything
         fillLOBs();
 
-        // Clear the TDSReader mark at the start of the fetch buffer
+        // Clear the TDSReader mark at the start of the fetch buffer and the indexed row marks
         fetchBuffer.clearStartMark();
+        clientRowIndex = null;
+        clientRowIndexSize = 0;
 
         // Clear all row TDSReader marks in the scroll window
         if (null != scrollWindow)
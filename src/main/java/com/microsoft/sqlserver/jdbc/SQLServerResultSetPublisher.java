@@ -0,0 +1,294 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+
+/**
+ * Publishes the rows of a query as a {@link Flow.Publisher}. This class requires a Java 9 or later JVM.
+ *
+ * The query is executed once the subscriber first requests rows. Rows are then read with
+ * {@link SQLServerResultSet#next()} only while the subscriber has outstanding demand, so with adaptive response
+ * buffering (the default) the driver stops reading TDS packets from the socket once demand is exhausted, and the server
+ * is held back by TCP flow control. No thread is blocked while waiting for demand: rows are read and delivered on the
+ * executor (the driver's default async executor unless one is given) only while there is demand.
+ *
+ * Each publisher can be subscribed to only once. When the subscription completes, fails, or is cancelled, the result
+ * set is closed; the statement stays open and is owned by the caller. Cancelling the subscription while rows are
+ * outstanding also cancels the statement so that the rest of the response is not read.
+ *
+ * @param <T>
+ *        the type of object each row is mapped to
+ */
+public final class SQLServerResultSetPublisher<T> implements Flow.Publisher<T> {
+    private static final Logger logger = Logger
+            .getLogger("com.microsoft.sqlserver.jdbc.internals.SQLServerResultSetPublisher");
+
+    private final SQLServerStatement stmt;
+    private final AsyncExecutor.Execution<ResultSet> query;
+    private final ISQLServerRowMapper<T> rowMapper;
+    private final Executor executor;
+    private final AtomicBoolean subscribed = new AtomicBoolean();
+
+    private SQLServerResultSetPublisher(SQLServerStatement stmt, AsyncExecutor.Execution<ResultSet> query,
+            ISQLServerRowMapper<T> rowMapper, Executor executor) {
+        if (null == rowMapper)
+            throw new NullPointerException("rowMapper");
+        this.stmt = stmt;
+        this.query = query;
+        this.rowMapper = rowMapper;
+        this.executor = (null != executor) ? executor : AsyncExecutor.getDefaultExecutor();
+    }
+
+    /**
+     * Returns a publisher of the rows produced by executing the given SQL query on the given statement.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param stmt
+     *        the statement that executes the query
+     * @param sql
+     *        the SQL query
+     * @param rowMapper
+     *        maps each row to the object that is published
+     * @return the row publisher
+     */
+    public static <T> SQLServerResultSetPublisher<T> publish(SQLServerStatement stmt, String sql,
+            ISQLServerRowMapper<T> rowMapper) {
+        return publish(stmt, sql, rowMapper, null);
+    }
+
+    /**
+     * Returns a publisher of the rows produced by executing the given SQL query on the given statement, reading and
+     * delivering rows on the given executor.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param stmt
+     *        the statement that executes the query
+     * @param sql
+     *        the SQL query
+     * @param rowMapper
+     *        maps each row to the object that is published
+     * @param executor
+     *        the executor that reads and delivers rows, or null to use the driver's default async executor
+     * @return the row publisher
+     */
+    public static <T> SQLServerResultSetPublisher<T> publish(SQLServerStatement stmt, String sql,
+            ISQLServerRowMapper<T> rowMapper, Executor executor) {
+        return new SQLServerResultSetPublisher<>(stmt, () -> stmt.executeQuery(sql), rowMapper, executor);
+    }
+
+    /**
+     * Returns a publisher of the rows produced by executing the given prepared statement.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param pstmt
+     *        the prepared statement, with its parameters set
+     * @param rowMapper
+     *        maps each row to the object that is published
+     * @return the row publisher
+     */
+    public static <T> SQLServerResultSetPublisher<T> publish(SQLServerPreparedStatement pstmt,
+            ISQLServerRowMapper<T> rowMapper) {
+        return publish(pstmt, rowMapper, null);
+    }
+
+    /**
+     * Returns a publisher of the rows produced by executing the given prepared statement, reading and delivering rows
+     * on the given executor.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param pstmt
+     *        the prepared statement, with its parameters set
+     * @param rowMapper
+     *        maps each row to the object that is published
+     * @param executor
+     *        the executor that reads and delivers rows, or null to use the driver's default async executor
+     * @return the row publisher
+     */
+    public static <T> SQLServerResultSetPublisher<T> publish(SQLServerPreparedStatement pstmt,
+            ISQLServerRowMapper<T> rowMapper, Executor executor) {
+        return new SQLServerResultSetPublisher<>(pstmt, pstmt::executeQuery, rowMapper, executor);
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (null == subscriber)
+            throw new NullPointerException("subscriber");
+
+        if (!subscribed.compareAndSet(false, true)) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {}
+
+                @Override
+                public void cancel() {}
+            });
+            subscriber.onError(new IllegalStateException("SQLServerResultSetPublisher allows only one subscriber"));
+            return;
+        }
+
+        subscriber.onSubscribe(new RowSubscription(subscriber));
+    }
+
+    /**
+     * Delivers rows to a single subscriber. All result set access and all subscriber signals happen in drain(), which
+     * runs on the executor and never concurrently with itself.
+     */
+    private final class RowSubscription implements Flow.Subscription {
+        private final Flow.Subscriber<? super T> subscriber;
+
+        // Rows requested but not yet delivered
+        private final AtomicLong demand = new AtomicLong();
+
+        // Number of drain requests; drain() runs while this is non-zero
+        private final AtomicInteger pendingDrains = new AtomicInteger();
+
+        private volatile boolean cancelled;
+        private volatile Throwable requestError;
+
+        // Set once the subscription has completed, failed or been cancelled
+        private volatile boolean done;
+
+        // Only accessed from drain()
+        private ResultSet resultSet;
+
+        RowSubscription(Flow.Subscriber<? super T> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                requestError = new IllegalArgumentException("Requested number of rows must be positive: " + n);
+            } else {
+                long current;
+                long updated;
+                do {
+                    current = demand.get();
+                    if (Long.MAX_VALUE == current)
+                        return;
+                    updated = current + n;
+                    if (updated < 0)
+                        updated = Long.MAX_VALUE;
+                } while (!demand.compareAndSet(current, updated));
+            }
+            scheduleDrain();
+        }
+
+        @Override
+        public void cancel() {
+            if (cancelled || done)
+                return;
+            cancelled = true;
+
+            // Stop the server from sending the rest of the response
+            try {
+                stmt.cancel();
+            } catch (SQLException e) {
+                if (logger.isLoggable(Level.FINER))
+                    logger.finer(stmt.toString() + " cancel after subscription cancellation failed: " + e.getMessage());
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (0 == pendingDrains.getAndIncrement()) {
+                try {
+                    executor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    pendingDrains.set(0);
+                    done = true;
+                    subscriber.onError(AsyncExecutor.rejected(e));
+                } catch (RuntimeException e) {
+                    pendingDrains.set(0);
+                    done = true;
+                    subscriber.onError(e);
+                }
+            }
+        }
+
+        private void drain() {
+            int missed = 1;
+            do {
+                if (done)
+                    return;
+
+                long requested = demand.get();
+                long delivered = 0;
+                try {
+                    if (null != requestError) {
+                        fail(requestError);
+                        return;
+                    }
+                    if (cancelled) {
+                        finish();
+                        return;
+                    }
+                    if (null == resultSet && 0 < requested)
+                        resultSet = query.execute();
+
+                    while (delivered != requested) {
+                        if (cancelled) {
+                            finish();
+                            return;
+                        }
+                        if (!resultSet.next()) {
+                            finish();
+                            subscriber.onComplete();
+                            return;
+                        }
+
+                        T row = rowMapper.mapRow(resultSet);
+                        if (null == row)
+                            throw new NullPointerException("rowMapper returned null");
+                        subscriber.onNext(row);
+                        ++delivered;
+                    }
+                } catch (Throwable e) {
+                    fail(e);
+                    return;
+                }
+
+                if (0 != delivered && Long.MAX_VALUE != requested)
+                    demand.addAndGet(-delivered);
+
+                missed = pendingDrains.addAndGet(-missed);
+            } while (0 != missed);
+        }
+
+        private void fail(Throwable e) {
+            finish();
+            subscriber.onError(e);
+        }
+
+        private void finish() {
+            done = true;
+            if (null != resultSet) {
+                try {
+                    resultSet.close();
+                } catch (SQLException e) {
+                    if (logger.isLoggable(Level.FINER))
+                        logger.finer(stmt.toString() + " closing published result set failed: " + e.getMessage());
+                }
+                resultSet = null;
+            }
+        }
+    }
+}
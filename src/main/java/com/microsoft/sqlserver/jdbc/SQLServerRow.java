@@ -0,0 +1,312 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+
+
+/**
+ * A row of a stream returned by {@link ISQLServerStatement#stream(String)} or
+ * {@link ISQLServerPreparedStatement#stream()}.
+ *
+ * A row is a view of a row of a {@link SQLServerColumnBatch} that the driver decoded for the stream, so it stays valid
+ * after the stream moves on and can be used from any thread. Values are stored as described by
+ * {@link SQLServerColumnBatch.VectorType}: {@link #getObject(int)} returns Integer values for TINYINT, SMALLINT, INT
+ * and BIT columns, Long values for BIGINT columns, Double values for FLOAT and REAL columns, String values for
+ * character columns, byte arrays for binary columns, {@link java.time.LocalTime} values for TIME columns, and the
+ * values {@link java.sql.ResultSet#getObject(int)} returns for other columns.
+ */
+public final class SQLServerRow {
+    private final SQLServerColumnBatch batch;
+    private final int row;
+    private final String[] columnNames;
+
+    SQLServerRow(SQLServerColumnBatch batch, int row, String[] columnNames) {
+        this.batch = batch;
+        this.row = row;
+        this.columnNames = columnNames;
+    }
+
+    /**
+     * Returns the number of columns in the row.
+     *
+     * @return the number of columns
+     */
+    public int getColumnCount() {
+        return batch.getColumnCount();
+    }
+
+    /**
+     * Returns the index of the column with the given label, matched as {@link java.sql.ResultSet#findColumn(String)}
+     * matches it.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the index of the column; the first column is 1, the second is 2, ...
+     * @throws SQLServerException
+     *         if there is no column with the label
+     */
+    public int findColumn(String columnLabel) throws SQLServerException {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(columnLabel))
+                return i + 1;
+        }
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equalsIgnoreCase(columnLabel))
+                return i + 1;
+        }
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidColumnName"));
+        Object[] msgArgs = {columnLabel};
+        SQLServerException.makeFromDriverError(null, this, form.format(msgArgs), "07009", false);
+        return 0;
+    }
+
+    /**
+     * Returns whether the value of a column is SQL NULL.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return whether the value is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid
+     */
+    public boolean isNull(int columnIndex) throws SQLServerException {
+        return batch.isNull(columnIndex, row);
+    }
+
+    /**
+     * Returns whether the value of a column is SQL NULL.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return whether the value is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label
+     */
+    public boolean isNull(String columnLabel) throws SQLServerException {
+        return isNull(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns the value of a numeric column as an int, converted as {@link java.sql.ResultSet#getInt(int)} converts
+     * it.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid or the column is not numeric
+     */
+    public int getInt(int columnIndex) throws SQLServerException {
+        switch (batch.getVectorType(columnIndex)) {
+            case INT:
+                return batch.getIntVector(columnIndex)[row];
+            default:
+                return (int) getLong(columnIndex);
+        }
+    }
+
+    /**
+     * Returns the value of a numeric column as an int.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label or the column is not numeric
+     */
+    public int getInt(String columnLabel) throws SQLServerException {
+        return getInt(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns the value of a numeric column as a long.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid or the column is not numeric
+     */
+    public long getLong(int columnIndex) throws SQLServerException {
+        switch (batch.getVectorType(columnIndex)) {
+            case INT:
+                return batch.getIntVector(columnIndex)[row];
+            case LONG:
+                return batch.getLongVector(columnIndex)[row];
+            case DOUBLE:
+                return (long) batch.getDoubleVector(columnIndex)[row];
+            default:
+                Number value = getNumber(columnIndex);
+                return (null != value) ? value.longValue() : 0;
+        }
+    }
+
+    /**
+     * Returns the value of a numeric column as a long.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label or the column is not numeric
+     */
+    public long getLong(String columnLabel) throws SQLServerException {
+        return getLong(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns the value of a numeric column as a double.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid or the column is not numeric
+     */
+    public double getDouble(int columnIndex) throws SQLServerException {
+        switch (batch.getVectorType(columnIndex)) {
+            case INT:
+                return batch.getIntVector(columnIndex)[row];
+            case LONG:
+                return batch.getLongVector(columnIndex)[row];
+            case DOUBLE:
+                return batch.getDoubleVector(columnIndex)[row];
+            default:
+                Number value = getNumber(columnIndex);
+                return (null != value) ? value.doubleValue() : 0;
+        }
+    }
+
+    /**
+     * Returns the value of a numeric column as a double.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or 0 if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label or the column is not numeric
+     */
+    public double getDouble(String columnLabel) throws SQLServerException {
+        return getDouble(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns the value of a column as a String.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid
+     */
+    public String getString(int columnIndex) throws SQLServerException {
+        if (SQLServerColumnBatch.VectorType.STRING == batch.getVectorType(columnIndex))
+            return batch.getString(columnIndex, row);
+
+        Object value = getObject(columnIndex);
+        if (value instanceof byte[])
+            return Util.bytesToHexString((byte[]) value, ((byte[]) value).length);
+        return (null != value) ? value.toString() : null;
+    }
+
+    /**
+     * Returns the value of a column as a String.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label
+     */
+    public String getString(String columnLabel) throws SQLServerException {
+        return getString(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns a copy of the value of a binary column.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid or the column is not binary
+     */
+    public byte[] getBytes(int columnIndex) throws SQLServerException {
+        byte[] data = batch.getBinaryData(columnIndex);
+        if (batch.isNull(columnIndex, row))
+            return null;
+        int[] offsets = batch.getOffsets(columnIndex);
+        return Arrays.copyOfRange(data, offsets[row], offsets[row + 1]);
+    }
+
+    /**
+     * Returns a copy of the value of a binary column.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label or the column is not binary
+     */
+    public byte[] getBytes(String columnLabel) throws SQLServerException {
+        return getBytes(findColumn(columnLabel));
+    }
+
+    /**
+     * Returns the value of a column as an object of the type described in the class documentation.
+     *
+     * @param columnIndex
+     *        the first column is 1, the second is 2, ...
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if the column index is not valid
+     */
+    public Object getObject(int columnIndex) throws SQLServerException {
+        if (batch.isNull(columnIndex, row))
+            return null;
+
+        switch (batch.getVectorType(columnIndex)) {
+            case INT:
+                return batch.getIntVector(columnIndex)[row];
+            case LONG:
+                return batch.getLongVector(columnIndex)[row];
+            case DOUBLE:
+                return batch.getDoubleVector(columnIndex)[row];
+            case STRING:
+                return batch.getString(columnIndex, row);
+            case BINARY:
+                return getBytes(columnIndex);
+            default:
+                return batch.getObjectVector(columnIndex)[row];
+        }
+    }
+
+    /**
+     * Returns the value of a column as an object of the type described in the class documentation.
+     *
+     * @param columnLabel
+     *        the label of the column
+     * @return the value, or null if it is SQL NULL
+     * @throws SQLServerException
+     *         if there is no column with the label
+     */
+    public Object getObject(String columnLabel) throws SQLServerException {
+        return getObject(findColumn(columnLabel));
+    }
+
+    private Number getNumber(int columnIndex) throws SQLServerException {
+        Object value = getObject(columnIndex);
+        if (null == value || value instanceof Number)
+            return (Number) value;
+
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_wrongVectorType"));
+        Object[] msgArgs = {columnIndex, batch.getVectorType(columnIndex), "numeric"};
+        SQLServerException.makeFromDriverError(null, this, form.format(msgArgs), null, false);
+        return null;
+    }
+}
@@ -0,0 +1,457 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+
+/**
+ * Maps rows of result sets to instances of a Java record or JavaBean class.
+ *
+ * Columns are matched to the components of a record, or to the setters and non-final fields of a JavaBean, by name,
+ * ignoring case and underscores, so that the column first_name is mapped to the component or property firstName.
+ * Records are constructed with their canonical constructor, and every component must have a column. JavaBeans are
+ * constructed with their constructor without parameters; properties without a column keep their initial value, and
+ * columns without a property are ignored. Only the constructors, setters and fields that the lookup given to
+ * {@link #of(Class, MethodHandles.Lookup)} can access are used; by default, the public ones.
+ *
+ * The mapper inspects the metadata of a result set once per result shape (the labels and types of its columns), and
+ * generates a method handle that reads each column with the getter for the type of its target, such as
+ * {@link ResultSet#getInt(int)} for an int component, and passes the values straight to the constructor or setters,
+ * without boxing primitive values. Other types are read with {@link ResultSet#getObject(int, Class)}. SQL NULL values
+ * are mapped to null, or to 0 or false for primitive targets.
+ *
+ * A mapper is thread safe and can be shared, for example by several {@link SQLServerResultSetPublisher} objects.
+ * Records require a Java 16 or later JVM.
+ *
+ * @param <T>
+ *        the type of object each row is mapped to
+ */
+public final class SQLServerRowMapper<T> implements ISQLServerRowMapper<T> {
+    private static final MethodHandles.Lookup DRIVER_LOOKUP = MethodHandles.lookup();
+    private static final MethodType READER_TYPE = MethodType.methodType(Object.class, ResultSet.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, ResultSet.class);
+
+    private final Class<T> type;
+    private final MethodHandles.Lookup lookup;
+
+    /** The canonical constructor of a record, or null for a JavaBean */
+    private final Constructor<?> recordConstructor;
+
+    /** The normalized names of the record components, or of the JavaBean properties */
+    private final String[] propertyNames;
+
+    /** The handles of the setters and fields of a JavaBean that the lookup can access, by normalized property name */
+    private final Map<String, MethodHandle> beanProperties;
+
+    private final Map<String, RowReader> readersByShape = new ConcurrentHashMap<>();
+
+    /** The reader of the last result set mapped, which is reused while rows of that result set are mapped */
+    private volatile LastReader lastReader;
+
+    /**
+     * Reads a row; generated for a result shape.
+     */
+    private static final class RowReader {
+        private final MethodHandle construct;
+        private final MethodHandle[] setters;
+
+        RowReader(MethodHandle construct, MethodHandle[] setters) {
+            this.construct = construct;
+            this.setters = setters;
+        }
+    }
+
+    private static final class LastReader {
+        private final ResultSet resultSet;
+        private final RowReader reader;
+
+        LastReader(ResultSet resultSet, RowReader reader) {
+            this.resultSet = resultSet;
+            this.reader = reader;
+        }
+    }
+
+    private SQLServerRowMapper(Class<T> type, MethodHandles.Lookup lookup) throws SQLServerException {
+        this.type = type;
+        this.lookup = lookup;
+
+        Object[] components = getRecordComponents(type);
+        if (null != components) {
+            Class<?>[] componentTypes = new Class<?>[components.length];
+            propertyNames = new String[components.length];
+            try {
+                for (int i = 0; i < components.length; i++) {
+                    Class<?> componentClass = components[i].getClass();
+                    propertyNames[i] = normalize((String) componentClass.getMethod("getName").invoke(components[i]));
+                    componentTypes[i] = (Class<?>) componentClass.getMethod("getType").invoke(components[i]);
+                }
+                recordConstructor = type.getDeclaredConstructor(componentTypes);
+            } catch (ReflectiveOperationException e) {
+                throw mapperException("R_rowMapperInvalidClass", e);
+            }
+            beanProperties = null;
+        } else {
+            recordConstructor = null;
+            beanProperties = new LinkedHashMap<>();
+            Map<String, MethodHandle> setters = new LinkedHashMap<>();
+            for (Class<?> c = type; null != c && Object.class != c; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    int modifiers = field.getModifiers();
+                    if (!Modifier.isStatic(modifiers) && !Modifier.isFinal(modifiers)) {
+                        MethodHandle setter = unreflectSetter(field);
+                        if (null != setter)
+                            beanProperties.putIfAbsent(normalize(field.getName()), setter);
+                    }
+                }
+                for (Method method : c.getDeclaredMethods()) {
+                    if (!Modifier.isStatic(method.getModifiers()) && 1 == method.getParameterCount()
+                            && method.getName().length() > 3 && method.getName().startsWith("set")) {
+                        MethodHandle setter = unreflect(method);
+                        if (null != setter)
+                            setters.putIfAbsent(normalize(method.getName().substring(3)), setter);
+                    }
+                }
+            }
+            // Setters take precedence over fields of the same name
+            beanProperties.putAll(setters);
+            propertyNames = beanProperties.keySet().toArray(new String[0]);
+        }
+    }
+
+    /**
+     * Returns a handle of the setter, or null if the lookup cannot access it.
+     */
+    private MethodHandle unreflect(Method method) {
+        try {
+            return lookup.unreflect(method);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a handle that sets the field, or null if the lookup cannot access it.
+     */
+    private MethodHandle unreflectSetter(Field field) {
+        try {
+            return lookup.unreflectSetter(field);
+        } catch (IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns a mapper of rows to instances of the given record or JavaBean class. The class, and its constructor,
+     * setters and fields, must be public.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param type
+     *        the record or JavaBean class
+     * @return the row mapper
+     * @throws SQLServerException
+     *         if the class is a record whose components cannot be read
+     */
+    public static <T> SQLServerRowMapper<T> of(Class<T> type) throws SQLServerException {
+        return of(type, MethodHandles.publicLookup());
+    }
+
+    /**
+     * Returns a mapper of rows to instances of the given record or JavaBean class, which accesses the class with the
+     * given lookup. Pass {@code MethodHandles.lookup()} to map to classes, constructors, setters and fields that are
+     * accessible to the caller but not public.
+     *
+     * @param <T>
+     *        the type of object each row is mapped to
+     * @param type
+     *        the record or JavaBean class
+     * @param lookup
+     *        the lookup used to access the constructor, setters and fields of the class
+     * @return the row mapper
+     * @throws SQLServerException
+     *         if the class is a record whose components cannot be read
+     */
+    public static <T> SQLServerRowMapper<T> of(Class<T> type, MethodHandles.Lookup lookup) throws SQLServerException {
+        if (null == type)
+            throw new NullPointerException("type");
+        if (null == lookup)
+            throw new NullPointerException("lookup");
+        return new SQLServerRowMapper<>(type, lookup);
+    }
+
+    @Override
+    public T mapRow(ResultSet resultSet) throws SQLException {
+        LastReader last = lastReader;
+        RowReader reader;
+        if (null != last && last.resultSet == resultSet) {
+            reader = last.reader;
+        } else {
+            reader = getReader(resultSet.getMetaData());
+            lastReader = new LastReader(resultSet, reader);
+        }
+
+        try {
+            Object row = reader.construct.invokeExact(resultSet);
+            for (MethodHandle setter : reader.setters)
+                setter.invokeExact(row, resultSet);
+            return type.cast(row);
+        } catch (SQLException | RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw mapperException("R_rowMapperFailed", e);
+        }
+    }
+
+    /**
+     * Returns the reader for the shape of a result set, generating it the first time the shape is seen.
+     */
+    private RowReader getReader(ResultSetMetaData metaData) throws SQLException {
+        int columnCount = metaData.getColumnCount();
+        String[] columnNames = new String[columnCount];
+        StringBuilder shape = new StringBuilder();
+        for (int i = 1; i <= columnCount; i++) {
+            columnNames[i - 1] = normalize(metaData.getColumnLabel(i));
+            shape.append(metaData.getColumnLabel(i)).append(':').append(metaData.getColumnType(i)).append('|');
+        }
+
+        RowReader reader = readersByShape.get(shape.toString());
+        if (null == reader) {
+            reader = generateReader(columnNames);
+            readersByShape.put(shape.toString(), reader);
+        }
+        return reader;
+    }
+
+    private RowReader generateReader(String[] columnNames) throws SQLServerException {
+        try {
+            if (null != recordConstructor)
+                return generateRecordReader(columnNames);
+            return generateBeanReader(columnNames);
+        } catch (IllegalAccessException | NoSuchMethodException e) {
+            throw mapperException("R_rowMapperInvalidClass", e);
+        }
+    }
+
+    /**
+     * Generates a reader that calls the canonical constructor with each argument read from its column:
+     * {@code (rs) -> new T(read1(rs), ..., readN(rs))}.
+     */
+    private RowReader generateRecordReader(String[] columnNames) throws IllegalAccessException, NoSuchMethodException,
+            SQLServerException {
+        MethodHandle constructor = lookup.unreflectConstructor(recordConstructor);
+        Class<?>[] parameterTypes = recordConstructor.getParameterTypes();
+        MethodHandle[] readers = new MethodHandle[parameterTypes.length];
+        for (int i = 0; i < parameterTypes.length; i++) {
+            int columnIndex = findColumn(columnNames, propertyNames[i]);
+            if (0 == columnIndex) {
+                MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_rowMapperNoColumn"));
+                Object[] msgArgs = {propertyNames[i], type.getName()};
+                throw new SQLServerException(form.format(msgArgs), null, 0, null);
+            }
+            readers[i] = columnReader(parameterTypes[i], columnIndex);
+        }
+
+        MethodHandle construct = MethodHandles.filterArguments(constructor, 0, readers);
+        construct = MethodHandles.permuteArguments(construct,
+                MethodType.methodType(recordConstructor.getDeclaringClass(), ResultSet.class),
+                new int[parameterTypes.length]);
+        return new RowReader(construct.asType(READER_TYPE), new MethodHandle[0]);
+    }
+
+    /**
+     * Generates a reader that calls the constructor without parameters, and then the setter of each property that has a
+     * column with the value read from that column: {@code (t, rs) -> t.setX(readX(rs))}.
+     */
+    private RowReader generateBeanReader(String[] columnNames) throws IllegalAccessException, NoSuchMethodException {
+        MethodHandle constructor = lookup.findConstructor(type, MethodType.methodType(void.class));
+        MethodHandle construct = MethodHandles.dropArguments(constructor, 0, ResultSet.class).asType(READER_TYPE);
+
+        MethodHandle[] setters = new MethodHandle[columnNames.length];
+        int setterCount = 0;
+        boolean[] mapped = new boolean[propertyNames.length];
+        for (int columnIndex = 1; columnIndex <= columnNames.length; columnIndex++) {
+            int property = Arrays.asList(propertyNames).indexOf(columnNames[columnIndex - 1]);
+            if (property < 0 || mapped[property])
+                continue;
+            mapped[property] = true;
+
+            MethodHandle setter = beanProperties.get(propertyNames[property]);
+            MethodHandle reader = columnReader(setter.type().parameterType(1), columnIndex);
+            setter = MethodHandles.filterArguments(setter, 1, reader);
+            setters[setterCount++] = setter.asType(SETTER_TYPE);
+        }
+        return new RowReader(construct, Arrays.copyOf(setters, setterCount));
+    }
+
+    private static int findColumn(String[] columnNames, String propertyName) {
+        for (int i = 0; i < columnNames.length; i++) {
+            if (columnNames[i].equals(propertyName))
+                return i + 1;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns a handle of type (ResultSet) valueType that reads the column with the getter for the value type.
+     */
+    private static MethodHandle columnReader(Class<?> valueType, int columnIndex)
+            throws IllegalAccessException, NoSuchMethodException {
+        String name;
+        if (valueType.isPrimitive()) {
+            name = "read" + Character.toUpperCase(valueType.getName().charAt(0)) + valueType.getName().substring(1);
+        } else if (Integer.class == valueType || Long.class == valueType || Double.class == valueType
+                || Float.class == valueType || Short.class == valueType || Byte.class == valueType
+                || Boolean.class == valueType) {
+            name = "readBoxed" + valueType.getSimpleName();
+        } else if (String.class == valueType) {
+            name = "readString";
+        } else if (BigDecimal.class == valueType) {
+            name = "readBigDecimal";
+        } else if (byte[].class == valueType) {
+            name = "readBytes";
+        } else {
+            MethodHandle reader = DRIVER_LOOKUP.findStatic(SQLServerRowMapper.class, "readObject",
+                    MethodType.methodType(Object.class, ResultSet.class, int.class, Class.class));
+            return MethodHandles.insertArguments(reader, 1, columnIndex, valueType)
+                    .asType(MethodType.methodType(valueType, ResultSet.class));
+        }
+
+        MethodHandle reader = DRIVER_LOOKUP.findStatic(SQLServerRowMapper.class, name,
+                MethodType.methodType(valueType, ResultSet.class, int.class));
+        return MethodHandles.insertArguments(reader, 1, columnIndex);
+    }
+
+    /**
+     * Returns the components of a record class, or null if the class is not a record. Records are detected
+     * reflectively, since the driver runs on Java 8.
+     */
+    private static Object[] getRecordComponents(Class<?> type) throws SQLServerException {
+        if (null == type.getSuperclass() || !"java.lang.Record".equals(type.getSuperclass().getName()))
+            return null;
+        try {
+            return (Object[]) Class.class.getMethod("getRecordComponents").invoke(type);
+        } catch (ReflectiveOperationException e) {
+            throw mapperException(type, "R_rowMapperInvalidClass", e);
+        }
+    }
+
+    private static String normalize(String name) {
+        return name.replace("_", "").toLowerCase(Locale.ROOT);
+    }
+
+    private SQLServerException mapperException(String errString, Throwable cause) {
+        return mapperException(type, errString, cause);
+    }
+
+    private static SQLServerException mapperException(Class<?> type, String errString, Throwable cause) {
+        MessageFormat form = new MessageFormat(SQLServerException.getErrString(errString));
+        Object[] msgArgs = {type.getName(), cause.toString()};
+        return new SQLServerException(form.format(msgArgs), cause);
+    }
+
+    // Column readers, looked up by name by columnReader()
+
+    static int readInt(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getInt(columnIndex);
+    }
+
+    static long readLong(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getLong(columnIndex);
+    }
+
+    static double readDouble(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getDouble(columnIndex);
+    }
+
+    static float readFloat(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getFloat(columnIndex);
+    }
+
+    static short readShort(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getShort(columnIndex);
+    }
+
+    static byte readByte(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getByte(columnIndex);
+    }
+
+    static boolean readBoolean(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBoolean(columnIndex);
+    }
+
+    static char readChar(ResultSet rs, int columnIndex) throws SQLException {
+        String value = rs.getString(columnIndex);
+        return (null != value && !value.isEmpty()) ? value.charAt(0) : '\0';
+    }
+
+    static Integer readBoxedInteger(ResultSet rs, int columnIndex) throws SQLException {
+        int value = rs.getInt(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Long readBoxedLong(ResultSet rs, int columnIndex) throws SQLException {
+        long value = rs.getLong(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Double readBoxedDouble(ResultSet rs, int columnIndex) throws SQLException {
+        double value = rs.getDouble(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Float readBoxedFloat(ResultSet rs, int columnIndex) throws SQLException {
+        float value = rs.getFloat(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Short readBoxedShort(ResultSet rs, int columnIndex) throws SQLException {
+        short value = rs.getShort(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Byte readBoxedByte(ResultSet rs, int columnIndex) throws SQLException {
+        byte value = rs.getByte(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static Boolean readBoxedBoolean(ResultSet rs, int columnIndex) throws SQLException {
+        boolean value = rs.getBoolean(columnIndex);
+        return rs.wasNull() ? null : value;
+    }
+
+    static String readString(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getString(columnIndex);
+    }
+
+    static BigDecimal readBigDecimal(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBigDecimal(columnIndex);
+    }
+
+    static byte[] readBytes(ResultSet rs, int columnIndex) throws SQLException {
+        return rs.getBytes(columnIndex);
+    }
+
+    static Object readObject(ResultSet rs, int columnIndex, Class<?> type) throws SQLException {
+        return rs.getObject(columnIndex, type);
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.text.MessageFormat;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+
+/**
+ * Splits the rows of a result set into batches of decoded rows.
+ *
+ * Each split reads the next batch of rows from the result set into a new {@link SQLServerColumnBatch}, and hands it out
+ * as a sized spliterator over {@link SQLServerRow} views of the batch. The thread that splits keeps reading the
+ * response while the threads of a parallel stream process the batches already handed out. The result set is closed when
+ * its last row has been read, or when the stream is closed.
+ */
+final class SQLServerRowSpliterator implements Spliterator<SQLServerRow> {
+    private static final Logger logger = Logger
+            .getLogger("com.microsoft.sqlserver.jdbc.internals.SQLServerRowSpliterator");
+
+    /** The default number of rows in a batch */
+    static final int DEFAULT_BATCH_SIZE = 1024;
+
+    private final SQLServerResultSet resultSet;
+    private final int batchSize;
+    private final String[] columnNames;
+
+    /** The rows of the last batch read for tryAdvance() that have not been consumed yet */
+    private BatchSpliterator current;
+    private boolean exhausted;
+
+    private SQLServerRowSpliterator(SQLServerResultSet resultSet, int batchSize) throws SQLServerException {
+        this.resultSet = resultSet;
+        this.batchSize = batchSize;
+        columnNames = new String[resultSet.getColumnCount()];
+        for (int i = 0; i < columnNames.length; i++)
+            columnNames[i] = resultSet.getColumn(i + 1).getColumnName();
+    }
+
+    /**
+     * Throws if the batch size of a stream is not valid. Called before the query is executed.
+     */
+    static void checkBatchSize(int batchSize) throws SQLServerException {
+        if (batchSize <= 0) {
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_invalidArgument"));
+            Object[] msgArgs = {"batchSize"};
+            SQLServerException.makeFromDriverError(null, null, form.format(msgArgs), null, false);
+        }
+    }
+
+    /**
+     * Returns a sequential stream of the rows of the result set, read in batches of up to batchSize rows. Closing the
+     * stream closes the result set.
+     */
+    static Stream<SQLServerRow> stream(SQLServerResultSet resultSet, int batchSize) throws SQLServerException {
+        SQLServerRowSpliterator spliterator = new SQLServerRowSpliterator(resultSet, batchSize);
+        return StreamSupport.stream(spliterator, false).onClose(spliterator::close);
+    }
+
+    /**
+     * Reads the next batch of rows, or returns null if the result set has no more rows.
+     */
+    private BatchSpliterator readBatch() {
+        if (exhausted)
+            return null;
+
+        try {
+            SQLServerColumnBatch batch = resultSet.newColumnBatch(batchSize);
+            resultSet.fillBatch(batch, batchSize);
+            if (batch.getRowCount() < batchSize)
+                close();
+            return (0 != batch.getRowCount()) ? new BatchSpliterator(batch, 0, batch.getRowCount()) : null;
+        } catch (SQLServerException e) {
+            close();
+            MessageFormat form = new MessageFormat(SQLServerException.getErrString("R_streamReadFailed"));
+            Object[] msgArgs = {e.getMessage()};
+            throw new SQLServerUncheckedException(form.format(msgArgs), e);
+        }
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super SQLServerRow> action) {
+        while (null == current || !current.tryAdvance(action)) {
+            current = readBatch();
+            if (null == current)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public Spliterator<SQLServerRow> trySplit() {
+        // Hand out what is left of the batch being consumed before reading the next one
+        if (null != current && current.estimateSize() > 0) {
+            Spliterator<SQLServerRow> prefix = current;
+            current = null;
+            return prefix;
+        }
+        return readBatch();
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | NONNULL;
+    }
+
+    final void close() {
+        if (exhausted)
+            return;
+
+        exhausted = true;
+        try {
+            resultSet.close();
+        } catch (SQLServerException e) {
+            if (logger.isLoggable(Level.FINER))
+                logger.finer(resultSet.toString() + " Ignored error closing result set: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Spliterator over the rows of a decoded batch.
+     */
+    private final class BatchSpliterator implements Spliterator<SQLServerRow> {
+        private final SQLServerColumnBatch batch;
+        private int row;
+        private final int end;
+
+        BatchSpliterator(SQLServerColumnBatch batch, int row, int end) {
+            this.batch = batch;
+            this.row = row;
+            this.end = end;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super SQLServerRow> action) {
+            if (row >= end)
+                return false;
+            action.accept(new SQLServerRow(batch, row++, columnNames));
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super SQLServerRow> action) {
+            while (row < end)
+                action.accept(new SQLServerRow(batch, row++, columnNames));
+        }
+
+        @Override
+        public Spliterator<SQLServerRow> trySplit() {
+            int middle = (row + end) >>> 1;
+            if (middle <= row)
+                return null;
+            BatchSpliterator prefix = new BatchSpliterator(batch, row, middle);
+            row = middle;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() {
+            return (long) end - row;
+        }
+
+        @Override
+        public int characteristics() {
+            return ORDERED | NONNULL | SIZED | SUBSIZED | IMMUTABLE;
+        }
+    }
+}
@@ -19,10 +19,14 @@ import java.util.ArrayList;
 import java.util.Stack;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
 
 import com.microsoft.sqlserver.jdbc.SQLServerConnection.CityHash128Key;
 
@@ -278,23 +282,39 @@ public class SQLServerStatement implements ISQLServerStatement {
      */
     int resultSetCount = 0;
 
+    /**
+     * Guards resultSetCount. Closing the statement on completion may talk to the server, so this is a lock rather than
+     * the statement's monitor, which would pin a virtual thread.
+     */
+    private final ReentrantLock resultSetCountLock = new ReentrantLock();
+
     /**
      * Increment opened result set counter
      */
-    synchronized void incrResultSetCount() {
-        resultSetCount++;
+    void incrResultSetCount() {
+        resultSetCountLock.lock();
+        try {
+            resultSetCount++;
+        } finally {
+            resultSetCountLock.unlock();
+        }
     }
 
     /**
      * Decrement opened result set counter.
      */
-    synchronized void decrResultSetCount() {
-        resultSetCount--;
-        assert resultSetCount >= 0;
+    void decrResultSetCount() {
+        resultSetCountLock.lock();
+        try {
+            resultSetCount--;
+            assert resultSetCount >= 0;
 
-        // close statement if no more result sets opened
-        if (isCloseOnCompletion && !(EXECUTE_BATCH == executeMethod && moreResults) && resultSetCount == 0) {
-            closeInternal();
+            // close statement if no more result sets opened
+            if (isCloseOnCompletion && !(EXECUTE_BATCH == executeMethod && moreResults) && resultSetCount == 0) {
+                closeInternal();
+            }
+        } finally {
+            resultSetCountLock.unlock();
         }
     }
 
@@ -358,6 +378,13 @@ public class SQLServerStatement implements ISQLServerStatement {
      */
     int resultSetType;
 
+    /**
+     * Indicates whether this statement's result sets are scrolled by the driver rather than with a server cursor. Only
+     * read-only TYPE_SCROLL_INSENSITIVE statements do so, when the useClientScrollInsensitiveResultSets connection
+     * property is on. Their SQL Server result set type remains TYPE_SS_SCROLL_STATIC.
+     */
+    private boolean isClientScrollable = false;
+
     final int getSQLResultSetType() {
         return resultSetType;
     }
@@ -370,7 +397,7 @@ public class SQLServerStatement implements ISQLServerStatement {
      * Returns whether to request a server cursor when executing this statement.
      *
      * Executing a statement with execute() or executeQuery() requests a server cursor in all scrollability and
-     * updatability combinations except direct forward-only, read-only.
+     * updatability combinations except direct forward-only, read-only and client-scrollable (see isClientScrollable).
      *
      * Note that when execution requests a server cursor (i.e. this method returns true), there is no guarantee that SQL
      * Server returns one. The variable executedSqlDirectly indicates whether SQL Server executed the query with a
@@ -379,7 +406,7 @@ public class SQLServerStatement implements ISQLServerStatement {
      * @return true if statement execution requests a server cursor, false otherwise.
      */
     final boolean isCursorable(int executeMethod) {
-        return resultSetType != SQLServerResultSet.TYPE_SS_DIRECT_FORWARD_ONLY
+        return resultSetType != SQLServerResultSet.TYPE_SS_DIRECT_FORWARD_ONLY && !isClientScrollable
                 && (EXECUTE == executeMethod || EXECUTE_QUERY == executeMethod);
     }
 
@@ -592,6 +619,8 @@ public class SQLServerStatement implements ISQLServerStatement {
             }
         } else if (ResultSet.TYPE_SCROLL_INSENSITIVE == nType) {
             resultSetType = SQLServerResultSet.TYPE_SS_SCROLL_STATIC;
+            isClientScrollable = ResultSet.CONCUR_READ_ONLY == nConcur
+                    && con.getUseClientScrollInsensitiveResultSets();
         } else if (ResultSet.TYPE_SCROLL_SENSITIVE == nType) {
             resultSetType = SQLServerResultSet.TYPE_SS_SCROLL_KEYSET;
         } else // App specified one of the SQL Server types
@@ -687,8 +716,15 @@ public class SQLServerStatement implements ISQLServerStatement {
     public void close() throws SQLServerException {
         loggerExternal.entering(getClassNameLogging(), "close");
 
-        if (!bIsClosed)
-            closeInternal();
+        if (!bIsClosed) {
+            try {
+                // Send the modifications queued by the result set, so that their errors reach the caller
+                if (null != resultSet)
+                    resultSet.flushDeferredCursorOperations();
+            } finally {
+                closeInternal();
+            }
+        }
 
         loggerExternal.exiting(getClassNameLogging(), "close");
     }
@@ -756,6 +792,50 @@ public class SQLServerStatement implements ISQLServerStatement {
         return updateCount;
     }
 
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync(String sql) throws SQLServerException {
+        return executeQueryAsync(sql, null);
+    }
+
+    @Override
+    public CompletableFuture<ResultSet> executeQueryAsync(String sql, Executor executor) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "executeQueryAsync", sql);
+        checkClosed();
+        CompletableFuture<ResultSet> future = AsyncExecutor.submit(this, executor, () -> executeQuery(sql));
+        loggerExternal.exiting(getClassNameLogging(), "executeQueryAsync", future);
+        return future;
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync(String sql) throws SQLServerException {
+        return executeUpdateAsync(sql, null);
+    }
+
+    @Override
+    public CompletableFuture<Integer> executeUpdateAsync(String sql, Executor executor) throws SQLServerException {
+        loggerExternal.entering(getClassNameLogging(), "executeUpdateAsync", sql);
+        checkClosed();
+        CompletableFuture<Integer> future = AsyncExecutor.submit(this, executor, () -> executeUpdate(sql));
+        loggerExternal.exiting(getClassNameLogging(), "executeUpdateAsync", future);
+        return future;
+    }
+
+    @Override
+    public Stream<SQLServerRow> stream(String sql) throws SQLServerException, SQLTimeoutException {
+        return stream(sql, SQLServerRowSpliterator.DEFAULT_BATCH_SIZE);
+    }
+
+    @Override
+    public Stream<SQLServerRow> stream(String sql, int batchSize) throws SQLServerException, SQLTimeoutException {
+        loggerExternal.entering(getClassNameLogging(), "stream", new Object[] {sql, batchSize});
+        checkClosed();
+        SQLServerRowSpliterator.checkBatchSize(batchSize);
+        Stream<SQLServerRow> stream = SQLServerRowSpliterator.stream((SQLServerResultSet) executeQuery(sql),
+                batchSize);
+        loggerExternal.exiting(getClassNameLogging(), "stream", stream);
+        return stream;
+    }
+
     @Override
     public boolean execute(String sql) throws SQLServerException, SQLTimeoutException {
         loggerExternal.entering(getClassNameLogging(), "execute", sql);
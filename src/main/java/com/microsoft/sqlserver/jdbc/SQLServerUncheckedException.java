@@ -0,0 +1,41 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import java.util.Objects;
+
+
+/**
+ * Wraps a {@link SQLServerException} with an unchecked exception. Thrown by the streams returned by
+ * {@link ISQLServerStatement#stream(String)} and {@link ISQLServerPreparedStatement#stream()} when the driver fails to
+ * read their rows, since stream operations cannot throw checked exceptions. {@link #getCause()} returns the driver
+ * error.
+ */
+public final class SQLServerUncheckedException extends RuntimeException {
+    private static final long serialVersionUID = 6345096412537245813L;
+
+    /**
+     * Constructs an instance of this class.
+     *
+     * @param message
+     *        the detail message
+     * @param cause
+     *        the driver error, which must not be null
+     */
+    public SQLServerUncheckedException(String message, SQLServerException cause) {
+        super(message, Objects.requireNonNull(cause));
+    }
+
+    /**
+     * Returns the driver error wrapped by this exception.
+     *
+     * @return the {@link SQLServerException} wrapped by this exception
+     */
+    @Override
+    public SQLServerException getCause() {
+        return (SQLServerException) super.getCause();
+    }
+}
@@ -127,6 +127,9 @@ final class DTV {
     /** The source (app or server) providing the data for this value. */
     private DTVImpl impl;
 
+    // A ServerDTVImpl of a previous value that can be reused for the next one
+    private ServerDTVImpl recycledServerImpl;
+
     CryptoMetadata cryptoMeta = null;
     JDBCType jdbcTypeSetByUser = null;
     int valueLength = 0;
@@ -152,19 +155,34 @@ final class DTV {
     }
 
     final void clear() {
+        if (impl instanceof ServerDTVImpl && ((ServerDTVImpl) impl).isRecyclable())
+            recycledServerImpl = (ServerDTVImpl) impl;
         impl = null;
     }
 
+    /**
+     * Returns a ServerDTVImpl for a new value, reusing the one of a previous value if nothing can refer to it.
+     */
+    private ServerDTVImpl newServerDTVImpl() {
+        ServerDTVImpl serverImpl = recycledServerImpl;
+        if (null == serverImpl)
+            return new ServerDTVImpl();
+
+        recycledServerImpl = null;
+        serverImpl.recycle();
+        return serverImpl;
+    }
+
     final void skipValue(TypeInfo type, TDSReader tdsReader, boolean isDiscard) throws SQLServerException {
         if (null == impl)
-            impl = new ServerDTVImpl();
+            impl = newServerDTVImpl();
 
         impl.skipValue(type, tdsReader, isDiscard);
     }
 
     final void initFromCompressedNull() {
         if (null == impl)
-            impl = new ServerDTVImpl();
+            impl = newServerDTVImpl();
 
         impl.initFromCompressedNull();
     }
@@ -243,10 +261,55 @@ final class DTV {
     Object getValue(JDBCType jdbcType, int scale, InputStreamGetterArgs streamGetterArgs, Calendar cal,
             TypeInfo typeInfo, CryptoMetadata cryptoMetadata, TDSReader tdsReader) throws SQLServerException {
         if (null == impl)
-            impl = new ServerDTVImpl();
+            impl = newServerDTVImpl();
         return impl.getValue(this, jdbcType, scale, streamGetterArgs, cal, typeInfo, cryptoMetadata, tdsReader);
     }
 
+    /**
+     * Returns whether the DTV's value is, or is yet to be, read from the response rather than set by the application.
+     */
+    final boolean isServerValue() {
+        return null == impl || impl instanceof ServerDTVImpl;
+    }
+
+    private ServerDTVImpl serverImpl() {
+        if (null == impl)
+            impl = newServerDTVImpl();
+        assert impl instanceof ServerDTVImpl;
+        return (ServerDTVImpl) impl;
+    }
+
+    /**
+     * Returns the value of a BIT, TINYINT, SMALLINT, INTEGER or BIGINT server value as a long, without converting it
+     * to an object. Returns 0 if the value is null.
+     */
+    long getLong(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        return serverImpl().getLong(typeInfo, tdsReader);
+    }
+
+    /**
+     * Returns the value of a FLOAT, REAL or integral server value as a double, without converting it to an object.
+     * Returns 0 if the value is null.
+     */
+    double getDouble(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        return serverImpl().getDouble(typeInfo, tdsReader);
+    }
+
+    /**
+     * Returns the length in characters of an NCHAR or NVARCHAR server value, or -1 if the value is null.
+     */
+    int getCharLength(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        return serverImpl().getCharLength(typeInfo, tdsReader);
+    }
+
+    /**
+     * Copies the characters of a non-null NCHAR or NVARCHAR server value into the array, which must have room for
+     * getCharLength() characters from offset.
+     */
+    void getChars(TypeInfo typeInfo, TDSReader tdsReader, char[] chars, int offset) throws SQLServerException {
+        serverImpl().getChars(typeInfo, tdsReader, chars, offset);
+    }
+
     Object getSetterValue() {
         return impl.getSetterValue();
     }
@@ -3239,6 +3302,32 @@ final class ServerDTVImpl extends DTVImpl {
     private boolean isNull;
     private SqlVariant internalVariant;
 
+    // False once a stream or converted value may have kept a reference to this instance
+    private boolean recyclable = true;
+
+    // The mark of a previous value, reused for the next one
+    private TDSReaderMark spareMark;
+
+    /**
+     * Returns whether this instance can be reused for another value, because it has only been read through the
+     * primitive and character getters or skipped.
+     */
+    boolean isRecyclable() {
+        return recyclable;
+    }
+
+    /**
+     * Resets this instance for a new value.
+     */
+    void recycle() {
+        assert recyclable;
+        spareMark = valueMark;
+        valueMark = null;
+        valueLength = 0;
+        isNull = false;
+        internalVariant = null;
+    }
+
     /**
      * Sets the value of the DTV to an app-specified Java type.
      *
@@ -3350,6 +3439,7 @@ final class ServerDTVImpl extends DTVImpl {
                 assert SSLenType.PARTLENTYPE == type.getSSLenType();
                 // create a plp type and close it so the value can be skipped.
                 // We buffer even when adaptive if the user skips this item.
+                recyclable = false;
                 PLPInputStream tempPLP = PLPInputStream.makeTempStream(tdsReader, isDiscard, this);
                 try {
                     if (null != tempPLP)
@@ -3420,7 +3510,8 @@ final class ServerDTVImpl extends DTVImpl {
         if (valueLength > typeInfo.getMaxLength())
             tdsReader.throwInvalidTDS();
 
-        valueMark = tdsReader.mark();
+        valueMark = tdsReader.mark(spareMark);
+        spareMark = null;
     }
 
     Object denormalizedValue(byte[] decryptedValue, JDBCType jdbcType, TypeInfo baseTypeInfo, SQLServerConnection con,
@@ -3659,6 +3750,9 @@ final class ServerDTVImpl extends DTVImpl {
 
     Object getValue(DTV dtv, JDBCType jdbcType, int scale, InputStreamGetterArgs streamGetterArgs, Calendar cal,
             TypeInfo typeInfo, CryptoMetadata cryptoMetadata, TDSReader tdsReader) throws SQLServerException {
+        // Streams over the value refer to this instance
+        recyclable = false;
+
         SQLServerConnection con = tdsReader.getConnection();
         Object convertedValue = null;
         byte[] decryptedValue;
@@ -3898,6 +3992,72 @@ final class ServerDTVImpl extends DTVImpl {
         return convertedValue;
     }
 
+    /**
+     * Positions the reader at the value, returning false if the value is null.
+     */
+    private boolean resetToValue(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        if (null == valueMark && (!isNull))
+            getValuePrep(typeInfo, tdsReader);
+
+        if (isNull)
+            return false;
+
+        tdsReader.reset(valueMark);
+        return true;
+    }
+
+    long getLong(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        if (!resetToValue(typeInfo, tdsReader))
+            return 0;
+
+        switch (valueLength) {
+            case 8:
+                return tdsReader.readLong();
+            case 4:
+                return tdsReader.readInt();
+            case 2:
+                return tdsReader.readShort();
+            case 1:
+                return tdsReader.readUnsignedByte();
+            default:
+                tdsReader.throwInvalidTDS();
+                return 0;
+        }
+    }
+
+    double getDouble(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        switch (typeInfo.getSSType()) {
+            case FLOAT:
+                if (!resetToValue(typeInfo, tdsReader))
+                    return 0;
+                if (8 != valueLength)
+                    tdsReader.throwInvalidTDS();
+                return Double.longBitsToDouble(tdsReader.readLong());
+
+            case REAL:
+                if (!resetToValue(typeInfo, tdsReader))
+                    return 0;
+                if (4 != valueLength)
+                    tdsReader.throwInvalidTDS();
+                return Float.intBitsToFloat(tdsReader.readInt());
+
+            default:
+                return getLong(typeInfo, tdsReader);
+        }
+    }
+
+    int getCharLength(TypeInfo typeInfo, TDSReader tdsReader) throws SQLServerException {
+        if (null == valueMark && (!isNull))
+            getValuePrep(typeInfo, tdsReader);
+
+        return isNull ? -1 : valueLength / 2;
+    }
+
+    void getChars(TypeInfo typeInfo, TDSReader tdsReader, char[] chars, int offset) throws SQLServerException {
+        if (resetToValue(typeInfo, tdsReader))
+            tdsReader.readUnicodeChars(chars, offset, valueLength / 2);
+    }
+
     SqlVariant getInternalVariant() {
         return internalVariant;
     }
@@ -0,0 +1,81 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.sql.DriverManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests sizing server cursor fetches from a byte window with AdaptiveFetchSize
+ */
+@RunWith(JUnitPlatform.class)
+public class AdaptiveFetchSizeTest {
+
+    private static final long MILLISECOND = 1000000;
+
+    @Test
+    public void testRowWidth() {
+        // Narrow and wide rows fetch the same number of bytes at a time
+        AdaptiveFetchSize narrow = new AdaptiveFetchSize(64 * 1024);
+        AdaptiveFetchSize wide = new AdaptiveFetchSize(64 * 1024);
+        assertEquals(128, narrow.getRows(128));
+        assertEquals(128, wide.getRows(128));
+
+        // Fetches that take much longer than the quickest one keep the window at its target
+        narrow.onFetch(128 * 20, 128, 10 * MILLISECOND);
+        narrow.onFetch(3276 * 20, 3276, 100 * MILLISECOND);
+        assertEquals(64 * 1024, narrow.getWindowBytes());
+        assertEquals(64 * 1024 / 20, narrow.getRows(128));
+
+        wide.onFetch(128 * 200 * 1024, 128, 1000 * MILLISECOND);
+        wide.onFetch(200 * 1024, 1, 10 * MILLISECOND);
+        wide.onFetch(200 * 1024, 1, 100 * MILLISECOND);
+        assertEquals(1, wide.getRows(128));
+
+        // A fetch that returns no rows tells nothing about their width
+        wide.onFetch(100, 0, 10 * MILLISECOND);
+        assertEquals(1, wide.getRows(128));
+
+        // The number of rows is bounded
+        AdaptiveFetchSize tiny = new AdaptiveFetchSize(1024 * 1024 * 1024);
+        tiny.onFetch(128, 128, 10 * MILLISECOND);
+        assertEquals(AdaptiveFetchSize.MAX_ROWS, tiny.getRows(128));
+    }
+
+    @Test
+    public void testLatency() {
+        AdaptiveFetchSize fetchSize = new AdaptiveFetchSize(64 * 1024);
+        fetchSize.onFetch(128 * 100, 128, 50 * MILLISECOND);
+
+        // While the round trip dominates, the window grows up to its limit
+        for (int i = 0; i < 10; i++)
+            fetchSize.onFetch(fetchSize.getRows(128) * 100, fetchSize.getRows(128), 60 * MILLISECOND);
+        assertEquals(AdaptiveFetchSize.MAX_WINDOW_FACTOR * 64 * 1024, fetchSize.getWindowBytes());
+        assertEquals(AdaptiveFetchSize.MAX_WINDOW_FACTOR * 64 * 1024 / 100, fetchSize.getRows(128));
+
+        // Once the transfer dominates, it shrinks back to the target
+        for (int i = 0; i < 10; i++)
+            fetchSize.onFetch(fetchSize.getRows(128) * 100, fetchSize.getRows(128), 500 * MILLISECOND);
+        assertEquals(64 * 1024, fetchSize.getWindowBytes());
+    }
+
+    @Test
+    public void testInvalidWindow() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> null)) {
+            assertThrows(SQLServerException.class, () -> DriverManager
+                    .getConnection(server.getConnectionString() + "serverCursorFetchWindow=x;"));
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests the executors of the asynchronous statement APIs
+ */
+@RunWith(JUnitPlatform.class)
+public class AsyncExecutorTest {
+
+    @Test
+    public void testDefaultExecutorIsBounded() {
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) AsyncExecutor.getDefaultExecutor();
+        assertEquals(Runtime.getRuntime().availableProcessors(), executor.getMaximumPoolSize());
+        assertEquals(AsyncExecutor.DEFAULT_QUEUE_CAPACITY,
+                executor.getQueue().size() + executor.getQueue().remainingCapacity());
+    }
+
+    @Test
+    public void testSaturatedExecutorRejects() throws Exception {
+        ThreadPoolExecutor executor = AsyncExecutor.newBoundedExecutor(1, 1);
+        CompletableFuture<Void> release = new CompletableFuture<>();
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.empty());
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            CompletableFuture<Integer> running = AsyncExecutor.submit(stmt, executor, () -> {
+                release.join();
+                return 1;
+            });
+            CompletableFuture<Integer> queued = AsyncExecutor.submit(stmt, executor, () -> 2);
+            CompletableFuture<Integer> rejected = AsyncExecutor.submit(stmt, executor, () -> 3);
+
+            ExecutionException e = assertThrows(ExecutionException.class, rejected::get);
+            assertTrue(e.getCause() instanceof SQLServerException, e.getCause().toString());
+            assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+
+            release.complete(null);
+            assertEquals(1, running.get(1, TimeUnit.MINUTES).intValue());
+            assertEquals(2, queued.get(1, TimeUnit.MINUTES).intValue());
+            assertEquals(1, executor.getLargestPoolSize());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
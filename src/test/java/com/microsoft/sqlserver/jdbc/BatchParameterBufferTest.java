@@ -0,0 +1,128 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.DriverManager;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests the batch of parameter values of a prepared statement held column by column in BatchParameterBuffer
+ */
+@RunWith(JUnitPlatform.class)
+public class BatchParameterBufferTest {
+
+    private static final int ROWS = 100;
+
+    @Test
+    public void testPrimitiveColumns() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> null); SQLServerConnection conn = connect(server)) {
+            Parameter[] params = {new Parameter(false), new Parameter(false), new Parameter(false),
+                    new Parameter(false)};
+            BatchParameterBuffer batch = new BatchParameterBuffer(params.length, true);
+            for (int i = 0; i < ROWS; i++) {
+                set(conn, params[0], JDBCType.INTEGER, (0 == i % 10) ? null : i, JavaType.INTEGER);
+                set(conn, params[1], JDBCType.BIGINT, (long) i << 40, JavaType.LONG);
+                set(conn, params[2], JDBCType.DOUBLE, i / 4.0, JavaType.DOUBLE);
+                set(conn, params[3], JDBCType.BIT, 0 == i % 2, JavaType.BOOLEAN);
+                batch.add(params, conn);
+            }
+
+            assertEquals(ROWS, batch.size());
+            assertFalse(batch.hasOutputParameters());
+            for (int i = 0; i < ROWS; i++) {
+                assertEquals((0 == i % 10) ? null : (Object) i, batch.getSetterValue(i, 0));
+                assertEquals((long) i << 40, batch.getSetterValue(i, 1));
+                assertEquals(i / 4.0, batch.getSetterValue(i, 2));
+                assertEquals(0 == i % 2, batch.getSetterValue(i, 3));
+            }
+
+            // Every row is typed by the template parameter of its column
+            Parameter[] first = new Parameter[params.length];
+            Parameter[] last = new Parameter[params.length];
+            batch.getParameters(0, first);
+            batch.getParameters(ROWS - 1, last);
+            for (int i = 0; i < params.length; i++)
+                assertSame(first[i], last[i]);
+            assertEquals(JDBCType.BIGINT, last[1].getJdbcType());
+        }
+    }
+
+    @Test
+    public void testMixedColumn() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> null); SQLServerConnection conn = connect(server)) {
+            Parameter[] params = {new Parameter(false)};
+            BatchParameterBuffer batch = new BatchParameterBuffer(params.length, true);
+            for (int i = 0; i < ROWS; i++) {
+                if (ROWS / 2 == i)
+                    set(conn, params[0], JDBCType.NVARCHAR, "row " + i, JavaType.STRING);
+                else
+                    set(conn, params[0], JDBCType.INTEGER, (0 == i % 10) ? null : i, JavaType.INTEGER);
+                batch.add(params, conn);
+            }
+
+            // The values added before the string are converted back into parameters of their own
+            for (int i = 0; i < ROWS; i++) {
+                Object expected = (ROWS / 2 == i) ? "row " + i : (0 == i % 10) ? null : (Object) i;
+                assertEquals(expected, batch.getSetterValue(i, 0));
+
+                Parameter[] row = new Parameter[1];
+                batch.getParameters(i, row);
+                assertEquals(expected, row[0].getSetterValue());
+                assertEquals((ROWS / 2 == i) ? JDBCType.NVARCHAR : JDBCType.INTEGER, row[0].getJdbcType());
+            }
+
+            Parameter[] first = new Parameter[1];
+            Parameter[] second = new Parameter[1];
+            batch.getParameters(0, first);
+            batch.getParameters(1, second);
+            assertNotSame(first[0], second[0]);
+        }
+    }
+
+    @Test
+    public void testParameterColumns() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> null); SQLServerConnection conn = connect(server)) {
+            Parameter[] params = {new Parameter(false), new Parameter(false)};
+            BatchParameterBuffer batch = new BatchParameterBuffer(params.length, false);
+            set(conn, params[0], JDBCType.INTEGER, 1, JavaType.INTEGER);
+            params[1].registerForOutput(JDBCType.INTEGER, conn);
+            batch.add(params, conn);
+
+            assertTrue(batch.hasOutputParameters());
+            assertEquals(1, batch.getSetterValue(0, 0));
+
+            // A parameter that is not set is kept as such, to fail the execution
+            params[0].clearInputValue();
+            batch.add(params, conn);
+            Parameter[] row = new Parameter[params.length];
+            batch.getParameters(1, row);
+            assertNull(row[0].getTypeDefinition(conn, null));
+        }
+    }
+
+    private static SQLServerConnection connect(FakeTDSServer server) throws Exception {
+        return (SQLServerConnection) DriverManager.getConnection(server.getConnectionString());
+    }
+
+    private static void set(SQLServerConnection conn, Parameter param, JDBCType jdbcType, Object value,
+            JavaType javaType) throws SQLServerException {
+        param.setValue(jdbcType, value, (null == value) ? JavaType.OBJECT : javaType, null, null, null, null, conn,
+                false, SQLServerStatementColumnEncryptionSetting.UseConnectionSetting, 1, "", null);
+    }
+}
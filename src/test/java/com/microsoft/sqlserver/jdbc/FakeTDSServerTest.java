@@ -0,0 +1,172 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Runs the driver end to end against the FakeTDSServer
+ */
+@RunWith(JUnitPlatform.class)
+public class FakeTDSServerTest {
+
+    private static final Column[] ALL_TYPES = {Column.of("ti", ColumnType.TINYINT),
+            Column.of("si", ColumnType.SMALLINT), Column.of("i", ColumnType.INT), Column.of("bi", ColumnType.BIGINT),
+            Column.of("b", ColumnType.BIT), Column.of("r", ColumnType.REAL), Column.of("f", ColumnType.FLOAT),
+            Column.decimal("d", 20, 4), Column.of("nv", ColumnType.NVARCHAR, 50),
+            Column.of("v", ColumnType.VARCHAR, 50), Column.of("vb", ColumnType.VARBINARY, 50)};
+
+    @Test
+    public void testQueryAllTypes() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> "SELECT * FROM t".equals(sql) ? FakeTDSResponse.rows(
+                ALL_TYPES,
+                new Object[] {7, -2, 123456, 1L << 40, true, 1.5f, -2.25, new BigDecimal("-12345678.9012"), "été",
+                        "abc", new byte[] {1, 2, 3}},
+                new Object[ALL_TYPES.length]) : null);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+            assertTrue(rs.next());
+            assertEquals(7, rs.getInt("ti"));
+            assertEquals(-2, rs.getShort("si"));
+            assertEquals(123456, rs.getInt("i"));
+            assertEquals(1L << 40, rs.getLong("bi"));
+            assertTrue(rs.getBoolean("b"));
+            assertEquals(1.5f, rs.getFloat("r"));
+            assertEquals(-2.25, rs.getDouble("f"));
+            assertEquals(new BigDecimal("-12345678.9012"), rs.getBigDecimal("d"));
+            assertEquals("été", rs.getString("nv"));
+            assertEquals("abc", rs.getString("v"));
+            assertArrayEquals(new byte[] {1, 2, 3}, rs.getBytes("vb"));
+
+            assertTrue(rs.next());
+            for (int i = 1; i <= ALL_TYPES.length; i++) {
+                assertNull(rs.getObject(i));
+            }
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testLargeResultSpansPackets() throws Exception {
+        Column[] columns = {Column.of("id", ColumnType.INT), Column.of("name", ColumnType.NVARCHAR, 100)};
+        int rowCount = 50000;
+        try (FakeTDSServer server = FakeTDSServer.start(
+                sql -> FakeTDSResponse.rows(columns, rowCount, i -> new Object[] {i, "row " + i}));
+                Connection conn = DriverManager.getConnection(server.getConnectionString() + "packetSize=512;");
+                Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM big")) {
+            int rows = 0;
+            while (rs.next()) {
+                assertEquals(rows, rs.getInt(1));
+                assertEquals("row " + rows, rs.getString(2));
+                rows++;
+            }
+            assertEquals(rowCount, rows);
+        }
+    }
+
+    @Test
+    public void testUpdateCountsAndErrors() throws Exception {
+        Column[] columns = {Column.of("c", ColumnType.INT)};
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> {
+            switch (sql) {
+                case "UPDATE t SET c = 1":
+                    return FakeTDSResponse.updateCount(42);
+                case "multi":
+                    return FakeTDSResponse.rows(columns, new Object[] {1}).then(FakeTDSResponse.updateCount(3));
+                case "broken":
+                    return FakeTDSResponse.error(50000, "canned failure");
+                default:
+                    return null;
+            }
+        }); Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement()) {
+            assertEquals(42, stmt.executeUpdate("UPDATE t SET c = 1"));
+
+            assertTrue(stmt.execute("multi"));
+            try (ResultSet rs = stmt.getResultSet()) {
+                assertTrue(rs.next());
+                assertEquals(1, rs.getInt(1));
+            }
+            assertFalse(stmt.getMoreResults());
+            assertEquals(3, stmt.getUpdateCount());
+
+            SQLException e = assertThrows(SQLException.class, () -> stmt.execute("broken"));
+            assertEquals(50000, e.getErrorCode());
+            assertEquals("canned failure", e.getMessage());
+
+            e = assertThrows(SQLException.class, () -> stmt.execute("unknown"));
+            assertTrue(e.getMessage().contains("unknown"), e.getMessage());
+
+            // The connection is still usable after errors
+            assertEquals(42, stmt.executeUpdate("UPDATE t SET c = 1"));
+        }
+    }
+
+    @Test
+    public void testPreparedStatementRpcs() throws Exception {
+        Column[] columns = {Column.of("c", ColumnType.INT)};
+        try (FakeTDSServer server = FakeTDSServer.start(
+                sql -> "SELECT c FROM t WHERE c = @P0".equals(sql) ? FakeTDSResponse.rows(columns, new Object[] {5})
+                                                                 : null);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                        .prepareStatement("SELECT c FROM t WHERE c = ?")) {
+            // sp_executesql first, then sp_prepexec, then sp_execute with the prepared handle
+            for (int i = 0; i < 3; i++) {
+                pstmt.setInt(1, 5);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(5, rs.getInt(1));
+                    assertFalse(rs.next());
+                }
+            }
+            assertTrue(pstmt.getPreparedStatementHandle() > 0);
+            assertEquals(3, server.getRequestCount());
+        }
+    }
+
+    @Test
+    public void testBatchedRpcs() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(
+                sql -> sql.startsWith("INSERT INTO t") ? FakeTDSResponse.updateCount(1) : null);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                PreparedStatement pstmt = conn.prepareStatement("INSERT INTO t VALUES (?, ?)")) {
+            for (int i = 0; i < 10; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "value " + i);
+                pstmt.addBatch();
+            }
+            int[] counts = pstmt.executeBatch();
+            assertEquals(10, counts.length);
+            for (int count : counts) {
+                assertEquals(1, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.nio.CharBuffer;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests the getInt, getLong and getDouble paths that read values without boxing them, and the getChars accessors
+ */
+@RunWith(JUnitPlatform.class)
+public class ResultSetPrimitiveAccessorTest {
+
+    private static final Column[] NUMERIC_COLUMNS = {Column.of("ti", ColumnType.TINYINT),
+            Column.of("si", ColumnType.SMALLINT), Column.of("i", ColumnType.INT), Column.of("bi", ColumnType.BIGINT),
+            Column.of("b", ColumnType.BIT), Column.of("r", ColumnType.REAL), Column.of("f", ColumnType.FLOAT),
+            Column.decimal("d", 20, 4), Column.of("nv", ColumnType.NVARCHAR, 20)};
+
+    @Test
+    public void testNumericGetters() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(NUMERIC_COLUMNS,
+                new Object[] {200, -2, -123456, -(1L << 40), true, 1.5f, -2.25, new BigDecimal("12.5"), "42"},
+                new Object[NUMERIC_COLUMNS.length]));
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement();
+                SQLServerResultSet rs = (SQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            assertTrue(rs.next());
+            assertEquals(200, rs.getInt("ti"));
+            assertEquals(-2L, rs.getLong("si"));
+            assertEquals(-123456, rs.getInt("i"));
+            assertEquals(-123456.0, rs.getDouble("i"));
+            assertEquals(-(1L << 40), rs.getLong("bi"));
+            assertEquals((int) -(1L << 40), rs.getInt("bi"));
+            assertEquals(1, rs.getInt("b"));
+            assertEquals(1.5, rs.getDouble("r"));
+            assertEquals(1, rs.getInt("r"));
+            assertEquals(-2.25, rs.getDouble("f"));
+            assertEquals(-2L, rs.getLong("f"));
+            assertEquals(12.5, rs.getDouble("d"));
+            assertEquals(12, rs.getInt("d"));
+            assertEquals(42, rs.getInt("nv"));
+            assertFalse(rs.wasNull());
+
+            // Values can be read again, in any order
+            assertEquals(-123456, rs.getInt(3));
+            assertEquals(200, rs.getInt(1));
+
+            assertTrue(rs.next());
+            for (int i = 1; i <= NUMERIC_COLUMNS.length; i++) {
+                assertEquals(0, rs.getInt(i));
+                assertTrue(rs.wasNull());
+                assertEquals(0L, rs.getLong(i));
+                assertTrue(rs.wasNull());
+                assertEquals(0.0, rs.getDouble(i));
+                assertTrue(rs.wasNull());
+            }
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testGetChars() throws Exception {
+        Column[] columns = {Column.of("id", ColumnType.INT), Column.of("nv", ColumnType.NVARCHAR, 1000),
+                Column.of("v", ColumnType.VARCHAR, 1000)};
+        int rowCount = 200;
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(columns, rowCount,
+                i -> new Object[] {i, (0 == i % 10) ? null : value(i), (0 == i % 10) ? null : "varchar " + i}));
+                Connection conn = DriverManager.getConnection(server.getConnectionString() + "packetSize=512;");
+                Statement stmt = conn.createStatement();
+                SQLServerResultSet rs = (SQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            char[] chars = new char[1001];
+            CharBuffer heapBuffer = CharBuffer.allocate(1000);
+            int rows = 0;
+            while (rs.next()) {
+                int id = rs.getInt(1);
+                if (0 == id % 10) {
+                    assertEquals(-1, rs.getChars(2, chars, 0));
+                    assertTrue(rs.wasNull());
+                    assertEquals(-1, rs.getChars("v", heapBuffer));
+                    assertEquals(0, heapBuffer.position());
+                } else {
+                    // Values of odd byte offsets and lengths cross packet boundaries at every alignment
+                    String expected = value(id);
+                    assertEquals(expected.length(), rs.getChars(2, chars, 1));
+                    assertFalse(rs.wasNull());
+                    assertEquals(expected, new String(chars, 1, expected.length()));
+
+                    heapBuffer.clear();
+                    assertEquals(expected.length(), rs.getChars("nv", heapBuffer));
+                    heapBuffer.flip();
+                    assertEquals(expected, heapBuffer.toString());
+
+                    // VARCHAR values are copied from a String
+                    heapBuffer.clear();
+                    assertEquals(("varchar " + id).length(), rs.getChars(3, heapBuffer));
+                    heapBuffer.flip();
+                    assertEquals("varchar " + id, heapBuffer.toString());
+                }
+                rows++;
+            }
+            assertEquals(rowCount, rows);
+        }
+    }
+
+    @Test
+    public void testGetCharsBufferTooSmall() throws Exception {
+        Column[] columns = {Column.of("nv", ColumnType.NVARCHAR, 100)};
+        try (FakeTDSServer server = FakeTDSServer
+                .start(sql -> FakeTDSResponse.rows(columns, new Object[] {"0123456789"}));
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement();
+                SQLServerResultSet rs = (SQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            assertTrue(rs.next());
+            char[] chars = new char[10];
+            SQLServerException e = assertThrows(SQLServerException.class, () -> rs.getChars(1, chars, 1));
+            assertTrue(e.getMessage().contains("10"), e.getMessage());
+            assertThrows(IndexOutOfBoundsException.class, () -> rs.getChars(1, chars, 11));
+
+            // The value can be read again into a large enough buffer
+            assertEquals(10, rs.getChars(1, chars, 0));
+            assertEquals("0123456789", new String(chars));
+
+            CharBuffer directBuffer = java.nio.ByteBuffer.allocateDirect(40).asCharBuffer();
+            assertEquals(10, rs.getChars(1, directBuffer));
+            directBuffer.flip();
+            assertEquals("0123456789", directBuffer.toString());
+        }
+    }
+
+    private static String value(int i) {
+        StringBuilder value = new StringBuilder();
+        for (int c = 0; c < 3 * i + 1; c++) {
+            value.append((char) ('a' + (c + i) % 26));
+        }
+        value.append('é').append('中');
+        return value.toString();
+    }
+}
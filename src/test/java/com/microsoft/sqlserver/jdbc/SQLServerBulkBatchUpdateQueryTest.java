@@ -0,0 +1,78 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Tests rewriting the statement of a batch into one statement that joins the rows of the batch
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerBulkBatchUpdateQueryTest {
+
+    private static final String DECLARE = "DECLARE @jdbc_batch_rows TABLE ([jdbc_batch_row] int NOT NULL);\n";
+    private static final String SELECT = ";\nSELECT [jdbc_batch_row], COUNT(*) FROM @jdbc_batch_rows GROUP BY "
+            + "[jdbc_batch_row];";
+
+    @Test
+    public void testUpdate() {
+        SQLServerBulkBatchUpdateQuery query = new SQLServerBulkBatchUpdateQuery(
+                "update [dbo].t set a = ?, b = 'x?' /* ? */ where id = ?;");
+        assertEquals(2, query.getParameterCount());
+        assertEquals(DECLARE + "UPDATE [dbo].t SET a = [jdbc_batch].[jdbc_p1], b = 'x?' "
+                + "OUTPUT [jdbc_batch].[jdbc_batch_row] INTO @jdbc_batch_rows FROM [dbo].t INNER JOIN #b AS "
+                + "[jdbc_batch] ON ( id = [jdbc_batch].[jdbc_p2])" + SELECT, query.getStatement("#b"));
+    }
+
+    @Test
+    public void testDelete() {
+        SQLServerBulkBatchUpdateQuery query = new SQLServerBulkBatchUpdateQuery(
+                "DELETE FROM t WHERE id = ? AND v IN (SELECT v FROM u WHERE w = ?)");
+        assertEquals(DECLARE + "DELETE t OUTPUT [jdbc_batch].[jdbc_batch_row] INTO @jdbc_batch_rows FROM t "
+                + "INNER JOIN #b AS [jdbc_batch] ON ( id = [jdbc_batch].[jdbc_p1] AND v IN (SELECT v FROM u WHERE "
+                + "w = [jdbc_batch].[jdbc_p2]))" + SELECT, query.getStatement("#b"));
+    }
+
+    @Test
+    public void testMerge() {
+        SQLServerBulkBatchUpdateQuery query = new SQLServerBulkBatchUpdateQuery(
+                "MERGE INTO t WITH (HOLDLOCK) USING (VALUES (?, ?)) AS s(id, v) ON t.id = s.id WHEN MATCHED "
+                        + "THEN UPDATE SET v = s.v WHEN NOT MATCHED THEN INSERT (id, v) VALUES (s.id, s.v);");
+        assertEquals(DECLARE + "MERGE INTO t WITH (HOLDLOCK) USING (SELECT s.*, [jdbc_batch].[jdbc_batch_row] FROM #b "
+                + "AS [jdbc_batch] CROSS APPLY (VALUES ([jdbc_batch].[jdbc_p1], [jdbc_batch].[jdbc_p2])) AS s(id, v)) "
+                + "AS s ON t.id = s.id WHEN MATCHED THEN UPDATE SET v = s.v WHEN NOT MATCHED THEN INSERT (id, v) "
+                + "VALUES (s.id, s.v) OUTPUT s.[jdbc_batch_row] INTO @jdbc_batch_rows" + SELECT,
+                query.getStatement("#b"));
+    }
+
+    @Test
+    public void testUnsupported() {
+        String[] statements = {"INSERT INTO t VALUES (?)", "UPDATE t SET a = ?", "UPDATE t SET a = 1 WHERE id = 2",
+                "UPDATE TOP (1) t SET a = ? WHERE id = ?", "UPDATE t WITH (ROWLOCK) SET a = ? WHERE id = ?",
+                "UPDATE t SET a = ? FROM t JOIN u ON t.id = u.id WHERE u.id = ?",
+                "UPDATE t SET a = ? OUTPUT inserted.a WHERE id = ?", "UPDATE t SET a = ? WHERE CURRENT OF c",
+                "UPDATE t SET a = ? WHERE id = ? OPTION (RECOMPILE)", "DELETE t WHERE id = ?; SELECT 1",
+                "WITH c AS (SELECT * FROM t) DELETE c WHERE id = ?", "DELETE FROM t WHERE id = ? `",
+                "MERGE t USING u ON t.id = ? WHEN MATCHED THEN DELETE;",
+                "MERGE t USING (SELECT ? AS id) AS s ON t.id = s.id WHEN NOT MATCHED BY SOURCE THEN DELETE;",
+                "MERGE t USING (SELECT 1 AS id) AS s ON t.id = s.id WHEN MATCHED THEN UPDATE SET v = ?;"};
+        for (String sql : statements)
+            assertThrows(IllegalArgumentException.class, () -> new SQLServerBulkBatchUpdateQuery(sql), sql);
+    }
+
+    @Test
+    public void testCreateTable() {
+        assertEquals("CREATE TABLE #b ([jdbc_batch_row] int NOT NULL, [jdbc_p1] int, [jdbc_p2] nvarchar(4000) "
+                + "COLLATE DATABASE_DEFAULT, [jdbc_p3] decimal(38,2))", SQLServerBulkBatchUpdateQuery
+                        .getCreateTable("#b", new String[] {"int", "nvarchar(4000)", "decimal(38,2)"}));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests read-only TYPE_SCROLL_INSENSITIVE result sets scrolled by the driver with
+ * useClientScrollInsensitiveResultSets
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerClientScrollableResultSetTest {
+
+    private static final int ROWS = 2000;
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT),
+            Column.of("name", ColumnType.NVARCHAR, 100)};
+
+    @Test
+    public void testScroll() throws Exception {
+        try (FakeTDSServer server = start()) {
+            checkScroll(server.getConnectionString() + "packetSize=512;useClientScrollInsensitiveResultSets=true;");
+        }
+    }
+
+    @Test
+    public void testScrollArchived() throws Exception {
+        File directory = Files.createTempDirectory("spill").toFile();
+        try (FakeTDSServer server = start()) {
+            // The rows moved past are archived off-heap, or on disk without off-heap memory
+            for (String offHeapLimit : new String[] {"300000", "0"}) {
+                checkScroll(server.getConnectionString() + "packetSize=512;useClientScrollInsensitiveResultSets=true;"
+                        + "responseBufferHeapLimit=4096;responseBufferOffHeapLimit=" + offHeapLimit
+                        + ";responseBufferSpillDirectory=" + directory.getPath() + ";");
+            }
+            assertEquals(0, directory.listFiles().length);
+        } finally {
+            directory.delete();
+        }
+    }
+
+    private static FakeTDSServer start() throws Exception {
+        return FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, ROWS,
+                i -> new Object[] {i + 1, (0 == i % 7) ? null : "a fairly long name for row number " + (i + 1)}));
+    }
+
+    private static void checkScroll(String connectionString) throws SQLException {
+        try (Connection conn = DriverManager.getConnection(connectionString);
+                Statement stmt = conn.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+                ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+            assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, rs.getType());
+
+            assertTrue(rs.last());
+            checkRow(rs, ROWS);
+            assertTrue(rs.first());
+            checkRow(rs, 1);
+            assertTrue(rs.absolute(1500));
+            checkRow(rs, 1500);
+            assertTrue(rs.previous());
+            checkRow(rs, 1499);
+            assertTrue(rs.relative(-700));
+            checkRow(rs, 799);
+            assertTrue(rs.relative(600));
+            checkRow(rs, 1399);
+            assertTrue(rs.absolute(-10));
+            checkRow(rs, ROWS - 9);
+            assertFalse(rs.absolute(ROWS + 1));
+            assertTrue(rs.isAfterLast());
+            assertTrue(rs.previous());
+            checkRow(rs, ROWS);
+
+            Random random = new Random(0);
+            for (int i = 0; i < 200; i++) {
+                int row = 1 + random.nextInt(ROWS);
+                assertTrue(rs.absolute(row));
+                checkRow(rs, row);
+            }
+
+            rs.beforeFirst();
+            for (int row = 1; row <= ROWS; row++) {
+                assertTrue(rs.next());
+                checkRow(rs, row);
+            }
+            assertFalse(rs.next());
+
+            rs.afterLast();
+            for (int row = ROWS; row >= 1; row--) {
+                assertTrue(rs.previous());
+                checkRow(rs, row);
+            }
+            assertFalse(rs.previous());
+        }
+    }
+
+    private static void checkRow(ResultSet rs, int row) throws SQLException {
+        assertEquals(row, rs.getRow());
+        assertEquals(row, rs.getInt(1));
+        assertEquals((1 == row % 7) ? null : "a fairly long name for row number " + row, rs.getString(2));
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.time.LocalTime;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerColumnBatch.VectorType;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests filling columnar batches with ISQLServerResultSet.nextBatch()
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerColumnBatchTest {
+
+    private static final Column[] COLUMNS = {Column.of("i", ColumnType.INT), Column.of("b", ColumnType.BIT),
+            Column.of("bi", ColumnType.BIGINT), Column.of("f", ColumnType.FLOAT),
+            Column.of("nv", ColumnType.NVARCHAR, 50), Column.of("v", ColumnType.VARCHAR, 50),
+            Column.of("vb", ColumnType.VARBINARY, 50), Column.decimal("d", 10, 2)};
+
+    private static Object[] row(int i) {
+        if (0 == i % 7)
+            return new Object[COLUMNS.length];
+        return new Object[] {i, 0 == i % 2, (long) i << 33, i / 4.0, "n" + i, "v" + i, new byte[] {(byte) i, 1},
+                BigDecimal.valueOf(i, 2)};
+    }
+
+    @Test
+    public void testBatches() throws Exception {
+        int rowCount = 150;
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, rowCount,
+                SQLServerColumnBatchTest::row));
+                Connection conn = DriverManager.getConnection(server.getConnectionString() + "packetSize=512;");
+                Statement stmt = conn.createStatement();
+                ISQLServerResultSet rs = (ISQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            int first = 0;
+            SQLServerColumnBatch previous = null;
+            while (true) {
+                SQLServerColumnBatch batch = rs.nextBatch(64);
+                if (null != previous)
+                    assertSame(previous, batch);
+                previous = batch;
+                if (0 == batch.getRowCount())
+                    break;
+
+                assertEquals(COLUMNS.length, batch.getColumnCount());
+                assertEquals(VectorType.INT, batch.getVectorType(1));
+                assertEquals(VectorType.INT, batch.getVectorType(2));
+                assertEquals(VectorType.LONG, batch.getVectorType(3));
+                assertEquals(VectorType.DOUBLE, batch.getVectorType(4));
+                assertEquals(VectorType.STRING, batch.getVectorType(5));
+                assertEquals(VectorType.STRING, batch.getVectorType(6));
+                assertEquals(VectorType.BINARY, batch.getVectorType(7));
+                assertEquals(VectorType.OBJECT, batch.getVectorType(8));
+
+                for (int r = 0; r < batch.getRowCount(); r++) {
+                    int i = first + r;
+                    if (0 == i % 7) {
+                        for (int c = 1; c <= COLUMNS.length; c++)
+                            assertTrue(batch.isNull(c, r));
+
+                        // The entries of null values are cleared, though the batch held another row before
+                        assertEquals(0, batch.getIntVector(1)[r]);
+                        assertEquals(0, batch.getLongVector(3)[r]);
+                        assertEquals(0.0, batch.getDoubleVector(4)[r]);
+                        assertNull(batch.getObjectVector(8)[r]);
+                        assertNull(batch.getString(5, r));
+                        assertEquals(batch.getOffsets(7)[r], batch.getOffsets(7)[r + 1]);
+                        continue;
+                    }
+                    for (int c = 1; c <= COLUMNS.length; c++)
+                        assertFalse(batch.isNull(c, r));
+                    assertEquals(i, batch.getIntVector(1)[r]);
+                    assertEquals(0 == i % 2 ? 1 : 0, batch.getIntVector(2)[r]);
+                    assertEquals((long) i << 33, batch.getLongVector(3)[r]);
+                    assertEquals(i / 4.0, batch.getDoubleVector(4)[r]);
+                    assertEquals("n" + i, batch.getString(5, r));
+                    assertEquals("v" + i, new String(batch.getStringData(6), batch.getOffsets(6)[r],
+                            batch.getOffsets(6)[r + 1] - batch.getOffsets(6)[r]));
+                    int[] offsets = batch.getOffsets(7);
+                    assertArrayEquals(new byte[] {(byte) i, 1},
+                            Arrays.copyOfRange(batch.getBinaryData(7), offsets[r], offsets[r + 1]));
+                    assertEquals(BigDecimal.valueOf(i, 2), batch.getObjectVector(8)[r]);
+                }
+                first += batch.getRowCount();
+            }
+            assertEquals(rowCount, first);
+            assertFalse(rs.next());
+        }
+    }
+
+    @Test
+    public void testBatchAndRowAccess() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, 5,
+                SQLServerColumnBatchTest::row));
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement();
+                ISQLServerResultSet rs = (ISQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            SQLServerColumnBatch batch = rs.nextBatch(2);
+            assertEquals(2, batch.getRowCount());
+            assertTrue(batch.isNull(1, 0));
+            assertEquals(1, batch.getIntVector(1)[1]);
+
+            // The cursor is on the last row of the batch, and row-at-a-time access can be mixed with batches
+            assertEquals("n1", rs.getString(5));
+            assertTrue(rs.next());
+            assertEquals(2, rs.getInt(1));
+
+            SQLServerColumnBatch last = rs.nextBatch(10);
+            assertSame(batch, last);
+            assertEquals(2, last.getRowCount());
+            assertEquals(3, last.getIntVector(1)[0]);
+            assertEquals("n4", last.getString(5, 1));
+            assertEquals(0, rs.nextBatch(10).getRowCount());
+
+            SQLServerException e = assertThrows(SQLServerException.class, () -> last.getLongVector(1));
+            assertTrue(e.getMessage().contains("INT"));
+            assertThrows(SQLServerException.class, () -> last.isNull(COLUMNS.length + 1, 0));
+
+            // Only the rows of the current batch can be read, though the vectors are longer
+            assertEquals(0, last.getRowCount());
+            assertThrows(SQLServerException.class, () -> last.isNull(1, 0));
+            assertThrows(SQLServerException.class, () -> last.getString(5, -1));
+            assertThrows(SQLServerException.class, () -> last.getString(5, 100));
+            assertThrows(SQLServerException.class, () -> rs.nextBatch(0));
+        }
+    }
+
+    @Test
+    public void testTimeKeepsFractionalSeconds() throws Exception {
+        Column[] columns = {Column.of("t", ColumnType.TIME)};
+        LocalTime time = LocalTime.of(13, 45, 30, 123456700);
+        try (FakeTDSServer server = FakeTDSServer
+                .start(sql -> FakeTDSResponse.rows(columns, new Object[] {time}, new Object[] {null}));
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement();
+                ISQLServerResultSet rs = (ISQLServerResultSet) stmt.executeQuery("SELECT * FROM t")) {
+            SQLServerColumnBatch batch = rs.nextBatch(10);
+            assertEquals(2, batch.getRowCount());
+            assertEquals(VectorType.OBJECT, batch.getVectorType(1));
+            assertEquals(time, batch.getObjectVector(1)[0]);
+            assertTrue(batch.isNull(1, 1));
+        }
+    }
+}
@@ -135,6 +135,46 @@ public class SQLServerConnectionTest extends AbstractTest {
         ds.setLastUpdateCount(booleanPropValue);
         assertEquals(booleanPropValue, ds.getLastUpdateCount(), TestResource.getResource("R_valuesAreDifferent"));
 
+        ds.setReadAheadPackets(intPropValue);
+        assertEquals(intPropValue, ds.getReadAheadPackets(), TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setTdsCaptureFile(stringPropValue);
+        assertEquals(stringPropValue, ds.getTdsCaptureFile(), TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setResponseBufferHeapLimit(stringPropValue);
+        assertEquals(stringPropValue, ds.getResponseBufferHeapLimit(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setResponseBufferOffHeapLimit(stringPropValue);
+        assertEquals(stringPropValue, ds.getResponseBufferOffHeapLimit(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setResponseBufferSpillDirectory(stringPropValue);
+        assertEquals(stringPropValue, ds.getResponseBufferSpillDirectory(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setUseSocketChannel(booleanPropValue);
+        assertEquals(booleanPropValue, ds.getUseSocketChannel(), TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setUseClientScrollInsensitiveResultSets(booleanPropValue);
+        assertEquals(booleanPropValue, ds.getUseClientScrollInsensitiveResultSets(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setServerCursorFetchWindow(stringPropValue);
+        assertEquals(stringPropValue, ds.getServerCursorFetchWindow(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setDeferCursorModifications(booleanPropValue);
+        assertEquals(booleanPropValue, ds.getDeferCursorModifications(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setBatchChunkSize(stringPropValue);
+        assertEquals(stringPropValue, ds.getBatchChunkSize(), TestResource.getResource("R_valuesAreDifferent"));
+
+        ds.setUseBulkCopyForBatchUpdate(booleanPropValue);
+        assertEquals(booleanPropValue, ds.getUseBulkCopyForBatchUpdate(),
+                TestResource.getResource("R_valuesAreDifferent"));
+
         ds.setTransparentNetworkIPResolution(booleanPropValue);
         assertEquals(booleanPropValue, ds.getTransparentNetworkIPResolution(),
                 TestResource.getResource("R_valuesAreDifferent"));
@@ -0,0 +1,127 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests the JVM-wide accounting and limit of buffered response packets
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerResultBufferGovernorTest {
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT),
+            Column.of("name", ColumnType.NVARCHAR, 100)};
+
+    @Test
+    public void testAccount() {
+        long before = SQLServerResultBufferGovernor.getBufferedBytes();
+        SQLServerResultBufferGovernor.Account account = new SQLServerResultBufferGovernor.Account();
+        TDSPacket first = new TDSPacket(1000);
+        TDSPacket second = new TDSPacket(500);
+
+        account.acquire(first);
+        account.acquire(second);
+        assertEquals(1500, account.getBytes());
+        assertEquals(before + 1500, SQLServerResultBufferGovernor.getBufferedBytes());
+        assertTrue(SQLServerResultBufferGovernor.getPeakBufferedBytes() >= before + 1500);
+
+        account.release(first);
+        account.release(first);
+        assertEquals(500, account.getBytes());
+        assertEquals(before + 500, SQLServerResultBufferGovernor.getBufferedBytes());
+
+        // Closing gives back the packets that were never read
+        account.close();
+        assertEquals(before, SQLServerResultBufferGovernor.getBufferedBytes());
+        account.release(second);
+        account.acquire(new TDSPacket(100));
+        assertEquals(before, SQLServerResultBufferGovernor.getBufferedBytes());
+    }
+
+    @Test
+    public void testReadLimit() {
+        assertEquals(-1, SQLServerResultBufferGovernor.readLimit(null));
+        assertEquals(-1, SQLServerResultBufferGovernor.readLimit("-1"));
+        assertEquals(4096, SQLServerResultBufferGovernor.readLimit("4096"));
+        assertEquals(2_000_000, SQLServerResultBufferGovernor.readLimit(" 2M "));
+
+        // Invalid values leave the buffers unlimited
+        assertEquals(-1, SQLServerResultBufferGovernor.readLimit("lots"));
+        assertEquals(-1, SQLServerResultBufferGovernor.readLimit("0"));
+    }
+
+    @Test
+    public void testBackpressure() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, 3000,
+                i -> new Object[] {i, "a fairly long name for row number " + i}))) {
+            long before = SQLServerResultBufferGovernor.getBufferedBytes();
+            SQLServerResultBufferGovernor.setLimit(before + 4096);
+            try {
+                long backpressure = SQLServerResultBufferGovernor.getBackpressureCount();
+                try (Connection conn = DriverManager
+                        .getConnection(server.getConnectionString() + "packetSize=512;readAheadPackets=64;");
+                        Statement stmt = conn.createStatement();
+                        ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                    for (int i = 0; i < 3000; i++) {
+                        assertTrue(rs.next());
+                        assertEquals(i, rs.getInt(1));
+                        assertEquals("a fairly long name for row number " + i, rs.getString(2));
+
+                        // Read-ahead stops once the limit is reached, give or take the packets being read
+                        assertTrue(SQLServerResultBufferGovernor.getBufferedBytes() <= before + 4096 + 4 * 512);
+                    }
+                    assertFalse(rs.next());
+                }
+                assertTrue(SQLServerResultBufferGovernor.getBackpressureCount() > backpressure);
+                assertEquals(before, SQLServerResultBufferGovernor.getBufferedBytes());
+            } finally {
+                SQLServerResultBufferGovernor.setLimit(-1);
+            }
+        }
+    }
+
+    @Test
+    public void testFullBufferingIgnoresLimit() throws Exception {
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, 3000,
+                i -> new Object[] {i, "a fairly long name for row number " + i}))) {
+            long before = SQLServerResultBufferGovernor.getBufferedBytes();
+            SQLServerResultBufferGovernor.setLimit(before + 4096);
+            try (Connection conn = DriverManager
+                    .getConnection(server.getConnectionString() + "packetSize=512;responseBuffering=full;");
+                    Statement stmt = conn.createStatement();
+                    ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                // The whole response is read when the statement executes, past the limit
+                assertTrue(SQLServerResultBufferGovernor.getBufferedBytes() > before + 100 * 512);
+                for (int i = 0; i < 3000; i++) {
+                    assertTrue(rs.next());
+                    assertEquals(i, rs.getInt(1));
+                }
+                assertFalse(rs.next());
+            } finally {
+                SQLServerResultBufferGovernor.setLimit(-1);
+            }
+            assertEquals(before, SQLServerResultBufferGovernor.getBufferedBytes());
+        }
+    }
+}
@@ -0,0 +1,195 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.io.File;
+import java.lang.invoke.MethodHandles;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import javax.tools.JavaCompiler;
+import javax.tools.ToolProvider;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests mapping rows to JavaBeans and records with SQLServerRowMapper
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerRowMapperTest {
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT), Column.of("big_id", ColumnType.BIGINT),
+            Column.of("score", ColumnType.FLOAT), Column.of("first_name", ColumnType.NVARCHAR, 50),
+            Column.decimal("amount", 10, 2), Column.of("active", ColumnType.BIT),
+            Column.of("data", ColumnType.VARBINARY, 10), Column.of("unmapped", ColumnType.INT)};
+
+    private static FakeTDSServer startServer() throws Exception {
+        return FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS,
+                new Object[] {1, 1L << 40, 2.5, "Ann", new BigDecimal("12.34"), true, new byte[] {1, 2}, 7},
+                new Object[COLUMNS.length]));
+    }
+
+    public static class Person {
+        public int id;
+        private Long bigId;
+        private double score;
+        private String firstName;
+        private BigDecimal amount;
+        private Boolean active;
+        private byte[] data;
+        public String missing = "initial";
+
+        public void setBigId(Long bigId) {
+            this.bigId = bigId;
+        }
+
+        public void setScore(double score) {
+            this.score = score;
+        }
+
+        public void setFirstName(String firstName) {
+            this.firstName = firstName;
+        }
+
+        public void setAmount(BigDecimal amount) {
+            this.amount = amount;
+        }
+
+        public void setActive(Boolean active) {
+            this.active = active;
+        }
+
+        public void setData(byte[] data) {
+            this.data = data;
+        }
+    }
+
+    static class PackagePrivateBean {
+        int id;
+
+        void setId(int id) {
+            this.id = id;
+        }
+    }
+
+    @Test
+    public void testBean() throws Exception {
+        SQLServerRowMapper<Person> mapper = SQLServerRowMapper.of(Person.class);
+        try (FakeTDSServer server = startServer();
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement()) {
+            for (int query = 0; query < 2; query++) {
+                try (ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                    assertTrue(rs.next());
+                    Person person = mapper.mapRow(rs);
+                    assertEquals(1, person.id);
+                    assertEquals(Long.valueOf(1L << 40), person.bigId);
+                    assertEquals(2.5, person.score);
+                    assertEquals("Ann", person.firstName);
+                    assertEquals(new BigDecimal("12.34"), person.amount);
+                    assertEquals(Boolean.TRUE, person.active);
+                    assertArrayEquals(new byte[] {1, 2}, person.data);
+                    assertEquals("initial", person.missing);
+
+                    assertTrue(rs.next());
+                    person = mapper.mapRow(rs);
+                    assertEquals(0, person.id);
+                    assertNull(person.bigId);
+                    assertEquals(0.0, person.score);
+                    assertNull(person.firstName);
+                    assertNull(person.amount);
+                    assertNull(person.active);
+                    assertNull(person.data);
+                    assertFalse(rs.next());
+                }
+            }
+
+            // Classes that are not public can be mapped with a lookup that has access to them
+            try (ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                assertTrue(rs.next());
+                SQLServerRowMapper<PackagePrivateBean> publicMapper = SQLServerRowMapper.of(PackagePrivateBean.class);
+                assertThrows(SQLServerException.class, () -> publicMapper.mapRow(rs));
+                assertEquals(1, SQLServerRowMapper.of(PackagePrivateBean.class, MethodHandles.lookup()).mapRow(rs).id);
+            }
+        }
+    }
+
+    @Test
+    public void testRecord() throws Exception {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        assumeTrue(null != compiler && !System.getProperty("java.specification.version").startsWith("1.")
+                && Integer.parseInt(System.getProperty("java.specification.version")) >= 16, "Records require Java 16");
+
+        // Records cannot be declared in the test sources, which are compiled for Java 8
+        Path dir = Files.createTempDirectory("records");
+        Path source = dir.resolve("Account.java");
+        Files.write(source, ("public record Account(int id, long bigId, String firstName, java.math.BigDecimal amount,"
+                + " Boolean active) {}").getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, compiler.run(null, null, null, "-d", dir.toString(), source.toString()));
+
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()});
+                FakeTDSServer server = startServer();
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+            Class<?> accountClass = loader.loadClass("Account");
+            SQLServerRowMapper<?> mapper = SQLServerRowMapper.of(accountClass);
+
+            assertTrue(rs.next());
+            assertEquals("Account[id=1, bigId=1099511627776, firstName=Ann, amount=12.34, active=true]",
+                    mapper.mapRow(rs).toString());
+            assertTrue(rs.next());
+            assertEquals("Account[id=0, bigId=0, firstName=null, amount=null, active=null]",
+                    mapper.mapRow(rs).toString());
+        } finally {
+            for (File file : dir.toFile().listFiles())
+                file.delete();
+            dir.toFile().delete();
+        }
+
+        // Every component of a record must have a column
+        Path missing = dir.resolve("Missing.java");
+        Files.createDirectories(dir);
+        Files.write(missing, "public record Missing(int id, int other) {}".getBytes(StandardCharsets.UTF_8));
+        assertEquals(0, compiler.run(null, null, null, "-d", dir.toString(), missing.toString()));
+        try (URLClassLoader loader = new URLClassLoader(new URL[] {dir.toUri().toURL()});
+                FakeTDSServer server = startServer();
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+            SQLServerRowMapper<?> mapper = SQLServerRowMapper.of(loader.loadClass("Missing"));
+            assertTrue(rs.next());
+            SQLServerException e = assertThrows(SQLServerException.class, () -> mapper.mapRow(rs));
+            assertTrue(e.getMessage().contains("other"));
+        } finally {
+            for (File file : dir.toFile().listFiles())
+                file.delete();
+            dir.toFile().delete();
+        }
+    }
+}
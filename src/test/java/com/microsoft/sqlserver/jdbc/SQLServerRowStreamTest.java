@@ -0,0 +1,161 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests the Stream API of statements
+ */
+@RunWith(JUnitPlatform.class)
+public class SQLServerRowStreamTest {
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT),
+            Column.of("name", ColumnType.NVARCHAR, 50), Column.of("data", ColumnType.VARBINARY, 10)};
+
+    private static FakeTDSServer startServer(int rowCount) throws Exception {
+        return FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, rowCount,
+                i -> new Object[] {i, (0 == i % 10) ? null : "row " + i, new byte[] {(byte) i}}));
+    }
+
+    private static String name(SQLServerRow row) {
+        try {
+            return row.getString("name");
+        } catch (SQLServerException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static long id(SQLServerRow row) {
+        try {
+            return row.getLong(1);
+        } catch (SQLServerException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Test
+    public void testSequentialStream() throws Exception {
+        try (FakeTDSServer server = startServer(2500);
+                Connection conn = DriverManager.getConnection(server.getConnectionString() + "packetSize=512;");
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement();
+                Stream<SQLServerRow> rows = stmt.stream("SELECT * FROM t", 100)) {
+            List<SQLServerRow> list = rows.collect(Collectors.toList());
+            assertEquals(2500, list.size());
+
+            // Rows remain valid after the stream has moved past them
+            for (int i = 0; i < list.size(); i++) {
+                SQLServerRow row = list.get(i);
+                assertEquals(3, row.getColumnCount());
+                assertEquals(i, row.getInt("ID"));
+                assertEquals(Integer.valueOf(i), row.getObject(1));
+                assertEquals((0 == i % 10) ? null : "row " + i, row.getString(2));
+                assertEquals(0 == i % 10, row.isNull("name"));
+                assertArrayEquals(new byte[] {(byte) i}, row.getBytes("data"));
+            }
+            assertThrows(SQLServerException.class, () -> list.get(0).findColumn("missing"));
+            assertThrows(SQLServerException.class, () -> list.get(0).getBytes(1));
+
+            // The connection can be used again once the rows have been read
+            try (Stream<SQLServerRow> more = stmt.stream("SELECT * FROM t")) {
+                assertEquals(2500, more.count());
+            }
+        }
+    }
+
+    @Test
+    public void testParallelStream() throws Exception {
+        try (FakeTDSServer server = startServer(10000);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement();
+                Stream<SQLServerRow> rows = stmt.stream("SELECT * FROM t", 256)) {
+            Set<Thread> threads = ConcurrentHashMap.newKeySet();
+            long sum = rows.parallel().filter(row -> null != name(row))
+                    .peek(row -> threads.add(Thread.currentThread())).mapToLong(SQLServerRowStreamTest::id).sum();
+
+            long expected = 0;
+            for (int i = 0; i < 10000; i++)
+                expected += (0 == i % 10) ? 0 : i;
+            assertEquals(expected, sum);
+            assertTrue(threads.size() >= 1);
+        }
+
+        // The encounter order is kept
+        try (FakeTDSServer server = startServer(3000);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement();
+                Stream<SQLServerRow> rows = stmt.stream("SELECT * FROM t", 100)) {
+            List<Long> ids = rows.parallel().map(SQLServerRowStreamTest::id).collect(Collectors.toList());
+            assertEquals(3000, ids.size());
+            for (int i = 0; i < ids.size(); i++)
+                assertEquals(i, ids.get(i).longValue());
+        }
+    }
+
+    @Test
+    public void testCloseAndPreparedStatement() throws Exception {
+        try (FakeTDSServer server = startServer(5000);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                        .prepareStatement("SELECT * FROM t WHERE id > ?")) {
+            pstmt.setInt(1, 0);
+
+            // Closing the stream early discards the rest of the rows and leaves the statement usable
+            try (Stream<SQLServerRow> rows = pstmt.stream(64)) {
+                assertEquals(10, rows.limit(10).count());
+            }
+            assertTrue(pstmt.getResultSet().isClosed());
+
+            try (Stream<SQLServerRow> rows = pstmt.stream()) {
+                assertEquals(5000, rows.count());
+            }
+            assertThrows(SQLServerException.class, () -> pstmt.stream(0));
+        }
+    }
+
+    @Test
+    public void testReadError() throws Exception {
+        try (FakeTDSServer server = startServer(5000);
+                Connection conn = DriverManager.getConnection(server.getConnectionString());
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement();
+                Stream<SQLServerRow> rows = stmt.stream("SELECT * FROM t", 64)) {
+            Iterator<SQLServerRow> iterator = rows.iterator();
+            assertEquals(0, iterator.next().getInt(1));
+
+            // Reading the next batch fails once the connection is closed
+            conn.close();
+            SQLServerUncheckedException e = assertThrows(SQLServerUncheckedException.class, () -> {
+                while (iterator.hasNext())
+                    iterator.next();
+            });
+            assertNotNull(e.getCause());
+            assertTrue(e.getMessage().contains(e.getCause().getMessage()));
+        }
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Records a session with the tdsCaptureFile connection property and replays it
+ */
+@RunWith(JUnitPlatform.class)
+public class TDSCaptureReplayTest {
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT),
+            Column.of("name", ColumnType.NVARCHAR, 100)};
+    private static final int ROWS = 5000;
+
+    private static void verifyRows(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement(); ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+            int rows = 0;
+            while (rs.next()) {
+                assertEquals(rows, rs.getInt(1));
+                assertEquals("row " + rows, rs.getString(2));
+                rows++;
+            }
+            assertEquals(ROWS, rows);
+        }
+    }
+
+    @Test
+    public void testCaptureAndReplay() throws Exception {
+        Path directory = Files.createTempDirectory("tds");
+        String capture = directory.resolve("session.capture").toString();
+        try {
+            Path first;
+            Path second;
+            try (FakeTDSServer server = FakeTDSServer
+                    .start(sql -> FakeTDSResponse.rows(COLUMNS, ROWS, i -> new Object[] {i, "row " + i}));
+                    SQLServerConnection conn = (SQLServerConnection) DriverManager.getConnection(
+                            server.getConnectionString() + "packetSize=512;tdsCaptureFile=" + capture + ";");
+                    SQLServerConnection other = (SQLServerConnection) DriverManager
+                            .getConnection(server.getConnectionString() + "tdsCaptureFile=" + capture + ";")) {
+                verifyRows(conn);
+                first = directory.resolve("session-" + conn.getClientConnectionId() + ".capture");
+                second = directory.resolve("session-" + other.getClientConnectionId() + ".capture");
+            }
+
+            // Connections sharing the property record to separate files
+            assertNotEquals(first, second);
+            assertEquals(2, FakeTDSServer.splitMessages(Files.readAllBytes(second)).size());
+
+            // Prelogin response, login response, then the query response spanning many packets
+            List<byte[]> messages = FakeTDSServer.splitMessages(Files.readAllBytes(first));
+            assertEquals(3, messages.size());
+            assertTrue(messages.get(2).length > 10 * 512);
+
+            try (FakeTDSServer replay = FakeTDSServer.replay(first, 2);
+                    Connection conn = DriverManager.getConnection(replay.getConnectionString() + "packetSize=512;")) {
+                for (int i = 0; i < 5; i++) {
+                    verifyRows(conn);
+                }
+                assertEquals(7, replay.getRequestCount());
+            }
+        } finally {
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : (Iterable<Path>) files::iterator)
+                    Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+    }
+
+    @Test
+    public void testCaptureFileName() {
+        UUID id = UUID.randomUUID();
+        assertEquals("session-" + id + ".tds", TDSChannel.getCaptureFileName("session.tds", id));
+        assertEquals("session-" + id, TDSChannel.getCaptureFileName("session", id));
+        assertEquals("a.b/session-" + id, TDSChannel.getCaptureFileName("a.b/session", id));
+        assertEquals("a/.tds-" + id, TDSChannel.getCaptureFileName("a/.tds", id));
+    }
+
+    @Test
+    public void testCaptureFileCannotBeOpened() throws Exception {
+        Path directory = Files.createTempDirectory("tds");
+        Path capture = directory.resolve("missing").resolve("session.capture");
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.empty())) {
+            SQLException e = assertThrows(SQLException.class, () -> DriverManager
+                    .getConnection(server.getConnectionString() + "tdsCaptureFile=" + capture + ";"));
+            assertTrue(e.getMessage().contains(directory.resolve("missing").toString()), e.getMessage());
+        } finally {
+            Files.delete(directory);
+        }
+    }
+}
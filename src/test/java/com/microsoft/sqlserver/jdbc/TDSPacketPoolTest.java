@@ -0,0 +1,78 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Tests the TDSPacketPool class
+ */
+@RunWith(JUnitPlatform.class)
+public class TDSPacketPoolTest {
+
+    private static final int PACKET_SIZE = 8000;
+
+    @Test
+    public void testReleasedPacketIsReused() {
+        TDSPacketPool pool = new TDSPacketPool("TDSPacketPoolTest");
+        TDSPacket packet = pool.get(PACKET_SIZE);
+        packet.payloadLength = 100;
+        packet.next = new TDSPacket(PACKET_SIZE);
+        packet.retainedGeneration = 3;
+
+        pool.release(packet);
+        assertEquals(1, pool.getPooledPacketCount());
+
+        TDSPacket reused = pool.get(PACKET_SIZE);
+        assertSame(packet, reused);
+        assertEquals(0, reused.payloadLength);
+        assertNull(reused.next);
+        assertEquals(-1, reused.retainedGeneration);
+
+        assertEquals(1, pool.getPacketsAllocated());
+        assertEquals(1, pool.getPacketsReused());
+    }
+
+    @Test
+    public void testPacketSizeChangeEmptiesPool() {
+        TDSPacketPool pool = new TDSPacketPool("TDSPacketPoolTest");
+        TDSPacket packet = pool.get(PACKET_SIZE);
+        pool.release(packet);
+
+        TDSPacket resized = pool.get(2 * PACKET_SIZE);
+        assertNotSame(packet, resized);
+        assertEquals(2 * PACKET_SIZE, resized.payload.length);
+        assertEquals(0, pool.getPooledPacketCount());
+
+        // Packets of the old size are not taken back
+        pool.release(packet);
+        assertEquals(0, pool.getPooledPacketCount());
+        assertEquals(2, pool.getPacketsAllocated());
+    }
+
+    @Test
+    public void testPoolIsBounded() {
+        TDSPacketPool pool = new TDSPacketPool("TDSPacketPoolTest");
+        TDSPacket[] packets = new TDSPacket[TDSPacketPool.MAX_POOLED_PACKETS + 2];
+        for (int i = 0; i < packets.length; i++)
+            packets[i] = pool.get(PACKET_SIZE);
+        for (TDSPacket packet : packets)
+            pool.release(packet);
+
+        assertEquals(TDSPacketPool.MAX_POOLED_PACKETS, pool.getPooledPacketCount());
+
+        pool.clear();
+        assertEquals(0, pool.getPooledPacketCount());
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+
+/**
+ * Tests the TDSPacketPrefetcher class
+ */
+@RunWith(JUnitPlatform.class)
+public class TDSPacketPrefetcherTest {
+
+    private static final int PACKET_SIZE = 512;
+
+    /**
+     * Produces numbered packets for a sequence of messages of the given lengths
+     */
+    static class FakeSource implements TDSPacketPrefetcher.PacketSource {
+        final int[] messageLengths;
+        final int failAt;
+        int message = 0;
+        int packetInMessage = 0;
+        volatile int packetsRead = 0;
+
+        FakeSource(int failAt, int... messageLengths) {
+            this.failAt = failAt;
+            this.messageLengths = messageLengths;
+        }
+
+        @Override
+        public void readPacket(TDSPacket packet, int packetNum) throws SQLServerException {
+            assertEquals(packetInMessage, packetNum);
+            if (packetsRead == failAt)
+                throw new SQLServerException("read failed", null, 0, null);
+
+            packet.payload[0] = (byte) packetsRead++;
+            packet.payloadLength = 1;
+            boolean eom = ++packetInMessage == messageLengths[message];
+            packet.header[TDS.PACKET_HEADER_MESSAGE_STATUS] = eom ? TDS.STATUS_BIT_EOM : 0;
+            if (eom) {
+                ++message;
+                packetInMessage = 0;
+            }
+        }
+    }
+
+    private static TDSPacketPrefetcher prefetcher(FakeSource source, java.util.concurrent.Executor executor,
+            int maxPackets) {
+        return new TDSPacketPrefetcher("TDSPacketPrefetcherTest", source, new TDSPacketPool("TDSPacketPrefetcherTest"),
+                new SQLServerResultBufferGovernor.Account(), executor, maxPackets);
+    }
+
+    @Test
+    public void testReadsAheadUpToMaxPackets() throws SQLServerException {
+        FakeSource source = new FakeSource(-1, 10);
+        TDSPacketPrefetcher prefetcher = prefetcher(source, Runnable::run, 4);
+
+        assertEquals(0, prefetcher.take(PACKET_SIZE).payload[0]);
+        assertEquals(4, source.packetsRead);
+        assertEquals(3, prefetcher.getQueuedPacketCount());
+
+        // Fetching resumes once half of the queue has been taken
+        assertEquals(1, prefetcher.take(PACKET_SIZE).payload[0]);
+        assertEquals(6, source.packetsRead);
+
+        for (int i = 2; i < 10; i++) {
+            TDSPacket packet = prefetcher.take(PACKET_SIZE);
+            assertEquals(i, packet.payload[0]);
+            assertEquals(9 == i, packet.isEOM());
+        }
+        assertEquals(10, source.packetsRead);
+    }
+
+    @Test
+    public void testStopsAtEndOfMessage() throws SQLServerException {
+        FakeSource source = new FakeSource(-1, 2, 3);
+        TDSPacketPrefetcher prefetcher = prefetcher(source, Runnable::run, 8);
+
+        assertEquals(0, prefetcher.take(PACKET_SIZE).payload[0]);
+        assertTrue(prefetcher.take(PACKET_SIZE).isEOM());
+
+        // Nothing of the next message is read until the reader asks for it
+        assertEquals(2, source.packetsRead);
+        assertEquals(0, prefetcher.getQueuedPacketCount());
+
+        assertEquals(2, prefetcher.take(PACKET_SIZE).payload[0]);
+        assertEquals(5, source.packetsRead);
+    }
+
+    @Test
+    public void testReadFailureIsThrownToReader() throws SQLServerException {
+        FakeSource source = new FakeSource(2, 10);
+        TDSPacketPrefetcher prefetcher = prefetcher(source, Runnable::run, 8);
+
+        assertEquals(0, prefetcher.take(PACKET_SIZE).payload[0]);
+        assertEquals(1, prefetcher.take(PACKET_SIZE).payload[0]);
+        SQLServerException e = assertThrows(SQLServerException.class, () -> prefetcher.take(PACKET_SIZE));
+        assertSame(e, assertThrows(SQLServerException.class, () -> prefetcher.take(PACKET_SIZE)));
+    }
+
+    @Test
+    public void testFallsBackToReaderThread() throws SQLServerException {
+        AtomicReference<TDSPacketPrefetcher> holder = new AtomicReference<>();
+        FakeSource source = new FakeSource(-1, 3) {
+            @Override
+            public void readPacket(TDSPacket packet, int packetNum) throws SQLServerException {
+                // The reader's thread does not hold the lock while it reads, so other threads are not blocked
+                try {
+                    CompletableFuture.supplyAsync(holder.get()::getQueuedPacketCount).get(1, TimeUnit.MINUTES);
+                } catch (InterruptedException | ExecutionException | TimeoutException e) {
+                    fail(e.toString());
+                }
+                super.readPacket(packet, packetNum);
+            }
+        };
+        holder.set(prefetcher(source, task -> {
+            throw new RejectedExecutionException();
+        }, 8));
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i, holder.get().take(PACKET_SIZE).payload[0]);
+            assertEquals(i + 1, source.packetsRead);
+        }
+    }
+
+    @Test
+    public void testBackgroundFetch() throws SQLServerException {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            FakeSource source = new FakeSource(-1, 100, 1, 50);
+            TDSPacketPrefetcher prefetcher = prefetcher(source, executor, 4);
+
+            int expected = 0;
+            for (int length : source.messageLengths) {
+                for (int i = 0; i < length; i++) {
+                    TDSPacket packet = prefetcher.take(PACKET_SIZE);
+                    assertEquals((byte) expected++, packet.payload[0]);
+                    assertEquals(length - 1 == i, packet.isEOM());
+                    assertTrue(prefetcher.getQueuedPacketCount() <= 4);
+                }
+            }
+            assertFalse(source.packetsRead > expected);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
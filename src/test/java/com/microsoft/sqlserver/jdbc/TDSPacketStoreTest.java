@@ -0,0 +1,149 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+
+package com.microsoft.sqlserver.jdbc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.testframework.FakeTDSResponse;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.Column;
+import com.microsoft.sqlserver.testframework.FakeTDSResponse.ColumnType;
+import com.microsoft.sqlserver.testframework.FakeTDSServer;
+
+
+/**
+ * Tests buffering response packets on the heap, off-heap and on disk with TDSPacketStore
+ */
+@RunWith(JUnitPlatform.class)
+public class TDSPacketStoreTest {
+
+    private static final int PACKET_SIZE = 8000;
+
+    private static final Column[] COLUMNS = {Column.of("id", ColumnType.INT),
+            Column.of("name", ColumnType.NVARCHAR, 100)};
+
+    private static TDSPacket packet(int value) {
+        TDSPacket packet = new TDSPacket(PACKET_SIZE);
+        packet.payloadLength = PACKET_SIZE - (value % 100);
+        for (int i = 0; i < packet.payloadLength; i++)
+            packet.payload[i] = (byte) (value + i);
+        return packet;
+    }
+
+    @Test
+    public void testTiers() throws Exception {
+        File directory = Files.createTempDirectory("spill").toFile();
+        TDSPacketStore store = new TDSPacketStore("TDSPacketStoreTest", 2 * PACKET_SIZE, TDSPacketStore.SEGMENT_SIZE,
+                directory.getPath());
+        try {
+            int offHeapPackets = TDSPacketStore.SEGMENT_SIZE / PACKET_SIZE;
+            TDSPacket[] packets = new TDSPacket[2 + offHeapPackets + 3];
+            for (int i = 0; i < packets.length; i++) {
+                packets[i] = packet(i);
+                store.store(packets[i]);
+            }
+
+            for (int i = 0; i < packets.length; i++) {
+                TDSPacketStore.Tier expected = (i < 2) ? TDSPacketStore.Tier.HEAP
+                                                       : (i < 2 + offHeapPackets) ? TDSPacketStore.Tier.OFF_HEAP
+                                                                                  : TDSPacketStore.Tier.DISK;
+                assertEquals(expected, packets[i].tier);
+                assertEquals(TDSPacketStore.Tier.HEAP == expected, null != packets[i].payload);
+            }
+            assertEquals(2 * PACKET_SIZE, store.getHeapBytes());
+            assertEquals(TDSPacketStore.SEGMENT_SIZE, store.getOffHeapBytes());
+            assertEquals(offHeapPackets, store.getPacketsStoredOffHeap());
+            assertEquals(3, store.getPacketsSpilled());
+
+            for (int i = 0; i < packets.length; i++) {
+                store.load(packets[i], PACKET_SIZE);
+                assertNull(packets[i].tier);
+                assertEquals(PACKET_SIZE, packets[i].payload.length);
+                for (int j = 0; j < packets[i].payloadLength; j++)
+                    assertEquals((byte) (i + j), packets[i].payload[j]);
+            }
+            assertEquals(0, store.getHeapBytes());
+
+            // The empty segment is reused
+            store.store(packet(0));
+            store.store(packet(1));
+            TDSPacket offHeap = packet(2);
+            store.store(offHeap);
+            assertEquals(TDSPacketStore.Tier.OFF_HEAP, offHeap.tier);
+            assertEquals(TDSPacketStore.SEGMENT_SIZE, store.getOffHeapBytes());
+        } finally {
+            store.close();
+        }
+
+        // The spill file is deleted when the store is closed
+        assertEquals(0, directory.listFiles().length);
+        directory.delete();
+    }
+
+    @Test
+    public void testBufferedResponse() throws Exception {
+        File directory = Files.createTempDirectory("spill").toFile();
+        try (FakeTDSServer server = FakeTDSServer.start(sql -> FakeTDSResponse.rows(COLUMNS, 5000,
+                i -> new Object[] {i, (0 == i % 7) ? null : "a fairly long name for row number " + i}))) {
+            String connectionString = server.getConnectionString()
+                    + "packetSize=512;responseBufferHeapLimit=4096;responseBufferOffHeapLimit=300000;"
+                    + "responseBufferSpillDirectory=" + directory.getPath() + ";";
+
+            try (Connection conn = DriverManager.getConnection(connectionString + "responseBuffering=full;");
+                    Statement stmt = conn.createStatement()) {
+                for (int query = 0; query < 2; query++) {
+                    // The whole response is buffered, most of it off-heap and on disk
+                    try (ResultSet rs = stmt.executeQuery("SELECT * FROM t")) {
+                        checkRows(rs, 5000);
+                    }
+                }
+            }
+            assertEquals(0, directory.listFiles().length);
+
+            // An unread response is buffered the same way when the next command executes
+            try (Connection conn = DriverManager.getConnection(connectionString);
+                    Statement stmt1 = conn.createStatement(); Statement stmt2 = conn.createStatement();
+                    ResultSet rs1 = stmt1.executeQuery("SELECT * FROM t")) {
+                assertTrue(rs1.next());
+                try (ResultSet rs2 = stmt2.executeQuery("SELECT * FROM t")) {
+                    checkRows(rs2, 5000);
+                }
+                assertEquals(0, rs1.getInt(1));
+                checkRows(rs1, 4999);
+            }
+            assertEquals(0, directory.listFiles().length);
+
+            assertThrows(SQLServerException.class,
+                    () -> DriverManager.getConnection(server.getConnectionString() + "responseBufferHeapLimit=x;"));
+        } finally {
+            directory.delete();
+        }
+    }
+
+    private static void checkRows(ResultSet rs, int count) throws SQLException {
+        for (int i = 5000 - count; i < 5000; i++) {
+            assertTrue(rs.next());
+            assertEquals(i, rs.getInt(1));
+            assertEquals((0 == i % 7) ? null : "a fairly long name for row number " + i, rs.getString(2));
+        }
+        assertFalse(rs.next());
+    }
+}
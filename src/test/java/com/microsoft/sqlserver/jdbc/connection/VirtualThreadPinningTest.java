@@ -0,0 +1,143 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.connection;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerStatement;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Constants;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+
+
+/**
+ * Runs thousands of virtual threads through a few shared connections and reports every virtual thread pinning event
+ * raised while a driver frame was on the stack. Threads sharing a connection queue up on its command scheduler while
+ * another thread is blocked in socket I/O, and some of them cancel their statements, so the scheduler, packet reading
+ * and interrupt paths are all exercised under contention. Requires a Java 21 or later JVM.
+ */
+@RunWith(JUnitPlatform.class)
+@Tag("slow")
+@Tag(Constants.xJDBC42)
+public class VirtualThreadPinningTest extends AbstractTest {
+
+    private static final int THREADS = 2000;
+    private static final int CONNECTIONS = 8;
+    private static final String DRIVER_PACKAGE = "com.microsoft.sqlserver.jdbc.";
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Returns the stack trace of a pinning event if it has a driver frame, or null otherwise
+     */
+    private static String driverStackTrace(List<RecordedFrame> frames) {
+        boolean inDriver = false;
+        StringBuilder trace = new StringBuilder();
+        for (RecordedFrame frame : frames) {
+            String type = frame.getMethod().getType().getName();
+            inDriver |= type.startsWith(DRIVER_PACKAGE);
+            trace.append("\n\tat ").append(type).append('.').append(frame.getMethod().getName()).append(':')
+                    .append(frame.getLineNumber());
+        }
+        return inDriver ? trace.toString() : null;
+    }
+
+    @Test
+    public void testNoPinningInDriver() throws Exception {
+        ExecutorService executor = newVirtualThreadPerTaskExecutor();
+        Assumptions.assumeTrue(null != executor, "virtual threads require Java 21 or later");
+
+        List<String> pinnedTraces = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger pinnedEvents = new AtomicInteger();
+        List<Connection> connections = new ArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                pinnedEvents.incrementAndGet();
+                String trace = null == event.getStackTrace() ? null
+                                                              : driverStackTrace(event.getStackTrace().getFrames());
+                if (null != trace)
+                    pinnedTraces.add(trace);
+            });
+            recording.startAsync();
+
+            for (int i = 0; i < CONNECTIONS; i++) {
+                connections.add(getConnection());
+            }
+
+            AtomicInteger rowsRead = new AtomicInteger();
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                final Connection conn = connections.get(i % CONNECTIONS);
+                final boolean cancel = 0 == i % 10;
+                futures.add(executor.submit(() -> {
+                    try (Statement stmt = conn.createStatement()) {
+                        if (cancel) {
+                            ((SQLServerStatement) stmt).setQueryTimeout(1);
+                            try {
+                                stmt.execute("WAITFOR DELAY '00:00:03'");
+                            } catch (SQLException e) {
+                                // Expected query timeout
+                            }
+                            return null;
+                        }
+                        try (ResultSet rs = stmt.executeQuery("SELECT TOP 200 a.name FROM sys.all_objects a")) {
+                            while (rs.next()) {
+                                rowsRead.incrementAndGet();
+                            }
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.MINUTES);
+            }
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES));
+            assertEquals(THREADS - THREADS / 10, rowsRead.get() / 200);
+
+            // Let the recording flush the events of the last threads before it is closed
+            Thread.sleep(2000);
+        } finally {
+            for (Connection conn : connections) {
+                conn.close();
+            }
+        }
+
+        assertTrue(pinnedTraces.isEmpty(), pinnedTraces.size() + " of " + pinnedEvents.get()
+                + " virtual thread pinning events in driver:" + String.join("\n", pinnedTraces));
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.resultset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.SQLServerPreparedStatement;
+import com.microsoft.sqlserver.jdbc.SQLServerResultSetPublisher;
+import com.microsoft.sqlserver.jdbc.SQLServerStatement;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+import com.microsoft.sqlserver.testframework.Constants;
+
+
+/**
+ * Tests the Flow.Publisher of result set rows
+ */
+@RunWith(JUnitPlatform.class)
+@Tag(Constants.xJDBC42)
+public class ResultSetPublisherTest extends AbstractTest {
+
+    private static final String NUMBERS_QUERY = "SELECT TOP (?) ROW_NUMBER() OVER (ORDER BY a.object_id) "
+            + "FROM sys.all_objects a CROSS JOIN sys.all_objects b";
+
+    /**
+     * Subscriber that requests rows in fixed size chunks and records what it receives
+     */
+    static class ChunkedSubscriber implements Flow.Subscriber<Integer> {
+        final List<Integer> rows = Collections.synchronizedList(new ArrayList<>());
+        final CountDownLatch terminated = new CountDownLatch(1);
+        final int chunkSize;
+        final int cancelAfter;
+        volatile Throwable error;
+        volatile boolean completed;
+        Flow.Subscription subscription;
+        int receivedInChunk;
+
+        ChunkedSubscriber(int chunkSize, int cancelAfter) {
+            this.chunkSize = chunkSize;
+            this.cancelAfter = cancelAfter;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(chunkSize);
+        }
+
+        @Override
+        public void onNext(Integer item) {
+            rows.add(item);
+            if (rows.size() == cancelAfter) {
+                subscription.cancel();
+                terminated.countDown();
+                return;
+            }
+            if (++receivedInChunk == chunkSize) {
+                receivedInChunk = 0;
+                subscription.request(chunkSize);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            error = throwable;
+            terminated.countDown();
+        }
+
+        @Override
+        public void onComplete() {
+            completed = true;
+            terminated.countDown();
+        }
+    }
+
+    @Test
+    public void testPublishAllRows() throws Exception {
+        try (Connection conn = getConnection(); SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                .prepareStatement(NUMBERS_QUERY)) {
+            pstmt.setInt(1, 10000);
+            ChunkedSubscriber subscriber = new ChunkedSubscriber(64, -1);
+            SQLServerResultSetPublisher.publish(pstmt, rs -> (int) rs.getLong(1)).subscribe(subscriber);
+
+            assertTrue(subscriber.terminated.await(60, TimeUnit.SECONDS));
+            assertNull(subscriber.error);
+            assertTrue(subscriber.completed);
+            assertEquals(10000, subscriber.rows.size());
+            for (int i = 0; i < subscriber.rows.size(); i++) {
+                assertEquals(i + 1, subscriber.rows.get(i).intValue());
+            }
+        }
+    }
+
+    @Test
+    public void testCancelSubscription() throws Exception {
+        try (Connection conn = getConnection(); SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                .prepareStatement(NUMBERS_QUERY)) {
+            pstmt.setInt(1, 1000000);
+            ChunkedSubscriber subscriber = new ChunkedSubscriber(100, 250);
+            SQLServerResultSetPublisher.publish(pstmt, rs -> (int) rs.getLong(1)).subscribe(subscriber);
+
+            assertTrue(subscriber.terminated.await(60, TimeUnit.SECONDS));
+            Thread.sleep(500);
+            assertNull(subscriber.error);
+            assertFalse(subscriber.completed);
+            assertEquals(250, subscriber.rows.size());
+        }
+    }
+
+    @Test
+    public void testSecondSubscriberIsRejected() throws Exception {
+        try (Connection conn = getConnection();
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            SQLServerResultSetPublisher<Integer> publisher = SQLServerResultSetPublisher.publish(stmt, "SELECT 1",
+                    rs -> rs.getInt(1));
+
+            ChunkedSubscriber first = new ChunkedSubscriber(1, -1);
+            publisher.subscribe(first);
+            assertTrue(first.terminated.await(60, TimeUnit.SECONDS));
+            assertTrue(first.completed);
+
+            ChunkedSubscriber second = new ChunkedSubscriber(1, -1);
+            publisher.subscribe(second);
+            assertTrue(second.terminated.await(60, TimeUnit.SECONDS));
+            assertTrue(second.error instanceof IllegalStateException);
+        }
+    }
+}
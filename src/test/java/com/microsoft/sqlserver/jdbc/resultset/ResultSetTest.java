@@ -41,6 +41,7 @@ import com.microsoft.sqlserver.jdbc.TestUtils;
 import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
 import com.microsoft.sqlserver.testframework.AbstractTest;
 import com.microsoft.sqlserver.testframework.Constants;
+import com.microsoft.sqlserver.testframework.PrepUtil;
 
 
 @RunWith(JUnitPlatform.class)
@@ -514,6 +515,66 @@ public class ResultSetTest extends AbstractTest {
         }
     }
 
+    /**
+     * Tests insertRow, updateRow and deleteRow queued with deferCursorModifications
+     * 
+     * @throws SQLException
+     */
+    @Test
+    @Tag(Constants.xAzureSQLDW)
+    public void testDeferCursorModifications() throws SQLException {
+        try (Connection con = PrepUtil.getConnection(connectionString + ";deferCursorModifications=true");
+                Statement stmt = con.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE)) {
+            stmt.executeUpdate("create table " + AbstractSQLGenerator.escapeIdentifier(tableName)
+                    + " (col1 int primary key, col2 varchar(255))");
+            try {
+                for (int i = 0; i < 3; i++)
+                    stmt.executeUpdate("insert into " + AbstractSQLGenerator.escapeIdentifier(tableName) + " values("
+                            + i + ", 'row " + i + "')");
+
+                con.setAutoCommit(false);
+                try (ResultSet rs = stmt
+                        .executeQuery("select * from " + AbstractSQLGenerator.escapeIdentifier(tableName))) {
+                    assertTrue(rs.absolute(1));
+                    rs.updateString(2, "updated");
+                    rs.updateRow();
+                    assertTrue(rs.absolute(2));
+                    rs.deleteRow();
+
+                    rs.moveToInsertRow();
+                    rs.updateInt(1, 3);
+                    rs.updateString(2, "inserted");
+                    rs.insertRow();
+                    rs.moveToCurrentRow();
+
+                    // Nothing has been sent yet
+                    try (Statement check = con.createStatement(); ResultSet count = check.executeQuery(
+                            "select count(*) from " + AbstractSQLGenerator.escapeIdentifier(tableName))) {
+                        assertTrue(count.next());
+                        assertEquals(3, count.getInt(1));
+                    }
+
+                    ((ISQLServerResultSet) rs).flushCursorModifications();
+                }
+                con.commit();
+                con.setAutoCommit(true);
+
+                try (ResultSet rs = stmt.executeQuery(
+                        "select * from " + AbstractSQLGenerator.escapeIdentifier(tableName) + " order by col1")) {
+                    assertTrue(rs.next());
+                    assertEquals("updated", rs.getString(2));
+                    assertTrue(rs.next());
+                    assertEquals(2, rs.getInt(1));
+                    assertTrue(rs.next());
+                    assertEquals("inserted", rs.getString(2));
+                    assertFalse(rs.next());
+                }
+            } finally {
+                TestUtils.dropTableIfExists(AbstractSQLGenerator.escapeIdentifier(tableName), stmt);
+            }
+        }
+    }
+
     @Test
     @Tag(Constants.xAzureSQLDW)
     public void testMultipleResultSets() throws SQLException {
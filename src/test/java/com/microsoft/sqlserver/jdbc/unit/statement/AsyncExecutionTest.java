@@ -0,0 +1,112 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.jdbc.unit.statement;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.platform.runner.JUnitPlatform;
+import org.junit.runner.RunWith;
+
+import com.microsoft.sqlserver.jdbc.RandomUtil;
+import com.microsoft.sqlserver.jdbc.SQLServerException;
+import com.microsoft.sqlserver.jdbc.SQLServerPreparedStatement;
+import com.microsoft.sqlserver.jdbc.SQLServerStatement;
+import com.microsoft.sqlserver.jdbc.TestUtils;
+import com.microsoft.sqlserver.testframework.AbstractSQLGenerator;
+import com.microsoft.sqlserver.testframework.AbstractTest;
+
+
+/**
+ * Tests the CompletableFuture based statement execution APIs
+ */
+@RunWith(JUnitPlatform.class)
+public class AsyncExecutionTest extends AbstractTest {
+
+    @Test
+    public void testExecuteQueryAsync() throws Exception {
+        try (Connection conn = getConnection();
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            CompletableFuture<ResultSet> future = stmt.executeQueryAsync("SELECT 42");
+            try (ResultSet rs = future.get(30, TimeUnit.SECONDS)) {
+                assertTrue(rs.next());
+                assertEquals(42, rs.getInt(1));
+            }
+        }
+    }
+
+    @Test
+    public void testExecuteUpdateAsync() throws Exception {
+        String tableName = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("AsyncExecution"));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (Connection conn = getConnection();
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            try {
+                TestUtils.dropTableIfExists(tableName, stmt);
+                stmt.executeUpdate("CREATE TABLE " + tableName + " (c1 int)");
+
+                assertEquals(Integer.valueOf(1),
+                        stmt.executeUpdateAsync("INSERT INTO " + tableName + " VALUES (1)").get(30, TimeUnit.SECONDS));
+
+                try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                        .prepareStatement("INSERT INTO " + tableName + " VALUES (?)")) {
+                    pstmt.setInt(1, 2);
+                    assertEquals(Integer.valueOf(1), pstmt.executeUpdateAsync(executor).get(30, TimeUnit.SECONDS));
+                }
+
+                try (SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) conn
+                        .prepareStatement("SELECT COUNT(*) FROM " + tableName);
+                        ResultSet rs = pstmt.executeQueryAsync(executor).get(30, TimeUnit.SECONDS)) {
+                    assertTrue(rs.next());
+                    assertEquals(2, rs.getInt(1));
+                }
+            } finally {
+                TestUtils.dropTableIfExists(tableName, stmt);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testExecutionErrorCompletesExceptionally() throws Exception {
+        try (Connection conn = getConnection();
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            CompletableFuture<ResultSet> future = stmt.executeQueryAsync("SELECT * FROM NonExistentTable_Async");
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(30, TimeUnit.SECONDS));
+            assertTrue(e.getCause() instanceof SQLServerException);
+        }
+    }
+
+    @Test
+    public void testCancelFutureCancelsStatement() throws Exception {
+        try (Connection conn = getConnection();
+                SQLServerStatement stmt = (SQLServerStatement) conn.createStatement()) {
+            CompletableFuture<Integer> future = stmt.executeUpdateAsync("WAITFOR DELAY '00:00:30'");
+            Thread.sleep(1000);
+            assertTrue(future.cancel(true));
+            assertThrows(CancellationException.class, () -> future.get());
+
+            // The connection waits for the cancelled execution to finish, which it does well before the delay ends
+            long start = System.currentTimeMillis();
+            try (Statement stmt2 = conn.createStatement(); ResultSet rs = stmt2.executeQuery("SELECT 1")) {
+                assertTrue(rs.next());
+            }
+            assertTrue(System.currentTimeMillis() - start < 30000);
+        }
+    }
+}
@@ -4,15 +4,20 @@
  */
 package com.microsoft.sqlserver.jdbc.unit.statement;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.fail;
 
 import java.lang.reflect.Field;
+import java.sql.BatchUpdateException;
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.Arrays;
 
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -59,6 +64,178 @@ public class BatchExecutionTest extends AbstractTest {
         testExecuteBatch1UseBulkCopyAPI();
     }
 
+    /**
+     * Tests a batch split into requests of about batchChunkSize bytes
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testBatchChunkSize() throws Exception {
+        String table = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("batchChunk"));
+        try (Connection con = PrepUtil.getConnection(connectionString + ";batchChunkSize=4096;");
+                Statement stmt = con.createStatement()) {
+            stmt.execute("create table " + table + " (id int primary key, name varchar(64))");
+            try {
+                try (PreparedStatement pstmt = con.prepareStatement("insert into " + table + " values (?, ?)")) {
+                    for (int i = 0; i < 1000; i++) {
+                        pstmt.setInt(1, i);
+                        pstmt.setString(2, "row " + i);
+                        pstmt.addBatch();
+                    }
+
+                    int[] updateCounts = pstmt.executeBatch();
+                    assertEquals(1000, updateCounts.length);
+                    for (int updateCount : updateCounts)
+                        assertEquals(1, updateCount);
+                }
+
+                try (ResultSet rs = stmt.executeQuery("select count(*) from " + table)) {
+                    assertTrue(rs.next());
+                    assertEquals(1000, rs.getInt(1));
+                }
+            } finally {
+                TestUtils.dropTableIfExists(table, stmt);
+            }
+        }
+    }
+
+    /**
+     * Tests batches of UPDATE, DELETE and MERGE statements bulk copied into a temporary table
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testUseBulkCopyForBatchUpdate() throws Exception {
+        String table = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("batchUpdate"));
+        try (Connection con = PrepUtil.getConnection(connectionString + ";useBulkCopyForBatchUpdate=true;");
+                Statement stmt = con.createStatement()) {
+            stmt.execute("create table " + table + " (id int primary key, name nvarchar(64))");
+            try {
+                stmt.execute("insert into " + table + " values (1, 'a'), (2, 'b'), (3, 'c')");
+
+                try (PreparedStatement pstmt = con
+                        .prepareStatement("update " + table + " set name = ? where id = ?")) {
+                    for (int i = 1; i <= 4; i++) {
+                        pstmt.setString(1, "row " + i);
+                        pstmt.setInt(2, i);
+                        pstmt.addBatch();
+                    }
+                    assertArrayEquals(new int[] {1, 1, 1, 0}, pstmt.executeBatch());
+                }
+
+                try (PreparedStatement pstmt = con.prepareStatement("merge " + table
+                        + " using (values (?, ?)) as s(id, name) on " + table + ".id = s.id"
+                        + " when matched then update set name = s.name"
+                        + " when not matched then insert (id, name) values (s.id, s.name);")) {
+                    for (int i = 3; i <= 5; i++) {
+                        pstmt.setInt(1, i);
+                        pstmt.setString(2, "merged " + i);
+                        pstmt.addBatch();
+                    }
+                    assertArrayEquals(new long[] {1, 1, 1}, pstmt.executeLargeBatch());
+                }
+
+                try (PreparedStatement pstmt = con.prepareStatement("delete from " + table + " where id = ?")) {
+                    for (int i = 0; i <= 2; i++) {
+                        pstmt.setInt(1, i);
+                        pstmt.addBatch();
+                    }
+                    assertArrayEquals(new int[] {0, 1, 1}, pstmt.executeBatch());
+                }
+
+                try (ResultSet rs = stmt.executeQuery("select id, name from " + table + " order by id")) {
+                    for (int i = 3; i <= 5; i++) {
+                        assertTrue(rs.next());
+                        assertEquals(i, rs.getInt(1));
+                        assertEquals("merged " + i, rs.getString(2));
+                    }
+                    assertFalse(rs.next());
+                }
+            } finally {
+                TestUtils.dropTableIfExists(table, stmt);
+            }
+        }
+    }
+
+    /**
+     * Tests executing different prepared statements in one request with executePreparedStatements
+     * 
+     * @throws Exception
+     */
+    @Test
+    public void testExecutePreparedStatements() throws Exception {
+        String header = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("header"));
+        String lines = AbstractSQLGenerator.escapeIdentifier(RandomUtil.getIdentifier("lines"));
+        try (SQLServerConnection con = PrepUtil.getConnection(connectionString);
+                Statement stmt = con.createStatement()) {
+            stmt.execute("create table " + header + " (id int primary key, total int)");
+            stmt.execute("create table " + lines + " (id int, line int, amount int, primary key (id, line))");
+            try (PreparedStatement insertHeader = con.prepareStatement("insert into " + header + " values (?, 0)");
+                    PreparedStatement insertLines = con
+                            .prepareStatement("insert into " + lines + " values (?, 1, ?), (?, 2, ?)");
+                    PreparedStatement insertLine = con.prepareStatement("insert into " + lines + " values (?, ?, ?)");
+                    PreparedStatement updateTotal = con.prepareStatement("update " + header
+                            + " set total = (select sum(amount) from " + lines + " where id = ?) where id = ?");
+                    PreparedStatement select = con.prepareStatement("select * from " + header + " where id = ?")) {
+                for (int id = 1; id <= 2; id++) {
+                    insertHeader.setInt(1, id);
+                    insertLines.setInt(1, id);
+                    insertLines.setInt(2, 10 * id);
+                    insertLines.setInt(3, id);
+                    insertLines.setInt(4, 20 * id);
+                    updateTotal.setInt(1, id);
+                    updateTotal.setInt(2, id);
+                    assertArrayEquals(new long[] {1, 2, 1},
+                            con.executePreparedStatements(Arrays.asList(insertHeader, insertLines, updateTotal)));
+                }
+
+                // A statement with a batch is executed once per row, and its batch is cleared
+                insertHeader.setInt(1, 3);
+                for (int line = 1; line <= 3; line++) {
+                    insertLine.setInt(1, 3);
+                    insertLine.setInt(2, line);
+                    insertLine.setInt(3, 10 * (line + 1));
+                    insertLine.addBatch();
+                }
+                updateTotal.setInt(1, 3);
+                updateTotal.setInt(2, 3);
+                assertArrayEquals(new long[] {1, 1, 1, 1, 1},
+                        con.executePreparedStatements(Arrays.asList(insertHeader, insertLine, updateTotal)));
+                assertEquals(0, insertLine.executeBatch().length);
+
+                // A statement can only be listed once
+                try {
+                    con.executePreparedStatements(Arrays.asList(updateTotal, updateTotal));
+                    fail(TestResource.getResource("R_expectedExceptionNotThrown"));
+                } catch (SQLException e) {
+                    assertFalse(e instanceof BatchUpdateException);
+                }
+
+                // A failed statement and a result set do not stop the next statements
+                select.setInt(1, 1);
+                try {
+                    con.executePreparedStatements(Arrays.asList(insertHeader, select, updateTotal));
+                    fail(TestResource.getResource("R_expectedExceptionNotThrown"));
+                } catch (BatchUpdateException e) {
+                    assertArrayEquals(new long[] {Statement.EXECUTE_FAILED, Statement.EXECUTE_FAILED, 1},
+                            e.getLargeUpdateCounts());
+                }
+
+                try (ResultSet rs = stmt.executeQuery("select id, total from " + header + " order by id")) {
+                    for (int id = 1; id <= 3; id++) {
+                        assertTrue(rs.next());
+                        assertEquals(id, rs.getInt(1));
+                        assertEquals(30 * id, rs.getInt(2));
+                    }
+                    assertFalse(rs.next());
+                }
+            } finally {
+                TestUtils.dropTableIfExists(header, stmt);
+                TestUtils.dropTableIfExists(lines, stmt);
+            }
+        }
+    }
+
     /**
      * Get a PreparedStatement object and call the addBatch() method with 3 SQL statements and call the executeBatch()
      * method and it should return array of Integer values of length 3
@@ -4,6 +4,7 @@
  */
 package com.microsoft.sqlserver.jdbc.unit.statement;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotSame;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
@@ -170,6 +171,45 @@ public class PreparedStatementTest extends AbstractTest {
         testStatementPoolingInternal("BulkCopy");
     }
 
+    /**
+     * Test re-executing a prepared statement when the shape of its parameters changes and changes back.
+     * 
+     * @throws SQLException
+     */
+    @Test
+    public void testParameterShapeChange() throws SQLException {
+        try (SQLServerConnection con = getConnection();
+                SQLServerPreparedStatement pstmt = (SQLServerPreparedStatement) con
+                        .prepareStatement("SELECT CAST(? AS bigint), ?")) {
+            int handle = 0;
+            for (int i = 0; i < 3; i++) {
+                pstmt.setInt(1, i);
+                pstmt.setString(2, "a");
+                assertSelectResult(pstmt, i, "a");
+                handle = pstmt.getPreparedStatementHandle();
+            }
+            assertTrue(0 != handle);
+
+            pstmt.setLong(1, Long.MAX_VALUE);
+            pstmt.setString(2, "b");
+            assertSelectResult(pstmt, Long.MAX_VALUE, "b");
+
+            pstmt.setInt(1, 3);
+            pstmt.setString(2, "c");
+            assertSelectResult(pstmt, 3, "c");
+            assertEquals(handle, pstmt.getPreparedStatementHandle());
+        }
+    }
+
+    private void assertSelectResult(SQLServerPreparedStatement pstmt, long expectedLong,
+            String expectedString) throws SQLException {
+        try (ResultSet rs = pstmt.executeQuery()) {
+            assertTrue(rs.next());
+            assertEquals(expectedLong, rs.getLong(1));
+            assertEquals(expectedString, rs.getString(2));
+        }
+    }
+
     /**
      * Test handling of eviction from statement pooling for prepared statements.
      * 
@@ -0,0 +1,378 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.testframework;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.charset.Charset;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.IntFunction;
+
+
+/**
+ * A canned response of the {@link FakeTDSServer}: a sequence of result sets, update counts and errors, encoded as
+ * COLMETADATA/ROW/DONE, DONE and ERROR/DONE tokens. Rows can be given up front or generated while the response is
+ * written, so large result sets do not have to be held in memory.
+ */
+public final class FakeTDSResponse {
+
+    /**
+     * Column types supported in canned result sets
+     */
+    public enum ColumnType {
+        TINYINT(0x26, 1),
+        SMALLINT(0x26, 2),
+        INT(0x26, 4),
+        BIGINT(0x26, 8),
+        BIT(0x68, 1),
+        REAL(0x6D, 4),
+        FLOAT(0x6D, 8),
+        DECIMAL(0x6A, 0),
+        NVARCHAR(0xE7, 4000),
+        VARCHAR(0xA7, 8000),
+        VARBINARY(0xA5, 8000),
+        TIME(0x29, 5);
+
+        final int tdsType;
+        final int length;
+
+        ColumnType(int tdsType, int length) {
+            this.tdsType = tdsType;
+            this.length = length;
+        }
+    }
+
+    /**
+     * Describes one column of a canned result set
+     */
+    public static final class Column {
+        final String name;
+        final ColumnType type;
+        final int length;
+        final int precision;
+        final int scale;
+
+        private Column(String name, ColumnType type, int length, int precision, int scale) {
+            this.name = name;
+            this.type = type;
+            this.length = length;
+            this.precision = precision;
+            this.scale = scale;
+        }
+
+        /**
+         * Returns a column of the given type, using the maximum length for NVARCHAR, VARCHAR and VARBINARY,
+         * DECIMAL(18, 0) for DECIMAL and TIME(7) for TIME.
+         */
+        public static Column of(String name, ColumnType type) {
+            if (ColumnType.DECIMAL == type)
+                return decimal(name, 18, 0);
+            return new Column(name, type, type.length, 0, (ColumnType.TIME == type) ? 7 : 0);
+        }
+
+        /**
+         * Returns an NVARCHAR or VARCHAR column of the given maximum length in characters, or a VARBINARY column of the
+         * given maximum length in bytes.
+         */
+        public static Column of(String name, ColumnType type, int maxLength) {
+            if (maxLength < 1 || maxLength > type.length || (ColumnType.NVARCHAR != type
+                    && ColumnType.VARCHAR != type && ColumnType.VARBINARY != type))
+                throw new IllegalArgumentException(type + "(" + maxLength + ")");
+            return new Column(name, type, maxLength, 0, 0);
+        }
+
+        /**
+         * Returns a DECIMAL column of the given precision and scale.
+         */
+        public static Column decimal(String name, int precision, int scale) {
+            if (precision < 1 || precision > 38 || scale < 0 || scale > precision)
+                throw new IllegalArgumentException("DECIMAL(" + precision + ", " + scale + ")");
+            return new Column(name, ColumnType.DECIMAL, 1 + decimalMagnitudeLength(precision), precision, scale);
+        }
+    }
+
+    // DONE status bits
+    private static final int DONE_MORE = 0x01;
+    private static final int DONE_ERROR = 0x02;
+    private static final int DONE_COUNT = 0x10;
+
+    // DONE current command values
+    private static final int CMD_SELECT = 0xC1;
+    private static final int CMD_UPDATE = 0xC5;
+
+    private static final int TDS_COLMETADATA = 0x81;
+    private static final int TDS_ERR = 0xAA;
+    private static final int TDS_ROW = 0xD1;
+    static final int TDS_DONE = 0xFD;
+    static final int TDS_DONEINPROC = 0xFF;
+
+    private static final Charset VARCHAR_CHARSET = Charset.forName("windows-1252");
+
+    private static final class Result {
+        Column[] columns;
+        int rowCount;
+        IntFunction<Object[]> rows;
+        long updateCount = -1;
+        int errorNumber;
+        String errorMessage;
+    }
+
+    private final List<Result> results;
+
+    private FakeTDSResponse(List<Result> results) {
+        this.results = results;
+    }
+
+    private static FakeTDSResponse of(Result result) {
+        return new FakeTDSResponse(Collections.singletonList(result));
+    }
+
+    /**
+     * Returns a response with no results, as for a SET statement.
+     */
+    public static FakeTDSResponse empty() {
+        return new FakeTDSResponse(Collections.<Result> emptyList());
+    }
+
+    /**
+     * Returns a response with one result set of the given rows.
+     */
+    public static FakeTDSResponse rows(Column[] columns, Object[]... rows) {
+        return rows(columns, rows.length, i -> rows[i]);
+    }
+
+    /**
+     * Returns a response with one result set of rowCount rows, where each row is produced by the generator while the
+     * response is written.
+     */
+    public static FakeTDSResponse rows(Column[] columns, int rowCount, IntFunction<Object[]> generator) {
+        Result result = new Result();
+        result.columns = columns.clone();
+        result.rowCount = rowCount;
+        result.rows = generator;
+        return of(result);
+    }
+
+    /**
+     * Returns a response with one update count.
+     */
+    public static FakeTDSResponse updateCount(long count) {
+        Result result = new Result();
+        result.updateCount = count;
+        return of(result);
+    }
+
+    /**
+     * Returns a response with one error of severity 16.
+     */
+    public static FakeTDSResponse error(int number, String message) {
+        Result result = new Result();
+        result.errorNumber = number;
+        result.errorMessage = message;
+        return of(result);
+    }
+
+    /**
+     * Returns a response with the results of this response followed by those of the next one.
+     */
+    public FakeTDSResponse then(FakeTDSResponse next) {
+        List<Result> combined = new ArrayList<>(results);
+        combined.addAll(next.results);
+        return new FakeTDSResponse(combined);
+    }
+
+    /**
+     * Writes the tokens of this response. A SQL batch response ends with a final DONE token; in an RPC response each
+     * result ends with DONEINPROC and the caller ends the response with DONEPROC.
+     */
+    void write(FakeTDSServer.ResponseWriter out, boolean inProc) throws IOException {
+        int doneToken = inProc ? TDS_DONEINPROC : TDS_DONE;
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            int more = (inProc || i < results.size() - 1) ? DONE_MORE : 0;
+            if (null != result.columns) {
+                writeColumnMetadata(out, result.columns);
+                for (int row = 0; row < result.rowCount; row++) {
+                    writeRow(out, result.columns, result.rows.apply(row));
+                }
+                writeDone(out, doneToken, DONE_COUNT | more, CMD_SELECT, result.rowCount);
+            } else if (null != result.errorMessage) {
+                writeError(out, result.errorNumber, result.errorMessage);
+                writeDone(out, doneToken, DONE_ERROR | more, 0, 0);
+            } else {
+                writeDone(out, doneToken, DONE_COUNT | more, CMD_UPDATE, result.updateCount);
+            }
+        }
+        if (!inProc && results.isEmpty())
+            writeDone(out, TDS_DONE, 0, 0, 0);
+    }
+
+    static void writeDone(FakeTDSServer.ResponseWriter out, int token, int status, int curCmd,
+            long rowCount) throws IOException {
+        out.writeByte(token);
+        out.writeShort(status);
+        out.writeShort(curCmd);
+        out.writeLong(rowCount);
+    }
+
+    static void writeError(FakeTDSServer.ResponseWriter out, int number, String message) throws IOException {
+        String serverName = FakeTDSServer.SERVER_NAME;
+        out.writeByte(TDS_ERR);
+        out.writeShort(4 + 1 + 1 + 2 + 2 * message.length() + 1 + 2 * serverName.length() + 1 + 4);
+        out.writeInt(number);
+        out.writeByte(1); // state
+        out.writeByte(16); // class
+        out.writeShort(message.length());
+        out.writeUnicode(message);
+        out.writeBVarchar(serverName);
+        out.writeBVarchar(""); // procedure name
+        out.writeInt(1); // line number
+    }
+
+    private static void writeColumnMetadata(FakeTDSServer.ResponseWriter out, Column[] columns) throws IOException {
+        out.writeByte(TDS_COLMETADATA);
+        out.writeShort(columns.length);
+        for (Column column : columns) {
+            out.writeInt(0); // user type
+            out.writeShort(0x0001); // nullable
+            out.writeByte(column.type.tdsType);
+            switch (column.type) {
+                case NVARCHAR:
+                    out.writeShort(2 * column.length);
+                    out.writeBytes(FakeTDSServer.COLLATION);
+                    break;
+                case VARCHAR:
+                    out.writeShort(column.length);
+                    out.writeBytes(FakeTDSServer.COLLATION);
+                    break;
+                case VARBINARY:
+                    out.writeShort(column.length);
+                    break;
+                case DECIMAL:
+                    out.writeByte(column.length);
+                    out.writeByte(column.precision);
+                    out.writeByte(column.scale);
+                    break;
+                case TIME:
+                    out.writeByte(column.scale);
+                    break;
+                default:
+                    out.writeByte(column.length);
+                    break;
+            }
+            out.writeBVarchar(column.name);
+        }
+    }
+
+    private static void writeRow(FakeTDSServer.ResponseWriter out, Column[] columns,
+            Object[] values) throws IOException {
+        if (values.length != columns.length)
+            throw new IllegalArgumentException("Row has " + values.length + " values for " + columns.length
+                    + " columns");
+
+        out.writeByte(TDS_ROW);
+        for (int i = 0; i < columns.length; i++) {
+            Column column = columns[i];
+            Object value = values[i];
+            switch (column.type) {
+                case NVARCHAR:
+                case VARCHAR:
+                case VARBINARY:
+                    if (null == value) {
+                        out.writeShort(0xFFFF);
+                    } else {
+                        byte[] bytes = (ColumnType.VARBINARY == column.type) ? (byte[]) value
+                                                                             : encodeString(column, (String) value);
+                        out.writeShort(bytes.length);
+                        out.writeBytes(bytes);
+                    }
+                    break;
+                case DECIMAL:
+                    writeDecimal(out, column, value);
+                    break;
+                default:
+                    writeFixedLength(out, column, value);
+                    break;
+            }
+        }
+    }
+
+    private static byte[] encodeString(Column column, String value) {
+        byte[] bytes = value.getBytes((ColumnType.NVARCHAR == column.type) ? FakeTDSServer.UNICODE : VARCHAR_CHARSET);
+        if (bytes.length > ((ColumnType.NVARCHAR == column.type) ? 2 : 1) * column.length)
+            throw new IllegalArgumentException("Value too long for column " + column.name);
+        return bytes;
+    }
+
+    private static void writeFixedLength(FakeTDSServer.ResponseWriter out, Column column,
+            Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(0);
+            return;
+        }
+
+        out.writeByte(column.length);
+        switch (column.type) {
+            case BIT:
+                out.writeByte((value instanceof Boolean) ? (((Boolean) value) ? 1 : 0) : ((Number) value).intValue());
+                break;
+            case REAL:
+                out.writeInt(Float.floatToIntBits(((Number) value).floatValue()));
+                break;
+            case FLOAT:
+                out.writeLong(Double.doubleToLongBits(((Number) value).doubleValue()));
+                break;
+            case TIME:
+                // The number of 100 nanosecond units since midnight, little endian
+                long units = ((LocalTime) value).toNanoOfDay() / 100;
+                for (int i = 0; i < column.length; i++) {
+                    out.writeByte((int) (units >>> (8 * i)));
+                }
+                break;
+            default:
+                long number = ((Number) value).longValue();
+                for (int i = 0; i < column.length; i++) {
+                    out.writeByte((int) (number >>> (8 * i)));
+                }
+                break;
+        }
+    }
+
+    private static void writeDecimal(FakeTDSServer.ResponseWriter out, Column column, Object value) throws IOException {
+        if (null == value) {
+            out.writeByte(0);
+            return;
+        }
+
+        BigDecimal decimal = (value instanceof BigDecimal) ? (BigDecimal) value : new BigDecimal(value.toString());
+        BigInteger unscaled = decimal.setScale(column.scale, RoundingMode.HALF_UP).unscaledValue();
+        byte[] magnitude = unscaled.abs().toByteArray();
+        int magnitudeLength = column.length - 1;
+        if (magnitude.length > magnitudeLength + 1 || (magnitude.length == magnitudeLength + 1 && 0 != magnitude[0]))
+            throw new IllegalArgumentException("Value out of range for column " + column.name);
+
+        out.writeByte(column.length);
+        out.writeByte(unscaled.signum() < 0 ? 0 : 1);
+        // The magnitude is little endian; toByteArray() is big endian, possibly with a leading zero byte
+        for (int i = 0; i < magnitudeLength; i++) {
+            out.writeByte(i < magnitude.length ? magnitude[magnitude.length - 1 - i] : 0);
+        }
+    }
+
+    private static int decimalMagnitudeLength(int precision) {
+        if (precision <= 9)
+            return 4;
+        if (precision <= 19)
+            return 8;
+        if (precision <= 28)
+            return 12;
+        return 16;
+    }
+}
@@ -0,0 +1,794 @@
+/*
+ * Microsoft JDBC Driver for SQL Server Copyright(c) Microsoft Corporation All rights reserved. This program is made
+ * available under the terms of the MIT License. See the LICENSE file in the project root for more information.
+ */
+package com.microsoft.sqlserver.testframework;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+
+/**
+ * An in-process TDS endpoint that lets the driver run end to end without a SQL Server, for offline tests and
+ * benchmarks.
+ *
+ * The server handles PRELOGIN (without encryption, so clients must connect with encrypt=false), LOGIN7 (any user and
+ * password), SQL batches, attention signals, and the RPCs the driver uses to execute statements: sp_executesql,
+ * sp_prepexec, sp_prepare, sp_execute and sp_unprepare, including several RPCs batched in one request. The handler
+ * is called with the SQL text of each batch or statement, as the driver sent it, and returns the canned response; a
+ * null response is returned to the driver as an error. For a prepared statement the SQL text is the driver's
+ * parameterized form, such as "SELECT * FROM t WHERE id = @P0". RPCs of stored procedures by name are passed to the
+ * handler as "EXEC name". Bulk load messages are read and acknowledged with an empty DONE.
+ *
+ * Each connection is served by its own daemon thread, so the handler must be thread safe if several connections are
+ * used.
+ *
+ * A server started with {@link #replay(Path, int)} instead answers each request message with the next response
+ * message of a capture recorded by the driver's tdsCaptureFile connection property, byte for byte, so the driver
+ * decodes exactly the packets a real server sent. The requests are not interpreted; the client must send the same
+ * sequence of requests as the captured session.
+ */
+public final class FakeTDSServer implements AutoCloseable {
+
+    /**
+     * Produces the canned response to one SQL batch or RPC
+     */
+    @FunctionalInterface
+    public interface Handler {
+        /**
+         * Returns the response to the given SQL, or null if there is none.
+         */
+        FakeTDSResponse respond(String sql);
+    }
+
+    static final String SERVER_NAME = "FakeTDSServer";
+
+    // SQL_Latin1_General_CP1_CI_AS
+    static final byte[] COLLATION = {0x09, 0x04, (byte) 0xD0, 0x00, 0x34};
+
+    static final Charset UNICODE = Charset.forName("UTF-16LE");
+
+    private static final int HEADER_SIZE = 8;
+    private static final int INITIAL_PACKET_SIZE = 4096;
+    private static final int TDS_VERSION = 0x74000004;
+    private static final int SERVER_MAJOR_VERSION = 15;
+
+    private static final int PKT_QUERY = 1;
+    private static final int PKT_RPC = 3;
+    private static final int PKT_REPLY = 4;
+    private static final int PKT_CANCEL_REQ = 6;
+    private static final int PKT_BULK = 7;
+    private static final int PKT_DTC = 14;
+    private static final int PKT_LOGON70 = 16;
+    private static final int PKT_PRELOGIN = 18;
+
+    private static final int STATUS_BIT_EOM = 0x01;
+
+    private static final int TDS_RET_STAT = 0x79;
+    private static final int TDS_RETURN_VALUE = 0xAC;
+    private static final int TDS_LOGIN_ACK = 0xAD;
+    private static final int TDS_ENV_CHG = 0xE3;
+    private static final int TDS_DONEPROC = 0xFE;
+
+    private static final int ENVCHANGE_DATABASE = 1;
+    private static final int ENVCHANGE_PACKETSIZE = 4;
+    private static final int ENVCHANGE_SQLCOLLATION = 7;
+
+    private static final int DONE_MORE = 0x01;
+    private static final int DONE_ATTN = 0x20;
+
+    private static final int PROCID_SP_EXECUTESQL = 10;
+    private static final int PROCID_SP_PREPARE = 11;
+    private static final int PROCID_SP_EXECUTE = 12;
+    private static final int PROCID_SP_PREPEXEC = 13;
+    private static final int PROCID_SP_UNPREPARE = 15;
+
+    private static final int RPC_BATCH_DELIMITER = 0xFF;
+
+    private static final int PRELOGIN_ENCRYPTION = 0x01;
+    private static final int PRELOGIN_TERMINATOR = 0xFF;
+    private static final int ENCRYPT_NOT_SUP = 0x02;
+
+    private final ServerSocket serverSocket;
+    private final Handler handler;
+    private final List<byte[]> replayMessages;
+    private final int replayFrom;
+    private final Set<Socket> sockets = ConcurrentHashMap.newKeySet();
+    private final Map<Integer, String> preparedStatements = new ConcurrentHashMap<>();
+    private final AtomicInteger nextHandle = new AtomicInteger(1);
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile boolean closed;
+
+    private FakeTDSServer(Handler handler, List<byte[]> replayMessages, int replayFrom) throws IOException {
+        this.handler = handler;
+        this.replayMessages = replayMessages;
+        this.replayFrom = replayFrom;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port.
+     *
+     * @param handler
+     *        produces the responses to the statements the driver executes
+     * @return the running server
+     * @throws IOException
+     *         if the server socket cannot be opened
+     */
+    public static FakeTDSServer start(Handler handler) throws IOException {
+        return start(new FakeTDSServer(handler, null, 0));
+    }
+
+    /**
+     * Starts a server on an ephemeral loopback port that replays a captured TDS response stream. Every connection
+     * starts with the first captured message, the prelogin response, whose encryption option is changed to "not
+     * supported" so that clients connect with encrypt=false. Once the capture is exhausted, the server continues with
+     * message replayFrom, which lets a client repeat the captured queries indefinitely; with a negative replayFrom it
+     * closes the connection instead.
+     *
+     * @param captureFile
+     *        a file recorded with the tdsCaptureFile connection property
+     * @param replayFrom
+     *        the index of the message to continue with after the last one, or -1
+     * @return the running server
+     * @throws IOException
+     *         if the capture cannot be read or is not a sequence of TDS packets, or the server socket cannot be opened
+     */
+    public static FakeTDSServer replay(Path captureFile, int replayFrom) throws IOException {
+        List<byte[]> messages = splitMessages(Files.readAllBytes(captureFile));
+        if (messages.isEmpty() || replayFrom >= messages.size())
+            throw new IOException("Capture has " + messages.size() + " messages, cannot replay from " + replayFrom);
+        disablePreloginEncryption(messages.get(0));
+        return start(new FakeTDSServer(null, messages, replayFrom));
+    }
+
+    /**
+     * Splits a captured response stream into messages, each being the raw packets up to and including one with the
+     * end of message status.
+     */
+    public static List<byte[]> splitMessages(byte[] capture) throws IOException {
+        List<byte[]> messages = new ArrayList<>();
+        int start = 0;
+        int offset = 0;
+        while (offset < capture.length) {
+            if (capture.length - offset < HEADER_SIZE || PKT_REPLY != capture[offset])
+                throw new IOException("Invalid TDS packet at offset " + offset);
+            int length = ((capture[offset + 2] & 0xFF) << 8) | (capture[offset + 3] & 0xFF);
+            if (length < HEADER_SIZE || capture.length - offset < length)
+                throw new IOException("Invalid TDS packet length " + length + " at offset " + offset);
+            boolean eom = 0 != (capture[offset + 1] & STATUS_BIT_EOM);
+            offset += length;
+            if (eom) {
+                byte[] message = new byte[offset - start];
+                System.arraycopy(capture, start, message, 0, message.length);
+                messages.add(message);
+                start = offset;
+            }
+        }
+        if (start != offset)
+            throw new IOException("Capture ends in the middle of a message");
+        return messages;
+    }
+
+    private static void disablePreloginEncryption(byte[] prelogin) throws IOException {
+        // Option table entries are a token and the big endian offset and length of its data within the payload
+        for (int entry = HEADER_SIZE; entry < prelogin.length
+                && PRELOGIN_TERMINATOR != (prelogin[entry] & 0xFF); entry += 5) {
+            if (PRELOGIN_ENCRYPTION == prelogin[entry]) {
+                int dataOffset = ((prelogin[entry + 1] & 0xFF) << 8) | (prelogin[entry + 2] & 0xFF);
+                prelogin[HEADER_SIZE + dataOffset] = ENCRYPT_NOT_SUP;
+                return;
+            }
+        }
+        throw new IOException("First captured message is not a prelogin response");
+    }
+
+    private static FakeTDSServer start(FakeTDSServer server) {
+        Thread acceptor = new Thread(server::acceptConnections, SERVER_NAME + "-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return server;
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns a connection string for this server.
+     */
+    public String getConnectionString() {
+        return "jdbc:sqlserver://localhost:" + getPort() + ";encrypt=false;user=" + SERVER_NAME + ";password="
+                + SERVER_NAME + ";";
+    }
+
+    /**
+     * Returns the number of connections accepted so far.
+     */
+    public int getConnectionCount() {
+        return connectionCount.get();
+    }
+
+    /**
+     * Returns the number of SQL batches and statement RPCs handled so far, or when replaying, the number of response
+     * messages sent.
+     */
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        serverSocket.close();
+        for (Socket socket : sockets) {
+            socket.close();
+        }
+    }
+
+    private void acceptConnections() {
+        while (!closed) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+            } catch (IOException e) {
+                // The server socket has been closed
+                return;
+            }
+
+            sockets.add(socket);
+            int spid = 50 + connectionCount.incrementAndGet();
+            Thread thread = new Thread(new Session(socket, spid), SERVER_NAME + "-session-" + spid);
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    /**
+     * Frames the response written to it as TDS reply packets of the negotiated size
+     */
+    static final class ResponseWriter {
+        private final OutputStream out;
+        private final byte[] packet;
+        private final int spid;
+        private int position = HEADER_SIZE;
+        private int packetId = 1;
+
+        ResponseWriter(OutputStream out, int packetSize, int spid) {
+            this.out = out;
+            this.packet = new byte[packetSize];
+            this.spid = spid;
+        }
+
+        void writeByte(int value) throws IOException {
+            if (packet.length == position)
+                writePacket(false);
+            packet[position++] = (byte) value;
+        }
+
+        void writeShort(int value) throws IOException {
+            writeByte(value);
+            writeByte(value >>> 8);
+        }
+
+        void writeInt(int value) throws IOException {
+            writeShort(value);
+            writeShort(value >>> 16);
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt((int) value);
+            writeInt((int) (value >>> 32));
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            int offset = 0;
+            while (offset < bytes.length) {
+                if (packet.length == position)
+                    writePacket(false);
+                int length = Math.min(bytes.length - offset, packet.length - position);
+                System.arraycopy(bytes, offset, packet, position, length);
+                position += length;
+                offset += length;
+            }
+        }
+
+        void writeUnicode(String value) throws IOException {
+            writeBytes(value.getBytes(UNICODE));
+        }
+
+        void writeBVarchar(String value) throws IOException {
+            writeByte(value.length());
+            writeUnicode(value);
+        }
+
+        void endMessage() throws IOException {
+            writePacket(true);
+            out.flush();
+        }
+
+        private void writePacket(boolean eom) throws IOException {
+            packet[0] = PKT_REPLY;
+            packet[1] = (byte) (eom ? STATUS_BIT_EOM : 0);
+            packet[2] = (byte) (position >>> 8);
+            packet[3] = (byte) position;
+            packet[4] = (byte) (spid >>> 8);
+            packet[5] = (byte) spid;
+            packet[6] = (byte) packetId++;
+            packet[7] = 0;
+            out.write(packet, 0, position);
+            position = HEADER_SIZE;
+        }
+    }
+
+    /**
+     * Reads the little endian fields of a request message
+     */
+    private static final class RequestReader {
+        private final byte[] payload;
+        private int position;
+
+        RequestReader(byte[] payload) {
+            this.payload = payload;
+        }
+
+        boolean hasRemaining() {
+            return position < payload.length;
+        }
+
+        int peekByte() {
+            return payload[position] & 0xFF;
+        }
+
+        int readByte() throws IOException {
+            if (position >= payload.length)
+                throw new EOFException("Unexpected end of request");
+            return payload[position++] & 0xFF;
+        }
+
+        int readShort() throws IOException {
+            return readByte() | (readByte() << 8);
+        }
+
+        int readInt() throws IOException {
+            return readShort() | (readShort() << 16);
+        }
+
+        long readLong() throws IOException {
+            return (readInt() & 0xFFFFFFFFL) | ((long) readInt() << 32);
+        }
+
+        byte[] readBytes(int length) throws IOException {
+            if (length < 0 || position + length > payload.length)
+                throw new EOFException("Unexpected end of request");
+            byte[] bytes = new byte[length];
+            System.arraycopy(payload, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+
+        String readUnicode(int chars) throws IOException {
+            return new String(readBytes(2 * chars), UNICODE);
+        }
+
+        void skip(int length) throws IOException {
+            readBytes(length);
+        }
+    }
+
+    /**
+     * One RPC of a request, with the values of its INT and string parameters
+     */
+    private static final class Rpc {
+        int procId;
+        String procName;
+        final List<String> paramNames = new ArrayList<>();
+        final List<Object> paramValues = new ArrayList<>();
+    }
+
+    /**
+     * Serves one client connection
+     */
+    private final class Session implements Runnable {
+        private final Socket socket;
+        private final int spid;
+        private DataInputStream in;
+        private OutputStream out;
+        private ResponseWriter writer;
+        private int messageType;
+
+        Session(Socket socket, int spid) {
+            this.socket = socket;
+            this.spid = spid;
+        }
+
+        @Override
+        public void run() {
+            try {
+                in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                out = socket.getOutputStream();
+                writer = new ResponseWriter(out, INITIAL_PACKET_SIZE, spid);
+
+                if (null != replayMessages) {
+                    replay();
+                    return;
+                }
+
+                byte[] payload;
+                while (null != (payload = readMessage())) {
+                    switch (messageType) {
+                        case PKT_PRELOGIN:
+                            onPrelogin();
+                            break;
+                        case PKT_LOGON70:
+                            onLogin(new RequestReader(payload));
+                            break;
+                        case PKT_QUERY:
+                            onBatch(new RequestReader(payload));
+                            break;
+                        case PKT_RPC:
+                            onRpc(new RequestReader(payload));
+                            break;
+                        case PKT_CANCEL_REQ:
+                            FakeTDSResponse.writeDone(writer, FakeTDSResponse.TDS_DONE, DONE_ATTN, 0, 0);
+                            writer.endMessage();
+                            break;
+                        case PKT_BULK:
+                        case PKT_DTC:
+                            FakeTDSResponse.writeDone(writer, FakeTDSResponse.TDS_DONE, 0, 0, 0);
+                            writer.endMessage();
+                            break;
+                        default:
+                            throw new IOException("Unsupported TDS message type " + messageType);
+                    }
+                }
+            } catch (IOException e) {
+                // The client or the server closed the connection, or the client sent something unsupported
+            } finally {
+                sockets.remove(socket);
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    // Nothing more to do
+                }
+            }
+        }
+
+        private void replay() throws IOException {
+            int next = 0;
+            while (null != readMessage()) {
+                if (next == replayMessages.size()) {
+                    if (replayFrom < 0)
+                        return;
+                    next = replayFrom;
+                }
+                out.write(replayMessages.get(next++));
+                out.flush();
+                requestCount.incrementAndGet();
+            }
+        }
+
+        /**
+         * Reads the packets of the next request message, returning its payload or null if the client has closed the
+         * connection.
+         */
+        private byte[] readMessage() throws IOException {
+            ByteArrayOutputStream payload = new ByteArrayOutputStream();
+            byte[] header = new byte[HEADER_SIZE];
+            while (true) {
+                int first = in.read();
+                if (-1 == first) {
+                    if (0 == payload.size())
+                        return null;
+                    throw new EOFException("Connection closed in the middle of a message");
+                }
+                header[0] = (byte) first;
+                in.readFully(header, 1, HEADER_SIZE - 1);
+
+                messageType = header[0] & 0xFF;
+                int length = ((header[2] & 0xFF) << 8) | (header[3] & 0xFF);
+                if (length < HEADER_SIZE)
+                    throw new IOException("Invalid TDS packet length " + length);
+                byte[] data = new byte[length - HEADER_SIZE];
+                in.readFully(data);
+                payload.write(data);
+
+                if (0 != (header[1] & STATUS_BIT_EOM))
+                    return payload.toByteArray();
+            }
+        }
+
+        private void onPrelogin() throws IOException {
+            // VERSION and ENCRYPTION options, terminator, then their data
+            int optionTableLength = 2 * 5 + 1;
+            writer.writeByte(0x00);
+            writer.writeByte(0);
+            writer.writeByte(optionTableLength);
+            writer.writeByte(0);
+            writer.writeByte(6);
+            writer.writeByte(0x01);
+            writer.writeByte(0);
+            writer.writeByte(optionTableLength + 6);
+            writer.writeByte(0);
+            writer.writeByte(1);
+            writer.writeByte(0xFF);
+
+            writer.writeByte(SERVER_MAJOR_VERSION);
+            writer.writeByte(0);
+            writer.writeByte(0x07); // build 2000, big endian
+            writer.writeByte(0xD0);
+            writer.writeShort(0); // sub build
+            writer.writeByte(0x02); // ENCRYPT_NOT_SUP
+            writer.endMessage();
+        }
+
+        private void onLogin(RequestReader request) throws IOException {
+            request.skip(4); // length
+            request.skip(4); // TDS version
+            int packetSize = request.readInt();
+            request.skip(68 - 12);
+            int databaseOffset = request.readShort();
+            int databaseLength = request.readShort();
+            request.position = databaseOffset;
+            String database = (0 == databaseLength) ? "master" : request.readUnicode(databaseLength);
+
+            // Any size the client asks for within the TDS limits is accepted
+            if (packetSize < 512 || packetSize > 32767)
+                packetSize = INITIAL_PACKET_SIZE;
+
+            writeStringEnvChange(ENVCHANGE_DATABASE, database, "master");
+
+            writer.writeByte(TDS_ENV_CHG);
+            writer.writeShort(1 + 1 + COLLATION.length + 1);
+            writer.writeByte(ENVCHANGE_SQLCOLLATION);
+            writer.writeByte(COLLATION.length);
+            writer.writeBytes(COLLATION);
+            writer.writeByte(0);
+
+            String programName = "Microsoft SQL Server";
+            writer.writeByte(TDS_LOGIN_ACK);
+            writer.writeShort(1 + 4 + 1 + 2 * programName.length() + 4);
+            writer.writeByte(1); // SQL interface
+            writer.writeByte(TDS_VERSION >>> 24); // TDS version, big endian
+            writer.writeByte(TDS_VERSION >>> 16);
+            writer.writeByte(TDS_VERSION >>> 8);
+            writer.writeByte(TDS_VERSION);
+            writer.writeBVarchar(programName);
+            writer.writeByte(SERVER_MAJOR_VERSION);
+            writer.writeByte(0);
+            writer.writeByte(0x07);
+            writer.writeByte(0xD0);
+
+            writeStringEnvChange(ENVCHANGE_PACKETSIZE, Integer.toString(packetSize),
+                    Integer.toString(INITIAL_PACKET_SIZE));
+            FakeTDSResponse.writeDone(writer, FakeTDSResponse.TDS_DONE, 0, 0, 0);
+            writer.endMessage();
+
+            writer = new ResponseWriter(out, packetSize, spid);
+        }
+
+        private void writeStringEnvChange(int type, String newValue, String oldValue) throws IOException {
+            writer.writeByte(TDS_ENV_CHG);
+            writer.writeShort(1 + 1 + 2 * newValue.length() + 1 + 2 * oldValue.length());
+            writer.writeByte(type);
+            writer.writeBVarchar(newValue);
+            writer.writeBVarchar(oldValue);
+        }
+
+        private void onBatch(RequestReader request) throws IOException {
+            skipAllHeaders(request);
+            String sql = request.readUnicode((request.payload.length - request.position) / 2);
+            respond(sql).write(writer, false);
+            writer.endMessage();
+        }
+
+        private void onRpc(RequestReader request) throws IOException {
+            skipAllHeaders(request);
+            List<Rpc> rpcs = new ArrayList<>();
+            while (request.hasRemaining()) {
+                if (!rpcs.isEmpty()) {
+                    if (RPC_BATCH_DELIMITER != request.readByte())
+                        throw new IOException("Expected RPC batch delimiter");
+                }
+                rpcs.add(readRpc(request));
+            }
+
+            for (int i = 0; i < rpcs.size(); i++) {
+                executeRpc(rpcs.get(i), i < rpcs.size() - 1);
+            }
+            writer.endMessage();
+        }
+
+        private void executeRpc(Rpc rpc, boolean more) throws IOException {
+            Integer newHandle = null;
+            FakeTDSResponse response;
+            switch (rpc.procId) {
+                case PROCID_SP_EXECUTESQL:
+                    response = respond(stringParam(rpc, 0));
+                    break;
+                case PROCID_SP_PREPEXEC:
+                case PROCID_SP_PREPARE:
+                    newHandle = nextHandle.getAndIncrement();
+                    String sql = stringParam(rpc, 2);
+                    preparedStatements.put(newHandle, sql);
+                    response = (PROCID_SP_PREPEXEC == rpc.procId) ? respond(sql) : FakeTDSResponse.empty();
+                    break;
+                case PROCID_SP_EXECUTE:
+                    String prepared = preparedStatements.get(((Number) rpc.paramValues.get(0)).intValue());
+                    response = (null != prepared) ? respond(prepared)
+                                                  : FakeTDSResponse.error(8179,
+                                                          "Could not find prepared statement with handle "
+                                                                  + rpc.paramValues.get(0) + ".");
+                    break;
+                case PROCID_SP_UNPREPARE:
+                    preparedStatements.remove(((Number) rpc.paramValues.get(0)).intValue());
+                    response = FakeTDSResponse.empty();
+                    break;
+                case 0:
+                    response = respond("EXEC " + rpc.procName);
+                    break;
+                default:
+                    response = FakeTDSResponse.error(2812,
+                            "Could not find stored procedure with id " + rpc.procId + " on " + SERVER_NAME + ".");
+                    break;
+            }
+
+            response.write(writer, true);
+
+            writer.writeByte(TDS_RET_STAT);
+            writer.writeInt(0);
+
+            if (null != newHandle) {
+                String name = rpc.paramNames.get(0);
+                writer.writeByte(TDS_RETURN_VALUE);
+                writer.writeShort(0); // ordinal
+                writer.writeBVarchar(name);
+                writer.writeByte(0x01); // output parameter
+                writer.writeInt(0); // user type
+                writer.writeShort(0x0001); // nullable
+                writer.writeByte(0x26); // INTN
+                writer.writeByte(4);
+                writer.writeByte(4);
+                writer.writeInt(newHandle);
+            }
+
+            FakeTDSResponse.writeDone(writer, TDS_DONEPROC, more ? DONE_MORE : 0, 0, 0);
+        }
+
+        private FakeTDSResponse respond(String sql) {
+            requestCount.incrementAndGet();
+            FakeTDSResponse response = handler.respond(sql);
+            if (null == response)
+                response = FakeTDSResponse.error(2812, SERVER_NAME + " has no response for: " + sql);
+            return response;
+        }
+
+        private String stringParam(Rpc rpc, int index) throws IOException {
+            if (rpc.paramValues.size() <= index || !(rpc.paramValues.get(index) instanceof String))
+                throw new IOException("RPC parameter " + index + " is not a string");
+            return (String) rpc.paramValues.get(index);
+        }
+
+        private void skipAllHeaders(RequestReader request) throws IOException {
+            int totalLength = request.readInt();
+            request.skip(totalLength - 4);
+        }
+
+        private Rpc readRpc(RequestReader request) throws IOException {
+            Rpc rpc = new Rpc();
+            int nameLength = request.readShort();
+            if (0xFFFF == nameLength)
+                rpc.procId = request.readShort();
+            else
+                rpc.procName = request.readUnicode(nameLength);
+            request.skip(2); // option flags
+
+            while (request.hasRemaining() && RPC_BATCH_DELIMITER != request.peekByte()) {
+                rpc.paramNames.add(request.readUnicode(request.readByte()));
+                request.skip(1); // status
+                rpc.paramValues.add(readParamValue(request));
+            }
+            return rpc;
+        }
+
+        /**
+         * Reads the TYPE_INFO and value of an RPC parameter, returning the value of INT and string parameters and null
+         * for the others.
+         */
+        private Object readParamValue(RequestReader request) throws IOException {
+            int type = request.readByte();
+            switch (type) {
+                case 0x26: // INTN
+                    request.skip(1);
+                    int intLength = request.readByte();
+                    switch (intLength) {
+                        case 0:
+                            return null;
+                        case 1:
+                            return request.readByte();
+                        case 2:
+                            return (short) request.readShort();
+                        case 4:
+                            return request.readInt();
+                        case 8:
+                            return request.readLong();
+                        default:
+                            throw new IOException("Invalid INTN length " + intLength);
+                    }
+                case 0x68: // BITN
+                case 0x6D: // FLTN
+                case 0x6E: // MONEYN
+                case 0x6F: // DATETIMEN
+                case 0x24: // GUID
+                    request.skip(1);
+                    request.skip(request.readByte());
+                    return null;
+                case 0x6A: // DECIMALN
+                case 0x6C: // NUMERICN
+                    request.skip(3);
+                    request.skip(request.readByte());
+                    return null;
+                case 0x28: // DATEN
+                    request.skip(request.readByte());
+                    return null;
+                case 0x29: // TIMEN
+                case 0x2A: // DATETIME2N
+                case 0x2B: // DATETIMEOFFSETN
+                    request.skip(1);
+                    request.skip(request.readByte());
+                    return null;
+                case 0xA5: // BIGVARBINARY
+                case 0xAD: // BIGBINARY
+                    readVariableLength(request, request.readShort());
+                    return null;
+                case 0xE7: // NVARCHAR
+                case 0xEF: // NCHAR
+                case 0xA7: // BIGVARCHAR
+                case 0xAF: // BIGCHAR
+                    int maxLength = request.readShort();
+                    request.skip(COLLATION.length);
+                    byte[] bytes = readVariableLength(request, maxLength);
+                    if (null == bytes || 0xA7 == type || 0xAF == type)
+                        return null;
+                    return new String(bytes, UNICODE);
+                default:
+                    throw new IOException("Unsupported RPC parameter type 0x" + Integer.toHexString(type));
+            }
+        }
+
+        private byte[] readVariableLength(RequestReader request, int maxLength) throws IOException {
+            if (0xFFFF != maxLength) {
+                int length = request.readShort();
+                return (0xFFFF == length) ? null : request.readBytes(length);
+            }
+
+            // PLP value: total length (or null), then chunks up to a zero length terminator
+            if (-1L == request.readLong())
+                return null;
+            ByteArrayOutputStream value = new ByteArrayOutputStream();
+            int chunkLength;
+            while (0 != (chunkLength = request.readInt())) {
+                value.write(request.readBytes(chunkLength));
+            }
+            return value.toByteArray();
+        }
+    }
+}